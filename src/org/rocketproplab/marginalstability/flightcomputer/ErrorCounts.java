@@ -0,0 +1,83 @@
+package org.rocketproplab.marginalstability.flightcomputer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Metric;
+
+/**
+ * Counts how often every error occurred and how many of those occurrences
+ * were already reported to the command box. Counting never locks so errors
+ * can be counted from any thread. As a {@link Metric} every error is a value
+ * and the summary is the total of all errors.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class ErrorCounts implements Metric {
+
+  private final AtomicLongArray occurrences;
+  private final AtomicLongArray reported;
+
+  /**
+   * Create new counts with no errors
+   */
+  public ErrorCounts() {
+    this.occurrences = new AtomicLongArray(Errors.values().length);
+    this.reported    = new AtomicLongArray(Errors.values().length);
+  }
+
+  /**
+   * Counts an occurrence of the error
+   *
+   * @param error the error which occurred
+   * @return the number of occurrences including this one
+   */
+  public long increment(Errors error) {
+    return this.occurrences.incrementAndGet(error.ordinal());
+  }
+
+  /**
+   * @param error the error to look up
+   * @return the number of times the error occurred
+   */
+  public long getCount(Errors error) {
+    return this.occurrences.get(error.ordinal());
+  }
+
+  /**
+   * @param error the error to look up
+   * @return the count last seen leaving for the command box
+   */
+  public long getReportedCount(Errors error) {
+    return this.reported.get(error.ordinal());
+  }
+
+  /**
+   * Remembers the count seen leaving for the command box
+   *
+   * @param error the error reported
+   * @param count the count which was reported
+   */
+  public void setReportedCount(Errors error, long count) {
+    this.reported.set(error.ordinal(), count);
+  }
+
+  @Override
+  public int getValueCount() {
+    return this.occurrences.length();
+  }
+
+  @Override
+  public double getValue(int index) {
+    return this.occurrences.get(index);
+  }
+
+  @Override
+  public long getSummary() {
+    long total = 0;
+    for (int i = 0; i < this.occurrences.length(); i++) {
+      total += this.occurrences.get(i);
+    }
+    return total;
+  }
+}
@@ -1,23 +1,57 @@
 package org.rocketproplab.marginalstability.flightcomputer;
 
+/**
+ * Every error and warning the flight computer reports, grouped by the
+ * subsystem which reports it. The ordinal is the code sent to the command box
+ * and stored in the flight recording so codes must only ever be appended.
+ *
+ * @author Max Apodaca
+ *
+ */
 public enum Errors {
 
-  UNKNOWN_ERROR("Unexpected error occured!"),
-  TOP_LEVEL_EXCEPTION("Exception in main loop occured");
-  
-  private String errorMessage;
-  
+  UNKNOWN_ERROR("Flight Computer", false, "Unexpected error occured!"),
+  TOP_LEVEL_EXCEPTION("Flight Computer", false, "Exception in main loop occured"),
+  BLACK_BOX_DUMP_FAILED("Flight Computer", true, "Unable to dump the black box"),
+  IMU_BUS_ERROR("IMU", true, "IMU bus transaction failed"),
+  BAROMETER_BUS_ERROR("Barometer", true, "Barometer bus transaction failed"),
+  UART_BUS_ERROR("UART", true, "UART bus transaction failed"),
+  RECORDER_OPEN_FAILED("Flight Computer", true, "Unable to open the flight recording");
+
+  private String  subsystem;
+  private boolean warning;
+  private String  errorMessage;
+
   /**
    * Sets the error message in the error
-   * @param errorMessage
+   *
+   * @param subsystem    the subsystem reporting the error
+   * @param warning      if the flight computer can carry on unaffected
+   * @param errorMessage the description of the error
    */
-  Errors(String errorMessage) {
+  Errors(String subsystem, boolean warning, String errorMessage) {
+    this.subsystem    = subsystem;
+    this.warning      = warning;
     this.errorMessage = errorMessage;
   }
-  
+
+  /**
+   * @return the subsystem reporting the error
+   */
+  public String getSubsystem() {
+    return this.subsystem;
+  }
+
+  /**
+   * @return true if this is a warning which is sent on the warning channel
+   */
+  public boolean isWarning() {
+    return this.warning;
+  }
+
   @Override
   public String toString() {
     return this.errorMessage;
   }
-  
+
 }
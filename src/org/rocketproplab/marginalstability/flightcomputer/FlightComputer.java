@@ -2,27 +2,86 @@ package org.rocketproplab.marginalstability.flightcomputer;
 
 import java.util.ArrayList;
 
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Histogram;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.profiling.SubsystemUpdateEvent;
+import org.rocketproplab.marginalstability.flightcomputer.profiling.TickEvent;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.Subsystem;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+import org.rocketproplab.marginalstability.flightcomputer.trace.BlackBox;
+import org.rocketproplab.marginalstability.flightcomputer.trace.TraceType;
 
 public class FlightComputer {
+  private static final double NS_PER_US = 1000;
+
   private ArrayList<Subsystem> subsystems;
   private Telemetry telemetry;
+  private TickTime tickTime;
+  private Counter ticks;
+  private Counter subsystemErrors;
+  private Histogram tickDuration;
+  private BlackBox blackBox;
   public FlightComputer(Telemetry telemetry) {
+    this(telemetry, null);
+  }
+
+  /**
+   * Create a new flight computer which latches the given time at the start of
+   * every tick so all subsystems see the same time during the tick
+   * 
+   * @param telemetry the telemetry to report errors to
+   * @param tickTime  the time to latch, may be null
+   */
+  public FlightComputer(Telemetry telemetry, TickTime tickTime) {
     this.subsystems = new ArrayList<>();
     this.telemetry = telemetry;
+    this.tickTime = tickTime;
+    this.ticks = new Counter();
+    this.subsystemErrors = new Counter();
+    this.tickDuration = new Histogram(Histogram.exponentialBounds(10, 2, 16));
+  }
+
+  /**
+   * Registers the number of ticks, the number of exceptions thrown by
+   * subsystems and how long each tick took in us
+   * 
+   * @param registry the registry to register with
+   */
+  public void registerMetrics(MetricsRegistry registry) {
+    registry.register("flight_computer.ticks", this.ticks);
+    registry.register("flight_computer.subsystem_errors", this.subsystemErrors);
+    registry.register("flight_computer.tick_duration", this.tickDuration);
   }
   
+  /**
+   * Sets the black box subsystem updates are traced to. When a subsystem
+   * throws the recent events are logged to telemetry and dumped.
+   * 
+   * @param blackBox the black box to trace to or null for none
+   */
+  public void setBlackBox(BlackBox blackBox) {
+    this.blackBox = blackBox;
+  }
+
   public void registerSubsystem(Subsystem subsystem) {
     this.subsystems.add(subsystem);
   }
   
   public void tick() {
+    TickEvent tickEvent = new TickEvent();
+    tickEvent.begin();
+    long start    = System.nanoTime();
+    int  failures = 0;
+    if (this.tickTime != null) {
+      this.tickTime.latch();
+    }
     try {
-      for(Subsystem subsystem : this.subsystems) {
-        try {
-          subsystem.update();
-        } catch (Exception e) {
+      for (int i = 0; i < this.subsystems.size(); i++) {
+        if (!this.update(this.subsystems.get(i), i)) {
+          failures++;
+          this.subsystemErrors.increment();
+          this.traceError(i, Errors.TOP_LEVEL_EXCEPTION);
           this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
         }
       }
@@ -30,6 +89,68 @@ public class FlightComputer {
       System.err.println("Unable to log errors!");
       e.printStackTrace();
     }
-    
+    this.ticks.increment();
+    this.tickDuration.record((System.nanoTime() - start) / NS_PER_US);
+    tickEvent.end();
+    if (tickEvent.shouldCommit()) {
+      tickEvent.subsystems = this.subsystems.size();
+      tickEvent.failures   = failures;
+      tickEvent.commit();
+    }
+  }
+
+  /**
+   * Updates a single subsystem, recording a {@link SubsystemUpdateEvent} if
+   * it is enabled
+   * 
+   * @param subsystem the subsystem to update
+   * @param index     the index of the subsystem used when tracing
+   * @return if the update completed without an exception
+   */
+  private boolean update(Subsystem subsystem, int index) {
+    BlackBox             box   = this.blackBox;
+    SubsystemUpdateEvent event = new SubsystemUpdateEvent();
+    if (box != null) {
+      box.trace(TraceType.SUBSYSTEM_ENTER, index, 0);
+    }
+    event.begin();
+    boolean completed;
+    try {
+      subsystem.update();
+      completed = true;
+    } catch (Exception e) {
+      completed = false;
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.subsystem = subsystem.getClass().getName();
+      event.failed    = !completed;
+      event.commit();
+    }
+    if (box != null) {
+      box.trace(TraceType.SUBSYSTEM_EXIT, index, completed ? 0 : 1);
+    }
+    return completed;
+  }
+
+  /**
+   * Traces the error and, at most once every
+   * {@link Settings#BLACK_BOX_DUMP_PERIOD}, logs the events leading up to it
+   * and snapshots the black box for its writer thread to dump
+   * 
+   * @param index the index of the subsystem which caused the error
+   * @param error the error reported
+   */
+  private void traceError(int index, Errors error) {
+    BlackBox box = this.blackBox;
+    if (box == null) {
+      return;
+    }
+    box.trace(TraceType.ERROR, index, error.ordinal());
+    if (!box.claimDump()) {
+      return;
+    }
+    this.telemetry.logTrace(box.summarize(Settings.BLACK_BOX_SUMMARY_LENGTH));
+    box.dumpInBackground(e -> this.telemetry.reportError(Errors.BLACK_BOX_DUMP_FAILED));
   }
 }
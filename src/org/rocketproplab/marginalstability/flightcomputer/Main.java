@@ -1,36 +1,98 @@
 package org.rocketproplab.marginalstability.flightcomputer;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
 import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.commands.CommandScheduler;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecorder;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.ErrorReportingSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.LinkStatisticsSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.MetricsSubsystem;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.PTSubsystem;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.ParachuteSubsystem;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.TelemetryScheduler;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.ValveStateSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.trace.BlackBox;
 
 public class Main {
 
   public static void main(String[] args) {
-    FlightComputer flightComputer = new FlightComputer(Telemetry.getInstance());
-    Main.registerSubsystems(flightComputer);
-    Main.registerPacketListeners();
+    TickTime        time           = TickTime.getInstance();
+    FlightComputer  flightComputer = new FlightComputer(Telemetry.getInstance(), time);
+    MetricsRegistry metrics        = new MetricsRegistry();
+    Main.registerSubsystems(flightComputer, time);
+    MetricsSubsystem metricsSubsystem = Main.registerMetrics(flightComputer, metrics, time);
+    Main.registerPacketListeners(time);
+    Main.registerBlackBox(flightComputer, time);
+    Main.registerRecorder(flightComputer, metricsSubsystem, time);
     
 //    while(true) {
 //      flightComputer.tick();
 //    }
   }
 
-  private static void registerSubsystems(FlightComputer flightComputer) {
+  private static void registerSubsystems(FlightComputer flightComputer, Time time) {
     Telemetry telemetry = Telemetry.getInstance();
     telemetry.logInfo(Info.INIT_SUBSYSTEMS_START);
     flightComputer.registerSubsystem(ParachuteSubsystem.getInstance());
+    ErrorReportingSubsystem errorReporting = new ErrorReportingSubsystem(telemetry, time);
+    LinkStatisticsSubsystem linkStatistics = new LinkStatisticsSubsystem(telemetry, time);
+    PacketRouter.getInstance().addListener(errorReporting, SCMPacket.class, PacketSources.CommandBox);
+    PacketRouter.getInstance().addListener(linkStatistics, SCMPacket.class, PacketSources.CommandBox);
+    flightComputer.registerSubsystem(errorReporting);
+    flightComputer.registerSubsystem(linkStatistics);
+    flightComputer.registerSubsystem(TelemetryScheduler.getInstance());
     ValveStateSubsystem.getInstance();
     telemetry.logInfo(Info.FINISH_SUBSYSTEM_START);
   }
 
-  private static void registerPacketListeners() {
+  private static MetricsSubsystem registerMetrics(FlightComputer flightComputer, MetricsRegistry metrics,
+      Time time) {
+    flightComputer.registerMetrics(metrics);
+    PacketRouter.getInstance().registerMetrics(metrics);
+    TelemetryScheduler.getInstance().registerMetrics(metrics);
+    metrics.register("errors", Telemetry.getInstance().getErrorCounts());
+    MetricsSubsystem metricsSubsystem = new MetricsSubsystem(metrics, Telemetry.getInstance(), time);
+    flightComputer.registerSubsystem(metricsSubsystem);
+    return metricsSubsystem;
+  }
+
+  private static void registerBlackBox(FlightComputer flightComputer, TickTime time) {
+    BlackBox blackBox = new BlackBox(Settings.BLACK_BOX_CAPACITY, time.getSource());
+    blackBox.setDumpDirectory(Paths.get("."));
+    flightComputer.setBlackBox(blackBox);
+    PacketRouter.getInstance().setBlackBox(blackBox);
+    CommandScheduler.getInstance().setBlackBox(blackBox);
+    blackBox.start();
+  }
+
+  private static void registerRecorder(FlightComputer flightComputer, MetricsSubsystem metricsSubsystem,
+      Time time) {
+    FlightRecorder recorder;
+    try {
+      recorder = FlightRecorder.create(Paths.get(Settings.RECORDER_DIRECTORY), Settings.RECORDER_PAD_CAPACITY,
+          Settings.RECORDER_CAPACITY, time);
+    } catch (IOException e) {
+      Telemetry.getInstance().reportError(Errors.RECORDER_OPEN_FAILED);
+      return;
+    }
+    Telemetry.getInstance().setRecorder(recorder);
+    metricsSubsystem.setRecorder(recorder);
+    PacketRouter.getInstance().addRoutedPacketListener(recorder);
+    flightComputer.registerSubsystem(recorder);
+    recorder.start();
+  }
+
+  private static void registerPacketListeners(Time time) {
     PacketRouter.getInstance().addListener(ValveStateSubsystem.getInstance(),
         SCMPacket.class, PacketSources.EngineControllerUnit);
+    PacketRouter.getInstance().addListener(new WallClock(time), GPSPacket.class, PacketSources.GPS);
   }
 
 }
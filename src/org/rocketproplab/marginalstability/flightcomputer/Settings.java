@@ -31,6 +31,73 @@ public class Settings {
    */
   public static double MAIN_CHUTE_PRESSURE_TIME_THRESHOLD = 0; // TODO: set time exceeding the threshold needed to deploy main chute
 
+  // State Estimation Settings
+
+  /**
+   * Spectral density of the jerk used as process noise by the altitude filter
+   */
+  public static double KALMAN_JERK_NOISE = 100; // (m/s^3)^2/Hz
+
+  /**
+   * Variance assigned to every state when the altitude filter starts
+   */
+  public static double KALMAN_INITIAL_VARIANCE = 100;
+
+  /**
+   * Variance of a single vertical acceleration sample from the IMU
+   */
+  public static double KALMAN_ACCELERATION_VARIANCE = 0.25; // (m/s^2)^2
+
+  /**
+   * Variance of an altitude derived from the barometer
+   */
+  public static double KALMAN_BAROMETER_VARIANCE = 4; // m^2
+
+  /**
+   * Variance of an altitude reported by the GPS
+   */
+  public static double KALMAN_GPS_VARIANCE = 100; // m^2
+
+  /**
+   * Number of position and velocity estimates kept for interpolation
+   */
+  public static int STATE_HISTORY_LENGTH = 1024;
+
+  /**
+   * Acceleration per LSB of the IMU accelerometer, 0.061 mg/LSB at +/- 2g
+   */
+  public static double IMU_ACCELERATION_SCALE = 0.061e-3 * 9.80665; // m/s^2
+
+  /**
+   * Rotation rate per LSB of the IMU gyroscope, 8.75 mdps/LSB at 245 dps
+   */
+  public static double IMU_GYRO_SCALE = 8.75e-3 * Math.PI / 180; // rad/s
+
+  /**
+   * Gain of the accelerometer correction in the attitude estimator
+   */
+  public static double ATTITUDE_BETA = 0.05;
+
+  /**
+   * The tilt from vertical past which the rocket is considered to be tumbling
+   */
+  public static double TUMBLE_ANGLE = Math.toRadians(60); // rad
+
+  /**
+   * Time between samples of the IMU, the inverse of the configured ODR
+   */
+  public static double IMU_SAMPLE_PERIOD = 1 / 952.0; // s
+
+  /**
+   * Standard gravity, removed from the IMU reading to get the acceleration
+   */
+  public static double GRAVITY = 9.80665; // m/s^2
+
+  /**
+   * Pressure at sea level used to convert barometer readings to altitude
+   */
+  public static double SEA_LEVEL_PRESSURE = 1013.25; // hPa
+
   // Unit conversions
 
   /**
@@ -38,6 +105,11 @@ public class Settings {
    */
   public static double MS_PER_SECOND = 1000; // ms/s
 
+  /**
+   * Conversion constant for how many nanoseconds are in a second
+   */
+  public static double NS_PER_SECOND = 1e9; // ns/s
+
   /**
    * Threshold for periodic heart beat signal
    */
@@ -71,4 +143,231 @@ public class Settings {
    * labeled X1 in the schematic.
    */
   public static int MAX14830_F_REF = 3686400; // Hz
+
+  /**
+   * Size of the software transmit buffer in front of each MAX14830 UART
+   */
+  public static int MAX14830_TX_RING_SIZE = 4096; // bytes
+
+  /**
+   * Number of buffered transmit bytes above which a MAX14830 port reports
+   * backpressure to its writers
+   */
+  public static int MAX14830_TX_HIGH_WATERMARK = 3072; // bytes
+
+  /**
+   * Longest time the MAX14830 trusts its model of a TX FIFO draining before it
+   * reads the level back from the chip
+   */
+  public static double MAX14830_TX_RESYNC_PERIOD = 1; // s
+
+  /**
+   * Time between downlinks of the serial link statistics
+   */
+  public static double LINK_STATISTICS_PERIOD = 5; // s
+
+  // SMS Settings
+
+  /**
+   * Maximum number of SMS messages waiting to be sent, further messages are
+   * dropped
+   */
+  public static int SMS_OUTBOX_SIZE = 8;
+
+  /**
+   * Number of times sending an SMS is attempted before it is reported as failed
+   */
+  public static int SMS_MAX_ATTEMPTS = 3;
+
+  /**
+   * Time to wait for the modem to answer a configuration command or show the
+   * message prompt
+   */
+  public static double SMS_COMMAND_TIMEOUT = 5; // s
+
+  /**
+   * Time to wait for the modem to confirm that a message was sent
+   */
+  public static double SMS_SEND_TIMEOUT = 60; // s
+
+  /**
+   * Delay before the first retry of a failed SMS, doubled for every further
+   * retry
+   */
+  public static double SMS_RETRY_BACKOFF = 2; // s
+
+  // Telemetry Settings
+
+  /**
+   * Bytes per second the telemetry scheduler may send to the command box
+   */
+  public static double TELEMETRY_BYTES_PER_SECOND = 960; // bytes/s
+
+  /**
+   * Largest burst the telemetry scheduler may send at once after being idle
+   */
+  public static double TELEMETRY_BURST_BYTES = 120; // bytes
+
+  /**
+   * Longest time a suppressed telemetry channel goes without being sent
+   */
+  public static double TELEMETRY_REFRESH_PERIOD = 2; // s
+
+  /**
+   * Change in a thermocouple reading needed to send it while on the pad
+   */
+  public static double TELEMETRY_PAD_TEMPERATURE_DEADBAND = 1; // C
+
+  /**
+   * Change in a thermocouple reading needed to send it during the burn
+   */
+  public static double TELEMETRY_BURN_TEMPERATURE_DEADBAND = 0.1; // C
+
+  /**
+   * Change in a pressure reading needed to send it while on the pad
+   */
+  public static double TELEMETRY_PAD_PRESSURE_DEADBAND = 5; // PSI
+
+  /**
+   * Change in a pressure reading needed to send it during the burn
+   */
+  public static double TELEMETRY_BURN_PRESSURE_DEADBAND = 0.5; // PSI
+
+  /**
+   * Length of the window sampled telemetry channels are aggregated over before
+   * being sent
+   */
+  public static double TELEMETRY_AGGREGATE_PERIOD = 0.1; // s
+
+  // Recorder Settings
+
+  /**
+   * Directory the flight recording is created in
+   */
+  public static String RECORDER_DIRECTORY = ".";
+
+  /**
+   * Number of 64 byte records preallocated in the flight recording, including
+   * the ring kept before launch. The rest holds about 28 minutes of flight at
+   * the 952 Hz IMU rate plus the barometer and packets.
+   */
+  public static int RECORDER_CAPACITY = 1 << 21; // records
+
+  /**
+   * Number of records in the ring overwritten before launch, about the last
+   * four minutes on the pad however long the hold
+   */
+  public static int RECORDER_PAD_CAPACITY = 1 << 18; // records
+
+  /**
+   * Time between forcing the flight recording to disk
+   */
+  public static double RECORDER_FORCE_PERIOD = 1; // s
+
+  /**
+   * Virtual time between ticks of the flight computer when replaying a log
+   */
+  public static double REPLAY_TICK_PERIOD = 0.01; // s
+
+  // Metrics Settings
+
+  /**
+   * Time between snapshots of the metrics to the recorder and the downlink
+   */
+  public static double METRICS_PERIOD = 1; // s
+
+  /**
+   * Most metric summaries downlinked per snapshot, the rest wait for the next
+   * snapshot
+   */
+  public static int METRICS_DOWNLINK_LIMIT = 4;
+
+  // Error Reporting Settings
+
+  /**
+   * Time between downlinks of the counts of errors which occurred again since
+   * they were last reported
+   */
+  public static double ERROR_REPORT_PERIOD = 5; // s
+
+  // Black Box Settings
+
+  /**
+   * Number of trace events kept per thread by the black box
+   */
+  public static int BLACK_BOX_CAPACITY = 1024; // events
+
+  /**
+   * Shortest time between two dumps of the black box to disk, errors in
+   * between are still traced but do not write a new file
+   */
+  public static double BLACK_BOX_DUMP_PERIOD = 10; // s
+
+  /**
+   * Number of the most recent trace events logged when an error fires
+   */
+  public static int BLACK_BOX_SUMMARY_LENGTH = 8; // events
+
+  // Clock Settings
+
+  /**
+   * Difference between the GPS time and the wall clock above which the wall
+   * clock jumps to the GPS time instead of slewing towards it
+   */
+  public static double WALL_CLOCK_STEP_THRESHOLD = 1; // s
+
+  /**
+   * Fraction of the difference to the GPS time the wall clock is corrected by
+   * with each GPS fix
+   */
+  public static double WALL_CLOCK_GAIN = 0.1;
+
+  // Simulation Settings
+
+  /**
+   * Simulated time between ticks of the flight computer
+   */
+  public static double SIM_TICK_PERIOD = 0.01; // s
+
+  /**
+   * Time between conversions of the simulated barometer, the 75 Hz data rate
+   * set by the LPS22HD driver
+   */
+  public static double SIM_BAROMETER_PERIOD = 1 / 75.0; // s
+
+  /**
+   * Time between fixes of the simulated GPS
+   */
+  public static double SIM_GPS_PERIOD = 1; // s
+
+  /**
+   * Time the simulated rocket sits on the pad before ignition
+   */
+  public static double SIM_IGNITION_TIME = 2; // s
+
+  /**
+   * Time the simulation keeps running after the rocket landed, the impact
+   * saturates the accelerometer so detecting the landing takes a while
+   */
+  public static double SIM_LANDED_TIME = 30; // s
+
+  /**
+   * Longest time a flight is simulated for
+   */
+  public static double SIM_MAX_TIME = 900; // s
+
+  /**
+   * Standard deviation of the simulated accelerometer noise
+   */
+  public static double SIM_ACCELEROMETER_NOISE = 0.02; // m/s^2
+
+  /**
+   * Standard deviation of the simulated gyroscope noise
+   */
+  public static double SIM_GYROSCOPE_NOISE = 0.002; // rad/s
+
+  /**
+   * Standard deviation of the simulated barometer noise
+   */
+  public static double SIM_PRESSURE_NOISE = 0.01; // hPa
 }
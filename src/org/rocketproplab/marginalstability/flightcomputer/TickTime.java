@@ -0,0 +1,80 @@
+package org.rocketproplab.marginalstability.flightcomputer;
+
+/**
+ * A time which only changes when {@link #latch()} is called. The flight
+ * computer latches it at the start of every tick so every subsystem sees the
+ * same time during a tick and reading it costs a single field access.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class TickTime extends Time {
+  private static TickTime instance;
+
+  /**
+   * The tick time of the flight computer, shared with every singleton so they
+   * all see the same clock. It latches the system time unless
+   * {@link #setSource(Time)} is given another time, such as a replay time.
+   * 
+   * @return the tick time latched by the flight computer
+   */
+  public static TickTime getInstance() {
+    if (instance == null) {
+      instance = new TickTime(new Time());
+    }
+    return instance;
+  }
+
+  private volatile Time   source;
+  private volatile double latchedTime;
+  private volatile long   latchedNanoTime;
+
+  /**
+   * Create a new tick time latching the given source. The source is latched
+   * once straight away.
+   * 
+   * @param source the time to latch each tick
+   */
+  public TickTime(Time source) {
+    this.source = source;
+    this.latch();
+  }
+
+  /**
+   * Reads the source and returns its time until the next call
+   */
+  public void latch() {
+    Time current = this.source;
+    this.latchedNanoTime = current.getNanoTime();
+    this.latchedTime     = current.getSystemTime();
+  }
+
+  @Override
+  public double getSystemTime() {
+    return this.latchedTime;
+  }
+
+  @Override
+  public long getNanoTime() {
+    return this.latchedNanoTime;
+  }
+
+  /**
+   * @return the time being latched
+   */
+  public Time getSource() {
+    return this.source;
+  }
+
+  /**
+   * Switches the time being latched, for example to a replay time, so every
+   * holder of this tick time follows the new source. The source is latched
+   * once straight away.
+   * 
+   * @param source the time to latch each tick
+   */
+  public void setSource(Time source) {
+    this.source = source;
+    this.latch();
+  }
+}
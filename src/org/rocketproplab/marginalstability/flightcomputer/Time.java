@@ -1,14 +1,30 @@
 package org.rocketproplab.marginalstability.flightcomputer;
 
 /**
- * A class to get the current rocket time. At the moment its implementation
- * passed through to System.currentTimeMillis but this might change.
+ * A class to get the current rocket time. The time is monotonic, it is
+ * measured with {@link System#nanoTime()} from the moment the time was created
+ * and starts at the wall clock time of that moment. Changes to the system
+ * clock, for example by NTP, therefore never make the rocket time jump.
+ * 
+ * Subclasses can replace the source of the time, for example for simulations
+ * and replays.
  * 
  * @author Max Apodaca
  *
  */
 public class Time {
 
+  private final long   originNanos;
+  private final double originSeconds;
+
+  /**
+   * Create a new time starting at the current wall clock time
+   */
+  public Time() {
+    this.originNanos   = System.nanoTime();
+    this.originSeconds = System.currentTimeMillis() / Settings.MS_PER_SECOND;
+  }
+
   /**
    * Get the rocket time, this might change at some point in the future. This
    * value should be used for all interpolations.
@@ -16,7 +32,17 @@ public class Time {
    * @return the current rocket time
    */
   public double getSystemTime() {
-    return System.currentTimeMillis() / Settings.MS_PER_SECOND;
+    return this.originSeconds + this.getNanoTime() / Settings.NS_PER_SECOND;
+  }
+
+  /**
+   * Get a monotonic time with nanosecond resolution. Only differences between
+   * two values are meaningful.
+   * 
+   * @return the nanoseconds since this time was created
+   */
+  public long getNanoTime() {
+    return System.nanoTime() - this.originNanos;
   }
 
 }
@@ -0,0 +1,97 @@
+package org.rocketproplab.marginalstability.flightcomputer;
+
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
+
+/**
+ * The UTC time of day disciplined by the GPS. The rocket time never jumps, the
+ * wall clock is the rocket time plus an offset which is corrected with every
+ * valid GPS fix. Small differences are slewed out by
+ * {@link Settings#WALL_CLOCK_GAIN} of the difference per fix, differences
+ * larger than {@link Settings#WALL_CLOCK_STEP_THRESHOLD} are stepped.
+ * 
+ * Until the first fix the wall clock is the rocket time.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class WallClock implements PacketListener<GPSPacket> {
+
+  private static final double SECONDS_PER_DAY    = 86400;
+  private static final double SECONDS_PER_HOUR   = 3600;
+  private static final double SECONDS_PER_MINUTE = 60;
+
+  private Time    time;
+  private double  offset;
+  private boolean synchronizedToGPS;
+
+  /**
+   * Create a new wall clock on top of the rocket time
+   * 
+   * @param time the rocket time
+   */
+  public WallClock(Time time) {
+    this.time = time;
+  }
+
+  @Override
+  public void onPacket(PacketDirection direction, GPSPacket packet) {
+    if (direction == PacketDirection.RECIVE && packet.isValid()) {
+      this.discipline(toSecondsOfDay(packet.getTime()));
+    }
+  }
+
+  /**
+   * Corrects the offset with a GPS time
+   * 
+   * @param gpsSecondsOfDay the UTC seconds since midnight reported by the GPS
+   */
+  public synchronized void discipline(double gpsSecondsOfDay) {
+    double measured = gpsSecondsOfDay - this.time.getSystemTime();
+    if (!this.synchronizedToGPS) {
+      this.offset            = measured;
+      this.synchronizedToGPS = true;
+      return;
+    }
+    double error = measured - this.offset;
+    error -= SECONDS_PER_DAY * Math.round(error / SECONDS_PER_DAY);
+    if (Math.abs(error) > Settings.WALL_CLOCK_STEP_THRESHOLD) {
+      this.offset += error;
+    } else {
+      this.offset += error * Settings.WALL_CLOCK_GAIN;
+    }
+  }
+
+  /**
+   * @return the UTC seconds since midnight, or the rocket time before the
+   *         first GPS fix
+   */
+  public synchronized double getWallTime() {
+    double wallTime = this.time.getSystemTime() + this.offset;
+    if (!this.synchronizedToGPS) {
+      return wallTime;
+    }
+    return wallTime - SECONDS_PER_DAY * Math.floor(wallTime / SECONDS_PER_DAY);
+  }
+
+  /**
+   * @return if a GPS fix has been used to set the wall clock
+   */
+  public synchronized boolean isSynchronized() {
+    return this.synchronizedToGPS;
+  }
+
+  /**
+   * Converts an NMEA time of the form hhmmss.ss to seconds since midnight
+   * 
+   * @param nmeaTime the time from the NMEA sentence
+   * @return the seconds since midnight
+   */
+  public static double toSecondsOfDay(double nmeaTime) {
+    int    hours   = (int) (nmeaTime / 10000);
+    int    minutes = (int) (nmeaTime / 100) % 100;
+    double seconds = nmeaTime - hours * 10000 - minutes * 100;
+    return hours * SECONDS_PER_HOUR + minutes * SECONDS_PER_MINUTE + seconds;
+  }
+}
@@ -30,6 +30,26 @@ public class GPSPacket {
     this.nema = nEMA;
   }
 
+  /**
+   * Create a new valid GPS Packet from already decoded values, for example
+   * when reading back a recording. There is no NEMA string for such a packet.
+   * 
+   * @param latitude  the latitude
+   * @param longitude the longitude
+   * @param altitude  the altitude
+   * @param time      the time at which the packet was received by GPS in
+   *                  seconds
+   * @param sVCount   the number of satellite vehicles connected to the GPS
+   */
+  public GPSPacket(double latitude, double longitude, double altitude, double time, int sVCount) {
+    this.valid     = true;
+    this.latitude  = latitude;
+    this.longitude = longitude;
+    this.altitude  = altitude;
+    this.time      = time;
+    this.sVCount   = sVCount;
+  }
+
   /**
    * Internally parses the NEMA for the packet
    * 
@@ -122,6 +142,9 @@ public class GPSPacket {
   
   @Override
   public String toString() {
+    if (this.nema == null && this.valid) {
+      return "GPS " + this.time + ": " + this.latitude + ", " + this.longitude + ", " + this.altitude;
+    }
     return this.nema;
   }
 
@@ -1,6 +1,7 @@
 package org.rocketproplab.marginalstability.flightcomputer.comm;
 
 import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics;
 
 /**
  * A class to handle the sending and receiving information from the GPS
@@ -9,7 +10,8 @@ import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
  *
  */
 public class GPSTransceiver implements SerialListener {
-  private PacketRouter  router;
+  private PacketRouter   router;
+  private LinkStatistics statistics;
 
   /**
    * Create a new GPS Transceiver that 
@@ -17,17 +19,35 @@ public class GPSTransceiver implements SerialListener {
    * @param router     the router to use to route packets
    */
   public GPSTransceiver(PacketRouter router) {
-    this.router = router;
+    this(router, new LinkStatistics());
+  }
+
+  /**
+   * Create a new GPS Transceiver that counts frames in the given statistics
+   * 
+   * @param router     the router to use to route packets
+   * @param statistics the statistics of the link to the GPS
+   */
+  public GPSTransceiver(PacketRouter router, LinkStatistics statistics) {
+    this.router     = router;
+    this.statistics = statistics;
+  }
+
+  /**
+   * @return the statistics of the link to the GPS
+   */
+  public LinkStatistics getStatistics() {
+    return this.statistics;
   }
 
   @Override
   public void onSerialData(String data) {
     GPSPacket packet = new GPSPacket(data);
     if (packet.isValid()) {
+      this.statistics.increment(LinkStatistics.Counter.FRAMES);
       router.recivePacket(packet, PacketSources.GPS);
     } else {
-      System.out.println("Got invalid packet " + data + "!");
-      // TODO report error
+      this.statistics.increment(LinkStatistics.Counter.INVALID_FRAMES);
     }
 
   }
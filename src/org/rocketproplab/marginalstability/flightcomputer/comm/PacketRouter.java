@@ -4,6 +4,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 
 import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.events.RoutedPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.profiling.PacketDispatchEvent;
+import org.rocketproplab.marginalstability.flightcomputer.trace.BlackBox;
+import org.rocketproplab.marginalstability.flightcomputer.trace.TraceType;
 
 /**
  * Routes packets of any type to their destination
@@ -21,16 +27,43 @@ public class PacketRouter implements PacketRelay {
   }
 
   private HashMap<LookupTuple, ArrayList<PacketListener<?>>> listenerMap;
+  private ArrayList<RoutedPacketListener>                   routedListeners;
+  private Counter                                           sent;
+  private Counter                                           received;
+  private BlackBox                                          blackBox;
 
   /**
    * Create a new packet router and initialize internal state
    */
   public PacketRouter() {
-    this.listenerMap = new HashMap<>();
+    this.listenerMap     = new HashMap<>();
+    this.routedListeners = new ArrayList<>();
+    this.sent            = new Counter();
+    this.received        = new Counter();
+  }
+
+  /**
+   * Registers the number of packets sent and received
+   * 
+   * @param registry the registry to register with
+   */
+  public void registerMetrics(MetricsRegistry registry) {
+    registry.register("router.sent", this.sent);
+    registry.register("router.received", this.received);
+  }
+
+  /**
+   * Sets the black box every routed packet is traced to
+   * 
+   * @param blackBox the black box to trace to or null for none
+   */
+  public void setBlackBox(BlackBox blackBox) {
+    this.blackBox = blackBox;
   }
 
   //@Override
   public void sendPacket(Object o, PacketSources source) {
+    this.sent.increment();
     this.dispatchPacket(o, source, PacketDirection.SEND);
   }
 
@@ -41,6 +74,7 @@ public class PacketRouter implements PacketRelay {
    * @param source
    */
   public void recivePacket(Object o, PacketSources source) {
+    this.received.increment();
     this.dispatchPacket(o, source, PacketDirection.RECIVE);
   }
 
@@ -56,18 +90,38 @@ public class PacketRouter implements PacketRelay {
   @SuppressWarnings({ "unchecked", "rawtypes" })
   private void dispatchPacket(Object o, PacketSources source,
       PacketDirection direction) {
+    BlackBox box = this.blackBox;
+    if (box != null) {
+      box.trace(TraceType.PACKET_ROUTED, TraceType.packRoute(source.ordinal(), direction.ordinal()),
+          o instanceof SCMPacket ? ((SCMPacket) o).getID().ordinal() : -1);
+    }
+    PacketDispatchEvent event = new PacketDispatchEvent();
+    event.begin();
+    int listeners = this.routedListeners.size();
+    for (RoutedPacketListener listener : this.routedListeners) {
+      listener.onRoutedPacket(o, source, direction);
+    }
     try {
       LookupTuple lookup = new LookupTuple(o.getClass(), source);
       if (this.listenerMap.containsKey(lookup)) {
         for (PacketListener listener : this.listenerMap.get(lookup)) {
           listener.onPacket(direction, o);
+          listeners++;
         }
       }
     } catch (ClassCastException classExecption) {
       // TODO have actual error handling (hash conflict)
       System.out.println("Packet " + o + " is not of suttiable type.");
     }
-
+    event.end();
+    if (event.shouldCommit()) {
+      event.packetType = o instanceof SCMPacket ? String.valueOf(((SCMPacket) o).getID())
+          : o.getClass().getSimpleName();
+      event.source     = String.valueOf(source);
+      event.direction  = String.valueOf(direction);
+      event.listeners  = listeners;
+      event.commit();
+    }
   }
 
   /**
@@ -88,6 +142,16 @@ public class PacketRouter implements PacketRelay {
     listeners.add(listener);
   }
 
+  /**
+   * Add a listener which is told about every packet routed, such as a
+   * recorder. These listeners should be added before packets are routed.
+   * 
+   * @param listener the listener to add
+   */
+  public void addRoutedPacketListener(RoutedPacketListener listener) {
+    this.routedListeners.add(listener);
+  }
+
   /**
    * A class to get a nice hash code for the lookup map
    * 
@@ -0,0 +1,152 @@
+package org.rocketproplab.marginalstability.flightcomputer.comm;
+
+/**
+ * Formats numbers into the fixed width data field of an {@link SCMPacket}
+ * without going through {@link String#format}. Every encoder writes into a
+ * field owned by this instance so one instance must not be shared between
+ * threads without synchronisation.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class SCMDataEncoder {
+
+  private static final char[] DIGITS          = "0123456789ABCDEF".toCharArray();
+  private static final char[] NOT_A_NUMBER    = "NAN".toCharArray();
+  private static final int    FRACTION_DIGITS = 6;
+  private static final long   FRACTION_SCALE  = 1_000_000L;
+  private static final double MAX_FLOAT       = 1e12;
+  private static final int    SCRATCH_LENGTH  = 24;
+  private static final int    BASE_10         = 10;
+  private static final int    BASE_16         = 16;
+  private static final int    HEX_DIGIT_MASK  = 0xF;
+  private static final int    HEX_DIGIT_BITS  = 4;
+
+  private final char[] field   = new char[SCMPacket.DATA_LENGTH];
+  private final char[] scratch = new char[SCRATCH_LENGTH];
+
+  /**
+   * Writes the integer in base 10, zero padded to the field width after the
+   * sign. Matches "%05d" for values which fit.
+   * 
+   * @param value the value to write
+   * @return this encoder
+   */
+  public SCMDataEncoder putDecimal(int value) {
+    return this.putInteger(value, BASE_10);
+  }
+
+  /**
+   * Writes the integer in upper case base 16, zero padded to the field width
+   * after the sign.
+   * 
+   * @param value the value to write
+   * @return this encoder
+   */
+  public SCMDataEncoder putHex(int value) {
+    return this.putInteger(value, BASE_16);
+  }
+
+  /**
+   * Writes the low digits of the value in upper case base 16, zero padded,
+   * into part of the field. Higher digits are dropped so the value is written
+   * modulo 16^digits. The rest of the field is left unchanged.
+   * 
+   * @param value  the value to write
+   * @param offset the index in the field of the first digit
+   * @param digits the number of digits to write
+   * @return this encoder
+   */
+  public SCMDataEncoder putHex(long value, int offset, int digits) {
+    for (int i = offset + digits - 1; i >= offset; i--) {
+      this.field[i] = DIGITS[(int) (value & HEX_DIGIT_MASK)];
+      value      >>>= HEX_DIGIT_BITS;
+    }
+    return this;
+  }
+
+  /**
+   * Writes a single character into the field
+   * 
+   * @param character the character to write
+   * @param offset    the index in the field to write it to
+   * @return this encoder
+   */
+  public SCMDataEncoder putChar(char character, int offset) {
+    this.field[offset] = character;
+    return this;
+  }
+
+  /**
+   * Writes the double as "%f" would, six decimals rounded half up, and keeps
+   * the first five characters. NaN is written as "  NAN".
+   * 
+   * @param value the value to write, should be within the range of the field
+   * @return this encoder
+   */
+  public SCMDataEncoder putFloat(double value) {
+    if (Double.isNaN(value)) {
+      int pad = this.field.length - NOT_A_NUMBER.length;
+      for (int i = 0; i < pad; i++) {
+        this.field[i] = ' ';
+      }
+      System.arraycopy(NOT_A_NUMBER, 0, this.field, pad, NOT_A_NUMBER.length);
+      return this;
+    }
+    boolean negative = Double.compare(value, 0.0) < 0;
+    double  abs      = Math.min(Math.abs(value), MAX_FLOAT);
+    long    scaled   = Math.round(abs * FRACTION_SCALE);
+    long    whole    = scaled / FRACTION_SCALE;
+    long    fraction = scaled % FRACTION_SCALE;
+
+    // Digits are written backwards from the end of the scratch buffer
+    int end   = this.scratch.length;
+    int start = end;
+    for (int i = 0; i < FRACTION_DIGITS; i++) {
+      this.scratch[--start] = DIGITS[(int) (fraction % BASE_10)];
+      fraction             /= BASE_10;
+    }
+    this.scratch[--start] = '.';
+    do {
+      this.scratch[--start] = DIGITS[(int) (whole % BASE_10)];
+      whole                /= BASE_10;
+    } while (whole > 0);
+    if (negative) {
+      this.scratch[--start] = '-';
+    }
+    System.arraycopy(this.scratch, start, this.field, 0, this.field.length);
+    return this;
+  }
+
+  /**
+   * Copies the first five characters of the string into the field
+   * 
+   * @param data the data to write, at least five characters long
+   * @return this encoder
+   */
+  public SCMDataEncoder put(String data) {
+    data.getChars(0, this.field.length, this.field, 0);
+    return this;
+  }
+
+  /**
+   * @return the characters currently in the field
+   */
+  public String getData() {
+    return new String(this.field);
+  }
+
+  private SCMDataEncoder putInteger(int value, int base) {
+    long remaining = Math.abs((long) value);
+    int  first     = 0;
+    if (value < 0) {
+      this.field[0] = '-';
+      first         = 1;
+    }
+    for (int i = this.field.length - 1; i >= first; i--) {
+      this.field[i] = DIGITS[(int) (remaining % base)];
+      remaining    /= base;
+    }
+    return this;
+  }
+}
@@ -17,6 +17,7 @@ public class SCMPacket {
   private SCMPacketType id;
   private String        data;
   private boolean       isValid;
+  private boolean       checksumFailed;
 
   /**
    * Constructor that passes the packet into it's components
@@ -77,7 +78,8 @@ public class SCMPacket {
       this.data = packetComponents[1];
       this.validate();
     } else {
-      this.isValid = false;
+      this.isValid        = false;
+      this.checksumFailed = true;
     }
   }
 
@@ -122,6 +124,15 @@ public class SCMPacket {
     return calculatedChecksum;
   }
 
+  /**
+   * Returns if the packet was well formed but its checksum did not match
+   * 
+   * @return if the checksum of a parsed packet was wrong
+   */
+  public boolean hasChecksumError() {
+    return this.checksumFailed;
+  }
+
   /**
    * Gets the ID of this packet. Only valid if {@link SCMPacket#isValid()}
    * returns true.
@@ -1,5 +1,9 @@
 package org.rocketproplab.marginalstability.flightcomputer.comm;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum SCMPacketType {
   /**
    * Change the state of the valves, each index in data is a 1 or 0 that
@@ -149,12 +153,14 @@ public enum SCMPacketType {
   PF("Pressure Transducer 15"),
   
   /**
-   * Error. The bits are the error code
+   * Error. The first two bits are the error code in hex, the last three the
+   * number of times it occurred in hex, capped at 0xFFF
    */
   ER("Error"),
 
   /**
-   * Warning. The bits are the warning code
+   * Warning. The first two bits are the warning code in hex, the last three
+   * the number of times it occurred in hex, capped at 0xFFF
    */
   WA("Warning"), VS("VS"),
   
@@ -166,7 +172,30 @@ public enum SCMPacketType {
   /**
    * Main Chute Deploy
    */
-  MD("Main Chute Deploy");
+  MD("Main Chute Deploy"),
+
+  /**
+   * Link statistics. The first bit is the link index, the second the counter
+   * code and the last three the counter value in hex modulo 0x1000
+   */
+  LS("Link Statistics"),
+
+  /**
+   * Metrics summary. The first two bits are the metric index in hex, the last
+   * three the summary of the metric in hex modulo 0x1000
+   */
+  MT("Metrics");
+
+  /**
+   * The thermocouple channels, new thermocouples must be added here
+   */
+  public static final Set<SCMPacketType> THERMOCOUPLES = Collections.unmodifiableSet(EnumSet.of(T0, T1, T2, T3, T4));
+
+  /**
+   * The pressure transducer channels, new transducers must be added here
+   */
+  public static final Set<SCMPacketType> PRESSURE_TRANSDUCERS = Collections
+      .unmodifiableSet(EnumSet.of(P0, P1, P2, P3, P4, P5, P6, P7, P8, P9, PA, PB, PC, PD, PE, PF));
 
   private String name;
 
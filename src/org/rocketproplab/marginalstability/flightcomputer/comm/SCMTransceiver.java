@@ -2,6 +2,7 @@ package org.rocketproplab.marginalstability.flightcomputer.comm;
 
 import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
 import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics;
 import org.rocketproplab.marginalstability.flightcomputer.hal.SerialPort;
 
 /**
@@ -13,9 +14,10 @@ import org.rocketproplab.marginalstability.flightcomputer.hal.SerialPort;
  */
 public class SCMTransceiver
     implements SerialListener, PacketListener<SCMPacket> {
-  private SerialPort    serialPort;
-  private PacketRouter  router;
-  private PacketSources source;
+  private SerialPort     serialPort;
+  private PacketRouter   router;
+  private PacketSources  source;
+  private LinkStatistics statistics;
 
   /**
    * Create a new SCM Transceiver that will use this serial port to send and
@@ -27,23 +29,47 @@ public class SCMTransceiver
    */
   public SCMTransceiver(SerialPort serialPort, PacketRouter router,
       PacketSources source) {
+    this(serialPort, router, source, new LinkStatistics());
+  }
+
+  /**
+   * Create a new SCM Transceiver that will use this serial port to send and
+   * receive data and count frames in the given statistics.
+   * 
+   * @param serialPort The serial port to send data to
+   * @param router     the router to use to route packets
+   * @param source     where the SCM is connected to
+   * @param statistics the statistics of the link to the SCM
+   */
+  public SCMTransceiver(SerialPort serialPort, PacketRouter router,
+      PacketSources source, LinkStatistics statistics) {
     this.serialPort = serialPort;
     this.router     = router;
     this.source     = source;
+    this.statistics = statistics;
   }
 
   @Override
   public void onSerialData(String data) {
     SCMPacket packet = new SCMPacket(data);
     if (packet.isValid()) {
+      this.statistics.increment(LinkStatistics.Counter.FRAMES);
       router.recivePacket(packet, this.source);
+    } else if (packet.hasChecksumError()) {
+      this.statistics.increment(LinkStatistics.Counter.CHECKSUM_FAILURES);
     } else {
-      System.out.println("Got invalid packet " + data + "!");
-      // TODO report error
+      this.statistics.increment(LinkStatistics.Counter.INVALID_FRAMES);
     }
 
   }
 
+  /**
+   * @return the statistics of the link to the SCM
+   */
+  public LinkStatistics getStatistics() {
+    return this.statistics;
+  }
+
   @Override
   public void onPacket(PacketDirection direction, SCMPacket packet) {
     if (packet.isValid() && direction == PacketDirection.SEND) {
@@ -8,7 +8,10 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
+import org.rocketproplab.marginalstability.flightcomputer.profiling.CommandEvent;
 import org.rocketproplab.marginalstability.flightcomputer.subsystems.Subsystem;
+import org.rocketproplab.marginalstability.flightcomputer.trace.BlackBox;
+import org.rocketproplab.marginalstability.flightcomputer.trace.TraceType;
 
 /**
  * Responsible for running commands. Determines when it should run a command
@@ -52,6 +55,11 @@ public class CommandScheduler {
    */
   private HashMap<Subsystem, Command> busySubsystems;
 
+  /**
+   * Black box command state changes are traced to, may be null.
+   */
+  private BlackBox blackBox;
+
   /**
    * Constructor.
    */
@@ -61,6 +69,15 @@ public class CommandScheduler {
     busySubsystems = new HashMap<Subsystem, Command>();
   }
 
+  /**
+   * Sets the black box command state changes are traced to.
+   * 
+   * @param blackBox Black box to trace to or null for none.
+   */
+  public void setBlackBox(BlackBox blackBox) {
+    this.blackBox = blackBox;
+  }
+
   /**
    * Add command to command scheduler queue. It will be executed when it's
    * subsystem dependencies are available.
@@ -109,8 +126,8 @@ public class CommandScheduler {
         // Start running command.
         queueIterator.remove(); // Remove command from queue.
         active.add(command); // Add command to active list.
-        command.start(); // Start command execution.
-        command.execute(); // Execute command.
+        start(command); // Start command execution.
+        execute(command); // Execute command.
         // Mark command's dependencies as busy.
         for (Subsystem s : dependencies) {
           busySubsystems.put(s, command);
@@ -134,8 +151,9 @@ public class CommandScheduler {
       Command command = activeCmdsIterator.next();
 
       if (command.isDone()) {
-        // Remove the command from active list.
+        // Remove the command from active list and let it clean up.
         activeCmdsIterator.remove();
+        end(command);
         // Make command's dependencies available for other commands to use.
         Subsystem[] subsystemsUsed = command.getDependencies();
         for (Subsystem s : subsystemsUsed) {
@@ -143,9 +161,70 @@ public class CommandScheduler {
         }
       } else {
         // Invoke command's execute method.
-        command.execute();
+        execute(command);
       }
     }
   }
 
+  /**
+   * Starts the command, recording a {@link CommandEvent} if enabled.
+   * 
+   * @param command Command to start.
+   */
+  private void start(Command command) {
+    trace(TraceType.COMMAND_START, command);
+    CommandEvent event = new CommandEvent();
+    event.begin();
+    command.start();
+    commitEvent(event, command, CommandEvent.START);
+  }
+
+  /**
+   * Executes the command, recording a {@link CommandEvent} if enabled.
+   * 
+   * @param command Command to execute.
+   */
+  private void execute(Command command) {
+    trace(TraceType.COMMAND_EXECUTE, command);
+    CommandEvent event = new CommandEvent();
+    event.begin();
+    command.execute();
+    commitEvent(event, command, CommandEvent.EXECUTE);
+  }
+
+  /**
+   * Ends the command, recording a {@link CommandEvent} if enabled.
+   * 
+   * @param command Command to end.
+   */
+  private void end(Command command) {
+    trace(TraceType.COMMAND_END, command);
+    CommandEvent event = new CommandEvent();
+    event.begin();
+    command.end();
+    commitEvent(event, command, CommandEvent.END);
+  }
+
+  /**
+   * Traces a command state change to the black box if there is one.
+   * 
+   * @param type    The state change.
+   * @param command Command which changed state.
+   */
+  private void trace(TraceType type, Command command) {
+    BlackBox box = blackBox;
+    if (box != null) {
+      box.trace(type, 0, System.identityHashCode(command));
+    }
+  }
+
+  private void commitEvent(CommandEvent event, Command command, String phase) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.command = command.getClass().getName();
+      event.phase   = phase;
+      event.commit();
+    }
+  }
+
 }
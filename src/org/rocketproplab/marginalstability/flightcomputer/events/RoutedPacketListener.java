@@ -0,0 +1,24 @@
+package org.rocketproplab.marginalstability.flightcomputer.events;
+
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+
+/**
+ * Listens to every packet going through the packet router regardless of its
+ * type or source
+ * 
+ * @author Max Apodaca
+ *
+ */
+public interface RoutedPacketListener {
+
+  /**
+   * Called for every packet before it is dispatched to its listeners
+   * 
+   * @param packet    the packet being routed
+   * @param source    where the packet is coming from or going to
+   * @param direction if the packet is being sent or received
+   */
+  public void onRoutedPacket(Object packet, PacketSources source, PacketDirection direction);
+
+}
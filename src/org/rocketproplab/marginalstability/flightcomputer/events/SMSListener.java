@@ -0,0 +1,22 @@
+package org.rocketproplab.marginalstability.flightcomputer.events;
+
+import org.rocketproplab.marginalstability.flightcomputer.hal.SMSStatus;
+
+/**
+ * A listener for the outcome of SMS messages
+ * 
+ * @author Max Apodaca
+ *
+ */
+public interface SMSListener {
+
+  /**
+   * Called once for every message passed to the sender when its outcome is
+   * known
+   * 
+   * @param number  the number the message was addressed to
+   * @param message the text of the message
+   * @param status  the outcome of the message
+   */
+  public void onSMSResult(String number, String message, SMSStatus status);
+}
@@ -0,0 +1,22 @@
+package org.rocketproplab.marginalstability.flightcomputer.events;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A listener for the raw bytes received by a serial port. Unlike
+ * {@link SerialListener} the data is not decoded into a string.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public interface SerialByteListener {
+
+  /**
+   * Called each time the serial port receives data. The buffer is a read only
+   * view of the received bytes between its position and limit. It is only
+   * valid for the duration of the call, copy anything that must be kept.
+   * 
+   * @param data the data that was received
+   */
+  public void onSerialData(ByteBuffer data);
+}
@@ -0,0 +1,185 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+/**
+ * Serialises all transactions on one physical bus through a single owner
+ * thread. Transactions are queued by {@link BusPriority} then submission
+ * order in a fixed size binary heap, so submitting and running a reused
+ * {@link BusTransaction} does not allocate.
+ * 
+ * Without {@link #start()} no thread is created and queued transactions can be
+ * run on the calling thread with {@link #runPending()}.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class BusExecutor {
+
+  private final String           name;
+  private final BusTransaction[] heap;
+  private int                    size;
+  private long                   nextSequence;
+  private Thread                 thread;
+  private volatile boolean       running;
+
+  /**
+   * Create a new bus executor
+   * 
+   * @param name     the name of the bus, used for the thread name
+   * @param capacity the maximum number of queued transactions
+   */
+  public BusExecutor(String name, int capacity) {
+    this.name = name;
+    this.heap = new BusTransaction[capacity];
+  }
+
+  /**
+   * Queues the transaction. Fails if it is already pending or the queue is
+   * full.
+   * 
+   * @param transaction the transaction to run
+   * @return if the transaction was queued
+   */
+  public synchronized boolean submit(BusTransaction transaction) {
+    if (this.size == this.heap.length || !transaction.markPending(this.nextSequence)) {
+      return false;
+    }
+    this.nextSequence++;
+    int index = this.size++;
+    this.heap[index] = transaction;
+    this.siftUp(index);
+    this.notifyAll();
+    return true;
+  }
+
+  /**
+   * Starts the owner thread of the bus
+   */
+  public synchronized void start() {
+    if (this.thread != null) {
+      return;
+    }
+    this.running = true;
+    this.thread  = new Thread(this::runLoop, this.name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Stops the owner thread once the current transaction completes and waits
+   * for it to exit. Queued transactions stay queued.
+   * 
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void stop() throws InterruptedException {
+    Thread toJoin;
+    synchronized (this) {
+      this.running = false;
+      this.notifyAll();
+      toJoin      = this.thread;
+      this.thread = null;
+    }
+    if (toJoin != null) {
+      toJoin.join();
+    }
+  }
+
+  /**
+   * Runs every queued transaction on the calling thread, for use when the bus
+   * has no owner thread.
+   * 
+   * @return the number of transactions run
+   */
+  public int runPending() {
+    int count = 0;
+    while (true) {
+      BusTransaction transaction;
+      synchronized (this) {
+        transaction = this.poll();
+      }
+      if (transaction == null) {
+        return count;
+      }
+      transaction.run();
+      count++;
+    }
+  }
+
+  /**
+   * @return the number of queued transactions
+   */
+  public synchronized int getQueueLength() {
+    return this.size;
+  }
+
+  private void runLoop() {
+    while (this.running) {
+      BusTransaction transaction;
+      synchronized (this) {
+        while (this.running && this.size == 0) {
+          try {
+            this.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (!this.running) {
+          return;
+        }
+        transaction = this.poll();
+      }
+      try {
+        transaction.run();
+      } catch (Throwable e) {
+        // The transaction is completed by run, keep serving the bus
+      }
+    }
+  }
+
+  private BusTransaction poll() {
+    if (this.size == 0) {
+      return null;
+    }
+    BusTransaction first = this.heap[0];
+    this.size--;
+    this.heap[0]         = this.heap[this.size];
+    this.heap[this.size] = null;
+    this.siftDown(0);
+    return first;
+  }
+
+  private void siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!this.heap[index].runsBefore(this.heap[parent])) {
+        return;
+      }
+      this.swap(index, parent);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int index) {
+    while (true) {
+      int left     = 2 * index + 1;
+      int right    = left + 1;
+      int smallest = index;
+      if (left < this.size && this.heap[left].runsBefore(this.heap[smallest])) {
+        smallest = left;
+      }
+      if (right < this.size && this.heap[right].runsBefore(this.heap[smallest])) {
+        smallest = right;
+      }
+      if (smallest == index) {
+        return;
+      }
+      this.swap(index, smallest);
+      index = smallest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    BusTransaction temp = this.heap[a];
+    this.heap[a] = this.heap[b];
+    this.heap[b] = temp;
+  }
+}
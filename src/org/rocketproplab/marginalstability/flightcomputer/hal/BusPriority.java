@@ -0,0 +1,28 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+/**
+ * The priority of a transaction on a {@link BusExecutor}. Transactions with
+ * an earlier priority always run first, transactions of equal priority run in
+ * the order they were submitted.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public enum BusPriority {
+  /**
+   * The IMU, its FIFO overflows if not read in time
+   */
+  IMU,
+  /**
+   * The barometer
+   */
+  BAROMETER,
+  /**
+   * Serial ports such as the MAX14830
+   */
+  SERIAL,
+  /**
+   * Configuration and anything else which is not time critical
+   */
+  BACKGROUND;
+}
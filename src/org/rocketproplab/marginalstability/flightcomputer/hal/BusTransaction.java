@@ -0,0 +1,137 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+import java.io.IOException;
+
+/**
+ * A unit of work run on the owner thread of a {@link BusExecutor}. A
+ * transaction can be submitted again once it has completed so a sensor can
+ * reuse the same instance every cycle without allocating. Completion can be
+ * observed by overriding {@link #onComplete(Throwable)}, which runs on the
+ * bus thread, or by waiting in {@link #awaitCompletion()}. Anything thrown by
+ * the transaction becomes its error, the bus thread is never taken down.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public abstract class BusTransaction {
+
+  private final BusPriority priority;
+  private long              sequence;
+  private boolean           pending;
+  private Throwable         error;
+
+  /**
+   * Create a new transaction
+   * 
+   * @param priority the priority to run the transaction with
+   */
+  public BusTransaction(BusPriority priority) {
+    this.priority = priority;
+  }
+
+  /**
+   * Performs the bus I/O, called on the bus thread
+   * 
+   * @throws IOException if the I/O fails
+   */
+  protected abstract void execute() throws IOException;
+
+  /**
+   * Called on the bus thread after {@link #execute()} returns or throws
+   * 
+   * @param error what execute threw or null if it succeeded
+   */
+  protected void onComplete(Throwable error) {
+  }
+
+  /**
+   * @return the priority of the transaction
+   */
+  public BusPriority getPriority() {
+    return this.priority;
+  }
+
+  /**
+   * @return if the transaction has been submitted and not yet completed
+   */
+  public synchronized boolean isPending() {
+    return this.pending;
+  }
+
+  /**
+   * @return what the last run threw or null if it succeeded
+   */
+  public synchronized Throwable getError() {
+    return this.error;
+  }
+
+  /**
+   * Blocks until the transaction is no longer pending
+   * 
+   * @return what the last run threw or null if it succeeded
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized Throwable awaitCompletion() throws InterruptedException {
+    while (this.pending) {
+      this.wait();
+    }
+    return this.error;
+  }
+
+  /**
+   * Marks the transaction as pending
+   * 
+   * @param sequence the submission order used to break priority ties
+   * @return false if the transaction was already pending
+   */
+  synchronized boolean markPending(long sequence) {
+    if (this.pending) {
+      return false;
+    }
+    this.pending  = true;
+    this.sequence = sequence;
+    return true;
+  }
+
+  /**
+   * Runs the transaction and notifies anyone waiting on it. Whatever execute
+   * or {@link #onComplete(Throwable)} throw is kept as the error, the first
+   * one wins and a later one is added to it as suppressed.
+   */
+  void run() {
+    Throwable result = null;
+    try {
+      this.execute();
+    } catch (Throwable e) {
+      result = e;
+    }
+    try {
+      this.onComplete(result);
+    } catch (Throwable e) {
+      if (result == null) {
+        result = e;
+      } else if (e != result) {
+        result.addSuppressed(e);
+      }
+    } finally {
+      synchronized (this) {
+        this.error   = result;
+        this.pending = false;
+        this.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Returns if this transaction should run before the other one
+   * 
+   * @param other the transaction to compare with
+   * @return if this transaction has precedence
+   */
+  boolean runsBefore(BusTransaction other) {
+    if (this.priority != other.priority) {
+      return this.priority.ordinal() < other.priority.ordinal();
+    }
+    return this.sequence < other.sequence;
+  }
+}
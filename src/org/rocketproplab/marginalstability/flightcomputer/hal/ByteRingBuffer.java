@@ -0,0 +1,124 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+/**
+ * A fixed size FIFO of bytes backed by a single preallocated array. Writers
+ * may be on any thread, reads drain directly into a caller supplied array so
+ * no allocation happens after construction. Writes are all or nothing, data
+ * that does not fit is dropped whole so a frame is never queued partially.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ByteRingBuffer {
+
+  private static final int  ASCII_LIMIT = 0x80;
+  private static final byte REPLACEMENT = '?';
+
+  private final byte[] buffer;
+  private int          head;
+  private int          size;
+
+  /**
+   * Create a new empty ring buffer
+   * 
+   * @param capacity the maximum number of bytes held, at least 1
+   */
+  public ByteRingBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1, got " + capacity);
+    }
+    this.buffer = new byte[capacity];
+  }
+
+  /**
+   * Appends the string encoded as US-ASCII, characters outside of ASCII are
+   * replaced by '?'. Nothing is appended if the whole string does not fit.
+   * 
+   * @param data the string to append
+   * @return the number of characters accepted, either all of them or 0
+   */
+  public synchronized int write(String data) {
+    int count = data.length();
+    if (count > this.remaining()) {
+      return 0;
+    }
+    int tail = this.tail();
+    for (int i = 0; i < count; i++) {
+      char c = data.charAt(i);
+      this.buffer[tail] = c < ASCII_LIMIT ? (byte) c : REPLACEMENT;
+      tail              = this.next(tail);
+    }
+    this.size += count;
+    return count;
+  }
+
+  /**
+   * Appends length bytes of data starting at offset. Nothing is appended if
+   * all of the bytes do not fit.
+   * 
+   * @param data   the bytes to append
+   * @param offset the index of the first byte to append
+   * @param length the number of bytes to append
+   * @return the number of bytes accepted, either length or 0
+   */
+  public synchronized int write(byte[] data, int offset, int length) {
+    if (length > this.remaining()) {
+      return 0;
+    }
+    int tail  = this.tail();
+    int first = Math.min(length, this.buffer.length - tail);
+    System.arraycopy(data, offset, this.buffer, tail, first);
+    System.arraycopy(data, offset + first, this.buffer, 0, length - first);
+    this.size += length;
+    return length;
+  }
+
+  /**
+   * Removes up to length bytes from the front of the buffer and copies them
+   * into dest
+   * 
+   * @param dest   the array to copy into
+   * @param offset the index in dest of the first byte
+   * @param length the maximum number of bytes to remove
+   * @return the number of bytes removed
+   */
+  public synchronized int read(byte[] dest, int offset, int length) {
+    int count = Math.min(length, this.size);
+    int first = Math.min(count, this.buffer.length - this.head);
+    System.arraycopy(this.buffer, this.head, dest, offset, first);
+    System.arraycopy(this.buffer, 0, dest, offset + first, count - first);
+    this.head  = (this.head + count) % this.buffer.length;
+    this.size -= count;
+    return count;
+  }
+
+  /**
+   * @return the number of bytes waiting to be read
+   */
+  public synchronized int size() {
+    return this.size;
+  }
+
+  /**
+   * @return the number of bytes which can still be written
+   */
+  public synchronized int remaining() {
+    return this.buffer.length - this.size;
+  }
+
+  /**
+   * @return the maximum number of bytes held
+   */
+  public int getCapacity() {
+    return this.buffer.length;
+  }
+
+  private int tail() {
+    return (this.head + this.size) % this.buffer.length;
+  }
+
+  private int next(int index) {
+    index++;
+    return index == this.buffer.length ? 0 : index;
+  }
+}
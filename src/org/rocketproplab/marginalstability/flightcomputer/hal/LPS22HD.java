@@ -2,7 +2,11 @@ package org.rocketproplab.marginalstability.flightcomputer.hal;
 
 import java.io.IOException;
 
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
 import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
 
 import com.pi4j.component.sensor.Sensor;
 import com.pi4j.io.i2c.I2CDevice;
@@ -11,10 +15,13 @@ import com.pi4j.io.i2c.I2CDevice;
 public class LPS22HD implements Barometer, PollingSensor {
 	
 	private I2CDevice i2cDevice;
-	private double pressure;
+	private volatile double pressure;
 	private double pressureValue;
-	private long time;
+	private volatile double time;
 	private Time currTime;
+	private Counter sampleCount = new Counter();
+	private Counter busErrors = new Counter();
+	private Telemetry telemetry;
 	
 	private final byte ON_MESSAGE = 0b01100000;
 	private final int ON_ADDRESS = 0x10;
@@ -28,16 +35,36 @@ public class LPS22HD implements Barometer, PollingSensor {
 	
 	
 	public LPS22HD(I2CDevice i2cDevice, Time time) {
-		this.i2cDevice = i2cDevice;
+		this.i2cDevice = new ProfiledI2CDevice(i2cDevice, "LPS22HD");
 		this.currTime = time;
 	}
+
+	/**
+	 * Registers the number of samples read and the number of failed reads
+	 * 
+	 * @param registry the registry to register with
+	 */
+	public void registerMetrics(MetricsRegistry registry) {
+		registry.register("lps22hd.samples", this.sampleCount);
+		registry.register("lps22hd.bus_errors", this.busErrors);
+	}
+
+	/**
+	 * Sets the telemetry failed reads are reported to as
+	 * {@link Errors#BAROMETER_BUS_ERROR}, without one the stack trace is printed
+	 * 
+	 * @param telemetry the telemetry to report to or null for none
+	 */
+	public void setTelemetry(Telemetry telemetry) {
+		this.telemetry = telemetry;
+	}
 	
 	public void init() {
 		try {
 			i2cDevice.write(ON_ADDRESS, ON_MESSAGE);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			busErrors.increment();
+			reportBusError(e);
 		}
 	}
   
@@ -71,11 +98,21 @@ public class LPS22HD implements Barometer, PollingSensor {
 					+ (i2cDevice.read(ADDRESS_TWO)<<8)
 					+ (i2cDevice.read(ADDRESS_THREE));
 			pressure = pressureValue/SCALING_FACTOR;
+			sampleCount.increment();
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
+			busErrors.increment();
+			reportBusError(e);
+		}
+		time = currTime.getSystemTime();
+	}
+
+	private void reportBusError(IOException e) {
+		Telemetry errorTelemetry = telemetry;
+		if (errorTelemetry != null) {
+			errorTelemetry.reportError(Errors.BAROMETER_BUS_ERROR);
+		} else {
 			e.printStackTrace();
 		}
-		time = (long)currTime.getSystemTime();
 	}
 
 }
@@ -1,10 +1,15 @@
 package org.rocketproplab.marginalstability.flightcomputer.hal;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
 import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Gauge;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
 
 import com.pi4j.io.i2c.I2CDevice;
 
@@ -188,11 +193,40 @@ public class LSM9DS1 implements PollingSensor, IMU {
     TEMP_AVALIABLE
   }
 
-  private I2CDevice              i2c;
-  private ArrayDeque<IMUReading> samples = new ArrayDeque<>();
+  private I2CDevice                         i2c;
+  private ConcurrentLinkedDeque<IMUReading> samples = new ConcurrentLinkedDeque<>();
+  private Counter                           sampleCount;
+  private Counter                           busErrors;
+  private Gauge                             fifoDepth;
+  private Telemetry                         telemetry;
 
   public LSM9DS1(I2CDevice device) {
-    this.i2c = device;
+    this.i2c         = new ProfiledI2CDevice(device, "LSM9DS1");
+    this.sampleCount = new Counter();
+    this.busErrors   = new Counter();
+    this.fifoDepth   = new Gauge();
+  }
+
+  /**
+   * Registers the number of samples read, the number of failed polls and the
+   * number of samples found in the FIFO by the last poll
+   * 
+   * @param registry the registry to register with
+   */
+  public void registerMetrics(MetricsRegistry registry) {
+    registry.register("lsm9ds1.samples", this.sampleCount);
+    registry.register("lsm9ds1.bus_errors", this.busErrors);
+    registry.register("lsm9ds1.fifo_depth", this.fifoDepth);
+  }
+
+  /**
+   * Sets the telemetry failed polls are reported to as
+   * {@link Errors#IMU_BUS_ERROR}, without one the stack trace is printed
+   * 
+   * @param telemetry the telemetry to report to or null for none
+   */
+  public void setTelemetry(Telemetry telemetry) {
+    this.telemetry = telemetry;
   }
 
   /**
@@ -279,6 +313,7 @@ public class LSM9DS1 implements PollingSensor, IMU {
   public void poll() {
     try {
       int samplesInFIFO = this.getSamplesInFIFO();
+      this.fifoDepth.set(samplesInFIFO);
       if (samplesInFIFO == 0) {
         return;
       }
@@ -287,8 +322,13 @@ public class LSM9DS1 implements PollingSensor, IMU {
       int    samplesRead = this.i2c.read(data, Registers.OUT_X_L_G.getAddress(), dataLength);
       this.parseReadings(data, samplesRead);
     } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      this.busErrors.increment();
+      Telemetry errorTelemetry = this.telemetry;
+      if (errorTelemetry != null) {
+        errorTelemetry.reportError(Errors.IMU_BUS_ERROR);
+      } else {
+        e.printStackTrace();
+      }
     }
   }
 
@@ -301,6 +341,7 @@ public class LSM9DS1 implements PollingSensor, IMU {
       IMUReading reading = this.buildReading(samples);
       this.samples.add(reading);
     }
+    this.sampleCount.add(samplesRead);
   }
 
   public IMUReading buildReading(byte[] data) {
@@ -321,7 +362,7 @@ public class LSM9DS1 implements PollingSensor, IMU {
   private int[] getData(byte[] data) {
     int[] results = new int[data.length / 2];
     for (int i = 0; i < data.length / 2; i++) {
-      short low    = (short) (char) data[i * 2];
+      short low    = (short) (data[i * 2] & 0xFF);
       short high   = (short) (char) data[i * 2 + 1];
       short result = (short) (low | (high << BITS_PER_BYTE));
       results[i] = result;
@@ -0,0 +1,165 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Health counters for a single serial link. Counters can be updated from any
+ * thread without locking and read together as a {@link Snapshot}.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class LinkStatistics {
+
+  /**
+   * The counters kept for every link
+   * 
+   * @author Max Apodaca
+   *
+   */
+  public enum Counter {
+    /**
+     * Number of bytes received
+     */
+    BYTES_IN('I'),
+    /**
+     * Number of bytes sent
+     */
+    BYTES_OUT('O'),
+    /**
+     * Number of valid frames received
+     */
+    FRAMES('F'),
+    /**
+     * Number of frames received with a bad checksum
+     */
+    CHECKSUM_FAILURES('C'),
+    /**
+     * Number of received frames which could not be parsed
+     */
+    INVALID_FRAMES('M'),
+    /**
+     * Number of UART framing errors reported by the line status register
+     */
+    FRAMING_ERRORS('E'),
+    /**
+     * Number of RX FIFO overruns reported by the line status register
+     */
+    OVERRUNS('V'),
+    /**
+     * The largest number of bytes seen waiting in the RX FIFO
+     */
+    MAX_FIFO_DEPTH('D'),
+    /**
+     * Number of outgoing messages dropped because the TX buffer was full
+     */
+    TX_DROPPED('X');
+
+    private char code;
+
+    Counter(char code) {
+      this.code = code;
+    }
+
+    /**
+     * @return the single character used to identify the counter in telemetry
+     */
+    public char getCode() {
+      return this.code;
+    }
+  }
+
+  private final AtomicLongArray counters;
+
+  /**
+   * Create a new set of counters all at zero
+   */
+  public LinkStatistics() {
+    this.counters = new AtomicLongArray(Counter.values().length);
+  }
+
+  /**
+   * Increments the counter by one
+   * 
+   * @param counter the counter to increment
+   */
+  public void increment(Counter counter) {
+    this.counters.incrementAndGet(counter.ordinal());
+  }
+
+  /**
+   * Adds the amount to the counter
+   * 
+   * @param counter the counter to add to
+   * @param amount  how much to add
+   */
+  public void add(Counter counter, long amount) {
+    this.counters.addAndGet(counter.ordinal(), amount);
+  }
+
+  /**
+   * Records a FIFO depth, keeping the largest one seen
+   * 
+   * @param depth the number of bytes waiting in the FIFO
+   */
+  public void recordFifoDepth(int depth) {
+    int  index = Counter.MAX_FIFO_DEPTH.ordinal();
+    long max   = this.counters.get(index);
+    while (depth > max && !this.counters.compareAndSet(index, max, depth)) {
+      max = this.counters.get(index);
+    }
+  }
+
+  /**
+   * @param counter the counter to read
+   * @return the current value of the counter
+   */
+  public long get(Counter counter) {
+    return this.counters.get(counter.ordinal());
+  }
+
+  /**
+   * @return a copy of every counter
+   */
+  public Snapshot snapshot() {
+    long[] values = new long[Counter.values().length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = this.counters.get(i);
+    }
+    return new Snapshot(values);
+  }
+
+  /**
+   * An immutable copy of the counters of a link
+   * 
+   * @author Max Apodaca
+   *
+   */
+  public static class Snapshot {
+    private final long[] values;
+
+    private Snapshot(long[] values) {
+      this.values = values;
+    }
+
+    /**
+     * @param counter the counter to read
+     * @return the value of the counter when the snapshot was taken
+     */
+    public long get(Counter counter) {
+      return this.values[counter.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      for (Counter counter : Counter.values()) {
+        if (builder.length() > 0) {
+          builder.append(", ");
+        }
+        builder.append(counter).append('=').append(this.get(counter));
+      }
+      return builder.toString();
+    }
+  }
+}
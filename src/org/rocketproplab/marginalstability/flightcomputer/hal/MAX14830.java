@@ -1,10 +1,17 @@
 package org.rocketproplab.marginalstability.flightcomputer.hal;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
 
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
 import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.profiling.BusTransactionEvent;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
 
+import com.pi4j.io.gpio.GpioPinDigitalInput;
 import com.pi4j.io.spi.SpiDevice;
 
 /**
@@ -12,6 +19,15 @@ import com.pi4j.io.spi.SpiDevice;
  * code to emit serial port events to any listeners listening to ports provided
  * by the MAX14830.
  * 
+ * By default every poll reads the RX FIFO level of every port. Once
+ * {@link #enableInterrupts()} has been called polling is driven by the chip's
+ * interrupts instead: the IRQ line (if given) and the GlobalIRQ register
+ * select which UARTs have pending events and only those are serviced.
+ * 
+ * Once a baud rate has been set the level of each TX FIFO is predicted from
+ * how long it has been draining at that rate, so the level only has to be
+ * read back when the prediction says there is not enough room or it is stale.
+ * 
  * @author Max Apodaca
  *
  */
@@ -30,6 +46,27 @@ public class MAX14830 implements PollingSensor {
     UART3;
   }
 
+  /**
+   * The automatic flow control modes supported by the MAX14830
+   * 
+   * @author Max Apodaca
+   *
+   */
+  public enum FlowControl {
+    /**
+     * Transmit whenever there is data
+     */
+    NONE,
+    /**
+     * RTS and CTS are driven and obeyed by the chip
+     */
+    HARDWARE,
+    /**
+     * XON1 and XOFF1 characters are sent and obeyed by the chip
+     */
+    XON_XOFF;
+  }
+
   /**
    * The list of registers found on the MAX14830
    * 
@@ -77,7 +114,7 @@ public class MAX14830 implements PollingSensor {
     DIVMSB(0x1D),
     CLKSource(0x1E),
     // GLOBAL REGISTERS
-    GlobalRQ(0x1F),
+    GlobalIRQ(0x1F),
     GloblComnd(0x1F),
     // SYNCHRONIZATION REGISTERS
     TxSynch(0x20),
@@ -100,33 +137,113 @@ public class MAX14830 implements PollingSensor {
     }
   }
 
-  private static final String CHARSET = "US-ASCII";
-
   private static final int  UART_SELECT_LSB_IDX = 5;
+  private static final int  UART_SELECT_MASK    = 0b11;
+  private static final int  REGISTER_MASK       = 0x1F;
   private static final byte WRITE               = -0x80;
   private static final int  BYTE_MSB_VALUE      = 128;
   private static final int  BITS_PER_BYTE       = 8;
 
   private static final int TX_BUFFER_SIZE = 128;
+  private static final int RX_BUFFER_SIZE = 128;
+
+  private static final int GLOBAL_IRQ_MASK  = 0b1111;
+  private static final int ISR_LSR_ERR      = 1 << 0;
+  private static final int ISR_RFIFO_TRIG   = 1 << 3;
+  private static final int ISR_TFIFO_EMPTY  = 1 << 5;
+  private static final int LSR_RX_TIMEOUT   = 1 << 0;
+  private static final int LSR_RX_OVERRUN   = 1 << 1;
+  private static final int LSR_FRAME_ERR    = 1 << 3;
+  private static final int RX_TIMEOUT_CHARS = 2;
+  private static final int RX_TRIGGER_LEVEL = 8;
+  private static final int FIFO_TRIGGER_LSB = 4;
+  private static final int FIFO_TRIGGER_DIV = 8;
+
+  private static final int FLOW_AUTO_RTS      = 1 << 0;
+  private static final int FLOW_AUTO_CTS      = 1 << 1;
+  private static final int FLOW_SW_EN         = 1 << 3;
+  private static final int FLOW_SW_RX_XON1    = 1 << 5;
+  private static final int FLOW_SW_TX_XON1    = 1 << 7;
+  private static final int FLOW_HALT_LEVEL    = 96;
+  private static final int FLOW_RESUME_LEVEL  = 32;
+  private static final int FLOW_LEVEL_DIV     = 8;
+  private static final int FLOW_RESUME_LSB    = 4;
+  private static final int XON_CHARACTER      = 0x11;
+  private static final int XOFF_CHARACTER     = 0x13;
+  private static final int BITS_PER_CHARACTER = 10;
 
   private SpiDevice           spi;
-  private StringBuffer[]      uartBufferArray;
+  private GpioPinDigitalInput irqPin;
+  private boolean             interruptsEnabled;
+  private ByteRingBuffer[]    txBufferArray;
   private SerialPortAdapter[] serialPortArray;
+  private LinkStatistics[]    statistics;
   private int[]               txFifoLengths;
-  private Charset             charset;
+  private double[]            txLevelTimes;
+  private double[]            txSyncTimes;
+  private double[]            txBytesPerSecond;
+  private FlowControl[]       flowControls;
+  private Time                time;
+  private byte[]              txFrame;
+  private byte[]              rxRequest;
+  private Counter             polls;
+  private Counter             busErrors;
+  private Telemetry           telemetry;
 
+  /**
+   * Create a new MAX14830 on the given SPI device without an IRQ line
+   * 
+   * @param spi the SPI device the MAX14830 is on
+   */
   public MAX14830(SpiDevice spi) {
-    this.spi             = spi;
-    this.uartBufferArray = new StringBuffer[Port.values().length];
-    this.serialPortArray = new SerialPortAdapter[Port.values().length];
-    this.txFifoLengths   = new int[Port.values().length];
+    this(spi, null);
+  }
+
+  /**
+   * Create a new MAX14830 on the given SPI device. When interrupts are enabled
+   * the IRQ line is checked before any SPI traffic is generated.
+   * 
+   * @param spi    the SPI device the MAX14830 is on
+   * @param irqPin the active low IRQ output of the MAX14830, may be null
+   */
+  public MAX14830(SpiDevice spi, GpioPinDigitalInput irqPin) {
+    this(spi, irqPin, new Time());
+  }
+
+  /**
+   * Create a new MAX14830 on the given SPI device using the given time to
+   * model the TX FIFOs draining.
+   * 
+   * @param spi    the SPI device the MAX14830 is on
+   * @param irqPin the active low IRQ output of the MAX14830, may be null
+   * @param time   the time used to model the TX FIFOs draining
+   */
+  public MAX14830(SpiDevice spi, GpioPinDigitalInput irqPin, Time time) {
+    this.spi              = spi;
+    this.irqPin           = irqPin;
+    this.time             = time;
+    this.txLevelTimes     = new double[Port.values().length];
+    this.txSyncTimes      = new double[Port.values().length];
+    this.txBytesPerSecond = new double[Port.values().length];
+    this.flowControls     = new FlowControl[Port.values().length];
+    this.txBufferArray    = new ByteRingBuffer[Port.values().length];
+    this.serialPortArray  = new SerialPortAdapter[Port.values().length];
+    this.statistics       = new LinkStatistics[Port.values().length];
+    this.txFifoLengths    = new int[Port.values().length];
+    this.txFrame          = new byte[TX_BUFFER_SIZE + 1];
+    this.rxRequest        = new byte[RX_BUFFER_SIZE + 1];
+    this.polls            = new Counter();
+    this.busErrors        = new Counter();
     for (int i = 0; i < Port.values().length; i++) {
-      this.uartBufferArray[i] = new StringBuffer();
-      this.txFifoLengths[i]   = TX_BUFFER_SIZE;
+      this.txBufferArray[i] = new ByteRingBuffer(Settings.MAX14830_TX_RING_SIZE);
+      this.statistics[i]    = new LinkStatistics();
+      this.txFifoLengths[i] = TX_BUFFER_SIZE;
+      this.flowControls[i]  = FlowControl.NONE;
+      this.txSyncTimes[i]   = Double.NEGATIVE_INFINITY;
       final Port port = Port.values()[i];
-      this.serialPortArray[i] = new SerialPortAdapter(message -> this.writeToPort(port, message));
+      this.serialPortArray[i] = new SerialPortAdapter(message -> this.writeToPort(port, message),
+          () -> this.isBackpressured(port));
     }
-    this.charset = Charset.forName(CHARSET);
   }
 
   protected int getTXBufferLen(Port port) throws IOException {
@@ -141,9 +258,37 @@ public class MAX14830 implements PollingSensor {
     return this.readRegister(command);
   }
 
+  /**
+   * Reads consecutive registers of a port in a single burst transfer.
+   * 
+   * @param port     the port to read from
+   * @param register the first register to read
+   * @param count    the number of registers to read
+   * @return the register values with the command byte at index 0, or null if
+   *         the transfer was too short
+   * @throws IOException if unable to read
+   */
+  protected byte[] readRegisters(Port port, Registers register, int count) throws IOException {
+    int    uartSelect = port.ordinal() << UART_SELECT_LSB_IDX;
+    byte[] data       = new byte[count + 1];
+    data[0] = (byte) (uartSelect | register.address());
+    byte[] readData = this.transfer(data);
+    if (readData == null || readData.length < count + 1) {
+      return null;
+    }
+    return readData;
+  }
+
+  private void writeRegister(Port port, Registers register, int value) throws IOException {
+    int    uartSelect = port.ordinal() << UART_SELECT_LSB_IDX;
+    byte   command    = (byte) (uartSelect | WRITE | register.address());
+    byte[] data       = { command, (byte) value };
+    this.transfer(data);
+  }
+
   private int readRegister(byte command) throws IOException {
     byte[] data     = { command, 0 };
-    byte[] readData = this.spi.write(data);
+    byte[] readData = this.transfer(data);
     if (readData.length < 2) {
       return -1;
     }
@@ -154,50 +299,154 @@ public class MAX14830 implements PollingSensor {
     return result;
   }
 
+  /**
+   * Moves up to charCount buffered bytes of the port into its TX FIFO. The
+   * bytes are copied straight from the ring buffer into a reused SPI frame.
+   * 
+   * @param port      the port to write to
+   * @param charCount the maximum number of bytes to write
+   * @return the number of bytes written
+   * @throws IOException if unable to write
+   */
   protected int writeToTxFifo(Port port, int charCount) throws IOException {
-    StringBuffer stringBuffer = this.selectBuffer(port);
-
-    int readCount = Math.min(charCount, stringBuffer.length());
-
-    String first = stringBuffer.substring(0, readCount);
-    stringBuffer.delete(0, readCount);
-    int    uartSelect = port.ordinal() << UART_SELECT_LSB_IDX;
-    byte   command    = (byte) (uartSelect | WRITE | Registers.THR.address());
-    byte[] data       = first.getBytes(this.charset);
-    byte[] toWrite    = new byte[data.length + 1];
-    toWrite[0] = command;
-    System.arraycopy(data, 0, toWrite, 1, data.length);
-    this.spi.write(toWrite);
+    ByteRingBuffer buffer    = this.selectBuffer(port);
+    int            readCount = buffer.read(this.txFrame, 1, Math.min(charCount, TX_BUFFER_SIZE));
+    if (readCount == 0) {
+      return 0;
+    }
+    int uartSelect = port.ordinal() << UART_SELECT_LSB_IDX;
+    this.txFrame[0] = (byte) (uartSelect | WRITE | Registers.THR.address());
+    this.transfer(this.txFrame, 0, readCount + 1);
+    this.statistics[port.ordinal()].add(LinkStatistics.Counter.BYTES_OUT, readCount);
     return readCount;
   }
 
+  /**
+   * Reads charCount bytes from the RX FIFO of the port using a reused request
+   * frame.
+   * 
+   * @param port      the port to read from
+   * @param charCount the number of bytes to read
+   * @return the bytes clocked in, the first is the response to the command
+   * @throws IOException if unable to read
+   */
   protected byte[] readFromRxFifo(Port port, int charCount) throws IOException {
-    int    uartSelect = port.ordinal() << UART_SELECT_LSB_IDX;
-    byte   command    = (byte) (uartSelect | Registers.RHR.address());
-    byte[] zeros      = new byte[charCount + 1];
-    zeros[0] = command;
-    return this.spi.write(zeros);
+    int readCount  = Math.min(charCount, RX_BUFFER_SIZE);
+    int uartSelect = port.ordinal() << UART_SELECT_LSB_IDX;
+    this.rxRequest[0] = (byte) (uartSelect | Registers.RHR.address());
+    return this.transfer(this.rxRequest, 0, readCount + 1);
+  }
+
+  /**
+   * Makes a single SPI transfer of the whole frame
+   * 
+   * @param data the frame starting with the command byte
+   * @return the bytes clocked in
+   * @throws IOException if unable to transfer
+   */
+  private byte[] transfer(byte[] data) throws IOException {
+    BusTransactionEvent event    = this.beginTransfer();
+    byte[]              readData = this.spi.write(data);
+    this.commitTransfer(event, data[0], data.length);
+    return readData;
+  }
+
+  /**
+   * Makes a single SPI transfer of part of a frame
+   * 
+   * @param data   the frame
+   * @param start  the index of the command byte
+   * @param length the number of bytes to transfer
+   * @return the bytes clocked in
+   * @throws IOException if unable to transfer
+   */
+  private byte[] transfer(byte[] data, int start, int length) throws IOException {
+    BusTransactionEvent event    = this.beginTransfer();
+    byte[]              readData = this.spi.write(data, start, length);
+    this.commitTransfer(event, data[start], length);
+    return readData;
+  }
+
+  private BusTransactionEvent beginTransfer() {
+    BusTransactionEvent event = new BusTransactionEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits the event of a transfer if it is enabled, decoding the port and
+   * register from the command byte
+   */
+  private void commitTransfer(BusTransactionEvent event, byte command, int length) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.device   = "MAX14830";
+      event.write    = (command & WRITE) != 0;
+      event.register = command & REGISTER_MASK;
+      event.port     = (command >> UART_SELECT_LSB_IDX) & UART_SELECT_MASK;
+      event.bytes    = length;
+      event.commit();
+    }
   }
 
   public SerialPort getPort(Port port) {
     return this.serialPortArray[port.ordinal()];
   }
 
-  public void writeToPort(Port port, String data) {
-    StringBuffer stringBuffer = this.selectBuffer(port);
-    stringBuffer.append(data);
+  /**
+   * Gets the counters of the port. Bytes, FIFO depth and, with interrupts
+   * enabled, line errors are counted here. Frames are counted by whoever
+   * parses them.
+   * 
+   * @param port the port to get the counters of
+   * @return the counters of the port
+   */
+  public LinkStatistics getStatistics(Port port) {
+    return this.statistics[port.ordinal()];
+  }
+
+  /**
+   * Queues the data to be sent on the port during the next polls. If the
+   * data does not fit in the buffer none of it is queued and the drop is
+   * counted as {@link LinkStatistics.Counter#TX_DROPPED}.
+   * 
+   * @param port the port to send on
+   * @param data the string to send, encoded as US-ASCII
+   * @return the number of characters queued, either all of them or 0
+   */
+  public int writeToPort(Port port, String data) {
+    int queued = this.selectBuffer(port).write(data);
+    if (queued < data.length()) {
+      this.statistics[port.ordinal()].increment(LinkStatistics.Counter.TX_DROPPED);
+    }
+    return queued;
+  }
+
+  /**
+   * Returns if more than {@link Settings#MAX14830_TX_HIGH_WATERMARK} bytes
+   * are waiting to be sent on the port
+   * 
+   * @param port the port to check
+   * @return if writers to the port should hold back
+   */
+  public boolean isBackpressured(Port port) {
+    return this.selectBuffer(port).size() > Settings.MAX14830_TX_HIGH_WATERMARK;
   }
 
-  private StringBuffer selectBuffer(Port port) {
-    return this.uartBufferArray[port.ordinal()];
+  private ByteRingBuffer selectBuffer(Port port) {
+    return this.txBufferArray[port.ordinal()];
   }
 
   private void writeToPort(Port port, int length) throws IOException {
-    int spaceLeft = TX_BUFFER_SIZE - this.txFifoLengths[port.ordinal()];
-    if (spaceLeft < length) {
+    double now       = this.time.getSystemTime();
+    int    spaceLeft = TX_BUFFER_SIZE - this.predictTxFifoLevel(port, now);
+    if (spaceLeft < Math.min(length, TX_BUFFER_SIZE) && this.needsTxResync(port, now)) {
       int txBufferLen = this.getTXBufferLen(port);
-      spaceLeft                          = TX_BUFFER_SIZE - txBufferLen;
-      this.txFifoLengths[port.ordinal()] = txBufferLen;
+      if (txBufferLen < 0) {
+        return;
+      }
+      spaceLeft = TX_BUFFER_SIZE - txBufferLen;
+      this.setTxFifoLevel(port, txBufferLen, now);
     }
 
     if (spaceLeft > 0) {
@@ -206,17 +455,78 @@ public class MAX14830 implements PollingSensor {
     }
   }
 
+  /**
+   * Predicts the level of the TX FIFO from the last known level and how many
+   * bytes have been sent since at the configured baud rate. Only whole bytes
+   * are drained so the fractional remainder carries over to the next call. If
+   * no baud rate is known or flow control may pause transmission the last
+   * known level is returned.
+   * 
+   * @param port the port to predict
+   * @param now  the current time
+   * @return the predicted number of bytes in the TX FIFO
+   */
+  private int predictTxFifoLevel(Port port, double now) {
+    int    i     = port.ordinal();
+    int    level = this.txFifoLengths[i];
+    double rate  = this.txBytesPerSecond[i];
+    if (rate <= 0 || this.flowControls[i] != FlowControl.NONE) {
+      return level;
+    }
+    if (level == 0) {
+      this.txLevelTimes[i] = now;
+      return 0;
+    }
+    int drained = (int) Math.min(level, (now - this.txLevelTimes[i]) * rate);
+    if (drained == level) {
+      this.txLevelTimes[i] = now;
+    } else {
+      this.txLevelTimes[i] += drained / rate;
+    }
+    this.txFifoLengths[i] = level - drained;
+    return level - drained;
+  }
+
+  /**
+   * A prediction can be trusted unless there is no baud rate, flow control can
+   * stall the transmitter or it has not been checked against the chip for
+   * {@link Settings#MAX14830_TX_RESYNC_PERIOD}.
+   * 
+   * @param port the port to check
+   * @param now  the current time
+   * @return if the TX FIFO level should be read from the chip
+   */
+  private boolean needsTxResync(Port port, double now) {
+    int i = port.ordinal();
+    return this.txBytesPerSecond[i] <= 0 || this.flowControls[i] != FlowControl.NONE
+        || now - this.txSyncTimes[i] >= Settings.MAX14830_TX_RESYNC_PERIOD;
+  }
+
+  private void setTxFifoLevel(Port port, int level, double now) {
+    int i = port.ordinal();
+    this.txFifoLengths[i] = level;
+    this.txLevelTimes[i]  = now;
+    this.txSyncTimes[i]   = now;
+  }
+
   private void readFromPort(Port port, int length) throws IOException {
-    byte[]            byteMessage        = this.readFromRxFifo(port, length);
-    String            unprocessedMessage = new String(byteMessage, this.charset);
-    String            message            = unprocessedMessage.substring(1);
-    SerialPortAdapter serialPort         = this.serialPortArray[port.ordinal()];
+    byte[] byteMessage = this.readFromRxFifo(port, length);
+    if (byteMessage == null || byteMessage.length < 2) {
+      return;
+    }
+    LinkStatistics statistics = this.statistics[port.ordinal()];
+    statistics.add(LinkStatistics.Counter.BYTES_IN, byteMessage.length - 1);
+    statistics.recordFifoDepth(length);
+    // Skip the byte clocked in while the command was sent
+    ByteBuffer        message    = ByteBuffer.wrap(byteMessage, 1, byteMessage.length - 1).slice()
+        .asReadOnlyBuffer();
+    SerialPortAdapter serialPort = this.serialPortArray[port.ordinal()];
     serialPort.newMessage(message);
   }
 
   private void pollPort(Port port) throws IOException {
-    StringBuffer buffer = this.selectBuffer(port);
-    int          length = buffer.length();
+    ByteRingBuffer buffer = this.selectBuffer(port);
+    int            length = buffer.size();
     if (length != 0) {
       this.writeToPort(port, length);
     }
@@ -226,15 +536,147 @@ public class MAX14830 implements PollingSensor {
     }
   }
 
+  /**
+   * Enables the RX trigger, RX timeout, line error and TX empty interrupts on
+   * every port and switches polling over to only service ports with pending interrupts.
+   * 
+   * @throws IOException if unable to write the configuration
+   */
+  public void enableInterrupts() throws IOException {
+    for (Port port : Port.values()) {
+      this.writeRegister(port, Registers.RxTimeOut, RX_TIMEOUT_CHARS);
+      this.writeRegister(port, Registers.FIFOTrgLvl, (RX_TRIGGER_LEVEL / FIFO_TRIGGER_DIV) << FIFO_TRIGGER_LSB);
+      this.writeRegister(port, Registers.LSRIntEn, LSR_RX_TIMEOUT | LSR_RX_OVERRUN | LSR_FRAME_ERR);
+      this.writeRegister(port, Registers.IRQEn, ISR_LSR_ERR | ISR_RFIFO_TRIG | ISR_TFIFO_EMPTY);
+    }
+    this.interruptsEnabled = true;
+  }
+
+  /**
+   * Gets the ports with a pending interrupt from the GlobalIRQ register.
+   * 
+   * @return a bit mask with bit i set if port i has a pending interrupt
+   * @throws IOException if unable to read
+   */
+  protected int getPendingInterrupts() throws IOException {
+    int globalIRQ = this.readRegister(Registers.GlobalIRQ.address());
+    if (globalIRQ < 0) {
+      return 0;
+    }
+    // The GlobalIRQ bits are active low
+    return ~globalIRQ & GLOBAL_IRQ_MASK;
+  }
+
+  /**
+   * Reads and clears the interrupts of the port and services them. ISR and LSR
+   * are read in one burst, as are the TX and RX FIFO levels.
+   * 
+   * @param port the port to service
+   * @throws IOException if unable to communicate
+   */
+  private void servicePortInterrupt(Port port) throws IOException {
+    byte[] status = this.readRegisters(port, Registers.ISR, 3);
+    if (status == null) {
+      return;
+    }
+    int     isr       = status[1] & 0xFF;
+    int     lsr       = status[3] & 0xFF;
+    boolean lsrError  = (isr & ISR_LSR_ERR) != 0;
+    boolean rxTimeout = lsrError && (lsr & LSR_RX_TIMEOUT) != 0;
+    if (lsrError) {
+      this.countLineErrors(port, lsr);
+    }
+    if ((isr & ISR_TFIFO_EMPTY) != 0) {
+      this.setTxFifoLevel(port, 0, this.time.getSystemTime());
+    }
+    if ((isr & ISR_RFIFO_TRIG) == 0 && !rxTimeout) {
+      return;
+    }
+
+    byte[] levels = this.readRegisters(port, Registers.TxFIFOLvl, 2);
+    if (levels == null) {
+      return;
+    }
+    this.setTxFifoLevel(port, levels[1] & 0xFF, this.time.getSystemTime());
+    int rxLen = levels[2] & 0xFF;
+    if (rxLen > 0) {
+      this.readFromPort(port, rxLen);
+    }
+  }
+
+  private void countLineErrors(Port port, int lsr) {
+    LinkStatistics statistics = this.statistics[port.ordinal()];
+    if ((lsr & LSR_RX_OVERRUN) != 0) {
+      statistics.increment(LinkStatistics.Counter.OVERRUNS);
+    }
+    if ((lsr & LSR_FRAME_ERR) != 0) {
+      statistics.increment(LinkStatistics.Counter.FRAMING_ERRORS);
+    }
+  }
+
+  /**
+   * Services only the ports with pending interrupts and the ports with data
+   * waiting to be sent. No SPI traffic is generated if the IRQ line is
+   * inactive and there is nothing to send.
+   * 
+   * @throws IOException if unable to communicate
+   */
+  private void pollInterrupts() throws IOException {
+    int pending = 0;
+    if (this.irqPin == null || this.irqPin.isLow()) {
+      pending = this.getPendingInterrupts();
+    }
+    for (Port port : Port.values()) {
+      if ((pending & (1 << port.ordinal())) != 0) {
+        this.servicePortInterrupt(port);
+      }
+      int length = this.selectBuffer(port).size();
+      if (length != 0) {
+        this.writeToPort(port, length);
+      }
+    }
+  }
+
+  /**
+   * Registers the number of polls and of polls which failed on the SPI bus
+   * 
+   * @param registry the registry to register with
+   * @param name     the name of this chip, such as max14830
+   */
+  public void registerMetrics(MetricsRegistry registry, String name) {
+    registry.register(name + ".polls", this.polls);
+    registry.register(name + ".bus_errors", this.busErrors);
+  }
+
+  /**
+   * Sets the telemetry failed polls are reported to as
+   * {@link Errors#UART_BUS_ERROR}, without one the stack trace is printed
+   * 
+   * @param telemetry the telemetry to report to or null for none
+   */
+  public void setTelemetry(Telemetry telemetry) {
+    this.telemetry = telemetry;
+  }
+
   @Override
   public void poll() {
+    this.polls.increment();
     try {
+      if (this.interruptsEnabled) {
+        this.pollInterrupts();
+        return;
+      }
       for (Port port : Port.values()) {
         pollPort(port);
       }
     } catch (IOException e) {
-      e.printStackTrace();
-      // TODO Handle error
+      this.busErrors.increment();
+      Telemetry errorTelemetry = this.telemetry;
+      if (errorTelemetry != null) {
+        errorTelemetry.reportError(Errors.UART_BUS_ERROR);
+      } else {
+        e.printStackTrace();
+      }
     }
 
   }
@@ -250,7 +692,40 @@ public class MAX14830 implements PollingSensor {
     byte   leastSignificantBits = (byte) (d & 0xFF);
     byte   mostSignificantBits  = (byte) ((d >> BITS_PER_BYTE) & 0xFF);
     byte[] data                 = { command, 0, leastSignificantBits, mostSignificantBits };
-    this.spi.write(data);
+    this.transfer(data);
+    this.txBytesPerSecond[port.ordinal()] = Settings.MAX14830_F_REF / (16.0 * d) / BITS_PER_CHARACTER;
+    this.txLevelTimes[port.ordinal()]     = this.time.getSystemTime();
+  }
+
+  /**
+   * Sets the automatic flow control of the port. Hardware flow control drives
+   * RTS from the RX FIFO level and pauses transmission while CTS is high.
+   * XON/XOFF flow control does the same with the XON1 and XOFF1 characters.
+   * While flow control is on the TX FIFO level is always read from the chip
+   * since transmission can be paused at any time.
+   * 
+   * @param port        the port to configure
+   * @param flowControl the flow control mode
+   * @throws IOException if unable to write the configuration
+   */
+  public void setFlowControl(Port port, FlowControl flowControl) throws IOException {
+    int flowLevel = (FLOW_RESUME_LEVEL / FLOW_LEVEL_DIV) << FLOW_RESUME_LSB | FLOW_HALT_LEVEL / FLOW_LEVEL_DIV;
+    int flowCtrl  = 0;
+    switch (flowControl) {
+      case HARDWARE:
+        flowCtrl = FLOW_AUTO_RTS | FLOW_AUTO_CTS;
+        break;
+      case XON_XOFF:
+        this.writeRegister(port, Registers.XON1, XON_CHARACTER);
+        this.writeRegister(port, Registers.XOFF1, XOFF_CHARACTER);
+        flowCtrl = FLOW_SW_EN | FLOW_SW_RX_XON1 | FLOW_SW_TX_XON1;
+        break;
+      default:
+        break;
+    }
+    this.writeRegister(port, Registers.FlowLvl, flowLevel);
+    this.writeRegister(port, Registers.FlowCtrl, flowCtrl);
+    this.flowControls[port.ordinal()] = flowControl;
 
   }
 }
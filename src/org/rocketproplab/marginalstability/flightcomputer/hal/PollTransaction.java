@@ -0,0 +1,28 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+/**
+ * A reusable transaction which polls a sensor on the bus thread
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class PollTransaction extends BusTransaction {
+
+  private final PollingSensor sensor;
+
+  /**
+   * Create a new transaction polling the sensor
+   * 
+   * @param sensor   the sensor to poll
+   * @param priority the priority of the poll
+   */
+  public PollTransaction(PollingSensor sensor, BusPriority priority) {
+    super(priority);
+    this.sensor = sensor;
+  }
+
+  @Override
+  protected void execute() {
+    this.sensor.poll();
+  }
+}
@@ -0,0 +1,153 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import org.rocketproplab.marginalstability.flightcomputer.profiling.BusTransactionEvent;
+
+import com.pi4j.io.i2c.I2CDevice;
+
+/**
+ * Passes every call through to an I2C device and emits a
+ * {@link BusTransactionEvent} for each transaction. While the event is
+ * disabled, as it is by default, only the call itself is added.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ProfiledI2CDevice implements I2CDevice {
+
+  private static final int NO_REGISTER = -1;
+
+  private final I2CDevice device;
+  private final String    name;
+
+  /**
+   * Create a new profiled device
+   * 
+   * @param device the device to pass calls to
+   * @param name   the name of the chip reported in the events
+   */
+  public ProfiledI2CDevice(I2CDevice device, String name) {
+    this.device = device;
+    this.name   = name;
+  }
+
+  private static BusTransactionEvent begin() {
+    BusTransactionEvent event = new BusTransactionEvent();
+    event.begin();
+    return event;
+  }
+
+  private void commit(BusTransactionEvent event, boolean write, int register, int bytes) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.device   = this.name;
+      event.write    = write;
+      event.register = register;
+      event.port     = BusTransactionEvent.NO_PORT;
+      event.bytes    = bytes;
+      event.commit();
+    }
+  }
+
+  @Override
+  public int getAddress() {
+    return this.device.getAddress();
+  }
+
+  @Override
+  public void write(byte b) throws IOException {
+    BusTransactionEvent event = begin();
+    this.device.write(b);
+    this.commit(event, true, NO_REGISTER, 1);
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int size) throws IOException {
+    BusTransactionEvent event = begin();
+    this.device.write(buffer, offset, size);
+    this.commit(event, true, NO_REGISTER, size);
+  }
+
+  @Override
+  public void write(byte[] buffer) throws IOException {
+    BusTransactionEvent event = begin();
+    this.device.write(buffer);
+    this.commit(event, true, NO_REGISTER, buffer.length);
+  }
+
+  @Override
+  public void write(int address, byte b) throws IOException {
+    BusTransactionEvent event = begin();
+    this.device.write(address, b);
+    this.commit(event, true, address, 1);
+  }
+
+  @Override
+  public void write(int address, byte[] buffer, int offset, int size) throws IOException {
+    BusTransactionEvent event = begin();
+    this.device.write(address, buffer, offset, size);
+    this.commit(event, true, address, size);
+  }
+
+  @Override
+  public void write(int address, byte[] buffer) throws IOException {
+    BusTransactionEvent event = begin();
+    this.device.write(address, buffer);
+    this.commit(event, true, address, buffer.length);
+  }
+
+  @Override
+  public int read() throws IOException {
+    BusTransactionEvent event = begin();
+    int                 value = this.device.read();
+    this.commit(event, false, NO_REGISTER, 1);
+    return value;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int size) throws IOException {
+    BusTransactionEvent event = begin();
+    int                 read  = this.device.read(buffer, offset, size);
+    this.commit(event, false, NO_REGISTER, read);
+    return read;
+  }
+
+  @Override
+  public int read(int address) throws IOException {
+    BusTransactionEvent event = begin();
+    int                 value = this.device.read(address);
+    this.commit(event, false, address, 1);
+    return value;
+  }
+
+  @Override
+  public int read(int address, byte[] buffer, int offset, int size) throws IOException {
+    BusTransactionEvent event = begin();
+    int                 read  = this.device.read(address, buffer, offset, size);
+    this.commit(event, false, address, read);
+    return read;
+  }
+
+  @Override
+  public int read(byte[] writeBuffer, int writeOffset, int writeSize, byte[] readBuffer, int readOffset,
+      int readSize) throws IOException {
+    BusTransactionEvent event = begin();
+    int                 read  = this.device.read(writeBuffer, writeOffset, writeSize, readBuffer, readOffset,
+        readSize);
+    this.commit(event, false, NO_REGISTER, writeSize + read);
+    return read;
+  }
+
+  @Override
+  public void ioctl(long command, int value) throws IOException {
+    this.device.ioctl(command, value);
+  }
+
+  @Override
+  public void ioctl(long command, ByteBuffer data, IntBuffer offsets) throws IOException {
+    this.device.ioctl(command, data, offsets);
+  }
+}
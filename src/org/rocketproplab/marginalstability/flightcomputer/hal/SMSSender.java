@@ -2,4 +2,10 @@ package org.rocketproplab.marginalstability.flightcomputer.hal;
 
 public interface SMSSender {
 	void sendMessage(String number, String message);
+
+	/**
+	 * Handles timeouts and retries of messages being sent, must be called
+	 * periodically by the owner of the sender
+	 */
+	void poll();
 }
@@ -0,0 +1,22 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+/**
+ * The final outcome of an SMS message
+ * 
+ * @author Max Apodaca
+ *
+ */
+public enum SMSStatus {
+  /**
+   * The modem confirmed the message was sent
+   */
+  SENT,
+  /**
+   * Every attempt to send the message failed
+   */
+  FAILED,
+  /**
+   * The outbox was full so the message was never attempted
+   */
+  DROPPED;
+}
@@ -1,33 +1,276 @@
 package org.rocketproplab.marginalstability.flightcomputer.hal;
 
-import org.rocketproplab.marginalstability.flightcomputer.hal.*;
-
-public class SaraSMSSender implements SMSSender {
-	
-	SerialPort saraSerialPort;
-	String phoneNumber;
-	String at;
-	int messageIndex;
-	String result;
-	
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.events.SMSListener;
+import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
+
+/**
+ * Sends SMS messages through a u-blox SARA modem without ever blocking the
+ * caller. Messages are queued in a bounded outbox and sent one at a time by a
+ * state machine driven by the modem responses received on the serial port and
+ * by {@link #poll()} for timeouts and retries.
+ *
+ * A message is sent by issuing AT+CMGS, waiting for the '&gt;' prompt, writing
+ * the text terminated by Ctrl-Z and waiting for OK. Failed messages are
+ * retried with exponential backoff and the outcome of every message is
+ * reported to the registered {@link SMSListener}s.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SaraSMSSender implements SMSSender, SerialListener, PollingSensor {
+
+	private static final int    NUMBER_LENGTH  = 11;
+	private static final int    MAX_LENGTH     = 160;
+	private static final String AT             = "AT\n";
+	private static final String TEXT_MODE      = "AT+CMGF=1\n";
+	private static final String SEND_FORMAT    = "AT+CMGS=\"+%s\"\n";
+	private static final String END_OF_MESSAGE = "\u001A";
+	private static final String ESCAPE         = "\u001B";
+	private static final String OK             = "OK";
+	private static final String ERROR          = "ERROR";
+	private static final String PROMPT         = ">";
+
+	/**
+	 * The states of the modem conversation
+	 */
+	private enum State {
+		WAIT_AT, WAIT_TEXT_MODE, IDLE, WAIT_PROMPT, WAIT_SENT, BACKOFF;
+	}
+
+	/**
+	 * A message waiting in the outbox
+	 */
+	private static class Message {
+		private final String number;
+		private final String text;
+		private int          attempts;
+
+		private Message(String number, String text) {
+			this.number = number;
+			this.text   = text;
+		}
+	}
+
+	private SerialPort          saraSerialPort;
+	private Time                time;
+	private ArrayDeque<Message> outbox;
+	private List<SMSListener>   listeners;
+	private StringBuilder       line;
+	private State               state;
+	private boolean             initialized;
+	private int                 initAttempts;
+	private double              deadline;
+
 	public SaraSMSSender(SerialPort saraSerialPort) {
+		this(saraSerialPort, new Time());
+	}
+
+	/**
+	 * Create a new SMS sender on the serial port of the modem. The modem is put
+	 * into text mode straight away.
+	 *
+	 * @param saraSerialPort the serial port the modem is on
+	 * @param time           the time used for timeouts and retries
+	 */
+	public SaraSMSSender(SerialPort saraSerialPort, Time time) {
 		this.saraSerialPort = saraSerialPort;
-		messageIndex = 0;
-		
-		saraSerialPort.write("AT\n");
-		saraSerialPort.write("AT+CMGF=1\n");
+		this.time           = time;
+		this.outbox         = new ArrayDeque<>();
+		this.listeners      = new ArrayList<>();
+		this.line           = new StringBuilder();
+
+		saraSerialPort.registerListener(this);
+		this.startInit();
+	}
+
+	/**
+	 * Adds a listener to be told the outcome of every message
+	 *
+	 * @param listener the listener to add
+	 */
+	public synchronized void addSMSListener(SMSListener listener) {
+		this.listeners.add(listener);
 	}
-	
+
+	/**
+	 * Queues the message to be sent and returns immediately. If the outbox is
+	 * full the message is reported as {@link SMSStatus#DROPPED}.
+	 */
 	@Override
-	public void sendMessage(String number, String data) {
-		//TODO: Add in a listener that would allow us to check if the AT
-		//is on, if it's been switched the SMS mode, and if the message
-		//was sent.
-		if (number.length() != 11 || data.length() > 160) {
+	public synchronized void sendMessage(String number, String data) {
+		if (number.length() != NUMBER_LENGTH || data.length() > MAX_LENGTH) {
 			throw new IllegalArgumentException();
-		} else	{
-			saraSerialPort.write("AT+CMGS=\"+" + number + "\"\n");
-			saraSerialPort.write(data + "\r\n");
+		}
+		Message message = new Message(number, data);
+		if (this.outbox.size() >= Settings.SMS_OUTBOX_SIZE) {
+			this.report(message, SMSStatus.DROPPED);
+			return;
+		}
+		this.outbox.add(message);
+		if (this.state == State.IDLE) {
+			this.sendNext();
+		}
+	}
+
+	/**
+	 * @return the number of messages waiting to be sent, including the one
+	 *         being sent
+	 */
+	public synchronized int getOutboxSize() {
+		return this.outbox.size();
+	}
+
+	/**
+	 * Handles timeouts and retries, should be called periodically.
+	 */
+	@Override
+	public synchronized void poll() {
+		double now = this.time.getSystemTime();
+		if (now < this.deadline) {
+			return;
+		}
+		switch (this.state) {
+			case WAIT_AT:
+			case WAIT_TEXT_MODE:
+				this.initFailed();
+				break;
+			case WAIT_PROMPT:
+				this.saraSerialPort.write(ESCAPE);
+				this.sendFailed();
+				break;
+			case WAIT_SENT:
+				this.sendFailed();
+				break;
+			case BACKOFF:
+				if (this.initialized) {
+					this.state = State.IDLE;
+					this.sendNext();
+				} else {
+					this.startInit();
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Parses responses from the modem. Data can arrive split at any point, it
+	 * is collected into lines. The message prompt is not followed by a line
+	 * break so it is checked for in the partial line.
+	 */
+	@Override
+	public synchronized void onSerialData(String data) {
+		for (int i = 0; i < data.length(); i++) {
+			char c = data.charAt(i);
+			if (c == '\n') {
+				this.onLine(this.line.toString().trim());
+				this.line.setLength(0);
+			} else {
+				this.line.append(c);
+			}
+		}
+		if (this.state == State.WAIT_PROMPT && this.line.toString().trim().startsWith(PROMPT)) {
+			this.line.setLength(0);
+			this.saraSerialPort.write(this.outbox.peek().text + END_OF_MESSAGE);
+			this.setState(State.WAIT_SENT, Settings.SMS_SEND_TIMEOUT);
+		}
+	}
+
+	private void onLine(String response) {
+		boolean ok    = response.equals(OK);
+		boolean error = response.endsWith(ERROR) || response.contains(ERROR + ":");
+		if (!ok && !error) {
+			return;
+		}
+		switch (this.state) {
+			case WAIT_AT:
+				if (ok) {
+					this.saraSerialPort.write(TEXT_MODE);
+					this.setState(State.WAIT_TEXT_MODE, Settings.SMS_COMMAND_TIMEOUT);
+				} else {
+					this.initFailed();
+				}
+				break;
+			case WAIT_TEXT_MODE:
+				if (ok) {
+					this.initialized  = true;
+					this.initAttempts = 0;
+					this.state        = State.IDLE;
+					this.sendNext();
+				} else {
+					this.initFailed();
+				}
+				break;
+			case WAIT_PROMPT:
+				if (error) {
+					this.sendFailed();
+				}
+				break;
+			case WAIT_SENT:
+				if (ok) {
+					this.report(this.outbox.poll(), SMSStatus.SENT);
+					this.state = State.IDLE;
+					this.sendNext();
+				} else {
+					this.sendFailed();
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void startInit() {
+		this.initialized = false;
+		this.saraSerialPort.write(AT);
+		this.setState(State.WAIT_AT, Settings.SMS_COMMAND_TIMEOUT);
+	}
+
+	private void initFailed() {
+		this.initAttempts++;
+		this.setState(State.BACKOFF, this.getBackoff(this.initAttempts));
+	}
+
+	private void sendNext() {
+		Message message = this.outbox.peek();
+		if (message == null) {
+			return;
+		}
+		message.attempts++;
+		this.saraSerialPort.write(String.format(SEND_FORMAT, message.number));
+		this.setState(State.WAIT_PROMPT, Settings.SMS_COMMAND_TIMEOUT);
+	}
+
+	private void sendFailed() {
+		Message message = this.outbox.peek();
+		if (message.attempts >= Settings.SMS_MAX_ATTEMPTS) {
+			this.report(this.outbox.poll(), SMSStatus.FAILED);
+			this.state = State.IDLE;
+			this.sendNext();
+			return;
+		}
+		this.setState(State.BACKOFF, this.getBackoff(message.attempts));
+	}
+
+	private double getBackoff(int attempts) {
+		return Settings.SMS_RETRY_BACKOFF * Math.pow(2, Math.min(attempts, Settings.SMS_MAX_ATTEMPTS) - 1);
+	}
+
+	private void setState(State state, double timeout) {
+		this.state    = state;
+		this.deadline = this.time.getSystemTime() + timeout;
+	}
+
+	private void report(Message message, SMSStatus status) {
+		for (SMSListener listener : this.listeners) {
+			listener.onSMSResult(message.number, message.text, status);
 		}
 	}
 }
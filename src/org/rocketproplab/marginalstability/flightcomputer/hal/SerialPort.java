@@ -1,5 +1,9 @@
 package org.rocketproplab.marginalstability.flightcomputer.hal;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.rocketproplab.marginalstability.flightcomputer.events.SerialByteListener;
 import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
 
 public interface SerialPort {
@@ -10,10 +14,29 @@ public interface SerialPort {
 	 */
 	public void registerListener(SerialListener listener);
 
+	/**
+	 * Register a listener for the raw received bytes. Ports which only produce
+	 * strings encode each message as US-ASCII.
+	 * @param listener the listener to register
+	 */
+	public default void registerByteListener(SerialByteListener listener) {
+		this.registerListener(data -> listener
+				.onSerialData(ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer()));
+	}
+
 	/**
 	 * Send data over serial port
 	 * @param data the string to send
 	 */
 	public void write(String data);
 
+	/**
+	 * Returns if the port has buffered so much data that writers should hold
+	 * back non essential messages until it drains
+	 * @return if writes should be throttled
+	 */
+	public default boolean isBackpressured() {
+		return false;
+	}
+
 }
\ No newline at end of file
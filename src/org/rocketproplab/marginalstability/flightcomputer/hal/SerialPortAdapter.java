@@ -1,8 +1,12 @@
 package org.rocketproplab.marginalstability.flightcomputer.hal;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 
+import org.rocketproplab.marginalstability.flightcomputer.events.SerialByteListener;
 import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
 
 /**
@@ -13,12 +17,26 @@ import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
  */
 public class SerialPortAdapter implements SerialPort {
 
-  private Set<SerialListener> listeners;
-  private SerialListener      writeListener;
+  private Set<SerialListener>     listeners;
+  private Set<SerialByteListener> byteListeners;
+  private SerialListener          writeListener;
+  private BooleanSupplier         backpressure;
 
   public SerialPortAdapter(SerialListener writeListener) {
+    this(writeListener, () -> false);
+  }
+
+  /**
+   * Create a new adapter which reports backpressure from the given source
+   * 
+   * @param writeListener the listener to call when data is written
+   * @param backpressure  returns if the underlying port is backed up
+   */
+  public SerialPortAdapter(SerialListener writeListener, BooleanSupplier backpressure) {
     this.listeners     = new HashSet<>();
+    this.byteListeners = new HashSet<>();
     this.writeListener = writeListener;
+    this.backpressure  = backpressure;
   }
 
   @Override
@@ -26,15 +44,55 @@ public class SerialPortAdapter implements SerialPort {
     this.listeners.add(listener);
   }
 
+  @Override
+  public void registerByteListener(SerialByteListener listener) {
+    this.byteListeners.add(listener);
+  }
+
   @Override
   public void write(String data) {
     this.writeListener.onSerialData(data);
   }
 
+  @Override
+  public boolean isBackpressured() {
+    return this.backpressure.getAsBoolean();
+  }
+
   public void newMessage(String message) {
     for (SerialListener listener : this.listeners) {
       listener.onSerialData(message);
     }
+    if (!this.byteListeners.isEmpty()) {
+      this.dispatchBytes(ByteBuffer.wrap(message.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer());
+    }
+  }
+
+  /**
+   * Sends the received bytes to every listener. Byte listeners share the read
+   * only view, its position and limit are restored between them. The bytes are
+   * only decoded if a string listener is registered.
+   * 
+   * @param data a read only view of the received bytes
+   */
+  public void newMessage(ByteBuffer data) {
+    if (!this.listeners.isEmpty()) {
+      String message = StandardCharsets.US_ASCII.decode(data.duplicate()).toString();
+      for (SerialListener listener : this.listeners) {
+        listener.onSerialData(message);
+      }
+    }
+    this.dispatchBytes(data);
+  }
+
+  private void dispatchBytes(ByteBuffer data) {
+    int position = data.position();
+    int limit    = data.limit();
+    for (SerialByteListener listener : this.byteListeners) {
+      data.limit(limit).position(position);
+      listener.onSerialData(data);
+    }
+    data.limit(limit).position(position);
   }
 
 }
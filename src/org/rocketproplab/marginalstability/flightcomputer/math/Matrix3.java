@@ -0,0 +1,183 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+/**
+ * A mutable 3x3 matrix. The elements are held in fields rather than an array
+ * so a short lived instance can be kept entirely in registers. All operations
+ * are done in place.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class Matrix3 {
+
+  private double m00, m01, m02;
+  private double m10, m11, m12;
+  private double m20, m21, m22;
+
+  /**
+   * Create a new identity matrix
+   */
+  public Matrix3() {
+    this.setIdentity();
+  }
+
+  /**
+   * Sets the elements of the matrix in row major order
+   *
+   * @return this matrix
+   */
+  public Matrix3 set(double m00, double m01, double m02, double m10, double m11, double m12, double m20,
+      double m21, double m22) {
+    this.m00 = m00;
+    this.m01 = m01;
+    this.m02 = m02;
+    this.m10 = m10;
+    this.m11 = m11;
+    this.m12 = m12;
+    this.m20 = m20;
+    this.m21 = m21;
+    this.m22 = m22;
+    return this;
+  }
+
+  /**
+   * Copies the other matrix into this one
+   *
+   * @param other the matrix to copy
+   * @return this matrix
+   */
+  public Matrix3 set(Matrix3 other) {
+    return this.set(other.m00, other.m01, other.m02, other.m10, other.m11, other.m12, other.m20, other.m21,
+        other.m22);
+  }
+
+  /**
+   * Sets this matrix to the identity
+   *
+   * @return this matrix
+   */
+  public Matrix3 setIdentity() {
+    return this.set(1, 0, 0, 0, 1, 0, 0, 0, 1);
+  }
+
+  /**
+   * Sets this matrix to the rotation described by the unit quaternion
+   *
+   * @param q the rotation
+   * @return this matrix
+   */
+  public Matrix3 setRotation(Quaternion q) {
+    double w = q.getW();
+    double x = q.getX();
+    double y = q.getY();
+    double z = q.getZ();
+    return this.set(1 - 2 * (y * y + z * z), 2 * (x * y - w * z), 2 * (x * z + w * y),
+        2 * (x * y + w * z), 1 - 2 * (x * x + z * z), 2 * (y * z - w * x),
+        2 * (x * z - w * y), 2 * (y * z + w * x), 1 - 2 * (x * x + y * y));
+  }
+
+  /**
+   * Gets a single element of the matrix
+   *
+   * @param row the row of the element
+   * @param col the column of the element
+   * @return the element
+   */
+  public double get(int row, int col) {
+    switch (row * 3 + col) {
+      case 0:
+        return m00;
+      case 1:
+        return m01;
+      case 2:
+        return m02;
+      case 3:
+        return m10;
+      case 4:
+        return m11;
+      case 5:
+        return m12;
+      case 6:
+        return m20;
+      case 7:
+        return m21;
+      case 8:
+        return m22;
+      default:
+        throw new IndexOutOfBoundsException("(" + row + ", " + col + ") is not in a 3x3 matrix");
+    }
+  }
+
+  /**
+   * Sets this matrix to the product this * other
+   *
+   * @param other the right hand side of the product
+   * @return this matrix
+   */
+  public Matrix3 multiply(Matrix3 other) {
+    return this.set(m00 * other.m00 + m01 * other.m10 + m02 * other.m20,
+        m00 * other.m01 + m01 * other.m11 + m02 * other.m21,
+        m00 * other.m02 + m01 * other.m12 + m02 * other.m22,
+        m10 * other.m00 + m11 * other.m10 + m12 * other.m20,
+        m10 * other.m01 + m11 * other.m11 + m12 * other.m21,
+        m10 * other.m02 + m11 * other.m12 + m12 * other.m22,
+        m20 * other.m00 + m21 * other.m10 + m22 * other.m20,
+        m20 * other.m01 + m21 * other.m11 + m22 * other.m21,
+        m20 * other.m02 + m21 * other.m12 + m22 * other.m22);
+  }
+
+  /**
+   * Transposes this matrix in place
+   *
+   * @return this matrix
+   */
+  public Matrix3 transpose() {
+    return this.set(m00, m10, m20, m01, m11, m21, m02, m12, m22);
+  }
+
+  /**
+   * @return the determinant of this matrix
+   */
+  public double determinant() {
+    return m00 * (m11 * m22 - m12 * m21) - m01 * (m10 * m22 - m12 * m20) + m02 * (m10 * m21 - m11 * m20);
+  }
+
+  /**
+   * Multiplies the vector by this matrix in place
+   *
+   * @param vector the vector to transform
+   * @return the vector
+   */
+  public MutableVector3 transform(MutableVector3 vector) {
+    double x = vector.getX();
+    double y = vector.getY();
+    double z = vector.getZ();
+    return vector.set(m00 * x + m01 * y + m02 * z, m10 * x + m11 * y + m12 * z, m20 * x + m21 * y + m22 * z);
+  }
+
+  /**
+   * Multiplies the first count vectors of a packed array by this matrix in
+   * place, see {@link Vector3Array} for the layout.
+   *
+   * @param vectors the packed vectors
+   * @param count   the number of vectors to transform
+   */
+  public void transform(double[] vectors, int count) {
+    for (int v = 0; v < count; v++) {
+      int    i = v * Vector3Array.STRIDE;
+      double x = vectors[i];
+      double y = vectors[i + 1];
+      double z = vectors[i + 2];
+      vectors[i]     = m00 * x + m01 * y + m02 * z;
+      vectors[i + 1] = m10 * x + m11 * y + m12 * z;
+      vectors[i + 2] = m20 * x + m21 * y + m22 * z;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "[(" + m00 + ", " + m01 + ", " + m02 + "), (" + m10 + ", " + m11 + ", " + m12 + "), (" + m20 + ", "
+        + m21 + ", " + m22 + ")]";
+  }
+
+}
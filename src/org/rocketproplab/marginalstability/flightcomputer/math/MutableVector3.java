@@ -0,0 +1,257 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+/**
+ * A mutable vector to be used as an accumulator in hot loops. Every operation
+ * is done in place and returns this vector so that calls can be chained
+ * without allocating. Use {@link Vector3} for values which are handed to
+ * other parts of the flight computer.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class MutableVector3 {
+
+  private double x;
+  private double y;
+  private double z;
+
+  /**
+   * Create a new zero vector
+   */
+  public MutableVector3() {
+    this.x = 0.0;
+    this.y = 0.0;
+    this.z = 0.0;
+  }
+
+  /**
+   * Create a new vector with the given components
+   *
+   * @param x the x component
+   * @param y the y component
+   * @param z the z component
+   */
+  public MutableVector3(double x, double y, double z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+  }
+
+  /**
+   * @return the x component
+   */
+  public double getX() {
+    return x;
+  }
+
+  /**
+   * @return the y component
+   */
+  public double getY() {
+    return y;
+  }
+
+  /**
+   * @return the z component
+   */
+  public double getZ() {
+    return z;
+  }
+
+  /**
+   * Sets the components of this vector
+   *
+   * @param x the x component
+   * @param y the y component
+   * @param z the z component
+   * @return this vector
+   */
+  public MutableVector3 set(double x, double y, double z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    return this;
+  }
+
+  /**
+   * Copies the components of the given vector
+   *
+   * @param other the vector to copy
+   * @return this vector
+   */
+  public MutableVector3 set(MutableVector3 other) {
+    return this.set(other.x, other.y, other.z);
+  }
+
+  /**
+   * Copies the components of the given vector
+   *
+   * @param other the vector to copy
+   * @return this vector
+   */
+  public MutableVector3 set(Vector3 other) {
+    return this.set(other.getX(), other.getY(), other.getZ());
+  }
+
+  /**
+   * Adds the components to this vector
+   *
+   * @param x the x component to add
+   * @param y the y component to add
+   * @param z the z component to add
+   * @return this vector
+   */
+  public MutableVector3 add(double x, double y, double z) {
+    this.x += x;
+    this.y += y;
+    this.z += z;
+    return this;
+  }
+
+  /**
+   * Adds the other vector to this vector
+   *
+   * @param other the vector to add
+   * @return this vector
+   */
+  public MutableVector3 add(MutableVector3 other) {
+    return this.add(other.x, other.y, other.z);
+  }
+
+  /**
+   * Adds the other vector to this vector
+   *
+   * @param other the vector to add
+   * @return this vector
+   */
+  public MutableVector3 add(Vector3 other) {
+    return this.add(other.getX(), other.getY(), other.getZ());
+  }
+
+  /**
+   * Subtracts the other vector from this vector
+   *
+   * @param other the vector to subtract
+   * @return this vector
+   */
+  public MutableVector3 subtract(MutableVector3 other) {
+    return this.add(-other.x, -other.y, -other.z);
+  }
+
+  /**
+   * Adds the other vector multiplied by the scale to this vector
+   *
+   * @param other the vector to add
+   * @param scale what to multiply the other vector by
+   * @return this vector
+   */
+  public MutableVector3 addScaled(MutableVector3 other, double scale) {
+    return this.add(other.x * scale, other.y * scale, other.z * scale);
+  }
+
+  /**
+   * Multiplies every component by the scale
+   *
+   * @param scale what to multiply by
+   * @return this vector
+   */
+  public MutableVector3 scale(double scale) {
+    this.x *= scale;
+    this.y *= scale;
+    this.z *= scale;
+    return this;
+  }
+
+  /**
+   * Computes the dot product, this vector is not modified
+   *
+   * @param other the other vector
+   * @return this dot other
+   */
+  public double dot(MutableVector3 other) {
+    return this.x * other.x + this.y * other.y + this.z * other.z;
+  }
+
+  /**
+   * Sets this vector to the cross product this x other
+   *
+   * @param other the right hand side of the cross product
+   * @return this vector
+   */
+  public MutableVector3 cross(MutableVector3 other) {
+    return this.set(this.y * other.z - this.z * other.y, this.z * other.x - this.x * other.z,
+        this.x * other.y - this.y * other.x);
+  }
+
+  /**
+   * @return the squared length of this vector
+   */
+  public double normSquared() {
+    return this.x * this.x + this.y * this.y + this.z * this.z;
+  }
+
+  /**
+   * @return the length of this vector
+   */
+  public double norm() {
+    return Math.sqrt(this.normSquared());
+  }
+
+  /**
+   * Scales this vector to unit length, a zero vector is left unchanged
+   *
+   * @return this vector
+   */
+  public MutableVector3 normalize() {
+    double norm = this.norm();
+    if (norm == 0) {
+      return this;
+    }
+    return this.scale(1 / norm);
+  }
+
+  /**
+   * Creates an immutable copy of this vector
+   *
+   * @return a new vector with the same components
+   */
+  public Vector3 toVector3() {
+    return new Vector3(this.x, this.y, this.z);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof MutableVector3)) {
+      return false;
+    }
+    MutableVector3 otherVector = (MutableVector3) other;
+    return this.x == otherVector.x && this.y == otherVector.y && this.z == otherVector.z;
+  }
+
+  /**
+   * The hash changes whenever the vector is modified, so a vector must not
+   * be modified while it is in a hashed collection.
+   */
+  @Override
+  public int hashCode() {
+    int hash = hashComponent(this.x);
+    hash = 31 * hash + hashComponent(this.y);
+    return 31 * hash + hashComponent(this.z);
+  }
+
+  /**
+   * Hashes a component so that 0.0 and -0.0, which are equal, hash the same
+   *
+   * @param component the component to hash
+   * @return the hash of the component
+   */
+  private static int hashComponent(double component) {
+    return Double.hashCode(component == 0 ? 0 : component);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + this.x + ", " + this.y + ", " + this.z + ")";
+  }
+
+}
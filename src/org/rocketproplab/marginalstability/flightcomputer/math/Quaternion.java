@@ -0,0 +1,232 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+/**
+ * A mutable quaternion used to represent orientations. All operations are done
+ * in place so that a single instance can be reused every sample without
+ * allocating.
+ *
+ * The quaternion is stored as w + xi + yj + zk.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class Quaternion {
+
+  private double w;
+  private double x;
+  private double y;
+  private double z;
+
+  /**
+   * Create a new identity quaternion
+   */
+  public Quaternion() {
+    this.setIdentity();
+  }
+
+  /**
+   * Create a new quaternion with the given components
+   *
+   * @param w the real component
+   * @param x the i component
+   * @param y the j component
+   * @param z the k component
+   */
+  public Quaternion(double w, double x, double y, double z) {
+    this.set(w, x, y, z);
+  }
+
+  /**
+   * Sets the components of this quaternion
+   *
+   * @param w the real component
+   * @param x the i component
+   * @param y the j component
+   * @param z the k component
+   * @return this quaternion
+   */
+  public Quaternion set(double w, double x, double y, double z) {
+    this.w = w;
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    return this;
+  }
+
+  /**
+   * Copies the components of the other quaternion into this one
+   *
+   * @param other the quaternion to copy
+   * @return this quaternion
+   */
+  public Quaternion set(Quaternion other) {
+    return this.set(other.w, other.x, other.y, other.z);
+  }
+
+  /**
+   * Sets this quaternion to the identity rotation
+   *
+   * @return this quaternion
+   */
+  public Quaternion setIdentity() {
+    return this.set(1, 0, 0, 0);
+  }
+
+  /**
+   * @return the real component
+   */
+  public double getW() {
+    return w;
+  }
+
+  /**
+   * @return the i component
+   */
+  public double getX() {
+    return x;
+  }
+
+  /**
+   * @return the j component
+   */
+  public double getY() {
+    return y;
+  }
+
+  /**
+   * @return the k component
+   */
+  public double getZ() {
+    return z;
+  }
+
+  /**
+   * @return the norm of the quaternion
+   */
+  public double getNorm() {
+    return Math.sqrt(w * w + x * x + y * y + z * z);
+  }
+
+  /**
+   * Scales the quaternion to unit length. A zero quaternion becomes the
+   * identity.
+   *
+   * @return this quaternion
+   */
+  public Quaternion normalize() {
+    double norm = this.getNorm();
+    if (norm == 0) {
+      return this.setIdentity();
+    }
+    double inverse = 1 / norm;
+    return this.set(w * inverse, x * inverse, y * inverse, z * inverse);
+  }
+
+  /**
+   * Sets this quaternion to its conjugate, the inverse rotation for a unit
+   * quaternion.
+   *
+   * @return this quaternion
+   */
+  public Quaternion conjugate() {
+    return this.set(w, -x, -y, -z);
+  }
+
+  /**
+   * Sets this quaternion to the hamilton product this * other
+   *
+   * @param other the right hand side of the product
+   * @return this quaternion
+   */
+  public Quaternion multiply(Quaternion other) {
+    return this.set(w * other.w - x * other.x - y * other.y - z * other.z,
+        w * other.x + x * other.w + y * other.z - z * other.y,
+        w * other.y - x * other.z + y * other.w + z * other.x,
+        w * other.z + x * other.y - y * other.x + z * other.w);
+  }
+
+  /**
+   * Rotates a vector stored as three consecutive doubles in place by this unit
+   * quaternion, computing q * v * q^-1.
+   *
+   * @param vector the array holding the vector
+   * @param offset the index of the x component in the array
+   */
+  public void rotate(double[] vector, int offset) {
+    double vx = vector[offset];
+    double vy = vector[offset + 1];
+    double vz = vector[offset + 2];
+
+    // t = 2 * (q_xyz cross v)
+    double tx = 2 * (y * vz - z * vy);
+    double ty = 2 * (z * vx - x * vz);
+    double tz = 2 * (x * vy - y * vx);
+
+    // v' = v + w * t + q_xyz cross t
+    vector[offset]     = vx + w * tx + (y * tz - z * ty);
+    vector[offset + 1] = vy + w * ty + (z * tx - x * tz);
+    vector[offset + 2] = vz + w * tz + (x * ty - y * tx);
+  }
+
+  /**
+   * Rotates the vector in place by this unit quaternion
+   *
+   * @param vector the vector to rotate
+   * @return the vector
+   */
+  public MutableVector3 rotate(MutableVector3 vector) {
+    double vx = vector.getX();
+    double vy = vector.getY();
+    double vz = vector.getZ();
+    double tx = 2 * (y * vz - z * vy);
+    double ty = 2 * (z * vx - x * vz);
+    double tz = 2 * (x * vy - y * vx);
+    return vector.set(vx + w * tx + (y * tz - z * ty), vy + w * ty + (z * tx - x * tz),
+        vz + w * tz + (x * ty - y * tx));
+  }
+
+  /**
+   * Gets the angle between the z axis rotated by this unit quaternion and the
+   * unrotated z axis.
+   *
+   * @return the tilt from vertical in radians
+   */
+  public double getTiltAngle() {
+    double cosTilt = w * w - x * x - y * y + z * z;
+    return Math.acos(Math.max(-1, Math.min(1, cosTilt)));
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Quaternion)) {
+      return false;
+    }
+    Quaternion otherQuaternion = (Quaternion) other;
+    return this.w == otherQuaternion.w && this.x == otherQuaternion.x && this.y == otherQuaternion.y
+        && this.z == otherQuaternion.z;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = hashComponent(this.w);
+    hash = 31 * hash + hashComponent(this.x);
+    hash = 31 * hash + hashComponent(this.y);
+    return 31 * hash + hashComponent(this.z);
+  }
+
+  /**
+   * Hashes a component so that 0.0 and -0.0, which are equal, hash the same
+   *
+   * @param component the component to hash
+   * @return the hash of the component
+   */
+  private static int hashComponent(double component) {
+    return Double.hashCode(component == 0 ? 0 : component);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + this.w + ", " + this.x + ", " + this.y + ", " + this.z + ")";
+  }
+
+}
@@ -0,0 +1,116 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+/**
+ * Accumulates the count, mean, standard deviation, minimum and maximum of a
+ * stream of samples in a single pass without keeping the samples. Two
+ * statistics taken of separate streams can be merged into the statistics of
+ * both, so work split across threads can be combined at the end.
+ *
+ * Not thread safe, every thread should accumulate its own statistics.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class RunningStatistics {
+
+  private long   count;
+  private double mean;
+  private double squares;
+  private double min;
+  private double max;
+
+  /**
+   * Create new statistics without any samples
+   */
+  public RunningStatistics() {
+    this.count   = 0;
+    this.mean    = 0;
+    this.squares = 0;
+    this.min     = Double.POSITIVE_INFINITY;
+    this.max     = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Adds a sample, NaN samples are ignored
+   *
+   * @param sample the sample to add
+   */
+  public void add(double sample) {
+    if (Double.isNaN(sample)) {
+      return;
+    }
+    this.count++;
+    double delta = sample - this.mean;
+    this.mean    += delta / this.count;
+    this.squares += delta * (sample - this.mean);
+    this.min      = Math.min(this.min, sample);
+    this.max      = Math.max(this.max, sample);
+  }
+
+  /**
+   * Adds all the samples of other to these statistics
+   *
+   * @param other the statistics to merge into these
+   */
+  public void merge(RunningStatistics other) {
+    if (other.count == 0) {
+      return;
+    }
+    if (this.count == 0) {
+      this.count   = other.count;
+      this.mean    = other.mean;
+      this.squares = other.squares;
+      this.min     = other.min;
+      this.max     = other.max;
+      return;
+    }
+    long   total = this.count + other.count;
+    double delta = other.mean - this.mean;
+    this.mean    += delta * other.count / total;
+    this.squares += other.squares + delta * delta * ((double) this.count * other.count / total);
+    this.count    = total;
+    this.min      = Math.min(this.min, other.min);
+    this.max      = Math.max(this.max, other.max);
+  }
+
+  /**
+   * @return the number of samples
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * @return the mean of the samples or NaN if there were none
+   */
+  public double getMean() {
+    return this.count == 0 ? Double.NaN : this.mean;
+  }
+
+  /**
+   * @return the sample standard deviation or NaN with fewer than two samples
+   */
+  public double getStandardDeviation() {
+    return this.count < 2 ? Double.NaN : Math.sqrt(this.squares / (this.count - 1));
+  }
+
+  /**
+   * @return the smallest sample or NaN if there were none
+   */
+  public double getMin() {
+    return this.count == 0 ? Double.NaN : this.min;
+  }
+
+  /**
+   * @return the largest sample or NaN if there were none
+   */
+  public double getMax() {
+    return this.count == 0 ? Double.NaN : this.max;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%.2f +- %.2f [%.2f, %.2f] (%d)", this.getMean(), this.getStandardDeviation(),
+        this.getMin(), this.getMax(), this.count);
+  }
+}
@@ -0,0 +1,176 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+/**
+ * Batch operations over vectors packed into a double array as consecutive x,
+ * y, z triplets. Vector i lives at indices 3i, 3i + 1 and 3i + 2. The output
+ * array may be the same as an input array.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class Vector3Array {
+
+  /**
+   * The number of doubles used by a single vector
+   */
+  public static final int STRIDE = 3;
+
+  private Vector3Array() {
+  }
+
+  /**
+   * Creates a new array large enough to hold the given number of vectors
+   *
+   * @param count the number of vectors
+   * @return a zeroed array holding count vectors
+   */
+  public static double[] create(int count) {
+    return new double[count * STRIDE];
+  }
+
+  /**
+   * Copies vector index of the array into the vector
+   *
+   * @param array the packed array
+   * @param index the index of the vector
+   * @param out   the vector to write into
+   * @return out
+   */
+  public static MutableVector3 get(double[] array, int index, MutableVector3 out) {
+    int i = index * STRIDE;
+    return out.set(array[i], array[i + 1], array[i + 2]);
+  }
+
+  /**
+   * Copies the vector into vector index of the array
+   *
+   * @param array  the packed array
+   * @param index  the index of the vector
+   * @param vector the vector to copy
+   */
+  public static void set(double[] array, int index, MutableVector3 vector) {
+    int i = index * STRIDE;
+    array[i]     = vector.getX();
+    array[i + 1] = vector.getY();
+    array[i + 2] = vector.getZ();
+  }
+
+  /**
+   * Adds the first count vectors of a and b
+   *
+   * @param a     the first operand
+   * @param b     the second operand
+   * @param out   where to write a + b
+   * @param count the number of vectors to process
+   */
+  public static void add(double[] a, double[] b, double[] out, int count) {
+    int length = count * STRIDE;
+    for (int i = 0; i < length; i++) {
+      out[i] = a[i] + b[i];
+    }
+  }
+
+  /**
+   * Subtracts the first count vectors of b from a
+   *
+   * @param a     the first operand
+   * @param b     the second operand
+   * @param out   where to write a - b
+   * @param count the number of vectors to process
+   */
+  public static void subtract(double[] a, double[] b, double[] out, int count) {
+    int length = count * STRIDE;
+    for (int i = 0; i < length; i++) {
+      out[i] = a[i] - b[i];
+    }
+  }
+
+  /**
+   * Scales the first count vectors of a
+   *
+   * @param a     the vectors to scale
+   * @param scale what to multiply by
+   * @param out   where to write the scaled vectors
+   * @param count the number of vectors to process
+   */
+  public static void scale(double[] a, double scale, double[] out, int count) {
+    int length = count * STRIDE;
+    for (int i = 0; i < length; i++) {
+      out[i] = a[i] * scale;
+    }
+  }
+
+  /**
+   * Computes the dot products of the first count vectors of a and b
+   *
+   * @param a     the first operand
+   * @param b     the second operand
+   * @param out   where to write the dot products, one double per vector
+   * @param count the number of vectors to process
+   */
+  public static void dot(double[] a, double[] b, double[] out, int count) {
+    for (int v = 0; v < count; v++) {
+      int i = v * STRIDE;
+      out[v] = a[i] * b[i] + a[i + 1] * b[i + 1] + a[i + 2] * b[i + 2];
+    }
+  }
+
+  /**
+   * Computes the cross products of the first count vectors of a and b
+   *
+   * @param a     the left hand side
+   * @param b     the right hand side
+   * @param out   where to write a x b
+   * @param count the number of vectors to process
+   */
+  public static void cross(double[] a, double[] b, double[] out, int count) {
+    for (int v = 0; v < count; v++) {
+      int    i  = v * STRIDE;
+      double ax = a[i];
+      double ay = a[i + 1];
+      double az = a[i + 2];
+      double bx = b[i];
+      double by = b[i + 1];
+      double bz = b[i + 2];
+      out[i]     = ay * bz - az * by;
+      out[i + 1] = az * bx - ax * bz;
+      out[i + 2] = ax * by - ay * bx;
+    }
+  }
+
+  /**
+   * Computes the lengths of the first count vectors of a
+   *
+   * @param a     the vectors
+   * @param out   where to write the lengths, one double per vector
+   * @param count the number of vectors to process
+   */
+  public static void norm(double[] a, double[] out, int count) {
+    for (int v = 0; v < count; v++) {
+      int i = v * STRIDE;
+      out[v] = Math.sqrt(a[i] * a[i] + a[i + 1] * a[i + 1] + a[i + 2] * a[i + 2]);
+    }
+  }
+
+  /**
+   * Sums the first count vectors of a
+   *
+   * @param a     the vectors to sum
+   * @param count the number of vectors to process
+   * @param out   where to write the sum
+   * @return out
+   */
+  public static MutableVector3 sum(double[] a, int count, MutableVector3 out) {
+    double x = 0;
+    double y = 0;
+    double z = 0;
+    for (int v = 0; v < count; v++) {
+      int i = v * STRIDE;
+      x += a[i];
+      y += a[i + 1];
+      z += a[i + 2];
+    }
+    return out.set(x, y, z);
+  }
+
+}
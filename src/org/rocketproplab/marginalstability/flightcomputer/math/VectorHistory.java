@@ -0,0 +1,222 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed size time series of vectors which can be interpolated at any time.
+ * Between samples the value is linearly interpolated, before the oldest sample
+ * the oldest value is returned and past the newest sample the value is
+ * linearly extrapolated from the two newest samples.
+ *
+ * There must only ever be one thread calling {@link #add}, any number of
+ * threads may query concurrently. Readers never block the writer, they use a
+ * sequence number which is odd while a write is in progress and retry if it
+ * changed while they were reading. Samples are stored in primitive arrays so
+ * adding never allocates and {@link #getAt(double, MutableVector3)} does not
+ * either.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class VectorHistory implements InterpolatingVector3 {
+
+  private final int      capacity;
+  private final double[] times;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] zs;
+
+  private volatile long sequence;
+  private long          count;
+
+  /**
+   * Create a new history holding at most capacity samples, once full the
+   * oldest sample is overwritten.
+   *
+   * @param capacity the number of samples to keep, at least 1
+   */
+  public VectorHistory(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1, got " + capacity);
+    }
+    this.capacity = capacity;
+    this.times    = new double[capacity];
+    this.xs       = new double[capacity];
+    this.ys       = new double[capacity];
+    this.zs       = new double[capacity];
+  }
+
+  /**
+   * Appends a sample. Must only be called from a single thread and with times
+   * that do not decrease.
+   *
+   * @param time the time of the sample
+   * @param x    the x component
+   * @param y    the y component
+   * @param z    the z component
+   */
+  public void add(double time, double x, double y, double z) {
+    long current = this.sequence;
+    this.sequence = current + 1;
+    VarHandle.storeStoreFence();
+
+    int slot = this.slot(this.count);
+    this.times[slot] = time;
+    this.xs[slot]    = x;
+    this.ys[slot]    = y;
+    this.zs[slot]    = z;
+    this.count++;
+
+    this.sequence = current + 2;
+  }
+
+  /**
+   * Appends a sample. Must only be called from a single thread and with times
+   * that do not decrease.
+   *
+   * @param time   the time of the sample
+   * @param vector the value of the sample
+   */
+  public void add(double time, Vector3 vector) {
+    this.add(time, vector.getX(), vector.getY(), vector.getZ());
+  }
+
+  @Override
+  public Vector3 getAt(double time) {
+    MutableVector3 result = this.getAt(time, new MutableVector3());
+    return result.toVector3();
+  }
+
+  /**
+   * Gets the interpolated vector at the given time without allocating. If no
+   * samples have been added every component is NaN.
+   *
+   * @param time the time to get the vector at
+   * @param out  the vector to write the result to
+   * @return out
+   */
+  public MutableVector3 getAt(double time, MutableVector3 out) {
+    while (true) {
+      long before = this.sequence;
+      if ((before & 1) != 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+      this.read(time, out);
+      VarHandle.loadLoadFence();
+      if (before == this.sequence) {
+        return out;
+      }
+    }
+  }
+
+  /**
+   * Performs the unsynchronized read, the result is only valid if the sequence
+   * did not change.
+   *
+   * @param time the time to get the vector at
+   * @param out  the vector to write the result to
+   */
+  private void read(double time, MutableVector3 out) {
+    long total  = this.count;
+    int  stored = (int) Math.min(total, this.capacity);
+    if (stored == 0) {
+      out.set(Double.NaN, Double.NaN, Double.NaN);
+      return;
+    }
+    long first  = total - stored;
+    int  newest = this.slot(total - 1);
+
+    if (time >= this.times[newest]) {
+      if (stored == 1) {
+        this.copy(newest, out);
+      } else {
+        this.interpolate(this.slot(total - 2), newest, time, out);
+      }
+      return;
+    }
+
+    int oldest = this.slot(first);
+    if (time <= this.times[oldest]) {
+      this.copy(oldest, out);
+      return;
+    }
+
+    // Find the last sample at or before time, the newest is known to be after
+    long low  = first;
+    long high = total - 1;
+    while (high - low > 1) {
+      long middle = (low + high) >>> 1;
+      if (this.times[this.slot(middle)] <= time) {
+        low = middle;
+      } else {
+        high = middle;
+      }
+    }
+    this.interpolate(this.slot(low), this.slot(high), time, out);
+  }
+
+  /**
+   * Linearly interpolates or extrapolates the line through two samples
+   *
+   * @param start the slot of the earlier sample
+   * @param end   the slot of the later sample
+   * @param time  the time to evaluate the line at
+   * @param out   the vector to write the result to
+   */
+  private void interpolate(int start, int end, double time, MutableVector3 out) {
+    double span = this.times[end] - this.times[start];
+    if (!(span > 0)) {
+      this.copy(end, out);
+      return;
+    }
+    double fraction = (time - this.times[start]) / span;
+    out.set(this.xs[start] + fraction * (this.xs[end] - this.xs[start]),
+        this.ys[start] + fraction * (this.ys[end] - this.ys[start]),
+        this.zs[start] + fraction * (this.zs[end] - this.zs[start]));
+  }
+
+  /**
+   * Copies the sample in the slot
+   *
+   * @param slot the slot of the sample
+   * @param out  the vector to write the sample to
+   */
+  private void copy(int slot, MutableVector3 out) {
+    out.set(this.xs[slot], this.ys[slot], this.zs[slot]);
+  }
+
+  /**
+   * Gets the slot in the arrays holding the sample with the given index. Uses
+   * floorMod so a torn read of the count can not produce a negative slot.
+   *
+   * @param index the index of the sample since the history was created
+   * @return the slot of the sample
+   */
+  private int slot(long index) {
+    return Math.floorMod(index, this.capacity);
+  }
+
+  /**
+   * @return the number of samples currently held
+   */
+  public int size() {
+    while (true) {
+      long before = this.sequence;
+      long total  = this.count;
+      VarHandle.loadLoadFence();
+      if ((before & 1) == 0 && before == this.sequence) {
+        return (int) Math.min(total, this.capacity);
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * @return the maximum number of samples held
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+}
@@ -0,0 +1,156 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+/**
+ * Accumulates the minimum, maximum, mean and count of a stream of samples
+ * over a window. Adding a sample is O(1) and nothing is allocated, when the
+ * window is closed its statistics are copied into a reusable {@link Window}
+ * and the aggregator starts over.
+ * 
+ * Samples may be added from a different thread than the one closing the
+ * window, every method is synchronized.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class WindowedAggregator {
+
+  /**
+   * The statistics of a closed window
+   */
+  public static class Window {
+    private double min;
+    private double max;
+    private double mean;
+    private long   count;
+
+    /**
+     * Create a new empty window
+     */
+    public Window() {
+      this.set(Double.NaN, Double.NaN, Double.NaN, 0);
+    }
+
+    private void set(double min, double max, double mean, long count) {
+      this.min   = min;
+      this.max   = max;
+      this.mean  = mean;
+      this.count = count;
+    }
+
+    /**
+     * @return the smallest sample or NaN if there were none
+     */
+    public double getMin() {
+      return this.min;
+    }
+
+    /**
+     * @return the largest sample or NaN if there were none
+     */
+    public double getMax() {
+      return this.max;
+    }
+
+    /**
+     * @return the mean of the samples or NaN if there were none
+     */
+    public double getMean() {
+      return this.mean;
+    }
+
+    /**
+     * @return the number of samples in the window
+     */
+    public long getCount() {
+      return this.count;
+    }
+
+    /**
+     * Gets a single statistic of the window
+     * 
+     * @param statistic the statistic to get
+     * @return the value of the statistic
+     */
+    public double get(Statistic statistic) {
+      switch (statistic) {
+        case MIN:
+          return this.min;
+        case MAX:
+          return this.max;
+        case COUNT:
+          return this.count;
+        default:
+          return this.mean;
+      }
+    }
+  }
+
+  /**
+   * The statistics that can be taken of a window
+   */
+  public enum Statistic {
+    MIN, MAX, MEAN, COUNT;
+  }
+
+  private double min;
+  private double max;
+  private double sum;
+  private long   count;
+
+  /**
+   * Create a new aggregator with an empty window
+   */
+  public WindowedAggregator() {
+    this.reset();
+  }
+
+  /**
+   * Adds a sample to the current window, NaN samples are ignored
+   * 
+   * @param sample the sample to add
+   */
+  public synchronized void add(double sample) {
+    if (Double.isNaN(sample)) {
+      return;
+    }
+    if (sample < this.min) {
+      this.min = sample;
+    }
+    if (sample > this.max) {
+      this.max = sample;
+    }
+    this.sum += sample;
+    this.count++;
+  }
+
+  /**
+   * @return the number of samples in the current window
+   */
+  public synchronized long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Copies the statistics of the current window into out and starts a new
+   * window
+   * 
+   * @param out the window to write the statistics to
+   * @return out
+   */
+  public synchronized Window closeWindow(Window out) {
+    if (this.count == 0) {
+      out.set(Double.NaN, Double.NaN, Double.NaN, 0);
+    } else {
+      out.set(this.min, this.max, this.sum / this.count, this.count);
+    }
+    this.reset();
+    return out;
+  }
+
+  private void reset() {
+    this.min   = Double.POSITIVE_INFINITY;
+    this.max   = Double.NEGATIVE_INFINITY;
+    this.sum   = 0;
+    this.count = 0;
+  }
+}
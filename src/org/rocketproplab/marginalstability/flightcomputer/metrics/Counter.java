@@ -0,0 +1,62 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count of events which only goes up, such as the number of ticks. Every
+ * thread adds to its own stripe and reading sums the stripes.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class Counter implements Metric {
+
+  private static final int STRIDE = Stripes.stride(1);
+
+  private final AtomicLongArray cells;
+
+  /**
+   * Create a new counter at zero
+   */
+  public Counter() {
+    this.cells = Stripes.create(STRIDE);
+  }
+
+  /**
+   * Adds one to the counter
+   */
+  public void increment() {
+    this.cells.getAndIncrement(Stripes.current(STRIDE));
+  }
+
+  /**
+   * Adds the amount to the counter
+   * 
+   * @param amount how much to add
+   */
+  public void add(long amount) {
+    this.cells.getAndAdd(Stripes.current(STRIDE), amount);
+  }
+
+  /**
+   * @return the sum of everything added so far
+   */
+  public long get() {
+    return Stripes.sum(this.cells, STRIDE, 0);
+  }
+
+  @Override
+  public int getValueCount() {
+    return 1;
+  }
+
+  @Override
+  public double getValue(int index) {
+    return this.get();
+  }
+
+  @Override
+  public long getSummary() {
+    return this.get();
+  }
+}
@@ -0,0 +1,47 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+/**
+ * The latest value of something which goes up and down, such as the depth of
+ * a queue. Only the last value set is kept.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class Gauge implements Metric {
+
+  private volatile double value;
+
+  /**
+   * Sets the value of the gauge
+   * 
+   * @param value the new value
+   */
+  public void set(double value) {
+    this.value = value;
+  }
+
+  /**
+   * @return the last value set, zero if none was
+   */
+  public double get() {
+    return this.value;
+  }
+
+  @Override
+  public int getValueCount() {
+    return 1;
+  }
+
+  @Override
+  public double getValue(int index) {
+    return this.value;
+  }
+
+  /**
+   * @return the value rounded to the nearest integer
+   */
+  @Override
+  public long getSummary() {
+    return Math.round(this.value);
+  }
+}
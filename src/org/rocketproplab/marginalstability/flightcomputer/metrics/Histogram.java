@@ -0,0 +1,165 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts samples into fixed buckets, such as how long each tick took. Bucket
+ * i holds the samples above bound i - 1 up to and including bound i, the last
+ * bucket holds everything above the largest bound. Every thread counts into
+ * its own stripe and reading sums the stripes.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class Histogram implements Metric {
+
+  /**
+   * The most bounds a histogram can have, so a snapshot fits the recorder
+   */
+  public static final int MAX_BOUNDS = 63;
+
+  private static final double SUMMARY_FRACTION = 0.99;
+
+  private final double[]        bounds;
+  private final int             stride;
+  private final AtomicLongArray cells;
+
+  /**
+   * Create a new empty histogram
+   * 
+   * @param bounds the upper bound of every bucket but the last, increasing
+   */
+  public Histogram(double... bounds) {
+    if (bounds.length < 1 || bounds.length > MAX_BOUNDS) {
+      throw new IllegalArgumentException("Need between 1 and " + MAX_BOUNDS + " bounds, got " + bounds.length);
+    }
+    for (int i = 1; i < bounds.length; i++) {
+      if (!(bounds[i] > bounds[i - 1])) {
+        throw new IllegalArgumentException("Bounds must increase, got " + bounds[i] + " after " + bounds[i - 1]);
+      }
+    }
+    this.bounds = Arrays.copyOf(bounds, bounds.length);
+    this.stride = Stripes.stride(bounds.length + 1);
+    this.cells  = Stripes.create(this.stride);
+  }
+
+  /**
+   * Creates bounds which grow by a constant factor, as suits durations
+   * 
+   * @param first  the first bound
+   * @param factor how much larger each bound is than the one before
+   * @param count  the number of bounds
+   * @return the bounds
+   */
+  public static double[] exponentialBounds(double first, double factor, int count) {
+    double[] bounds = new double[count];
+    double   bound  = first;
+    for (int i = 0; i < count; i++) {
+      bounds[i] = bound;
+      bound    *= factor;
+    }
+    return bounds;
+  }
+
+  /**
+   * Counts a sample into its bucket, NaN samples are ignored
+   * 
+   * @param sample the sample to count
+   */
+  public void record(double sample) {
+    if (Double.isNaN(sample)) {
+      return;
+    }
+    int bucket = 0;
+    while (bucket < this.bounds.length && sample > this.bounds[bucket]) {
+      bucket++;
+    }
+    this.cells.getAndIncrement(Stripes.current(this.stride) + bucket);
+  }
+
+  /**
+   * @return the number of buckets, one more than the number of bounds
+   */
+  public int getBucketCount() {
+    return this.bounds.length + 1;
+  }
+
+  /**
+   * @param bucket the bucket to get the bound of
+   * @return the largest sample counted in the bucket, infinite for the last
+   */
+  public double getUpperBound(int bucket) {
+    return bucket < this.bounds.length ? this.bounds[bucket] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * @param bucket the bucket to read
+   * @return the number of samples in the bucket
+   */
+  public long getCount(int bucket) {
+    return Stripes.sum(this.cells, this.stride, bucket);
+  }
+
+  /**
+   * @return the number of samples in every bucket
+   */
+  public long getTotalCount() {
+    long total = 0;
+    for (int i = 0; i < this.getBucketCount(); i++) {
+      total += this.getCount(i);
+    }
+    return total;
+  }
+
+  /**
+   * Gets an upper estimate of a percentile
+   * 
+   * @param fraction the fraction of samples which are at most the percentile
+   * @return the bound of the bucket holding the percentile, NaN if there are
+   *         no samples
+   */
+  public double getPercentile(double fraction) {
+    long[] counts = new long[this.getBucketCount()];
+    long   total  = 0;
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = this.getCount(i);
+      total    += counts[i];
+    }
+    if (total == 0) {
+      return Double.NaN;
+    }
+    long needed = (long) Math.ceil(fraction * total);
+    long seen   = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= needed) {
+        return this.getUpperBound(i);
+      }
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+
+  @Override
+  public int getValueCount() {
+    return this.getBucketCount();
+  }
+
+  @Override
+  public double getValue(int index) {
+    return this.getCount(index);
+  }
+
+  /**
+   * @return the 99th percentile rounded, samples above the largest bound
+   *         count as the largest bound
+   */
+  @Override
+  public long getSummary() {
+    double percentile = this.getPercentile(SUMMARY_FRACTION);
+    if (Double.isNaN(percentile)) {
+      return 0;
+    }
+    return Math.round(Math.min(percentile, this.bounds[this.bounds.length - 1]));
+  }
+}
@@ -0,0 +1,30 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+/**
+ * A measurement of the flight software registered with the
+ * {@link MetricsRegistry}. Recording a metric never allocates or locks, the
+ * read methods are only used for snapshots and may be slower.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public interface Metric {
+
+  /**
+   * @return the number of values a snapshot of the metric holds
+   */
+  public int getValueCount();
+
+  /**
+   * Reads a value for a snapshot
+   * 
+   * @param index the index of the value, less than {@link #getValueCount()}
+   * @return the current value
+   */
+  public double getValue(int index);
+
+  /**
+   * @return a single number describing the metric for the downlink
+   */
+  public long getSummary();
+}
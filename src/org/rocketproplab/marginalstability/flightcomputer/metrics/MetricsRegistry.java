@@ -0,0 +1,125 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Names the metrics of the flight software so they can be snapshot together.
+ * Metrics are numbered in the order they are registered, the number is what
+ * the recorder and the downlink identify a metric by. Components create their
+ * metrics up front and register them once at startup, after that only the
+ * metrics themselves are touched.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class MetricsRegistry {
+
+  /**
+   * The most metrics that can be registered, so the index fits a byte
+   */
+  public static final int MAX_METRICS = 256;
+
+  private final List<String>         names;
+  private final List<Metric>         metrics;
+  private final Map<String, Integer> indices;
+
+  /**
+   * Create a new registry without any metrics
+   */
+  public MetricsRegistry() {
+    this.names   = new ArrayList<>();
+    this.metrics = new ArrayList<>();
+    this.indices = new HashMap<>();
+  }
+
+  /**
+   * Registers a metric under a name such as {@code flight_computer.ticks}
+   * 
+   * @param name   the unique name of the metric
+   * @param metric the metric
+   * @return the index of the metric
+   */
+  public synchronized int register(String name, Metric metric) {
+    if (this.indices.containsKey(name)) {
+      throw new IllegalArgumentException("A metric named " + name + " is already registered");
+    }
+    if (this.metrics.size() >= MAX_METRICS) {
+      throw new IllegalStateException("At most " + MAX_METRICS + " metrics can be registered");
+    }
+    this.indices.put(name, this.metrics.size());
+    this.names.add(name);
+    this.metrics.add(metric);
+    return this.metrics.size() - 1;
+  }
+
+  /**
+   * Creates and registers a counter
+   * 
+   * @param name the unique name of the counter
+   * @return the new counter
+   */
+  public Counter counter(String name) {
+    Counter counter = new Counter();
+    this.register(name, counter);
+    return counter;
+  }
+
+  /**
+   * Creates and registers a gauge
+   * 
+   * @param name the unique name of the gauge
+   * @return the new gauge
+   */
+  public Gauge gauge(String name) {
+    Gauge gauge = new Gauge();
+    this.register(name, gauge);
+    return gauge;
+  }
+
+  /**
+   * Creates and registers a histogram
+   * 
+   * @param name   the unique name of the histogram
+   * @param bounds the upper bound of every bucket but the last
+   * @return the new histogram
+   */
+  public Histogram histogram(String name, double... bounds) {
+    Histogram histogram = new Histogram(bounds);
+    this.register(name, histogram);
+    return histogram;
+  }
+
+  /**
+   * @return the number of registered metrics
+   */
+  public synchronized int size() {
+    return this.metrics.size();
+  }
+
+  /**
+   * @param index the index of the metric
+   * @return the metric
+   */
+  public synchronized Metric get(int index) {
+    return this.metrics.get(index);
+  }
+
+  /**
+   * @param index the index of the metric
+   * @return the name of the metric
+   */
+  public synchronized String getName(int index) {
+    return this.names.get(index);
+  }
+
+  /**
+   * @param name the name of the metric
+   * @return the index of the metric or -1 if there is none with the name
+   */
+  public synchronized int indexOf(String name) {
+    return this.indices.getOrDefault(name, -1);
+  }
+}
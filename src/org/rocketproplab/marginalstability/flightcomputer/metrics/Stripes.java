@@ -0,0 +1,74 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Spreads the cells of a metric over one stripe per thread so threads
+ * recording at the same time do not contend on a cache line. Each stripe
+ * starts on its own cache line and the stripe of a thread is picked from its
+ * id, which are handed out in order so the first threads never share a
+ * stripe.
+ * 
+ * @author Max Apodaca
+ *
+ */
+final class Stripes {
+
+  private static final int MAX_STRIPES    = 16;
+  private static final int LONGS_PER_LINE = 8;
+
+  /**
+   * The number of stripes, a power of two
+   */
+  static final int COUNT = Math.min(MAX_STRIPES,
+      Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+  private Stripes() {
+  }
+
+  /**
+   * Gets the distance between stripes of a metric
+   * 
+   * @param cells the number of cells in every stripe
+   * @return the number of longs from one stripe to the next
+   */
+  static int stride(int cells) {
+    return (cells + LONGS_PER_LINE - 1) / LONGS_PER_LINE * LONGS_PER_LINE + LONGS_PER_LINE;
+  }
+
+  /**
+   * Creates the array holding every stripe
+   * 
+   * @param stride the distance between stripes
+   * @return the zeroed array
+   */
+  static AtomicLongArray create(int stride) {
+    return new AtomicLongArray(COUNT * stride + LONGS_PER_LINE);
+  }
+
+  /**
+   * Gets the index of the first cell of the stripe of the calling thread
+   * 
+   * @param stride the distance between stripes
+   * @return the index of the first cell
+   */
+  static int current(int stride) {
+    return LONGS_PER_LINE + ((int) Thread.currentThread().getId() & (COUNT - 1)) * stride;
+  }
+
+  /**
+   * Adds up a cell over every stripe
+   * 
+   * @param cells  the array holding every stripe
+   * @param stride the distance between stripes
+   * @param cell   the index of the cell in a stripe
+   * @return the sum of the cell
+   */
+  static long sum(AtomicLongArray cells, int stride, int cell) {
+    long sum = 0;
+    for (int i = 0; i < COUNT; i++) {
+      sum += cells.get(LONGS_PER_LINE + i * stride + cell);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,56 @@
+package org.rocketproplab.marginalstability.flightcomputer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering a single I2C or SPI transaction of a driver
+ * 
+ * @author Max Apodaca
+ *
+ */
+@Name(BusTransactionEvent.NAME)
+@Label("Bus Transaction")
+@Category({ "Marginal Stability", "Hardware" })
+@Description("A single I2C or SPI transaction made by a driver")
+@Enabled(false)
+@StackTrace(false)
+public class BusTransactionEvent extends Event {
+
+  /**
+   * The name of the event type, used to enable it
+   */
+  public static final String NAME = "org.rocketproplab.BusTransaction";
+
+  /**
+   * The port of transactions on chips without ports
+   */
+  public static final int NO_PORT = -1;
+
+  @Label("Device")
+  @Description("The chip the transaction was with")
+  public String device;
+
+  @Label("Write")
+  @Description("If data was written rather than read")
+  public boolean write;
+
+  @Label("Register")
+  @Description("The first register addressed")
+  public int register;
+
+  @Label("Port")
+  @Description("The port of the chip addressed or -1")
+  public int port;
+
+  @Label("Bytes")
+  @Description("Number of bytes transferred")
+  @DataAmount
+  public int bytes;
+}
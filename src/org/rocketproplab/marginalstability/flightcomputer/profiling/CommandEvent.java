@@ -0,0 +1,53 @@
+package org.rocketproplab.marginalstability.flightcomputer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering a call of the command scheduler into a
+ * command
+ * 
+ * @author Max Apodaca
+ *
+ */
+@Name(CommandEvent.NAME)
+@Label("Command")
+@Category({ "Marginal Stability", "Commands" })
+@Description("The command scheduler starting, executing or ending a command")
+@Enabled(false)
+@StackTrace(false)
+public class CommandEvent extends Event {
+
+  /**
+   * The name of the event type, used to enable it
+   */
+  public static final String NAME = "org.rocketproplab.Command";
+
+  /**
+   * The phase of a command starting
+   */
+  public static final String START = "start";
+
+  /**
+   * The phase of a command executing
+   */
+  public static final String EXECUTE = "execute";
+
+  /**
+   * The phase of a command ending
+   */
+  public static final String END = "end";
+
+  @Label("Command")
+  @Description("Class of the command")
+  public String command;
+
+  @Label("Phase")
+  @Description("Which method of the command was called")
+  public String phase;
+}
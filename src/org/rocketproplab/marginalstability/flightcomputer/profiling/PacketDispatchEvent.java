@@ -0,0 +1,46 @@
+package org.rocketproplab.marginalstability.flightcomputer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering the packet router passing a packet to its
+ * listeners
+ * 
+ * @author Max Apodaca
+ *
+ */
+@Name(PacketDispatchEvent.NAME)
+@Label("Packet Dispatch")
+@Category({ "Marginal Stability", "Communication" })
+@Description("The packet router passing a packet to every listener")
+@Enabled(false)
+@StackTrace(false)
+public class PacketDispatchEvent extends Event {
+
+  /**
+   * The name of the event type, used to enable it
+   */
+  public static final String NAME = "org.rocketproplab.PacketDispatch";
+
+  @Label("Packet Type")
+  @Description("The SCM packet type or the class of other packets")
+  public String packetType;
+
+  @Label("Source")
+  @Description("Where the packet came from or is going to")
+  public String source;
+
+  @Label("Direction")
+  @Description("If the packet is being sent or was received")
+  public String direction;
+
+  @Label("Listeners")
+  @Description("Number of listeners the packet was passed to")
+  public int listeners;
+}
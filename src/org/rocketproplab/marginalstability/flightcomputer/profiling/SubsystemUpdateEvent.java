@@ -0,0 +1,38 @@
+package org.rocketproplab.marginalstability.flightcomputer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering the update of a single subsystem during a
+ * tick
+ * 
+ * @author Max Apodaca
+ *
+ */
+@Name(SubsystemUpdateEvent.NAME)
+@Label("Subsystem Update")
+@Category({ "Marginal Stability", "Flight Computer" })
+@Description("The update of one subsystem during a tick")
+@Enabled(false)
+@StackTrace(false)
+public class SubsystemUpdateEvent extends Event {
+
+  /**
+   * The name of the event type, used to enable it
+   */
+  public static final String NAME = "org.rocketproplab.SubsystemUpdate";
+
+  @Label("Subsystem")
+  @Description("Class of the subsystem")
+  public String subsystem;
+
+  @Label("Failed")
+  @Description("If the update threw an exception")
+  public boolean failed;
+}
@@ -0,0 +1,37 @@
+package org.rocketproplab.marginalstability.flightcomputer.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering one tick of the flight computer
+ * 
+ * @author Max Apodaca
+ *
+ */
+@Name(TickEvent.NAME)
+@Label("Tick")
+@Category({ "Marginal Stability", "Flight Computer" })
+@Description("One tick of the flight computer updating every subsystem")
+@Enabled(false)
+@StackTrace(false)
+public class TickEvent extends Event {
+
+  /**
+   * The name of the event type, used to enable it
+   */
+  public static final String NAME = "org.rocketproplab.Tick";
+
+  @Label("Subsystems")
+  @Description("Number of subsystems updated")
+  public int subsystems;
+
+  @Label("Failures")
+  @Description("Number of subsystems which threw an exception")
+  public int failures;
+}
@@ -0,0 +1,513 @@
+package org.rocketproplab.marginalstability.flightcomputer.recorder;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+
+/**
+ * Reads a log written by the {@link FlightRecorder}. Opening the log scans it
+ * once to find the end of the valid records and to build a sparse index
+ * holding, for every block of records, the range of times and the record types
+ * in that block. Queries skip every block that can not match so only the
+ * pages of the blocks which can are ever mapped. The log is mapped a window
+ * at a time so logs larger than the address space can be read.
+ * 
+ * The records of the ring kept before launch come first, oldest first,
+ * followed by the records appended after launch. Records after the committed
+ * count of a crashed recording are included as long as their commit marker is
+ * intact.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class FlightLogReader implements Closeable {
+
+  private static final int DEFAULT_BLOCK_RECORDS  = 1024;
+  private static final int DEFAULT_WINDOW_RECORDS = 1 << 20;
+
+  private static final String CSV_HEADER = "index,time,type,source,direction,name,v0,v1,v2,v3,v4,v5";
+
+  private final FileChannel  channel;
+  private final int          blockRecords;
+  private final int          windowRecords;
+  private final long         capacity;
+  private final int          padCapacity;
+  private final int[]        padSlots;
+  private final long         recordCount;
+  private final double[]     blockStart;
+  private final double[]     blockEnd;
+  private final byte[]       blockTypes;
+  private final long[]       typeCounts;
+  private final String[]     metricNames;
+  private final FlightRecord record;
+
+  private MappedByteBuffer window;
+  private long             windowIndex = -1;
+
+  /**
+   * Opens the log and builds its index
+   * 
+   * @param file the log to read
+   * @throws IOException if the file can not be read or is not a flight log
+   */
+  public FlightLogReader(Path file) throws IOException {
+    this(file, DEFAULT_BLOCK_RECORDS, DEFAULT_WINDOW_RECORDS);
+  }
+
+  /**
+   * Opens the log and builds its index
+   * 
+   * @param file          the log to read
+   * @param blockRecords  the number of records in each block of the index
+   * @param windowRecords the number of records mapped at once
+   * @throws IOException if the file can not be read or is not a flight log
+   */
+  FlightLogReader(Path file, int blockRecords, int windowRecords) throws IOException {
+    this.channel       = FileChannel.open(file, StandardOpenOption.READ);
+    this.blockRecords  = blockRecords;
+    this.windowRecords = windowRecords;
+    this.record        = new FlightRecord();
+    this.typeCounts    = new long[RecordType.values().length];
+    this.metricNames   = new String[MetricsRegistry.MAX_METRICS];
+
+    try {
+      if (this.channel.size() < FlightRecorder.HEADER_SIZE) {
+        throw new IOException(file + " is not a flight log");
+      }
+      MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          FlightRecorder.HEADER_SIZE);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt(FlightRecorder.HEADER_MAGIC) != FlightRecorder.MAGIC
+          || header.getShort(FlightRecorder.HEADER_VERSION) != FlightRecorder.VERSION
+          || header.getShort(FlightRecorder.HEADER_RECORD) != FlightRecorder.RECORD_SIZE) {
+        throw new IOException(file + " is not a flight log");
+      }
+      this.readNames(header);
+      long fileRecords = (this.channel.size() - FlightRecorder.HEADER_SIZE) / FlightRecorder.RECORD_SIZE;
+      this.capacity    = Math.min(header.getInt(FlightRecorder.HEADER_CAPACITY), fileRecords);
+      this.padCapacity = (int) Math.min(header.getInt(FlightRecorder.HEADER_PAD_CAPACITY), this.capacity);
+      this.padSlots    = this.readPad();
+      long flightCapacity = this.capacity - this.padCapacity;
+      long committed      = Math.min(header.getLong(FlightRecorder.HEADER_COMMITTED), flightCapacity);
+      this.recordCount = this.padSlots.length + this.findEnd(this.padCapacity + committed) - this.padCapacity;
+
+      int blocks = (int) ((this.recordCount + blockRecords - 1) / blockRecords);
+      this.blockStart = new double[blocks];
+      this.blockEnd   = new double[blocks];
+      this.blockTypes = new byte[blocks];
+      this.buildIndex();
+    } catch (IOException | RuntimeException e) {
+      this.channel.close();
+      throw e;
+    }
+  }
+
+  private void readNames(MappedByteBuffer header) {
+    byte[] name = new byte[FlightRecorder.NAME_SIZE];
+    for (int index = 0; index < this.metricNames.length; index++) {
+      int offset = FlightRecorder.HEADER_NAMES + index * FlightRecorder.NAME_SIZE;
+      int length = 0;
+      while (length < name.length && header.get(offset + length) != 0) {
+        name[length] = header.get(offset + length);
+        length++;
+      }
+      this.metricNames[index] = length == 0 ? null : new String(name, 0, length, StandardCharsets.US_ASCII);
+    }
+  }
+
+  /**
+   * Finds the ring slots holding a valid record, ordered by their sequence
+   * and starting after the largest gap should the sequence have wrapped.
+   * 
+   * @return the slots of the ring records, oldest first
+   * @throws IOException if the log can not be read
+   */
+  private int[] readPad() throws IOException {
+    long[] keys  = new long[this.padCapacity];
+    int    count = 0;
+    for (int slot = 0; slot < this.padCapacity; slot++) {
+      long sequence = -(long) this.map(slot).getInt(this.offset(slot) + FlightRecorder.RECORD_MARKER) - 1;
+      if (sequence >= 0 && sequence % this.padCapacity == slot) {
+        keys[count++] = sequence << 32 | slot;
+      }
+    }
+    Arrays.sort(keys, 0, count);
+    int first = 0;
+    if (count > 0 && (keys[count - 1] >>> 32) - (keys[0] >>> 32) >= this.padCapacity) {
+      long gap = 0;
+      for (int i = 1; i < count; i++) {
+        long current = (keys[i] >>> 32) - (keys[i - 1] >>> 32);
+        if (current > gap) {
+          gap   = current;
+          first = i;
+        }
+      }
+    }
+    int[] slots = new int[count];
+    for (int i = 0; i < count; i++) {
+      slots[i] = (int) keys[(first + i) % count];
+    }
+    return slots;
+  }
+
+  /**
+   * Finds the end of the valid records after the ring, continuing past the
+   * committed count as long as the commit markers are intact.
+   * 
+   * @param committed the slot after the committed records
+   * @return the slot after the valid records
+   * @throws IOException if the log can not be read
+   */
+  private long findEnd(long committed) throws IOException {
+    long end = committed;
+    while (end < this.capacity) {
+      MappedByteBuffer buffer = this.map(end);
+      if (buffer.getInt(this.offset(end) + FlightRecorder.RECORD_MARKER) != (int) (end + 1)) {
+        break;
+      }
+      end++;
+    }
+    return end;
+  }
+
+  private void buildIndex() throws IOException {
+    for (int block = 0; block < this.blockStart.length; block++) {
+      double start = Double.POSITIVE_INFINITY;
+      double end   = Double.NEGATIVE_INFINITY;
+      int    types = 0;
+      long   last  = Math.min((long) (block + 1) * this.blockRecords, this.recordCount);
+      for (long index = (long) block * this.blockRecords; index < last; index++) {
+        FlightRecord current = this.load(index);
+        double       time    = current.getTime();
+        RecordType   type    = current.getType();
+        start = Math.min(start, time);
+        end   = Math.max(end, time);
+        if (type != null) {
+          types |= 1 << type.ordinal();
+          this.typeCounts[type.ordinal()]++;
+        }
+      }
+      this.blockStart[block] = start;
+      this.blockEnd[block]   = end;
+      this.blockTypes[block] = (byte) types;
+    }
+  }
+
+  /**
+   * Visits every record of the given types taken between start and end
+   * inclusive, in the order they were recorded. The record passed to the
+   * visitor is reused.
+   * 
+   * @param start   the earliest time to visit
+   * @param end     the latest time to visit
+   * @param types   the types of record to visit
+   * @param visitor the visitor to call with each record
+   * @throws IOException if the log can not be read
+   */
+  public void query(double start, double end, Set<RecordType> types, Consumer<FlightRecord> visitor)
+      throws IOException {
+    this.query(start, end, types, null, visitor);
+  }
+
+  /**
+   * Visits every routed SCM packet of the given channel taken between start
+   * and end inclusive
+   * 
+   * @param start   the earliest time to visit
+   * @param end     the latest time to visit
+   * @param channel the packet type to visit
+   * @param visitor the visitor to call with each record
+   * @throws IOException if the log can not be read
+   */
+  public void queryChannel(double start, double end, SCMPacketType channel, Consumer<FlightRecord> visitor)
+      throws IOException {
+    this.query(start, end, EnumSet.of(RecordType.PACKET), channel, visitor);
+  }
+
+  private void query(double start, double end, Set<RecordType> types, SCMPacketType channel,
+      Consumer<FlightRecord> visitor) throws IOException {
+    int mask = 0;
+    for (RecordType type : types) {
+      mask |= 1 << type.ordinal();
+    }
+    for (int block = 0; block < this.blockStart.length; block++) {
+      if ((this.blockTypes[block] & mask) == 0 || this.blockEnd[block] < start || this.blockStart[block] > end) {
+        continue;
+      }
+      long last = Math.min((long) (block + 1) * this.blockRecords, this.recordCount);
+      for (long index = (long) block * this.blockRecords; index < last; index++) {
+        FlightRecord current = this.load(index);
+        RecordType   type    = current.getType();
+        double       time    = current.getTime();
+        if (type == null || (mask & 1 << type.ordinal()) == 0 || time < start || time > end) {
+          continue;
+        }
+        if (channel != null && current.getPacketType() != channel) {
+          continue;
+        }
+        visitor.accept(current);
+      }
+    }
+  }
+
+  /**
+   * Writes every record of the given types between start and end to out as
+   * CSV with a header line. Every record has the same columns, unused ones
+   * are left empty.
+   * 
+   * @param start the earliest time to export
+   * @param end   the latest time to export
+   * @param types the types of record to export
+   * @param out   where to write the CSV to
+   * @throws IOException if the log can not be read or out can not be written
+   */
+  public void exportCSV(double start, double end, Set<RecordType> types, Appendable out) throws IOException {
+    out.append(CSV_HEADER).append('\n');
+    StringBuilder line = new StringBuilder();
+    IOException[] error = new IOException[1];
+    this.query(start, end, types, current -> {
+      if (error[0] != null) {
+        return;
+      }
+      line.setLength(0);
+      this.appendCSV(current, line);
+      try {
+        out.append(line).append('\n');
+      } catch (IOException e) {
+        error[0] = e;
+      }
+    });
+    if (error[0] != null) {
+      throw error[0];
+    }
+  }
+
+  /**
+   * Appends a record as a line of CSV without the line break. Metric records
+   * are named after the metric and the index of their first value.
+   * 
+   * @param current the record to append
+   * @param line    the line to append to
+   */
+  void appendCSV(FlightRecord current, StringBuilder line) {
+    RecordType type   = current.getType();
+    String     name   = "";
+    int        values = 0;
+    switch (type) {
+      case IMU:
+        values = FlightRecorder.MAX_VALUES;
+        break;
+      case BAROMETER:
+        values = 1;
+        break;
+      case GPS:
+        name   = current.getValue(5) != 0 ? "VALID" : "INVALID";
+        values = 5;
+        break;
+      case PACKET:
+        SCMPacketType packetType = current.getPacketType();
+        name = packetType == null ? "" : packetType.name();
+        break;
+      case FLIGHT_MODE:
+        name = String.valueOf(current.getFlightMode());
+        break;
+      case ERROR:
+        name   = String.valueOf(current.getError());
+        values = 1;
+        break;
+      case METRIC:
+        String metric = this.getMetricName(current.getMetricIndex());
+        name   = (metric == null ? String.valueOf(current.getMetricIndex()) : metric) + ":"
+            + current.getMetricOffset();
+        values = FlightRecorder.MAX_VALUES;
+        break;
+      default:
+        break;
+    }
+    line.append(current.getIndex()).append(',').append(current.getTime()).append(',').append(type.name());
+    line.append(',').append(current.getSource() == null ? "" : current.getSource().name());
+    line.append(',').append(current.getDirection() == null ? "" : current.getDirection().name());
+    line.append(',').append(name);
+    if (type == RecordType.PACKET) {
+      line.append(',').append(current.getPacketData());
+      values = 1;
+    } else {
+      for (int i = 0; i < values; i++) {
+        line.append(',').append(current.getValue(i));
+      }
+    }
+    for (int i = values; i < FlightRecorder.MAX_VALUES; i++) {
+      line.append(',');
+    }
+  }
+
+  /**
+   * @return the number of valid records in the log
+   */
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  /**
+   * @param type the type of record
+   * @return the number of records of the type in the log
+   */
+  public long getRecordCount(RecordType type) {
+    return this.typeCounts[type.ordinal()];
+  }
+
+  /**
+   * @param index the index of the metric
+   * @return the name of the metric or null if it was never named
+   */
+  public String getMetricName(int index) {
+    if (index < 0 || index >= this.metricNames.length) {
+      return null;
+    }
+    return this.metricNames[index];
+  }
+
+  /**
+   * @return the earliest time in the log or NaN if it is empty
+   */
+  public double getStartTime() {
+    double start = Double.NaN;
+    for (double time : this.blockStart) {
+      start = Double.isNaN(start) ? time : Math.min(start, time);
+    }
+    return start;
+  }
+
+  /**
+   * @return the latest time in the log or NaN if it is empty
+   */
+  public double getEndTime() {
+    double end = Double.NaN;
+    for (double time : this.blockEnd) {
+      end = Double.isNaN(end) ? time : Math.max(end, time);
+    }
+    return end;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.window = null;
+    this.channel.close();
+  }
+
+  private FlightRecord load(long index) throws IOException {
+    long slot = index < this.padSlots.length ? this.padSlots[(int) index]
+        : this.padCapacity + index - this.padSlots.length;
+    this.record.set(this.map(slot), this.offset(slot), index);
+    return this.record;
+  }
+
+  /**
+   * Maps the window holding the slot if it is not mapped already
+   * 
+   * @param slot the slot of the record in the file
+   * @return the window holding the record
+   * @throws IOException if the window can not be mapped
+   */
+  private MappedByteBuffer map(long slot) throws IOException {
+    long windowIndex = slot / this.windowRecords;
+    if (windowIndex != this.windowIndex) {
+      long first   = windowIndex * this.windowRecords;
+      long records = Math.min(this.windowRecords, this.capacity - first);
+      this.window      = this.channel.map(FileChannel.MapMode.READ_ONLY,
+          FlightRecorder.HEADER_SIZE + first * FlightRecorder.RECORD_SIZE, records * FlightRecorder.RECORD_SIZE);
+      this.window.order(ByteOrder.LITTLE_ENDIAN);
+      this.windowIndex = windowIndex;
+    }
+    return this.window;
+  }
+
+  /**
+   * @param slot the slot of the record in the file
+   * @return the offset of the record in its window
+   */
+  private int offset(long slot) {
+    return (int) (slot % this.windowRecords) * FlightRecorder.RECORD_SIZE;
+  }
+
+  /**
+   * Exports a log as CSV to standard out. Arguments are the log, optionally
+   * followed by the start and end time and the record types to export. The
+   * second and third argument are only taken as times if both are numbers.
+   * 
+   * @param args the command line arguments
+   * @throws IOException if the log can not be read
+   */
+  public static void main(String[] args) throws IOException {
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+    try {
+      if (!export(args, out)) {
+        System.err.println("Usage: FlightLogReader <log> [start end] [type...]");
+      }
+    } finally {
+      out.flush();
+    }
+  }
+
+  /**
+   * Exports a log as CSV as described by the command line arguments
+   * 
+   * @param args the command line arguments of {@link #main(String[])}
+   * @param out  where to write the CSV to
+   * @return false if the arguments are invalid
+   * @throws IOException if the log can not be read or out can not be written
+   */
+  static boolean export(String[] args, Appendable out) throws IOException {
+    if (args.length < 1) {
+      return false;
+    }
+    double              start   = Double.NEGATIVE_INFINITY;
+    double              end     = Double.POSITIVE_INFINITY;
+    int                 nextArg = 1;
+    EnumSet<RecordType> types   = EnumSet.noneOf(RecordType.class);
+    if (args.length >= 3 && isNumber(args[1]) && isNumber(args[2])) {
+      start   = Double.parseDouble(args[1]);
+      end     = Double.parseDouble(args[2]);
+      nextArg = 3;
+    }
+    for (int i = nextArg; i < args.length; i++) {
+      try {
+        types.add(RecordType.valueOf(args[i]));
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+    if (types.isEmpty()) {
+      types = EnumSet.allOf(RecordType.class);
+    }
+    try (FlightLogReader reader = new FlightLogReader(Paths.get(args[0]))) {
+      reader.exportCSV(start, end, types, out);
+    }
+    return true;
+  }
+
+  private static boolean isNumber(String argument) {
+    try {
+      Double.parseDouble(argument);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
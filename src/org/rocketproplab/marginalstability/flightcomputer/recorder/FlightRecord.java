@@ -0,0 +1,212 @@
+package org.rocketproplab.marginalstability.flightcomputer.recorder;
+
+import java.nio.ByteBuffer;
+
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+/**
+ * A view of a single record in a flight log. The reader reuses one instance
+ * for every record it visits so the values must be copied, or decoded with
+ * one of the to methods, if they are needed after the visit.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class FlightRecord {
+
+  private static final int NO_ARGUMENT = 0xFF;
+
+  private ByteBuffer buffer;
+  private int        offset;
+  private long       index;
+
+  /**
+   * Points this view at a record
+   * 
+   * @param buffer the buffer holding the record
+   * @param offset the offset of the record in the buffer
+   * @param index  the index of the record in the log
+   */
+  void set(ByteBuffer buffer, int offset, long index) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.index  = index;
+  }
+
+  /**
+   * @return the index of the record in the log
+   */
+  public long getIndex() {
+    return this.index;
+  }
+
+  /**
+   * @return the type of the record or null if it is unknown
+   */
+  public RecordType getType() {
+    return RecordType.fromCode(this.buffer.get(this.offset + FlightRecorder.RECORD_TYPE));
+  }
+
+  /**
+   * @return the time the record was taken at
+   */
+  public double getTime() {
+    return this.buffer.getDouble(this.offset + FlightRecorder.RECORD_TIME);
+  }
+
+  /**
+   * Gets a payload value stored as a double
+   * 
+   * @param index the index of the value, less than
+   *              {@link FlightRecorder#MAX_VALUES}
+   * @return the value
+   */
+  public double getValue(int index) {
+    return this.buffer.getDouble(this.offset + FlightRecorder.RECORD_VALUES + index * Double.BYTES);
+  }
+
+  private int getArgumentA() {
+    return this.buffer.get(this.offset + FlightRecorder.RECORD_ARG_A) & 0xFF;
+  }
+
+  private int getArgumentB() {
+    return this.buffer.get(this.offset + FlightRecorder.RECORD_ARG_B) & 0xFF;
+  }
+
+  /**
+   * @return the direction of a packet or GPS record, null for other records
+   */
+  public PacketDirection getDirection() {
+    int argument = this.getArgumentA();
+    if (!this.isRouted() || argument >= PacketDirection.values().length) {
+      return null;
+    }
+    return PacketDirection.values()[argument];
+  }
+
+  /**
+   * @return the source of a packet or GPS record, null for other records
+   */
+  public PacketSources getSource() {
+    int argument = this.getArgumentB();
+    if (!this.isRouted() || argument == NO_ARGUMENT || argument >= PacketSources.values().length) {
+      return null;
+    }
+    return PacketSources.values()[argument];
+  }
+
+  private boolean isRouted() {
+    RecordType type = this.getType();
+    return type == RecordType.PACKET || type == RecordType.GPS;
+  }
+
+  /**
+   * @return the SCM packet type of a packet record, null if there is none
+   */
+  public SCMPacketType getPacketType() {
+    if (this.getType() != RecordType.PACKET) {
+      return null;
+    }
+    int id = this.buffer.getShort(this.offset + FlightRecorder.RECORD_VALUES);
+    if (id < 0 || id >= SCMPacketType.values().length) {
+      return null;
+    }
+    return SCMPacketType.values()[id];
+  }
+
+  /**
+   * @return the data of a packet record
+   */
+  public String getPacketData() {
+    char[] data = new char[SCMPacket.DATA_LENGTH];
+    int    end  = 0;
+    while (end < data.length) {
+      byte value = this.buffer.get(this.offset + FlightRecorder.RECORD_VALUES + 2 + end);
+      if (value == 0) {
+        break;
+      }
+      data[end++] = (char) value;
+    }
+    return new String(data, 0, end);
+  }
+
+  /**
+   * @return the packet of a packet record
+   */
+  public SCMPacket toSCMPacket() {
+    return new SCMPacket(this.getPacketType(), this.getPacketData());
+  }
+
+  /**
+   * @return the reading of an IMU record
+   */
+  public IMUReading toIMUReading() {
+    return new IMUReading(new Vector3(this.getValue(0), this.getValue(1), this.getValue(2)),
+        new Vector3(this.getValue(3), this.getValue(4), this.getValue(5)));
+  }
+
+  /**
+   * @return the packet of a GPS record
+   */
+  public GPSPacket toGPSPacket() {
+    if (this.getValue(5) == 0) {
+      return new GPSPacket(null);
+    }
+    return new GPSPacket(this.getValue(0), this.getValue(1), this.getValue(2), this.getValue(3),
+        (int) this.getValue(4));
+  }
+
+  /**
+   * @return the mode of a flight mode record or null for other records
+   */
+  public FlightMode getFlightMode() {
+    int argument = this.getArgumentA();
+    if (this.getType() != RecordType.FLIGHT_MODE || argument >= FlightMode.values().length) {
+      return null;
+    }
+    return FlightMode.values()[argument];
+  }
+
+  /**
+   * @return the error of an error record or null for other records
+   */
+  public Errors getError() {
+    int argument = this.getArgumentA();
+    if (this.getType() != RecordType.ERROR || argument >= Errors.values().length) {
+      return null;
+    }
+    return Errors.values()[argument];
+  }
+
+  /**
+   * @return how often the error of an error record occurred so far or 0 for
+   *         other records
+   */
+  public long getErrorCount() {
+    return this.getType() == RecordType.ERROR ? (long) this.getValue(0) : 0;
+  }
+
+  /**
+   * @return the index of the metric of a metric record or -1 for other
+   *         records
+   */
+  public int getMetricIndex() {
+    return this.getType() == RecordType.METRIC ? this.getArgumentA() : -1;
+  }
+
+  /**
+   * @return the index in the metric of the first value of a metric record or
+   *         -1 for other records
+   */
+  public int getMetricOffset() {
+    return this.getType() == RecordType.METRIC ? this.getArgumentB() : -1;
+  }
+}
@@ -0,0 +1,616 @@
+package org.rocketproplab.marginalstability.flightcomputer.recorder;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.events.FlightStateListener;
+import org.rocketproplab.marginalstability.flightcomputer.events.RoutedPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Metric;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Subsystem;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+/**
+ * Records everything the flight computer sees into a preallocated memory
+ * mapped file so it can be analysed after the flight. The file starts with a
+ * {@value #HEADER_SIZE} byte header followed by fixed size records of
+ * {@value #RECORD_SIZE} bytes, all little endian.
+ * 
+ * Header: magic, version, record size, capacity, pad capacity and the
+ * committed record count, followed by a table of the metric names with
+ * {@value #NAME_SIZE} bytes for every index a metric record can hold. Record:
+ * commit marker, type code, two small arguments, the time and up to six
+ * doubles of payload.
+ * 
+ * The first pad capacity records form a ring holding the newest records taken
+ * before launch, so a long hold on the pad does not fill the file. On
+ * {@link #launch()}, or the first flight mode off the pad, the rest of the
+ * file is appended to until it is full, after which further records are
+ * dropped and counted.
+ * 
+ * Appending never locks, a slot is claimed with an atomic increment and the
+ * commit marker is written after the rest of the record. The marker of a
+ * flight record is its index plus one, the marker of a ring record is minus
+ * its sequence before launch minus one. The records are forced to disk by a
+ * low priority thread, signalled by {@link #update()} every
+ * {@link Settings#RECORDER_FORCE_PERIOD}, and only then is the committed count
+ * of flight records in the header advanced and forced. After a crash every
+ * flight record before the committed count is intact, records after it and
+ * in the ring are valid as long as their marker matches.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class FlightRecorder implements Subsystem, FlightStateListener, RoutedPacketListener {
+
+  public static final int MAGIC       = 0x5246534D; // "MSFR"
+  public static final int VERSION     = 3;
+  public static final int NAME_SIZE   = 64;
+  public static final int HEADER_SIZE = 64 + MetricsRegistry.MAX_METRICS * NAME_SIZE;
+  public static final int RECORD_SIZE = 64;
+  public static final int MAX_VALUES  = 6;
+
+  static final int HEADER_MAGIC        = 0;
+  static final int HEADER_VERSION      = 4;
+  static final int HEADER_RECORD       = 6;
+  static final int HEADER_CAPACITY     = 8;
+  static final int HEADER_PAD_CAPACITY = 12;
+  static final int HEADER_COMMITTED    = 16;
+  static final int HEADER_NAMES        = 64;
+
+  static final int RECORD_MARKER = 0;
+  static final int RECORD_TYPE   = 4;
+  static final int RECORD_ARG_A  = 5;
+  static final int RECORD_ARG_B  = 6;
+  static final int RECORD_TIME   = 8;
+  static final int RECORD_VALUES = 16;
+
+  private static final int  NO_ARGUMENT = 0xFF;
+  private static final long LAUNCHED    = 1L << 62;
+
+  private final FileChannel      channel;
+  private final MappedByteBuffer buffer;
+  private final int              capacity;
+  private final int              padCapacity;
+  private final long             padPeriod;
+  private final Time             time;
+  private final AtomicLong       next;
+  private final AtomicLong       dropped;
+  private final Object           forceLock;
+  private volatile long          padRecords;
+  private long                   committed;
+  private double                 lastForceTime;
+  private boolean                forceRequested;
+  private boolean                running;
+  private Thread                 forceThread;
+
+  /**
+   * Creates a new recording without a ring before launch
+   * 
+   * @param file     the file to record to
+   * @param capacity the number of records the file holds
+   * @param time     the time each record is stamped with
+   * @throws IOException if the file exists or can not be mapped
+   */
+  public FlightRecorder(Path file, int capacity, Time time) throws IOException {
+    this(file, 0, capacity, time);
+  }
+
+  /**
+   * Creates a new recording. The file must not exist yet so that an earlier
+   * recording is never overwritten, for example after a reboot in flight.
+   * 
+   * @param file        the file to record to
+   * @param padCapacity the number of records in the ring used before launch
+   * @param capacity    the number of records the file holds, including the
+   *                    ring
+   * @param time        the time each record is stamped with
+   * @throws IOException if the file exists or can not be mapped
+   */
+  public FlightRecorder(Path file, int padCapacity, int capacity, Time time) throws IOException {
+    if (capacity < 1 || capacity > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+      throw new IllegalArgumentException("Capacity must be between 1 and "
+          + (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE + ", got " + capacity);
+    }
+    if (padCapacity < 0 || padCapacity >= capacity) {
+      throw new IllegalArgumentException("Pad capacity must be between 0 and " + (capacity - 1) + ", got "
+          + padCapacity);
+    }
+    this.channel       = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    this.buffer        = this.channel.map(FileChannel.MapMode.READ_WRITE, 0,
+        HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    this.capacity      = capacity;
+    this.padCapacity   = padCapacity;
+    this.padPeriod     = padSequencePeriod(padCapacity);
+    this.time          = time;
+    this.next          = new AtomicLong(padCapacity == 0 ? LAUNCHED : 0);
+    this.dropped       = new AtomicLong();
+    this.forceLock     = new Object();
+    this.lastForceTime = time.getSystemTime();
+
+    this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.putInt(HEADER_MAGIC, MAGIC);
+    this.buffer.putShort(HEADER_VERSION, (short) VERSION);
+    this.buffer.putShort(HEADER_RECORD, (short) RECORD_SIZE);
+    this.buffer.putInt(HEADER_CAPACITY, capacity);
+    this.buffer.putInt(HEADER_PAD_CAPACITY, padCapacity);
+    this.buffer.putLong(HEADER_COMMITTED, 0);
+    this.buffer.force();
+  }
+
+  /**
+   * Creates a new recording in the directory, named flight-N.rec after the
+   * first index not used yet so the recordings of earlier boots are kept.
+   * 
+   * @param directory   the directory to record in
+   * @param padCapacity the number of records in the ring used before launch
+   * @param capacity    the number of records the file holds, including the
+   *                    ring
+   * @param time        the time each record is stamped with
+   * @return the new recording
+   * @throws IOException if the file can not be created or mapped
+   */
+  public static FlightRecorder create(Path directory, int padCapacity, int capacity, Time time)
+      throws IOException {
+    for (int index = 0;; index++) {
+      try {
+        return new FlightRecorder(directory.resolve("flight-" + index + ".rec"), padCapacity, capacity, time);
+      } catch (FileAlreadyExistsException e) {
+        // Recorded by an earlier boot, try the next index
+      }
+    }
+  }
+
+  /**
+   * Records a raw IMU sample
+   * 
+   * @param sampleTime the time the sample was taken
+   * @param reading    the sample
+   */
+  public void recordIMU(double sampleTime, IMUReading reading) {
+    int marker = this.claim();
+    if (marker == 0) {
+      return;
+    }
+    int offset = this.open(marker);
+    Vector3 acceleration = reading.getXYZAcceleration();
+    Vector3 rotation     = reading.getXYZRotation();
+    this.putValue(offset, 0, acceleration.getX());
+    this.putValue(offset, 1, acceleration.getY());
+    this.putValue(offset, 2, acceleration.getZ());
+    this.putValue(offset, 3, rotation.getX());
+    this.putValue(offset, 4, rotation.getY());
+    this.putValue(offset, 5, rotation.getZ());
+    this.commit(offset, marker, RecordType.IMU, NO_ARGUMENT, NO_ARGUMENT, sampleTime);
+  }
+
+  /**
+   * Records a barometer sample
+   * 
+   * @param sampleTime the time the sample was taken
+   * @param pressure   the pressure in hPa
+   */
+  public void recordBarometer(double sampleTime, double pressure) {
+    int marker = this.claim();
+    if (marker == 0) {
+      return;
+    }
+    int offset = this.open(marker);
+    this.putValue(offset, 0, pressure);
+    this.commit(offset, marker, RecordType.BAROMETER, NO_ARGUMENT, NO_ARGUMENT, sampleTime);
+  }
+
+  /**
+   * Records a flight mode change
+   * 
+   * @param mode the new flight mode
+   */
+  public void recordFlightMode(FlightMode mode) {
+    int marker = this.claim();
+    if (marker == 0) {
+      return;
+    }
+    int offset = this.open(marker);
+    this.commit(offset, marker, RecordType.FLIGHT_MODE, mode.ordinal(), NO_ARGUMENT,
+        this.time.getSystemTime());
+  }
+
+  /**
+   * Records the first occurrence of an error
+   * 
+   * @param error the error which occurred
+   */
+  public void recordError(Errors error) {
+    this.recordError(error, 1);
+  }
+
+  /**
+   * Records how often an error occurred so far
+   * 
+   * @param error the error which occurred
+   * @param count the number of occurrences so far
+   */
+  public void recordError(Errors error, long count) {
+    int marker = this.claim();
+    if (marker == 0) {
+      return;
+    }
+    int offset = this.open(marker);
+    this.putValue(offset, 0, count);
+    this.commit(offset, marker, RecordType.ERROR, error.ordinal(), NO_ARGUMENT, this.time.getSystemTime());
+  }
+
+  /**
+   * Records a snapshot of a metric, split over as many records as its values
+   * need
+   * 
+   * @param index  the index of the metric in its registry
+   * @param metric the metric to snapshot
+   */
+  public void recordMetric(int index, Metric metric) {
+    double now    = this.time.getSystemTime();
+    int    values = metric.getValueCount();
+    for (int first = 0; first < values; first += MAX_VALUES) {
+      int marker = this.claim();
+      if (marker == 0) {
+        return;
+      }
+      int offset = this.open(marker);
+      for (int i = 0; i < MAX_VALUES; i++) {
+        this.putValue(offset, i, first + i < values ? metric.getValue(first + i) : Double.NaN);
+      }
+      this.commit(offset, marker, RecordType.METRIC, index, first, now);
+    }
+  }
+
+  /**
+   * Names a metric in the name table of the header, the name is cut to
+   * {@value #NAME_SIZE} characters. It is forced to disk with the records.
+   * 
+   * @param index the index of the metric in its registry
+   * @param name  the name of the metric
+   */
+  public void nameMetric(int index, String name) {
+    if (index < 0 || index >= MetricsRegistry.MAX_METRICS) {
+      throw new IllegalArgumentException("Metric index must be between 0 and " + (MetricsRegistry.MAX_METRICS - 1)
+          + ", got " + index);
+    }
+    int offset = HEADER_NAMES + index * NAME_SIZE;
+    int length = Math.min(name.length(), NAME_SIZE);
+    for (int i = 0; i < NAME_SIZE; i++) {
+      this.buffer.put(offset + i, i < length ? (byte) name.charAt(i) : 0);
+    }
+  }
+
+  /**
+   * Records a routed packet. GPS packets are stored as GPS records and SCM
+   * packets as their type and data, other packets are ignored.
+   */
+  @Override
+  public void onRoutedPacket(Object packet, PacketSources source, PacketDirection direction) {
+    if (packet instanceof SCMPacket) {
+      this.recordSCMPacket((SCMPacket) packet, source, direction);
+    } else if (packet instanceof GPSPacket) {
+      this.recordGPS((GPSPacket) packet, source, direction);
+    }
+  }
+
+  private void recordSCMPacket(SCMPacket packet, PacketSources source, PacketDirection direction) {
+    int marker = this.claim();
+    if (marker == 0) {
+      return;
+    }
+    int offset = this.open(marker);
+    int    id   = packet.getID() == null ? -1 : packet.getID().ordinal();
+    String data = packet.getData();
+    this.buffer.putShort(offset + RECORD_VALUES, (short) id);
+    int length = data == null ? 0 : Math.min(data.length(), SCMPacket.DATA_LENGTH);
+    for (int i = 0; i < SCMPacket.DATA_LENGTH; i++) {
+      byte value = i < length ? (byte) data.charAt(i) : 0;
+      this.buffer.put(offset + RECORD_VALUES + 2 + i, value);
+    }
+    this.commit(offset, marker, RecordType.PACKET, direction.ordinal(), source.ordinal(),
+        this.time.getSystemTime());
+  }
+
+  private void recordGPS(GPSPacket packet, PacketSources source, PacketDirection direction) {
+    int marker = this.claim();
+    if (marker == 0) {
+      return;
+    }
+    int offset = this.open(marker);
+    this.putValue(offset, 0, packet.getLatitude());
+    this.putValue(offset, 1, packet.getLongitude());
+    this.putValue(offset, 2, packet.getAltitude());
+    this.putValue(offset, 3, packet.getTime());
+    this.putValue(offset, 4, packet.getSVCount());
+    this.putValue(offset, 5, packet.isValid() ? 1 : 0);
+    this.commit(offset, marker, RecordType.GPS, direction.ordinal(), source.ordinal(),
+        this.time.getSystemTime());
+  }
+
+  /**
+   * Launches on the first flight mode off the pad and records the mode
+   */
+  @Override
+  public void onFlightModeChange(FlightMode newMode) {
+    if (newMode != FlightMode.Sitting) {
+      this.launch();
+    }
+    this.recordFlightMode(newMode);
+  }
+
+  /**
+   * Stops overwriting the ring and appends every further record after it.
+   * Does nothing once launched.
+   */
+  public void launch() {
+    long ticket = this.next.get();
+    while ((ticket & LAUNCHED) == 0) {
+      if (this.next.compareAndSet(ticket, LAUNCHED)) {
+        this.padRecords = Math.min(ticket, this.padCapacity);
+        return;
+      }
+      ticket = this.next.get();
+    }
+  }
+
+  /**
+   * @return if the recorder appends after the ring
+   */
+  public boolean isLaunched() {
+    return (this.next.get() & LAUNCHED) != 0;
+  }
+
+  /**
+   * Starts the low priority thread which forces the records to disk when
+   * signalled by {@link #update()}. Without it records are only forced by
+   * {@link #force()} and {@link #close()}.
+   */
+  public void start() {
+    synchronized (this.forceLock) {
+      if (this.forceThread != null) {
+        return;
+      }
+      this.running     = true;
+      this.forceThread = new Thread(this::forceLoop, "recorder");
+      this.forceThread.setDaemon(true);
+      this.forceThread.setPriority(Thread.MIN_PRIORITY);
+      this.forceThread.start();
+    }
+  }
+
+  /**
+   * Stops the force thread once the current force completes and waits for it
+   * to exit
+   * 
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void stop() throws InterruptedException {
+    Thread toJoin;
+    synchronized (this.forceLock) {
+      this.running = false;
+      this.forceLock.notifyAll();
+      toJoin           = this.forceThread;
+      this.forceThread = null;
+    }
+    if (toJoin != null) {
+      toJoin.join();
+    }
+  }
+
+  private void forceLoop() {
+    while (true) {
+      synchronized (this.forceLock) {
+        while (this.running && !this.forceRequested) {
+          try {
+            this.forceLock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (!this.running) {
+          return;
+        }
+        this.forceRequested = false;
+      }
+      try {
+        this.force();
+      } catch (RuntimeException e) {
+        // The file could not be written, the next signal tries again
+      }
+    }
+  }
+
+  /**
+   * Signals the force thread every {@link Settings#RECORDER_FORCE_PERIOD},
+   * the records are never forced on the calling thread
+   */
+  @Override
+  public void update() {
+    double now = this.time.getSystemTime();
+    if (now - this.lastForceTime < Settings.RECORDER_FORCE_PERIOD) {
+      return;
+    }
+    this.lastForceTime = now;
+    synchronized (this.forceLock) {
+      this.forceRequested = true;
+      this.forceLock.notifyAll();
+    }
+  }
+
+  /**
+   * Forces every record written so far to disk and then advances the
+   * committed count in the header to the end of the flight records which
+   * were completely written. Must only be called from one thread at a time.
+   */
+  public synchronized void force() {
+    long claimed = this.padCapacity + this.getFlightRecordCount();
+    long end     = this.padCapacity + this.committed;
+    while (end < claimed && this.buffer.getInt(recordOffset(end) + RECORD_MARKER) == (int) (end + 1)) {
+      end++;
+    }
+    end -= this.padCapacity;
+    this.buffer.force();
+    if (end != this.committed) {
+      this.committed = end;
+      this.buffer.putLong(HEADER_COMMITTED, end);
+      this.buffer.force();
+    }
+  }
+
+  /**
+   * Stops the force thread, forces all records to disk and closes the file
+   * 
+   * @throws IOException if the file can not be closed
+   */
+  public void close() throws IOException {
+    try {
+      this.stop();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.force();
+    this.channel.close();
+  }
+
+  /**
+   * @return the number of records held in the ring and after it, written or
+   *         being written
+   */
+  public long getRecordCount() {
+    long ticket = this.next.get();
+    if ((ticket & LAUNCHED) == 0) {
+      return Math.min(ticket, this.padCapacity);
+    }
+    return this.padRecords + this.getFlightRecordCount();
+  }
+
+  /**
+   * @return the number of records after the ring written or being written
+   */
+  private long getFlightRecordCount() {
+    long ticket = this.next.get();
+    if ((ticket & LAUNCHED) == 0) {
+      return 0;
+    }
+    return Math.min(ticket & ~LAUNCHED, this.capacity - this.padCapacity);
+  }
+
+  /**
+   * @return the number of records after the ring known to be on disk
+   */
+  public synchronized long getCommittedCount() {
+    return this.committed;
+  }
+
+  /**
+   * @return the number of records dropped because the file was full after
+   *         launch
+   */
+  public long getDroppedCount() {
+    return this.dropped.get();
+  }
+
+  /**
+   * @return the number of records the file can hold, including the ring
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * @return the number of records in the ring used before launch
+   */
+  public int getPadCapacity() {
+    return this.padCapacity;
+  }
+
+  /**
+   * Claims the next record
+   * 
+   * @return the marker of the record or 0 if the file is full
+   */
+  private int claim() {
+    long ticket = this.next.getAndIncrement();
+    if ((ticket & LAUNCHED) == 0) {
+      return (int) -(ticket % this.padPeriod + 1);
+    }
+    long index = this.padCapacity + (ticket & ~LAUNCHED);
+    if (index >= this.capacity) {
+      this.dropped.incrementAndGet();
+      return 0;
+    }
+    return (int) (index + 1);
+  }
+
+  /**
+   * Finds the slot of a claimed record. A ring slot has its old marker
+   * cleared first so the old record is never mistaken for the new one.
+   * 
+   * @param marker the marker of the record
+   * @return the offset of the record in the file
+   */
+  private int open(int marker) {
+    if (marker > 0) {
+      return recordOffset(marker - 1);
+    }
+    int offset = recordOffset((-marker - 1) % this.padCapacity);
+    this.buffer.putInt(offset + RECORD_MARKER, 0);
+    VarHandle.storeStoreFence();
+    return offset;
+  }
+
+  private void putValue(int offset, int index, double value) {
+    this.buffer.putDouble(offset + RECORD_VALUES + index * Double.BYTES, value);
+  }
+
+  /**
+   * Writes the header of the record and then publishes it by writing its
+   * marker last
+   */
+  private void commit(int offset, int marker, RecordType type, int argumentA, int argumentB, double recordTime) {
+    this.buffer.put(offset + RECORD_TYPE, (byte) type.getCode());
+    this.buffer.put(offset + RECORD_ARG_A, (byte) argumentA);
+    this.buffer.put(offset + RECORD_ARG_B, (byte) argumentB);
+    this.buffer.putDouble(offset + RECORD_TIME, recordTime);
+    VarHandle.storeStoreFence();
+    this.buffer.putInt(offset + RECORD_MARKER, marker);
+  }
+
+  /**
+   * @param index the index of the record
+   * @return the offset of the record in the file
+   */
+  static int recordOffset(long index) {
+    return (int) (HEADER_SIZE + index * RECORD_SIZE);
+  }
+
+  /**
+   * Ring sequences wrap at the largest multiple of the pad capacity which
+   * fits a marker, so a sequence always lands in the same slot
+   * 
+   * @param padCapacity the number of records in the ring
+   * @return the period of the ring sequence
+   */
+  static long padSequencePeriod(int padCapacity) {
+    return padCapacity == 0 ? Integer.MAX_VALUE : (long) padCapacity * (Integer.MAX_VALUE / padCapacity);
+  }
+}
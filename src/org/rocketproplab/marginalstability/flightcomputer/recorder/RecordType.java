@@ -0,0 +1,83 @@
+package org.rocketproplab.marginalstability.flightcomputer.recorder;
+
+/**
+ * The kinds of records stored by the {@link FlightRecorder}. The code of each
+ * type is stored in the file so types must never be renumbered.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public enum RecordType {
+
+  /**
+   * A raw IMU sample, the payload is the acceleration followed by the rotation
+   */
+  IMU(1),
+
+  /**
+   * A barometer sample, the payload is the pressure in hPa
+   */
+  BAROMETER(2),
+
+  /**
+   * A GPS fix, the payload is latitude, longitude, altitude, GPS time and the
+   * satellite count
+   */
+  GPS(3),
+
+  /**
+   * A routed SCM packet, the payload is the packet type followed by the data
+   */
+  PACKET(4),
+
+  /**
+   * A change of the flight mode
+   */
+  FLIGHT_MODE(5),
+
+  /**
+   * An error reported to the command box, the payload is the number of
+   * occurrences so far
+   */
+  ERROR(6),
+
+  /**
+   * Part of a snapshot of a metric, the arguments are the index of the metric,
+   * whose name is in the header, and the index of the first value in the
+   * record, unused values are NaN
+   */
+  METRIC(7);
+
+  private static final RecordType[] BY_CODE = new RecordType[8];
+  static {
+    for (RecordType type : values()) {
+      BY_CODE[type.code] = type;
+    }
+  }
+
+  private final int code;
+
+  RecordType(int code) {
+    this.code = code;
+  }
+
+  /**
+   * @return the code stored in the file for this type
+   */
+  public int getCode() {
+    return this.code;
+  }
+
+  /**
+   * Looks up the type with the given code
+   * 
+   * @param code the code stored in the file
+   * @return the type or null if the code is unknown
+   */
+  public static RecordType fromCode(int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      return null;
+    }
+    return BY_CODE[code];
+  }
+}
@@ -0,0 +1,45 @@
+package org.rocketproplab.marginalstability.flightcomputer.replay;
+
+import org.rocketproplab.marginalstability.flightcomputer.hal.Barometer;
+
+/**
+ * A barometer reporting the samples fed to it by a replay. The usable range is
+ * the same as that of the LPS22HD.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ReplayBarometer implements Barometer {
+
+  private static final double MINIMUM_RANGE = 259;
+  private static final double MAXIMUM_RANGE = 1261;
+
+  private volatile double pressure = Double.NaN;
+  private volatile double time;
+
+  /**
+   * Sets the latest sample
+   * 
+   * @param time     the time the sample was taken
+   * @param pressure the pressure in hPa
+   */
+  public void set(double time, double pressure) {
+    this.pressure = pressure;
+    this.time     = time;
+  }
+
+  @Override
+  public double getPressure() {
+    return this.pressure;
+  }
+
+  @Override
+  public boolean inUsableRange() {
+    return this.pressure > MINIMUM_RANGE && this.pressure < MAXIMUM_RANGE;
+  }
+
+  @Override
+  public double getLastMeasurementTime() {
+    return this.time;
+  }
+}
@@ -0,0 +1,217 @@
+package org.rocketproplab.marginalstability.flightcomputer.replay;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.concurrent.locks.LockSupport;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.TickTime;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.hal.SerialPortAdapter;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightLogReader;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecord;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.RecordType;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.TelemetryScheduler;
+
+/**
+ * Re-runs a recorded flight. The inputs of the flight computer are fed back in
+ * the order they were recorded: IMU samples to a {@link ReplayIMU}, barometer
+ * samples to a {@link ReplayBarometer}, received SCM packets as their wire
+ * format to the {@link SerialPortAdapter} of their source and received GPS
+ * packets straight to the router. Outputs such as sent packets, flight mode
+ * changes and errors are not replayed, they are what the replay produces.
+ * 
+ * The flight computer is ticked every {@link Settings#REPLAY_TICK_PERIOD} of
+ * virtual time with the {@link ReplayTime} set to the tick. Nothing depends on
+ * the wall clock so as long as every subsystem uses the replay time two runs
+ * of the same log produce identical output. The replay can run as fast as
+ * possible or paced against the wall clock.
+ * 
+ * The singletons, such as the {@link Telemetry} and
+ * {@link TelemetryScheduler} instances, latch {@link TickTime#getInstance()}
+ * which reads the system time. A replay of the flight computer built by Main
+ * is only deterministic once the shared tick time latches the replay time
+ * through {@link TickTime#setSource(Time)}. Replays built from their own
+ * instances, like the simulator, do not share that clock.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ReplayEngine {
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private FlightLogReader                           log;
+  private ReplayTime                                time;
+  private Runnable                                  tick;
+  private ReplayIMU                                 imu;
+  private ReplayBarometer                           barometer;
+  private PacketRouter                              router;
+  private EnumMap<PacketSources, SerialPortAdapter> serialPorts;
+  private double                                    nextTick;
+  private double                                    speed;
+  private long                                      wallStart;
+  private double                                    virtualStart;
+  private long                                      ticks;
+
+  /**
+   * Create a new replay of the log
+   * 
+   * @param log  the log to replay
+   * @param time the virtual time every replayed subsystem uses
+   * @param tick what to run every tick, usually the tick of the flight
+   *             computer
+   */
+  public ReplayEngine(FlightLogReader log, ReplayTime time, Runnable tick) {
+    this.log         = log;
+    this.time        = time;
+    this.tick        = tick;
+    this.serialPorts = new EnumMap<>(PacketSources.class);
+  }
+
+  /**
+   * @param imu the IMU to feed IMU samples to
+   */
+  public void setIMU(ReplayIMU imu) {
+    this.imu = imu;
+  }
+
+  /**
+   * @param barometer the barometer to feed barometer samples to
+   */
+  public void setBarometer(ReplayBarometer barometer) {
+    this.barometer = barometer;
+  }
+
+  /**
+   * @param router the router to give received packets without a serial port to
+   */
+  public void setRouter(PacketRouter router) {
+    this.router = router;
+  }
+
+  /**
+   * Feeds received SCM packets from the source to the serial port instead of
+   * the router, so that the transceiver parses them like during the flight.
+   * 
+   * @param source     the source the serial port is connected to
+   * @param serialPort the serial port to feed
+   */
+  public void addSerialPort(PacketSources source, SerialPortAdapter serialPort) {
+    this.serialPorts.put(source, serialPort);
+  }
+
+  /**
+   * Replays the whole log as fast as possible
+   * 
+   * @throws IOException if the log can not be read
+   */
+  public void run() throws IOException {
+    this.run(0);
+  }
+
+  /**
+   * Replays the whole log
+   * 
+   * @param speed how many seconds of the flight to replay per second, 1 for
+   *              real time and 0 or less for as fast as possible
+   * @throws IOException if the log can not be read
+   */
+  public void run(double speed) throws IOException {
+    double start = this.log.getStartTime();
+    if (Double.isNaN(start)) {
+      return;
+    }
+    this.speed        = speed;
+    this.wallStart    = System.nanoTime();
+    this.virtualStart = start;
+    this.nextTick     = start;
+    this.time.setTime(start);
+    this.log.query(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, EnumSet.allOf(RecordType.class),
+        this::replay);
+    this.tickUntil(this.nextTick);
+  }
+
+  /**
+   * @return the number of ticks run so far
+   */
+  public long getTickCount() {
+    return this.ticks;
+  }
+
+  private void replay(FlightRecord record) {
+    double recordTime = record.getTime();
+    this.tickUntil(recordTime);
+    if (recordTime > this.time.getSystemTime()) {
+      this.time.setTime(recordTime);
+    }
+
+    switch (record.getType()) {
+      case IMU:
+        if (this.imu != null) {
+          this.imu.add(record.toIMUReading());
+        }
+        break;
+      case BAROMETER:
+        if (this.barometer != null) {
+          this.barometer.set(recordTime, record.getValue(0));
+        }
+        break;
+      case PACKET:
+        if (record.getDirection() == PacketDirection.RECIVE) {
+          SerialPortAdapter serialPort = this.serialPorts.get(record.getSource());
+          if (serialPort != null) {
+            serialPort.newMessage(record.toSCMPacket().toString());
+          } else if (this.router != null) {
+            this.router.recivePacket(record.toSCMPacket(), record.getSource());
+          }
+        }
+        break;
+      case GPS:
+        if (record.getDirection() == PacketDirection.RECIVE && this.router != null) {
+          this.router.recivePacket(record.toGPSPacket(), record.getSource());
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Runs every tick at or before the given time
+   * 
+   * @param until the time to tick up to
+   */
+  private void tickUntil(double until) {
+    while (this.nextTick <= until) {
+      this.pace(this.nextTick);
+      this.time.setTime(this.nextTick);
+      this.tick.run();
+      this.ticks++;
+      this.nextTick = this.virtualStart + this.ticks * Settings.REPLAY_TICK_PERIOD;
+    }
+  }
+
+  /**
+   * Waits until the wall clock catches up with the virtual time when running
+   * paced
+   * 
+   * @param virtualTime the virtual time about to be run
+   */
+  private void pace(double virtualTime) {
+    if (this.speed <= 0) {
+      return;
+    }
+    long target = this.wallStart + (long) ((virtualTime - this.virtualStart) / this.speed * NANOS_PER_SECOND);
+    long wait   = target - System.nanoTime();
+    while (wait > 0) {
+      LockSupport.parkNanos(wait);
+      wait = target - System.nanoTime();
+    }
+  }
+}
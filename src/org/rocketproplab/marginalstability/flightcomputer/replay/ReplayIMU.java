@@ -0,0 +1,43 @@
+package org.rocketproplab.marginalstability.flightcomputer.replay;
+
+import java.util.ArrayDeque;
+
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMU;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+
+/**
+ * An IMU which returns the readings fed to it by a replay in order
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ReplayIMU implements IMU {
+
+  private ArrayDeque<IMUReading> readings;
+
+  /**
+   * Create a new IMU without any readings
+   */
+  public ReplayIMU() {
+    this.readings = new ArrayDeque<>();
+  }
+
+  /**
+   * Adds a reading to be returned after all earlier readings
+   * 
+   * @param reading the reading to add
+   */
+  public synchronized void add(IMUReading reading) {
+    this.readings.add(reading);
+  }
+
+  @Override
+  public synchronized IMUReading getNext() {
+    return this.readings.poll();
+  }
+
+  @Override
+  public synchronized boolean hasNext() {
+    return !this.readings.isEmpty();
+  }
+}
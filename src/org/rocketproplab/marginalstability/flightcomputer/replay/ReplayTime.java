@@ -0,0 +1,44 @@
+package org.rocketproplab.marginalstability.flightcomputer.replay;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+
+/**
+ * A virtual rocket time which only moves when the replay sets it, so the same
+ * log always produces the same times.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ReplayTime extends Time {
+
+  private volatile double time;
+
+  /**
+   * Create a new replay time starting at the given time
+   * 
+   * @param start the initial time
+   */
+  public ReplayTime(double start) {
+    this.time = start;
+  }
+
+  @Override
+  public double getSystemTime() {
+    return this.time;
+  }
+
+  @Override
+  public long getNanoTime() {
+    return Math.round(this.time * Settings.NS_PER_SECOND);
+  }
+
+  /**
+   * Sets the current time
+   * 
+   * @param time the new time
+   */
+  public void setTime(double time) {
+    this.time = time;
+  }
+}
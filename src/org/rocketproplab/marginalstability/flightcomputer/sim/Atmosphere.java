@@ -0,0 +1,55 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+
+/**
+ * The international standard atmosphere below the tropopause. The pressure is
+ * the inverse of the barometric formula used by the state estimation so a
+ * noise free barometer reads back the true altitude.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class Atmosphere {
+
+  private static final double SEA_LEVEL_TEMPERATURE = 288.15; // K
+  private static final double LAPSE_RATE            = 0.0065; // K/m
+  private static final double TROPOPAUSE            = 11000; // m
+  private static final double GAS_CONSTANT          = 287.05; // J/(kg K)
+  private static final double PRESSURE_EXPONENT     = 5.25588;
+  private static final double PA_PER_HPA            = 100;
+
+  private Atmosphere() {
+  }
+
+  /**
+   * Gets the temperature at the altitude, constant above the tropopause
+   *
+   * @param altitude the altitude above sea level in m
+   * @return the temperature in K
+   */
+  public static double getTemperature(double altitude) {
+    return SEA_LEVEL_TEMPERATURE - LAPSE_RATE * Math.min(altitude, TROPOPAUSE);
+  }
+
+  /**
+   * Gets the pressure at the altitude
+   *
+   * @param altitude the altitude above sea level in m
+   * @return the pressure in hPa
+   */
+  public static double getPressure(double altitude) {
+    double ratio = getTemperature(altitude) / SEA_LEVEL_TEMPERATURE;
+    return Settings.SEA_LEVEL_PRESSURE * Math.pow(ratio, PRESSURE_EXPONENT);
+  }
+
+  /**
+   * Gets the density of the air at the altitude
+   *
+   * @param altitude the altitude above sea level in m
+   * @return the density in kg/m^3
+   */
+  public static double getDensity(double altitude) {
+    return getPressure(altitude) * PA_PER_HPA / (GAS_CONSTANT * getTemperature(altitude));
+  }
+}
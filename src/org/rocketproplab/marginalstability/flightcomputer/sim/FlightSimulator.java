@@ -0,0 +1,467 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.rocketproplab.marginalstability.flightcomputer.FlightComputer;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.TickTime;
+import org.rocketproplab.marginalstability.flightcomputer.WallClock;
+import org.rocketproplab.marginalstability.flightcomputer.commands.CommandScheduler;
+import org.rocketproplab.marginalstability.flightcomputer.commands.HeartbeatCommand;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSTransceiver;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.hal.BusExecutor;
+import org.rocketproplab.marginalstability.flightcomputer.hal.BusPriority;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LPS22HD;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LSM9DS1;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830.Port;
+import org.rocketproplab.marginalstability.flightcomputer.hal.PollTransaction;
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.replay.ReplayTime;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.ErrorReportingSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.LinkStatisticsSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.MetricsSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.ParachuteSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.StateEstimationSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.TelemetryDeadband;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.TelemetryScheduler;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.ValveStateSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.trace.BlackBox;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightState;
+
+/**
+ * Flies the flight computer against a simulated rocket in a closed loop. The
+ * real {@link LSM9DS1}, {@link LPS22HD} and {@link MAX14830} drivers talk to
+ * register level simulations of the chips which are fed from the
+ * {@link RocketDynamics}, the GPS sends GGA sentences to the UART on
+ * {@link #GPS_PORT}. The parachute solenoids deploy the parachutes of the
+ * simulated rocket so the decisions of the flight computer change the
+ * trajectory. The drivers are polled through a {@link BusExecutor} per bus,
+ * the IMU and barometer share the I2C bus and the UART is on SPI. There are no
+ * bus threads, the queued polls run on the tick thread.
+ *
+ * The dynamics are stepped at the IMU data rate and the flight computer is
+ * ticked every {@link Settings#SIM_TICK_PERIOD} with its time set to the
+ * simulation time, nothing depends on the wall clock. The engine controller
+ * is not simulated, ignition and burnout are told to the {@link FlightState}
+ * directly. Sensor noise comes from a seeded random so a simulation with the
+ * same parameters and seed always flies the same way.
+ *
+ * Every simulation builds its own flight computer with its own router,
+ * telemetry, command scheduler, parachutes and valve state and never uses the
+ * singletons, so simulations can run on many threads at once. The flight
+ * software reads the static {@link Settings} however, changing them affects
+ * every simulation.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class FlightSimulator {
+
+  /**
+   * The port of the MAX14830 the GPS is attached to
+   */
+  public static final Port GPS_PORT = Port.UART0;
+
+  private static final int BUS_QUEUE_LENGTH = 4;
+
+  private final RocketParameters  parameters;
+  private final RocketDynamics    dynamics;
+  private final ReplayTime        time;
+  private final SimulatedLSM9DS1  imuDevice;
+  private final SimulatedLPS22HD  barometerDevice;
+  private final SimulatedMAX14830 uartDevice;
+  private final SimulatedGPS      gps;
+  private final Random            random;
+  private final MutableVector3    specificForce;
+  private final MutableVector3    angularRate;
+
+  private final LSM9DS1                  imu;
+  private final LPS22HD                  barometer;
+  private final MAX14830                 uart;
+  private final BusExecutor              i2cBus;
+  private final BusExecutor              spiBus;
+  private final PollTransaction          imuPoll;
+  private final PollTransaction          barometerPoll;
+  private final PollTransaction          uartPoll;
+  private final PacketRouter             router;
+  private final StateEstimationSubsystem stateEstimation;
+  private final ParachuteSubsystem       parachutes;
+  private final FlightState              flightState;
+  private final WallClock                wallClock;
+  private final TelemetryScheduler       telemetryScheduler;
+  private final Telemetry                telemetry;
+  private final TelemetryDeadband        deadband;
+  private final CommandScheduler         commandScheduler;
+  private final ValveStateSubsystem      valveState;
+  private final MetricsRegistry          metrics;
+  private final BlackBox                 blackBox;
+  private final FlightComputer           flightComputer;
+
+  private final EnumMap<FlightMode, Double> modeTimes;
+
+  private double     accelerometerNoise;
+  private double     gyroscopeNoise;
+  private double     pressureNoise;
+  private double     tickJitter;
+  private double     nextTick;
+  private double     nextBarometer;
+  private double     nextGPS;
+  private boolean    burning;
+  private FlightMode lastMode;
+  private long       ticks;
+
+  /**
+   * Create a new simulation of the rocket sitting on the pad
+   *
+   * @param parameters the rocket to fly
+   * @param seed       the seed of the sensor noise
+   */
+  public FlightSimulator(RocketParameters parameters, long seed) {
+    this.parameters         = parameters;
+    this.dynamics           = new RocketDynamics(parameters);
+    this.time               = new ReplayTime(0);
+    this.imuDevice          = new SimulatedLSM9DS1();
+    this.barometerDevice    = new SimulatedLPS22HD();
+    this.uartDevice         = new SimulatedMAX14830();
+    this.gps                = new SimulatedGPS(parameters.getLaunchLatitude(), parameters.getLaunchLongitude(), 0);
+    this.random             = new Random(seed);
+    this.specificForce      = new MutableVector3();
+    this.angularRate        = new MutableVector3();
+    this.modeTimes          = new EnumMap<>(FlightMode.class);
+    this.accelerometerNoise = Settings.SIM_ACCELEROMETER_NOISE;
+    this.gyroscopeNoise     = Settings.SIM_GYROSCOPE_NOISE;
+    this.pressureNoise      = Settings.SIM_PRESSURE_NOISE;
+
+    TickTime tickTime = new TickTime(this.time);
+    this.router          = new PacketRouter();
+    this.imu             = new LSM9DS1(this.imuDevice);
+    this.barometer       = new LPS22HD(this.barometerDevice, tickTime);
+    this.uart            = new MAX14830(this.uartDevice, null, tickTime);
+    this.i2cBus          = new BusExecutor("i2c", BUS_QUEUE_LENGTH);
+    this.spiBus          = new BusExecutor("spi", BUS_QUEUE_LENGTH);
+    this.imuPoll         = new PollTransaction(this.imu, BusPriority.IMU);
+    this.barometerPoll   = new PollTransaction(this.barometer, BusPriority.BAROMETER);
+    this.uartPoll        = new PollTransaction(this.uart, BusPriority.SERIAL);
+    this.stateEstimation = new StateEstimationSubsystem(this.imu, this.barometer, tickTime);
+    this.flightState     = new FlightState();
+    this.wallClock       = new WallClock(tickTime);
+    this.parachutes      = new ParachuteSubsystem(new SimulatedSolenoid(this.dynamics::deployMain),
+        new SimulatedSolenoid(this.dynamics::deployDrogue), tickTime, this.barometer);
+    this.lastMode        = this.flightState.getFlightMode();
+    this.modeTimes.put(this.lastMode, 0.0);
+
+    this.configureIMU();
+    this.barometer.init();
+    this.uart.getPort(GPS_PORT).registerListener(new GPSTransceiver(this.router, this.uart.getStatistics(GPS_PORT)));
+    this.router.addListener(this.stateEstimation, GPSPacket.class, PacketSources.GPS);
+    this.router.addListener(this.wallClock, GPSPacket.class, PacketSources.GPS);
+    this.stateEstimation.addVelocityListener(this.flightState);
+    this.stateEstimation.addPositionListener(this.parachutes);
+    this.parachutes.addParachuteListener(this.flightState);
+
+    this.telemetryScheduler = new TelemetryScheduler(this.router, tickTime);
+    this.telemetry          = new Telemetry(Logger.getLogger(FlightSimulator.class.getName()),
+        this.telemetryScheduler);
+    this.deadband           = new TelemetryDeadband(tickTime);
+    this.telemetry.setDeadband(this.deadband);
+    this.commandScheduler   = new CommandScheduler();
+    this.valveState         = new ValveStateSubsystem(this.router);
+    this.router.addListener(this.valveState, SCMPacket.class, PacketSources.EngineControllerUnit);
+    this.metrics            = new MetricsRegistry();
+    this.blackBox           = new BlackBox(Settings.BLACK_BOX_CAPACITY, tickTime.getSource());
+    this.commandScheduler.scheduleCommand(new HeartbeatCommand(tickTime, this.telemetry));
+    this.imu.setTelemetry(this.telemetry);
+    this.barometer.setTelemetry(this.telemetry);
+    this.uart.setTelemetry(this.telemetry);
+
+    this.flightComputer = new FlightComputer(this.telemetry, tickTime);
+    this.flightComputer.setBlackBox(this.blackBox);
+    this.router.setBlackBox(this.blackBox);
+    this.commandScheduler.setBlackBox(this.blackBox);
+    this.flightComputer.registerSubsystem(this::pollSensors);
+    this.flightComputer.registerSubsystem(this.stateEstimation);
+    this.flightComputer.registerSubsystem(this::updateFlightMode);
+    this.flightComputer.registerSubsystem(this.parachutes);
+    this.flightComputer.registerSubsystem(this.commandScheduler::tick);
+    ErrorReportingSubsystem errorReporting = new ErrorReportingSubsystem(this.telemetry, tickTime);
+    LinkStatisticsSubsystem linkStatistics = new LinkStatisticsSubsystem(this.telemetry, tickTime);
+    linkStatistics.addLink(this.uart.getStatistics(GPS_PORT));
+    this.router.addListener(errorReporting, SCMPacket.class, PacketSources.CommandBox);
+    this.router.addListener(linkStatistics, SCMPacket.class, PacketSources.CommandBox);
+    this.flightComputer.registerSubsystem(errorReporting);
+    this.flightComputer.registerSubsystem(linkStatistics);
+    this.flightComputer.registerSubsystem(new MetricsSubsystem(this.metrics, this.telemetry, tickTime));
+    this.flightComputer.registerSubsystem(this.telemetryScheduler);
+
+    this.flightComputer.registerMetrics(this.metrics);
+    this.router.registerMetrics(this.metrics);
+    this.telemetryScheduler.registerMetrics(this.metrics);
+    this.imu.registerMetrics(this.metrics);
+    this.barometer.registerMetrics(this.metrics);
+    this.uart.registerMetrics(this.metrics, "max14830");
+    this.metrics.register("errors", this.telemetry.getErrorCounts());
+
+    this.nextTick      = Settings.SIM_TICK_PERIOD;
+    this.nextBarometer = 0;
+    this.nextGPS       = 0;
+  }
+
+  /**
+   * Polls every driver through the executor of its bus. A failed poll does not
+   * stop the other polls, once all of them ran it is thrown so the flight
+   * computer reports it like any failing subsystem.
+   */
+  private void pollSensors() {
+    this.i2cBus.submit(this.imuPoll);
+    this.i2cBus.submit(this.barometerPoll);
+    this.spiBus.submit(this.uartPoll);
+    this.i2cBus.runPending();
+    this.spiBus.runPending();
+    throwIfFailed(this.imuPoll);
+    throwIfFailed(this.barometerPoll);
+    throwIfFailed(this.uartPoll);
+  }
+
+  private static void throwIfFailed(PollTransaction poll) {
+    if (poll.getError() != null) {
+      throw new IllegalStateException("Sensor poll failed", poll.getError());
+    }
+  }
+
+  /**
+   * Puts the IMU into continuous FIFO mode at 952 Hz as the flight software
+   * would
+   */
+  private void configureIMU() {
+    try {
+      this.imu.setODR(LSM9DS1.ODR.ODR_952);
+      this.imu.setFIFOEnabled(true);
+      this.imu.setFIFOMode(LSM9DS1.FIFOMode.CONTINUOUS);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Sets the standard deviation of the sensor noise, by default the
+   * simulation settings are used
+   *
+   * @param accelerometer the accelerometer noise in m/s^2
+   * @param gyroscope     the gyroscope noise in rad/s
+   * @param pressure      the barometer noise in hPa
+   */
+  public void setNoise(double accelerometer, double gyroscope, double pressure) {
+    this.accelerometerNoise = accelerometer;
+    this.gyroscopeNoise     = gyroscope;
+    this.pressureNoise      = pressure;
+  }
+
+  /**
+   * Sets the standard deviation of the time between ticks of the flight
+   * computer, by default it is ticked exactly every
+   * {@link Settings#SIM_TICK_PERIOD}. Ticks are never closer than one IMU
+   * sample.
+   *
+   * @param jitter the standard deviation of the tick period in s
+   */
+  public void setTickJitter(double jitter) {
+    this.tickJitter = jitter;
+  }
+
+  /**
+   * Flies until the rocket has been on the ground for
+   * {@link Settings#SIM_LANDED_TIME} or {@link Settings#SIM_MAX_TIME} has
+   * passed, as fast as possible.
+   *
+   * @return what happened during the flight
+   */
+  public SimulationResult run() {
+    while (this.dynamics.getTime() < Settings.SIM_MAX_TIME && !this.isFinished()) {
+      this.step();
+    }
+    return this.getResult();
+  }
+
+  private boolean isFinished() {
+    double landingTime = this.dynamics.getLandingTime();
+    return this.dynamics.getTime() >= landingTime + Settings.SIM_LANDED_TIME;
+  }
+
+  /**
+   * Advances the simulation by one IMU sample period, ticking the flight
+   * computer when it is due.
+   */
+  public void step() {
+    this.updateEngine();
+    this.dynamics.step(Settings.IMU_SAMPLE_PERIOD);
+    double now = this.dynamics.getTime();
+
+    this.specificForce.set(this.dynamics.getSpecificForce()).add(this.noise(this.accelerometerNoise),
+        this.noise(this.accelerometerNoise), this.noise(this.accelerometerNoise));
+    this.angularRate.set(this.dynamics.getAngularRate()).add(this.noise(this.gyroscopeNoise),
+        this.noise(this.gyroscopeNoise), this.noise(this.gyroscopeNoise));
+    this.imuDevice.addSample(this.specificForce, this.angularRate);
+
+    if (now >= this.nextBarometer) {
+      double pressure = Atmosphere.getPressure(this.dynamics.getAltitude()) + this.noise(this.pressureNoise);
+      this.barometerDevice.setPressure(pressure);
+      this.nextBarometer += Settings.SIM_BAROMETER_PERIOD;
+    }
+    if (now >= this.nextGPS) {
+      this.uartDevice.receive(GPS_PORT, this.gps.getSentence(now, this.dynamics.getPosition()));
+      this.nextGPS += Settings.SIM_GPS_PERIOD;
+    }
+    if (now >= this.nextTick) {
+      this.time.setTime(now);
+      this.flightComputer.tick();
+      this.ticks++;
+      double period = Settings.SIM_TICK_PERIOD + this.noise(this.tickJitter);
+      this.nextTick += Math.max(Settings.IMU_SAMPLE_PERIOD, period);
+    }
+  }
+
+  /**
+   * Ignites the motor at {@link Settings#SIM_IGNITION_TIME} and tells the
+   * flight state about ignition and burnout in place of the engine controller
+   */
+  private void updateEngine() {
+    double now = this.dynamics.getTime();
+    if (Double.isNaN(this.dynamics.getIgnitionTime())) {
+      if (now >= Settings.SIM_IGNITION_TIME) {
+        this.dynamics.ignite();
+        this.flightState.onEngineActivation();
+        this.burning = true;
+      }
+    } else if (this.burning && now >= this.dynamics.getBurnoutTime()) {
+      this.flightState.onEngineShutdown();
+      this.burning = false;
+    }
+  }
+
+  /**
+   * The flight state does not emit mode changes, so they are detected every
+   * tick and passed on to the parachutes and the telemetry deadband.
+   */
+  private void updateFlightMode() {
+    FlightMode mode = this.flightState.getFlightMode();
+    if (mode == this.lastMode) {
+      return;
+    }
+    this.lastMode = mode;
+    this.modeTimes.putIfAbsent(mode, this.time.getSystemTime());
+    this.parachutes.onFlightModeChange(mode);
+    this.deadband.onFlightModeChange(mode);
+  }
+
+  private double noise(double deviation) {
+    if (deviation <= 0) {
+      return 0;
+    }
+    return this.random.nextGaussian() * deviation;
+  }
+
+  /**
+   * @return what has happened so far
+   */
+  public SimulationResult getResult() {
+    return new SimulationResult(this.dynamics, this.modeTimes, this.flightState.getFlightMode(), this.ticks);
+  }
+
+  /**
+   * @return the simulated rocket
+   */
+  public RocketDynamics getDynamics() {
+    return this.dynamics;
+  }
+
+  /**
+   * @return the rocket being flown
+   */
+  public RocketParameters getParameters() {
+    return this.parameters;
+  }
+
+  /**
+   * @return the router of the simulated flight computer
+   */
+  public PacketRouter getRouter() {
+    return this.router;
+  }
+
+  /**
+   * @return the state estimation of the simulated flight computer
+   */
+  public StateEstimationSubsystem getStateEstimation() {
+    return this.stateEstimation;
+  }
+
+  /**
+   * @return the flight state of the simulated flight computer
+   */
+  public FlightState getFlightState() {
+    return this.flightState;
+  }
+
+  /**
+   * @return the wall clock of the simulated flight computer, disciplined by
+   *         the simulated GPS
+   */
+  public WallClock getWallClock() {
+    return this.wallClock;
+  }
+
+  /**
+   * @return the telemetry of the simulated flight computer
+   */
+  public Telemetry getTelemetry() {
+    return this.telemetry;
+  }
+
+  /**
+   * @return the command scheduler of the simulated flight computer
+   */
+  public CommandScheduler getCommandScheduler() {
+    return this.commandScheduler;
+  }
+
+  /**
+   * @return the metrics of the simulated flight computer
+   */
+  public MetricsRegistry getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * @return the black box of the simulated flight computer, it is never
+   *         dumped to disk unless a dump directory is set
+   */
+  public BlackBox getBlackBox() {
+    return this.blackBox;
+  }
+
+  /**
+   * @return the executor of the I2C bus the IMU and barometer are polled on
+   */
+  public BusExecutor getI2CBus() {
+    return this.i2cBus;
+  }
+
+  /**
+   * @return the valve state of the simulated flight computer
+   */
+  public ValveStateSubsystem getValveState() {
+    return this.valveState;
+  }
+}
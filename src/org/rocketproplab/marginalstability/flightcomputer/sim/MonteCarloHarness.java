@@ -0,0 +1,155 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleConsumer;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+
+/**
+ * Flies many perturbed scenarios of a rocket across all cores and aggregates
+ * how the flight computer did. Every scenario is a separate
+ * {@link FlightSimulator} with its own flight computer, so scenarios share no
+ * state and can run on any thread.
+ *
+ * The scenarios are split in half recursively on a fork join pool and the
+ * halves are merged in order, so the result only depends on the seed and not
+ * on the number of threads or how the work was scheduled.
+ *
+ * The flight software reads the static {@link Settings}, so they must not be
+ * changed while a run is in progress. To compare settings use
+ * {@link #sweep(int, DoubleConsumer, double...)} which flies the values one
+ * after another.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class MonteCarloHarness {
+
+  private static final long SEED_SPACING = 0x9E3779B97F4A7C15L;
+
+  private final RocketParameters   nominal;
+  private final ScenarioDispersion dispersion;
+  private final long               seed;
+  private final ForkJoinPool       pool;
+
+  /**
+   * Create a new harness running on the common fork join pool
+   *
+   * @param nominal    the rocket without any perturbation
+   * @param dispersion how much the scenarios differ from the nominal rocket
+   * @param seed       the seed of the first scenario
+   */
+  public MonteCarloHarness(RocketParameters nominal, ScenarioDispersion dispersion, long seed) {
+    this(nominal, dispersion, seed, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create a new harness
+   *
+   * @param nominal    the rocket without any perturbation
+   * @param dispersion how much the scenarios differ from the nominal rocket
+   * @param seed       the seed of the first scenario
+   * @param pool       the pool to fly the scenarios on
+   */
+  public MonteCarloHarness(RocketParameters nominal, ScenarioDispersion dispersion, long seed,
+      ForkJoinPool pool) {
+    this.nominal    = nominal;
+    this.dispersion = dispersion;
+    this.seed       = seed;
+    this.pool       = pool;
+  }
+
+  /**
+   * Flies the scenarios 0 until count and waits for all of them
+   *
+   * @param count the number of scenarios to fly
+   * @return the statistics of every scenario
+   */
+  public MonteCarloResult run(int count) {
+    return this.pool.invoke(new ScenarioTask(0, count));
+  }
+
+  /**
+   * Flies count scenarios for every value of a setting. The value is set
+   * before its scenarios are started and left at the last value, so the
+   * caller should restore the setting afterwards. Every value flies the same
+   * scenarios.
+   *
+   * @param count   the number of scenarios per value
+   * @param setting sets the setting, such as
+   *                {@code h -> Settings.MAIN_CHUTE_HEIGHT = h}
+   * @param values  the values to fly
+   * @return the result of every value in order
+   */
+  public Map<Double, MonteCarloResult> sweep(int count, DoubleConsumer setting, double... values) {
+    Map<Double, MonteCarloResult> results = new LinkedHashMap<>();
+    for (double value : values) {
+      setting.accept(value);
+      results.put(value, this.run(count));
+    }
+    return results;
+  }
+
+  /**
+   * Flies a single scenario on the calling thread
+   *
+   * @param index the number of the scenario
+   * @return what happened during the scenario
+   */
+  public SimulationResult runScenario(int index) {
+    return this.createScenario(index).run();
+  }
+
+  /**
+   * Creates the simulation of a scenario, the same index always creates the
+   * same scenario
+   *
+   * @param index the number of the scenario
+   * @return a new simulation of the scenario
+   */
+  public FlightSimulator createScenario(int index) {
+    return this.dispersion.createScenario(this.nominal, this.seed + index * SEED_SPACING);
+  }
+
+  /**
+   * Flies a range of scenarios, splitting it in half until a single scenario
+   * is left
+   */
+  private class ScenarioTask extends RecursiveTask<MonteCarloResult> {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    /**
+     * @param from the first scenario
+     * @param to   one past the last scenario
+     */
+    ScenarioTask(int from, int to) {
+      this.from = from;
+      this.to   = to;
+    }
+
+    @Override
+    protected MonteCarloResult compute() {
+      if (this.to - this.from <= 1) {
+        MonteCarloResult result = new MonteCarloResult();
+        if (this.to > this.from) {
+          result.add(runScenario(this.from));
+        }
+        return result;
+      }
+      int          middle = (this.from + this.to) >>> 1;
+      ScenarioTask first  = new ScenarioTask(this.from, middle);
+      ScenarioTask second = new ScenarioTask(middle, this.to);
+      first.fork();
+      MonteCarloResult secondResult = second.compute();
+      MonteCarloResult result       = first.join();
+      result.merge(secondResult);
+      return result;
+    }
+  }
+}
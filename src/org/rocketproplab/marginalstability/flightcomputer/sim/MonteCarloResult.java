@@ -0,0 +1,185 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.math.RunningStatistics;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+/**
+ * The statistics of many simulated flights. Scenarios where an event did not
+ * happen are counted as failures and left out of the statistics of that
+ * event. Results of separate batches of scenarios can be merged.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class MonteCarloResult {
+
+  private final RunningStatistics apogee;
+  private final RunningStatistics apogeeDetectionDelay;
+  private final RunningStatistics drogueAltitudeError;
+  private final RunningStatistics mainAltitudeError;
+  private final RunningStatistics landingSpeed;
+  private final RunningStatistics landingDetectionDelay;
+
+  private long scenarios;
+  private long missedApogees;
+  private long missedDrogues;
+  private long missedMains;
+  private long missedLandings;
+
+  /**
+   * Create a new result without any scenarios
+   */
+  public MonteCarloResult() {
+    this.apogee                = new RunningStatistics();
+    this.apogeeDetectionDelay  = new RunningStatistics();
+    this.drogueAltitudeError   = new RunningStatistics();
+    this.mainAltitudeError     = new RunningStatistics();
+    this.landingSpeed          = new RunningStatistics();
+    this.landingDetectionDelay = new RunningStatistics();
+  }
+
+  /**
+   * Adds a scenario, the main chute is compared against the current
+   * {@link Settings#MAIN_CHUTE_HEIGHT}
+   *
+   * @param result the result of the scenario
+   */
+  public void add(SimulationResult result) {
+    this.scenarios++;
+    this.apogee.add(result.getApogee());
+    this.apogeeDetectionDelay.add(result.getApogeeDetectionDelay());
+    this.landingSpeed.add(result.getLandingSpeed());
+
+    if (Double.isNaN(result.getModeTime(FlightMode.Apogee))) {
+      this.missedApogees++;
+    }
+    if (Double.isNaN(result.getDrogueTime())) {
+      this.missedDrogues++;
+    } else {
+      this.drogueAltitudeError.add(result.getDrogueAltitude() - result.getApogee());
+    }
+    if (Double.isNaN(result.getMainTime())) {
+      this.missedMains++;
+    } else {
+      this.mainAltitudeError.add(result.getMainAltitude() - Settings.MAIN_CHUTE_HEIGHT);
+    }
+    double landingDetection = result.getModeTime(FlightMode.Landed) - result.getLandingTime();
+    if (Double.isNaN(landingDetection)) {
+      this.missedLandings++;
+    } else {
+      this.landingDetectionDelay.add(landingDetection);
+    }
+  }
+
+  /**
+   * Adds all the scenarios of other to this result
+   *
+   * @param other the result to merge into this one
+   */
+  public void merge(MonteCarloResult other) {
+    this.apogee.merge(other.apogee);
+    this.apogeeDetectionDelay.merge(other.apogeeDetectionDelay);
+    this.drogueAltitudeError.merge(other.drogueAltitudeError);
+    this.mainAltitudeError.merge(other.mainAltitudeError);
+    this.landingSpeed.merge(other.landingSpeed);
+    this.landingDetectionDelay.merge(other.landingDetectionDelay);
+    this.scenarios      += other.scenarios;
+    this.missedApogees  += other.missedApogees;
+    this.missedDrogues  += other.missedDrogues;
+    this.missedMains    += other.missedMains;
+    this.missedLandings += other.missedLandings;
+  }
+
+  /**
+   * @return the number of scenarios flown
+   */
+  public long getScenarios() {
+    return scenarios;
+  }
+
+  /**
+   * @return the number of scenarios where the flight computer never detected
+   *         apogee
+   */
+  public long getMissedApogees() {
+    return missedApogees;
+  }
+
+  /**
+   * @return the number of scenarios where the drogue was never deployed
+   */
+  public long getMissedDrogues() {
+    return missedDrogues;
+  }
+
+  /**
+   * @return the number of scenarios where the main chute was never deployed
+   */
+  public long getMissedMains() {
+    return missedMains;
+  }
+
+  /**
+   * @return the number of scenarios where the flight computer never detected
+   *         the landing
+   */
+  public long getMissedLandings() {
+    return missedLandings;
+  }
+
+  /**
+   * @return the true apogee in m
+   */
+  public RunningStatistics getApogee() {
+    return apogee;
+  }
+
+  /**
+   * @return the time from the true apogee until it was detected in s
+   */
+  public RunningStatistics getApogeeDetectionDelay() {
+    return apogeeDetectionDelay;
+  }
+
+  /**
+   * @return the altitude the drogue was deployed at relative to the true
+   *         apogee in m
+   */
+  public RunningStatistics getDrogueAltitudeError() {
+    return drogueAltitudeError;
+  }
+
+  /**
+   * @return how far from {@link Settings#MAIN_CHUTE_HEIGHT} the main chute was
+   *         deployed, negative below, in m
+   */
+  public RunningStatistics getMainAltitudeError() {
+    return mainAltitudeError;
+  }
+
+  /**
+   * @return the speed the rocket hit the ground with in m/s
+   */
+  public RunningStatistics getLandingSpeed() {
+    return landingSpeed;
+  }
+
+  /**
+   * @return the time from touchdown until the landing was detected in s
+   */
+  public RunningStatistics getLandingDetectionDelay() {
+    return landingDetectionDelay;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d scenarios%n  apogee %s m%n  apogee detection delay %s s, %d missed%n"
+            + "  drogue altitude error %s m, %d missed%n  main altitude error %s m, %d missed%n"
+            + "  landing speed %s m/s%n  landing detection delay %s s, %d missed",
+        this.scenarios, this.apogee, this.apogeeDetectionDelay, this.missedApogees, this.drogueAltitudeError,
+        this.missedDrogues, this.mainAltitudeError, this.missedMains, this.landingSpeed,
+        this.landingDetectionDelay, this.missedLandings);
+  }
+}
@@ -0,0 +1,448 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+import org.rocketproplab.marginalstability.flightcomputer.math.Quaternion;
+
+/**
+ * Six degree of freedom rigid body dynamics of a rocket. The translation is
+ * driven by gravity, the thrust along the rocket's z axis and the drag of the
+ * body and any open parachutes against the air, which moves with the wind.
+ * The rotation is driven by an aerodynamic moment turning the rocket into the
+ * relative wind and a damping moment.
+ *
+ * The rocket sits on the pad until the thrust along the rail exceeds its
+ * weight, is then guided by the rail without rotating and flies freely until
+ * it reaches the ground again. The world frame is x east, y north and z up
+ * with z the altitude above sea level. The orientation rotates the rocket's
+ * body frame into the world frame.
+ *
+ * The state is integrated with a fixed step semi-implicit Euler method and
+ * updated in place so a step does not allocate.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class RocketDynamics {
+
+  private static final double MINIMUM_AIRSPEED = 1e-3; // m/s
+
+  /**
+   * The phases of the flight which constrain the motion differently
+   */
+  public enum Phase {
+    PAD, RAIL, FLIGHT, LANDED;
+  }
+
+  private final RocketParameters parameters;
+  private final MutableVector3   position;
+  private final MutableVector3   velocity;
+  private final MutableVector3   acceleration;
+  private final MutableVector3   angularRate;
+  private final MutableVector3   specificForce;
+  private final MutableVector3   railDirection;
+  private final MutableVector3   railStart;
+  private final MutableVector3   scratch;
+  private final Quaternion       orientation;
+  private final Quaternion       inverse;
+
+  private Phase  phase;
+  private double time;
+  private double ignitionTime   = Double.NaN;
+  private double drogueTime     = Double.NaN;
+  private double mainTime       = Double.NaN;
+  private double drogueAltitude = Double.NaN;
+  private double mainAltitude   = Double.NaN;
+  private double apogee         = Double.NEGATIVE_INFINITY;
+  private double apogeeTime     = Double.NaN;
+  private double maxSpeed;
+  private double landingTime    = Double.NaN;
+  private double landingSpeed   = Double.NaN;
+
+  /**
+   * Create a new rocket sitting on the pad at time 0
+   *
+   * @param parameters the description of the rocket
+   */
+  public RocketDynamics(RocketParameters parameters) {
+    this.parameters    = parameters;
+    this.position      = new MutableVector3(0, 0, parameters.getLaunchAltitude());
+    this.velocity      = new MutableVector3();
+    this.acceleration  = new MutableVector3();
+    this.angularRate   = new MutableVector3();
+    this.specificForce = new MutableVector3();
+    this.scratch       = new MutableVector3();
+    this.railStart     = new MutableVector3(this.position.getX(), this.position.getY(), this.position.getZ());
+    this.phase         = Phase.PAD;
+
+    double angle   = parameters.getLaunchAngle();
+    double azimuth = parameters.getLaunchAzimuth();
+    this.railDirection = new MutableVector3(Math.sin(angle) * Math.sin(azimuth),
+        Math.sin(angle) * Math.cos(azimuth), Math.cos(angle));
+    // Rotate +z onto the rail around the horizontal axis z x rail
+    double axisX    = -Math.cos(azimuth);
+    double axisY    = Math.sin(azimuth);
+    double halfSine = Math.sin(angle / 2);
+    this.orientation = new Quaternion(Math.cos(angle / 2), axisX * halfSine, axisY * halfSine, 0);
+    this.inverse     = new Quaternion();
+    this.updateSpecificForce();
+  }
+
+  /**
+   * Ignites the motor now, later calls are ignored
+   */
+  public void ignite() {
+    if (Double.isNaN(this.ignitionTime)) {
+      this.ignitionTime = this.time;
+    }
+  }
+
+  /**
+   * Starts deploying the drogue now, later calls are ignored
+   */
+  public void deployDrogue() {
+    if (Double.isNaN(this.drogueTime)) {
+      this.drogueTime     = this.time;
+      this.drogueAltitude = this.position.getZ();
+    }
+  }
+
+  /**
+   * Starts deploying the main chute now, later calls are ignored
+   */
+  public void deployMain() {
+    if (Double.isNaN(this.mainTime)) {
+      this.mainTime     = this.time;
+      this.mainAltitude = this.position.getZ();
+    }
+  }
+
+  /**
+   * Advances the state by one step
+   *
+   * @param dt the length of the step in s
+   */
+  public void step(double dt) {
+    double mass   = this.getMass();
+    double thrust = this.getThrust();
+
+    // Thrust along the body z axis
+    this.orientation.rotate(this.acceleration.set(0, 0, thrust / mass));
+
+    // Drag of the body and parachutes against the air moving with the wind
+    MutableVector3 air      = this.getAirVelocity(this.scratch);
+    double         airspeed = air.norm();
+    double         density  = Atmosphere.getDensity(this.position.getZ());
+    double         drag     = 0.5 * density * airspeed * this.getTotalDragArea() / mass;
+    this.acceleration.addScaled(air, -drag);
+    this.acceleration.add(0, 0, -Settings.GRAVITY);
+
+    switch (this.phase) {
+      case PAD:
+        if (this.acceleration.dot(this.railDirection) <= 0) {
+          this.acceleration.set(0, 0, 0);
+          break;
+        }
+        this.phase = Phase.RAIL;
+        this.constrainToRail();
+        break;
+      case RAIL:
+        this.constrainToRail();
+        break;
+      case FLIGHT:
+        this.rotate(airspeed, density, dt);
+        break;
+      default:
+        this.acceleration.set(0, 0, 0);
+        break;
+    }
+
+    this.velocity.addScaled(this.acceleration, dt);
+    this.position.addScaled(this.velocity, dt);
+    this.time += dt;
+
+    this.checkPhase();
+    this.updateSpecificForce();
+    this.updateStatistics();
+  }
+
+  /**
+   * Keeps only the acceleration along the rail, the rail can not pull the
+   * rocket back.
+   */
+  private void constrainToRail() {
+    double along = Math.max(0, this.acceleration.dot(this.railDirection));
+    this.acceleration.set(this.railDirection).scale(along);
+  }
+
+  /**
+   * Integrates the rotation from the aerodynamic moments
+   *
+   * @param airspeed the speed relative to the air
+   * @param density  the density of the air
+   * @param dt       the length of the step
+   */
+  private void rotate(double airspeed, double density, double dt) {
+    double torqueX = 0;
+    double torqueY = 0;
+    if (airspeed > MINIMUM_AIRSPEED) {
+      // The relative wind in the body frame, the moment turns z towards it
+      MutableVector3 air = this.getAirVelocity(this.scratch);
+      this.inverse.set(this.orientation).conjugate().rotate(air).scale(1 / airspeed);
+      double dynamicPressure = 0.5 * density * airspeed * airspeed;
+      double restoring       = this.parameters.getRestoringCoefficient() * dynamicPressure;
+      double damping         = this.parameters.getDampingCoefficient() * density * airspeed;
+      torqueX = -restoring * air.getY() - damping * this.angularRate.getX();
+      torqueY = restoring * air.getX() - damping * this.angularRate.getY();
+    }
+
+    double pitch = this.parameters.getPitchInertia();
+    double roll  = this.parameters.getRollInertia();
+    double wx    = this.angularRate.getX();
+    double wy    = this.angularRate.getY();
+    double wz    = this.angularRate.getZ();
+    // Euler's equations for an axially symmetric body
+    wx += (torqueX - (roll - pitch) * wy * wz) / pitch * dt;
+    wy += (torqueY - (pitch - roll) * wz * wx) / pitch * dt;
+    this.angularRate.set(wx, wy, wz);
+
+    double q0 = this.orientation.getW();
+    double q1 = this.orientation.getX();
+    double q2 = this.orientation.getY();
+    double q3 = this.orientation.getZ();
+    this.orientation.set(q0 + 0.5 * (-q1 * wx - q2 * wy - q3 * wz) * dt,
+        q1 + 0.5 * (q0 * wx + q2 * wz - q3 * wy) * dt,
+        q2 + 0.5 * (q0 * wy - q1 * wz + q3 * wx) * dt,
+        q3 + 0.5 * (q0 * wz + q1 * wy - q2 * wx) * dt);
+    this.orientation.normalize();
+  }
+
+  /**
+   * Moves from the rail to free flight and from free flight to landed
+   */
+  private void checkPhase() {
+    if (this.phase == Phase.RAIL) {
+      this.scratch.set(this.position).subtract(this.railStart);
+      if (this.scratch.dot(this.railDirection) >= this.parameters.getRailLength()) {
+        this.phase = Phase.FLIGHT;
+      }
+    } else if (this.phase == Phase.FLIGHT && this.position.getZ() <= this.parameters.getLaunchAltitude()
+        && this.velocity.getZ() < 0) {
+      this.phase        = Phase.LANDED;
+      this.landingTime  = this.time;
+      this.landingSpeed = this.velocity.norm();
+      this.position.set(this.position.getX(), this.position.getY(), this.parameters.getLaunchAltitude());
+      this.velocity.set(0, 0, 0);
+      this.acceleration.set(0, 0, 0);
+      this.angularRate.set(0, 0, 0);
+    }
+  }
+
+  /**
+   * Sets the specific force, what an accelerometer measures, to the
+   * acceleration without gravity in the body frame.
+   */
+  private void updateSpecificForce() {
+    this.specificForce.set(this.acceleration).add(0, 0, Settings.GRAVITY);
+    this.inverse.set(this.orientation).conjugate().rotate(this.specificForce);
+  }
+
+  private void updateStatistics() {
+    if (this.position.getZ() > this.apogee) {
+      this.apogee     = this.position.getZ();
+      this.apogeeTime = this.time;
+    }
+    this.maxSpeed = Math.max(this.maxSpeed, this.velocity.norm());
+  }
+
+  /**
+   * Gets the velocity relative to the air
+   *
+   * @param out the vector to write the velocity to
+   * @return out
+   */
+  private MutableVector3 getAirVelocity(MutableVector3 out) {
+    return out.set(this.velocity).add(-this.parameters.getWindEast(), -this.parameters.getWindNorth(), 0);
+  }
+
+  /**
+   * @return the drag area of the body and the parachutes as they inflate
+   */
+  private double getTotalDragArea() {
+    return this.parameters.getDragArea()
+        + this.getInflation(this.drogueTime) * this.parameters.getDrogueDragArea()
+        + this.getInflation(this.mainTime) * this.parameters.getMainDragArea();
+  }
+
+  /**
+   * Gets how far a parachute has inflated
+   *
+   * @param deployTime the time the parachute was deployed or NaN
+   * @return the fraction of the full drag area
+   */
+  private double getInflation(double deployTime) {
+    if (Double.isNaN(deployTime)) {
+      return 0;
+    }
+    double inflationTime = this.parameters.getParachuteInflationTime();
+    if (inflationTime <= 0) {
+      return 1;
+    }
+    return Math.min(1, (this.time - deployTime) / inflationTime);
+  }
+
+  /**
+   * @return the current thrust of the motor in N
+   */
+  public double getThrust() {
+    if (Double.isNaN(this.ignitionTime)) {
+      return 0;
+    }
+    return this.parameters.getThrustCurve().getThrust(this.time - this.ignitionTime);
+  }
+
+  /**
+   * @return the current mass, propellant burns in proportion to the impulse
+   */
+  public double getMass() {
+    double burnt = 0;
+    if (!Double.isNaN(this.ignitionTime)) {
+      ThrustCurve curve = this.parameters.getThrustCurve();
+      burnt = curve.getImpulse(this.time - this.ignitionTime) / curve.getTotalImpulse();
+    }
+    return this.parameters.getDryMass() + this.parameters.getPropellantMass() * (1 - burnt);
+  }
+
+  /**
+   * @return the time since the simulation started in s
+   */
+  public double getTime() {
+    return this.time;
+  }
+
+  /**
+   * @return the current phase of the flight
+   */
+  public Phase getPhase() {
+    return this.phase;
+  }
+
+  /**
+   * @return the position in m, updated in place
+   */
+  public MutableVector3 getPosition() {
+    return this.position;
+  }
+
+  /**
+   * @return the velocity in m/s, updated in place
+   */
+  public MutableVector3 getVelocity() {
+    return this.velocity;
+  }
+
+  /**
+   * @return the rotation rate in the body frame in rad/s, updated in place
+   */
+  public MutableVector3 getAngularRate() {
+    return this.angularRate;
+  }
+
+  /**
+   * @return the specific force in the body frame in m/s^2, updated in place
+   */
+  public MutableVector3 getSpecificForce() {
+    return this.specificForce;
+  }
+
+  /**
+   * @return the rotation from the body to the world frame, updated in place
+   */
+  public Quaternion getOrientation() {
+    return this.orientation;
+  }
+
+  /**
+   * @return the altitude above sea level in m
+   */
+  public double getAltitude() {
+    return this.position.getZ();
+  }
+
+  /**
+   * @return the time the motor was ignited or NaN
+   */
+  public double getIgnitionTime() {
+    return this.ignitionTime;
+  }
+
+  /**
+   * @return the time the motor burnt out or NaN if it was not ignited
+   */
+  public double getBurnoutTime() {
+    return this.ignitionTime + this.parameters.getThrustCurve().getBurnTime();
+  }
+
+  /**
+   * @return the time the drogue was deployed or NaN
+   */
+  public double getDrogueTime() {
+    return this.drogueTime;
+  }
+
+  /**
+   * @return the time the main chute was deployed or NaN
+   */
+  public double getMainTime() {
+    return this.mainTime;
+  }
+
+  /**
+   * @return the altitude the drogue was deployed at or NaN
+   */
+  public double getDrogueAltitude() {
+    return this.drogueAltitude;
+  }
+
+  /**
+   * @return the altitude the main chute was deployed at or NaN
+   */
+  public double getMainAltitude() {
+    return this.mainAltitude;
+  }
+
+  /**
+   * @return the highest altitude reached in m
+   */
+  public double getApogee() {
+    return this.apogee;
+  }
+
+  /**
+   * @return the time the highest altitude was reached
+   */
+  public double getApogeeTime() {
+    return this.apogeeTime;
+  }
+
+  /**
+   * @return the highest speed reached in m/s
+   */
+  public double getMaxSpeed() {
+    return this.maxSpeed;
+  }
+
+  /**
+   * @return the time the rocket landed or NaN
+   */
+  public double getLandingTime() {
+    return this.landingTime;
+  }
+
+  /**
+   * @return the speed the rocket hit the ground with or NaN
+   */
+  public double getLandingSpeed() {
+    return this.landingSpeed;
+  }
+}
@@ -0,0 +1,359 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+/**
+ * The physical description of a simulated rocket and the conditions it is
+ * launched in. The defaults describe a small rocket that stays inside the
+ * range of the barometer and, apart from a moment at burnout, the
+ * accelerometer.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class RocketParameters {
+
+  private ThrustCurve thrustCurve;
+  private double      dryMass;
+  private double      propellantMass;
+  private double      dragArea;
+  private double      drogueDragArea;
+  private double      mainDragArea;
+  private double      parachuteInflationTime;
+  private double      pitchInertia;
+  private double      rollInertia;
+  private double      restoringCoefficient;
+  private double      dampingCoefficient;
+  private double      railLength;
+  private double      launchAngle;
+  private double      launchAzimuth;
+  private double      launchAltitude;
+  private double      launchLatitude;
+  private double      launchLongitude;
+  private double      windEast;
+  private double      windNorth;
+
+  /**
+   * Create the default rocket
+   */
+  public RocketParameters() {
+    this.thrustCurve            = new ThrustCurve(new double[] { 0, 0.2, 14.8, 15 },
+        new double[] { 0, 380, 380, 0 });
+    this.dryMass                = 20; // kg
+    this.propellantMass         = 3; // kg
+    this.dragArea               = 0.004; // m^2
+    this.drogueDragArea         = 0.3; // m^2
+    this.mainDragArea           = 4; // m^2
+    this.parachuteInflationTime = 1; // s
+    this.pitchInertia           = 5; // kg m^2
+    this.rollInertia            = 0.05; // kg m^2
+    this.restoringCoefficient   = 0.003; // m^3
+    this.dampingCoefficient     = 0.05; // m^4
+    this.railLength             = 6; // m
+    this.launchAngle            = Math.toRadians(2); // rad
+    this.launchAzimuth          = 0; // rad
+    this.launchAltitude         = 0; // m
+    this.launchLatitude         = 35.35; // deg
+    this.launchLongitude        = -117.81; // deg
+    this.windEast               = 0; // m/s
+    this.windNorth              = 0; // m/s
+  }
+
+  /**
+   * Create a copy of the parameters, the thrust curve is immutable and shared
+   *
+   * @param other the parameters to copy
+   */
+  public RocketParameters(RocketParameters other) {
+    this.thrustCurve            = other.thrustCurve;
+    this.dryMass                = other.dryMass;
+    this.propellantMass         = other.propellantMass;
+    this.dragArea               = other.dragArea;
+    this.drogueDragArea         = other.drogueDragArea;
+    this.mainDragArea           = other.mainDragArea;
+    this.parachuteInflationTime = other.parachuteInflationTime;
+    this.pitchInertia           = other.pitchInertia;
+    this.rollInertia            = other.rollInertia;
+    this.restoringCoefficient   = other.restoringCoefficient;
+    this.dampingCoefficient     = other.dampingCoefficient;
+    this.railLength             = other.railLength;
+    this.launchAngle            = other.launchAngle;
+    this.launchAzimuth          = other.launchAzimuth;
+    this.launchAltitude         = other.launchAltitude;
+    this.launchLatitude         = other.launchLatitude;
+    this.launchLongitude        = other.launchLongitude;
+    this.windEast               = other.windEast;
+    this.windNorth              = other.windNorth;
+  }
+
+  /**
+   * @return the thrust of the motor over time
+   */
+  public ThrustCurve getThrustCurve() {
+    return thrustCurve;
+  }
+
+  /**
+   * @param thrustCurve the thrust of the motor over time
+   */
+  public void setThrustCurve(ThrustCurve thrustCurve) {
+    this.thrustCurve = thrustCurve;
+  }
+
+  /**
+   * @return the mass without propellant in kg
+   */
+  public double getDryMass() {
+    return dryMass;
+  }
+
+  /**
+   * @param dryMass the mass without propellant in kg
+   */
+  public void setDryMass(double dryMass) {
+    this.dryMass = dryMass;
+  }
+
+  /**
+   * @return the propellant burnt over the thrust curve in kg
+   */
+  public double getPropellantMass() {
+    return propellantMass;
+  }
+
+  /**
+   * @param propellantMass the propellant burnt over the thrust curve in kg
+   */
+  public void setPropellantMass(double propellantMass) {
+    this.propellantMass = propellantMass;
+  }
+
+  /**
+   * @return the drag coefficient times the reference area of the body in m^2
+   */
+  public double getDragArea() {
+    return dragArea;
+  }
+
+  /**
+   * @param dragArea the drag coefficient times the reference area of the body
+   *                 in m^2
+   */
+  public void setDragArea(double dragArea) {
+    this.dragArea = dragArea;
+  }
+
+  /**
+   * @return the drag coefficient times the area of the drogue in m^2
+   */
+  public double getDrogueDragArea() {
+    return drogueDragArea;
+  }
+
+  /**
+   * @param drogueDragArea the drag coefficient times the area of the drogue in
+   *                       m^2
+   */
+  public void setDrogueDragArea(double drogueDragArea) {
+    this.drogueDragArea = drogueDragArea;
+  }
+
+  /**
+   * @return the drag coefficient times the area of the main chute in m^2
+   */
+  public double getMainDragArea() {
+    return mainDragArea;
+  }
+
+  /**
+   * @param mainDragArea the drag coefficient times the area of the main chute
+   *                     in m^2
+   */
+  public void setMainDragArea(double mainDragArea) {
+    this.mainDragArea = mainDragArea;
+  }
+
+  /**
+   * @return the time from deployment until a parachute is fully open in s
+   */
+  public double getParachuteInflationTime() {
+    return parachuteInflationTime;
+  }
+
+  /**
+   * @param parachuteInflationTime the time from deployment until a parachute
+   *                               is fully open in s
+   */
+  public void setParachuteInflationTime(double parachuteInflationTime) {
+    this.parachuteInflationTime = parachuteInflationTime;
+  }
+
+  /**
+   * @return the moment of inertia around the x and y axes in kg m^2
+   */
+  public double getPitchInertia() {
+    return pitchInertia;
+  }
+
+  /**
+   * @param pitchInertia the moment of inertia around the x and y axes in kg
+   *                     m^2
+   */
+  public void setPitchInertia(double pitchInertia) {
+    this.pitchInertia = pitchInertia;
+  }
+
+  /**
+   * @return the moment of inertia around the long axis in kg m^2
+   */
+  public double getRollInertia() {
+    return rollInertia;
+  }
+
+  /**
+   * @param rollInertia the moment of inertia around the long axis in kg m^2
+   */
+  public void setRollInertia(double rollInertia) {
+    this.rollInertia = rollInertia;
+  }
+
+  /**
+   * @return the aerodynamic restoring moment per dynamic pressure and radian of
+   *         angle of attack in m^3
+   */
+  public double getRestoringCoefficient() {
+    return restoringCoefficient;
+  }
+
+  /**
+   * @param restoringCoefficient the aerodynamic restoring moment per dynamic
+   *                             pressure and radian of angle of attack in m^3
+   */
+  public void setRestoringCoefficient(double restoringCoefficient) {
+    this.restoringCoefficient = restoringCoefficient;
+  }
+
+  /**
+   * @return the damping moment per air density, airspeed and rotation rate in
+   *         m^4
+   */
+  public double getDampingCoefficient() {
+    return dampingCoefficient;
+  }
+
+  /**
+   * @param dampingCoefficient the damping moment per air density, airspeed and
+   *                           rotation rate in m^4
+   */
+  public void setDampingCoefficient(double dampingCoefficient) {
+    this.dampingCoefficient = dampingCoefficient;
+  }
+
+  /**
+   * @return the distance the rocket is guided by the rail in m
+   */
+  public double getRailLength() {
+    return railLength;
+  }
+
+  /**
+   * @param railLength the distance the rocket is guided by the rail in m
+   */
+  public void setRailLength(double railLength) {
+    this.railLength = railLength;
+  }
+
+  /**
+   * @return the angle of the rail from vertical in rad
+   */
+  public double getLaunchAngle() {
+    return launchAngle;
+  }
+
+  /**
+   * @param launchAngle the angle of the rail from vertical in rad
+   */
+  public void setLaunchAngle(double launchAngle) {
+    this.launchAngle = launchAngle;
+  }
+
+  /**
+   * @return the direction the rail leans towards in rad clockwise from north
+   */
+  public double getLaunchAzimuth() {
+    return launchAzimuth;
+  }
+
+  /**
+   * @param launchAzimuth the direction the rail leans towards in rad clockwise
+   *                      from north
+   */
+  public void setLaunchAzimuth(double launchAzimuth) {
+    this.launchAzimuth = launchAzimuth;
+  }
+
+  /**
+   * @return the altitude of the pad above sea level in m
+   */
+  public double getLaunchAltitude() {
+    return launchAltitude;
+  }
+
+  /**
+   * @param launchAltitude the altitude of the pad above sea level in m
+   */
+  public void setLaunchAltitude(double launchAltitude) {
+    this.launchAltitude = launchAltitude;
+  }
+
+  /**
+   * @return the latitude of the pad in degrees
+   */
+  public double getLaunchLatitude() {
+    return launchLatitude;
+  }
+
+  /**
+   * @param launchLatitude the latitude of the pad in degrees
+   */
+  public void setLaunchLatitude(double launchLatitude) {
+    this.launchLatitude = launchLatitude;
+  }
+
+  /**
+   * @return the longitude of the pad in degrees
+   */
+  public double getLaunchLongitude() {
+    return launchLongitude;
+  }
+
+  /**
+   * @param launchLongitude the longitude of the pad in degrees
+   */
+  public void setLaunchLongitude(double launchLongitude) {
+    this.launchLongitude = launchLongitude;
+  }
+
+  /**
+   * @return the wind blowing towards the east in m/s
+   */
+  public double getWindEast() {
+    return windEast;
+  }
+
+  /**
+   * @return the wind blowing towards the north in m/s
+   */
+  public double getWindNorth() {
+    return windNorth;
+  }
+
+  /**
+   * Sets the constant wind
+   *
+   * @param windEast  the wind blowing towards the east in m/s
+   * @param windNorth the wind blowing towards the north in m/s
+   */
+  public void setWind(double windEast, double windNorth) {
+    this.windEast  = windEast;
+    this.windNorth = windNorth;
+  }
+}
@@ -0,0 +1,193 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.util.Random;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+
+/**
+ * How much the scenarios of a Monte-Carlo run differ from the nominal flight.
+ * Every value is the standard deviation of a normally distributed
+ * perturbation, a deviation of zero leaves that part of the flight nominal.
+ * Relative deviations are fractions of the nominal value, so 0.05 is 5%.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class ScenarioDispersion {
+
+  private double windSpeed;
+  private double launchAngle;
+  private double thrust;
+  private double dryMass;
+  private double dragArea;
+  private double sensorNoise;
+  private double tickJitter;
+
+  /**
+   * Create a new dispersion with typical day to day variations
+   */
+  public ScenarioDispersion() {
+    this.windSpeed   = 3; // m/s
+    this.launchAngle = Math.toRadians(1); // rad
+    this.thrust      = 0.03;
+    this.dryMass     = 0.02;
+    this.dragArea    = 0.05;
+    this.sensorNoise = 0.5;
+    this.tickJitter  = 0.002; // s
+  }
+
+  /**
+   * Creates the simulation of one scenario. The same nominal rocket and seed
+   * always create the same scenario.
+   *
+   * @param nominal the rocket without any perturbation, not modified
+   * @param seed    the seed of the scenario
+   * @return a new simulation of the perturbed rocket
+   */
+  public FlightSimulator createScenario(RocketParameters nominal, long seed) {
+    Random           random     = new Random(seed);
+    RocketParameters parameters = new RocketParameters(nominal);
+    parameters.setWind(nominal.getWindEast() + random.nextGaussian() * this.windSpeed,
+        nominal.getWindNorth() + random.nextGaussian() * this.windSpeed);
+    parameters.setLaunchAngle(Math.abs(nominal.getLaunchAngle() + random.nextGaussian() * this.launchAngle));
+    parameters.setThrustCurve(nominal.getThrustCurve().scale(scale(random, this.thrust)));
+    parameters.setDryMass(nominal.getDryMass() * scale(random, this.dryMass));
+    parameters.setDragArea(nominal.getDragArea() * scale(random, this.dragArea));
+
+    FlightSimulator simulator = new FlightSimulator(parameters, random.nextLong());
+    simulator.setNoise(Settings.SIM_ACCELEROMETER_NOISE * scale(random, this.sensorNoise),
+        Settings.SIM_GYROSCOPE_NOISE * scale(random, this.sensorNoise),
+        Settings.SIM_PRESSURE_NOISE * scale(random, this.sensorNoise));
+    simulator.setTickJitter(this.tickJitter);
+    return simulator;
+  }
+
+  /**
+   * Draws a factor around one which never goes negative
+   *
+   * @param random    where to draw from
+   * @param deviation the relative standard deviation
+   * @return the factor
+   */
+  private static double scale(Random random, double deviation) {
+    return Math.max(0, 1 + random.nextGaussian() * deviation);
+  }
+
+  /**
+   * @return the deviation of each horizontal wind component in m/s
+   */
+  public double getWindSpeed() {
+    return windSpeed;
+  }
+
+  /**
+   * @param windSpeed the deviation of each horizontal wind component in m/s
+   */
+  public void setWindSpeed(double windSpeed) {
+    this.windSpeed = windSpeed;
+  }
+
+  /**
+   * @return the deviation of the rail angle in rad
+   */
+  public double getLaunchAngle() {
+    return launchAngle;
+  }
+
+  /**
+   * @param launchAngle the deviation of the rail angle in rad
+   */
+  public void setLaunchAngle(double launchAngle) {
+    this.launchAngle = launchAngle;
+  }
+
+  /**
+   * @return the relative deviation of the thrust
+   */
+  public double getThrust() {
+    return thrust;
+  }
+
+  /**
+   * @param thrust the relative deviation of the thrust
+   */
+  public void setThrust(double thrust) {
+    this.thrust = thrust;
+  }
+
+  /**
+   * @return the relative deviation of the dry mass
+   */
+  public double getDryMass() {
+    return dryMass;
+  }
+
+  /**
+   * @param dryMass the relative deviation of the dry mass
+   */
+  public void setDryMass(double dryMass) {
+    this.dryMass = dryMass;
+  }
+
+  /**
+   * @return the relative deviation of the drag area
+   */
+  public double getDragArea() {
+    return dragArea;
+  }
+
+  /**
+   * @param dragArea the relative deviation of the drag area
+   */
+  public void setDragArea(double dragArea) {
+    this.dragArea = dragArea;
+  }
+
+  /**
+   * @return the relative deviation of the sensor noise from the simulation
+   *         settings
+   */
+  public double getSensorNoise() {
+    return sensorNoise;
+  }
+
+  /**
+   * @param sensorNoise the relative deviation of the sensor noise from the
+   *                    simulation settings
+   */
+  public void setSensorNoise(double sensorNoise) {
+    this.sensorNoise = sensorNoise;
+  }
+
+  /**
+   * @return the deviation of the time between ticks in s
+   */
+  public double getTickJitter() {
+    return tickJitter;
+  }
+
+  /**
+   * @param tickJitter the deviation of the time between ticks in s
+   */
+  public void setTickJitter(double tickJitter) {
+    this.tickJitter = tickJitter;
+  }
+
+  /**
+   * Creates a dispersion which leaves every scenario nominal apart from the
+   * seed of the sensor noise
+   *
+   * @return the dispersion without any perturbation
+   */
+  public static ScenarioDispersion none() {
+    ScenarioDispersion dispersion = new ScenarioDispersion();
+    dispersion.setWindSpeed(0);
+    dispersion.setLaunchAngle(0);
+    dispersion.setThrust(0);
+    dispersion.setDryMass(0);
+    dispersion.setDragArea(0);
+    dispersion.setSensorNoise(0);
+    dispersion.setTickJitter(0);
+    return dispersion;
+  }
+}
@@ -0,0 +1,109 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.util.Locale;
+
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+
+/**
+ * Generates the NMEA GGA sentences a GPS receiver on the rocket would output.
+ * The local position of the rocket is converted to a latitude and longitude
+ * around the pad assuming a spherical earth.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SimulatedGPS {
+
+  private static final double EARTH_RADIUS          = 6371000; // m
+  private static final double MINUTES_PER_DEGREE    = 60;
+  private static final double HUNDREDTHS_PER_SECOND = 100;
+  private static final double MINUTE_RESOLUTION     = 1e4;
+  private static final int    SECONDS_PER_MINUTE    = 60;
+  private static final int    SECONDS_PER_HOUR      = 3600;
+  private static final int    SECONDS_PER_DAY       = 86400;
+  private static final int    SATELLITES            = 8;
+
+  private final double latitude;
+  private final double longitude;
+  private final double startTime;
+
+  /**
+   * Create a new GPS for a flight from the pad
+   *
+   * @param latitude  the latitude of the pad in degrees
+   * @param longitude the longitude of the pad in degrees
+   * @param startTime the UTC seconds of day at simulation time 0
+   */
+  public SimulatedGPS(double latitude, double longitude, double startTime) {
+    this.latitude  = latitude;
+    this.longitude = longitude;
+    this.startTime = startTime;
+  }
+
+  /**
+   * Gets the sentence for a fix at the position
+   *
+   * @param time     the simulation time of the fix in s
+   * @param position the position east, north and up in m, up being above sea
+   *                 level
+   * @return the GGA sentence terminated by CR LF
+   */
+  public String getSentence(double time, MutableVector3 position) {
+    double fixLatitude  = this.latitude + Math.toDegrees(position.getY() / EARTH_RADIUS);
+    double fixLongitude = this.longitude
+        + Math.toDegrees(position.getX() / (EARTH_RADIUS * Math.cos(Math.toRadians(this.latitude))));
+    return formatGGA(this.startTime + time, fixLatitude, fixLongitude, position.getZ(), SATELLITES);
+  }
+
+  /**
+   * Formats a GGA sentence with a valid checksum
+   *
+   * @param secondsOfDay the UTC time of the fix in seconds since midnight
+   * @param latitude     the latitude in degrees, negative south
+   * @param longitude    the longitude in degrees, negative west
+   * @param altitude     the altitude above sea level in m
+   * @param satellites   the number of satellites used
+   * @return the GGA sentence terminated by CR LF
+   */
+  public static String formatGGA(double secondsOfDay, double latitude, double longitude, double altitude,
+      int satellites) {
+    double rounded = Math.round(secondsOfDay * HUNDREDTHS_PER_SECOND) / HUNDREDTHS_PER_SECOND;
+    double seconds = ((rounded % SECONDS_PER_DAY) + SECONDS_PER_DAY) % SECONDS_PER_DAY;
+    int    hours   = (int) (seconds / SECONDS_PER_HOUR);
+    int    minutes = (int) (seconds % SECONDS_PER_HOUR / SECONDS_PER_MINUTE);
+    double second  = seconds % SECONDS_PER_MINUTE;
+    String body    = String.format(Locale.ROOT, "GPGGA,%02d%02d%05.2f,%s,%s,%s,%s,1,%02d,0.9,%.1f,M,0.0,M,,",
+        hours, minutes, second, toDegreesMinutes(Math.abs(latitude), 2), latitude < 0 ? "S" : "N",
+        toDegreesMinutes(Math.abs(longitude), 3), longitude < 0 ? "W" : "E", satellites, altitude);
+    return String.format(Locale.ROOT, "$%s*%02X\r\n", body, checksum(body));
+  }
+
+  /**
+   * Formats an angle as degrees followed by decimal minutes
+   *
+   * @param degrees the angle in degrees
+   * @param digits  the number of digits of the degrees
+   * @return the angle as ddmm.mmmm
+   */
+  private static String toDegreesMinutes(double degrees, int digits) {
+    int    whole   = (int) degrees;
+    double minutes = Math.round((degrees - whole) * MINUTES_PER_DEGREE * MINUTE_RESOLUTION) / MINUTE_RESOLUTION;
+    if (minutes >= MINUTES_PER_DEGREE) {
+      whole++;
+      minutes -= MINUTES_PER_DEGREE;
+    }
+    return String.format(Locale.ROOT, "%0" + digits + "d%07.4f", whole, minutes);
+  }
+
+  /**
+   * @param body the sentence between $ and *
+   * @return the exclusive or of every character
+   */
+  private static int checksum(String body) {
+    int checksum = 0;
+    for (int i = 0; i < body.length(); i++) {
+      checksum ^= body.charAt(i);
+    }
+    return checksum;
+  }
+}
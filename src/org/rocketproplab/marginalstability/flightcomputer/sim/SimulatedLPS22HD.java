@@ -0,0 +1,141 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import com.pi4j.io.i2c.I2CDevice;
+
+/**
+ * The register interface of an LPS22HD barometer. The pressure is output as a
+ * 24 bit count of 1/4096 hPa in PRESS_OUT_XL, PRESS_OUT_L and PRESS_OUT_H. New
+ * pressures only reach the output registers once a data rate has been set in
+ * CTRL_REG1, as on the chip.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SimulatedLPS22HD implements I2CDevice {
+
+  private static final int    ADDRESS        = 0x5C;
+  private static final int    REGISTER_COUNT = 0x80;
+  private static final int    CTRL_REG1      = 0x10;
+  private static final int    ODR_MASK       = 0b01110000;
+  private static final int    PRESS_OUT_XL   = 0x28;
+  private static final int    PRESS_OUT_L    = 0x29;
+  private static final int    PRESS_OUT_H    = 0x2A;
+  private static final double COUNTS_PER_HPA = 4096;
+  private static final int    MAX_COUNT      = (1 << 24) - 1;
+  private static final int    BITS_PER_BYTE  = 8;
+
+  private final byte[] registers;
+  private long         conversions;
+
+  /**
+   * Create a new powered down LPS22HD
+   */
+  public SimulatedLPS22HD() {
+    this.registers = new byte[REGISTER_COUNT];
+  }
+
+  /**
+   * Completes a conversion of the pressure if a data rate is set
+   *
+   * @param pressure the pressure in hPa
+   */
+  public synchronized void setPressure(double pressure) {
+    if (!this.isRunning()) {
+      return;
+    }
+    int counts = (int) Math.max(0, Math.min(MAX_COUNT, Math.round(pressure * COUNTS_PER_HPA)));
+    this.registers[PRESS_OUT_XL] = (byte) counts;
+    this.registers[PRESS_OUT_L]  = (byte) (counts >> BITS_PER_BYTE);
+    this.registers[PRESS_OUT_H]  = (byte) (counts >> (2 * BITS_PER_BYTE));
+    this.conversions++;
+  }
+
+  /**
+   * @return if a data rate has been configured
+   */
+  public synchronized boolean isRunning() {
+    return (this.registers[CTRL_REG1] & ODR_MASK) != 0;
+  }
+
+  /**
+   * @return the number of conversions completed
+   */
+  public synchronized long getConversionCount() {
+    return this.conversions;
+  }
+
+  @Override
+  public int getAddress() {
+    return ADDRESS;
+  }
+
+  @Override
+  public synchronized int read(int address) throws IOException {
+    return this.registers[address & (REGISTER_COUNT - 1)] & 0xFF;
+  }
+
+  @Override
+  public int read(int address, byte[] buffer, int offset, int size) throws IOException {
+    for (int i = 0; i < size; i++) {
+      buffer[offset + i] = (byte) this.read(address + i);
+    }
+    return size;
+  }
+
+  @Override
+  public synchronized void write(int address, byte b) throws IOException {
+    this.registers[address & (REGISTER_COUNT - 1)] = b;
+  }
+
+  @Override
+  public void write(int address, byte[] buffer, int offset, int size) throws IOException {
+    for (int i = 0; i < size; i++) {
+      this.write(address + i, buffer[offset + i]);
+    }
+  }
+
+  @Override
+  public void write(int address, byte[] buffer) throws IOException {
+    this.write(address, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public void write(byte b) throws IOException {
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int size) throws IOException {
+  }
+
+  @Override
+  public void write(byte[] buffer) throws IOException {
+  }
+
+  @Override
+  public int read() throws IOException {
+    return 0;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int size) throws IOException {
+    return 0;
+  }
+
+  @Override
+  public int read(byte[] writeBuffer, int writeOffset, int writeSize, byte[] readBuffer, int readOffset,
+      int readSize) throws IOException {
+    return 0;
+  }
+
+  @Override
+  public void ioctl(long command, int value) throws IOException {
+  }
+
+  @Override
+  public void ioctl(long command, ByteBuffer data, IntBuffer offsets) throws IOException {
+  }
+}
@@ -0,0 +1,203 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LSM9DS1;
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+
+import com.pi4j.io.i2c.I2CDevice;
+
+/**
+ * The register interface of an LSM9DS1 accelerometer and gyroscope in FIFO
+ * mode. Samples are encoded the way the chip stores them, a FIFO line is the
+ * gyroscope then the accelerometer x, y and z as little endian 16 bit counts.
+ * Values outside the configured scale saturate.
+ *
+ * The FIFO holds 32 lines, when full the oldest line is overwritten and the
+ * overrun flag in FIFO_SRC is set until the FIFO is read. Burst reads from
+ * OUT_X_L_G pop one FIFO line per 12 bytes, every other register reads back
+ * what was last written to it.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SimulatedLSM9DS1 implements I2CDevice {
+
+  private static final int ADDRESS        = 0x6B;
+  private static final int REGISTER_COUNT = 0x80;
+  private static final int FIFO_DEPTH     = 32;
+  private static final int BYTES_PER_LINE = 12;
+  private static final int BITS_PER_BYTE  = 8;
+  private static final int THRESHOLD_MASK = 0b11111;
+  private static final int FIFO_EN        = 1 << 1;
+
+  private final byte[] registers;
+  private final byte[] fifo;
+  private int          head;
+  private int          count;
+  private boolean      overrun;
+  private long         samples;
+
+  /**
+   * Create a new LSM9DS1 with an empty FIFO
+   */
+  public SimulatedLSM9DS1() {
+    this.registers = new byte[REGISTER_COUNT];
+    this.fifo      = new byte[FIFO_DEPTH * BYTES_PER_LINE];
+  }
+
+  /**
+   * Stores a sample in the FIFO, the sample is lost if the FIFO has not been
+   * enabled in CTRL_REG9
+   *
+   * @param specificForce the specific force in the body frame in m/s^2
+   * @param angularRate   the rotation rate in the body frame in rad/s
+   */
+  public synchronized void addSample(MutableVector3 specificForce, MutableVector3 angularRate) {
+    if ((this.registers[LSM9DS1.Registers.CTRL_REG9.getAddress()] & FIFO_EN) == 0) {
+      return;
+    }
+    if (this.count == FIFO_DEPTH) {
+      this.head    = (this.head + 1) % FIFO_DEPTH;
+      this.count--;
+      this.overrun = true;
+    }
+    int line = ((this.head + this.count) % FIFO_DEPTH) * BYTES_PER_LINE;
+    this.encode(line, angularRate.getX() / Settings.IMU_GYRO_SCALE);
+    this.encode(line + 2, angularRate.getY() / Settings.IMU_GYRO_SCALE);
+    this.encode(line + 4, angularRate.getZ() / Settings.IMU_GYRO_SCALE);
+    this.encode(line + 6, specificForce.getX() / Settings.IMU_ACCELERATION_SCALE);
+    this.encode(line + 8, specificForce.getY() / Settings.IMU_ACCELERATION_SCALE);
+    this.encode(line + 10, specificForce.getZ() / Settings.IMU_ACCELERATION_SCALE);
+    this.count++;
+    this.samples++;
+  }
+
+  /**
+   * Writes a value as a saturated little endian 16 bit count
+   *
+   * @param index the index in the FIFO of the low byte
+   * @param value the value in counts
+   */
+  private void encode(int index, double value) {
+    long counts = Math.round(Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value)));
+    this.fifo[index]     = (byte) counts;
+    this.fifo[index + 1] = (byte) (counts >> BITS_PER_BYTE);
+  }
+
+  /**
+   * @return the number of lines in the FIFO
+   */
+  public synchronized int getFIFOCount() {
+    return this.count;
+  }
+
+  /**
+   * @return the number of samples ever stored in the FIFO
+   */
+  public synchronized long getSampleCount() {
+    return this.samples;
+  }
+
+  @Override
+  public int getAddress() {
+    return ADDRESS;
+  }
+
+  @Override
+  public synchronized int read(int address) throws IOException {
+    if (address == LSM9DS1.Registers.FIFO_SRC.getAddress()) {
+      int threshold = this.registers[LSM9DS1.Registers.FIFO_CTRL.getAddress()] & THRESHOLD_MASK;
+      int status    = this.count;
+      if (this.overrun) {
+        status |= 1 << LSM9DS1.FIFO_OVERRUN_POS;
+      }
+      if (this.count > threshold) {
+        status |= 1 << LSM9DS1.FIFO_THRESHOLD_STATUS_POS;
+      }
+      return status;
+    }
+    return this.registers[address & (REGISTER_COUNT - 1)] & 0xFF;
+  }
+
+  @Override
+  public synchronized int read(int address, byte[] buffer, int offset, int size) throws IOException {
+    if (address != LSM9DS1.Registers.OUT_X_L_G.getAddress()) {
+      for (int i = 0; i < size; i++) {
+        buffer[offset + i] = (byte) this.read(address + i);
+      }
+      return size;
+    }
+    int lines = Math.min(size / BYTES_PER_LINE, this.count);
+    for (int i = 0; i < lines; i++) {
+      System.arraycopy(this.fifo, this.head * BYTES_PER_LINE, buffer, offset + i * BYTES_PER_LINE,
+          BYTES_PER_LINE);
+      this.head = (this.head + 1) % FIFO_DEPTH;
+      this.count--;
+    }
+    if (lines > 0) {
+      this.overrun = false;
+    }
+    return lines * BYTES_PER_LINE;
+  }
+
+  /**
+   * {@link LSM9DS1#poll()} passes the register to read from as the offset, so
+   * this burst reads from that register into the start of the buffer.
+   */
+  @Override
+  public int read(byte[] buffer, int offset, int size) throws IOException {
+    return this.read(offset, buffer, 0, size);
+  }
+
+  @Override
+  public synchronized void write(int address, byte b) throws IOException {
+    this.registers[address & (REGISTER_COUNT - 1)] = b;
+  }
+
+  @Override
+  public void write(int address, byte[] buffer, int offset, int size) throws IOException {
+    for (int i = 0; i < size; i++) {
+      this.write(address + i, buffer[offset + i]);
+    }
+  }
+
+  @Override
+  public void write(int address, byte[] buffer) throws IOException {
+    this.write(address, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public void write(byte b) throws IOException {
+  }
+
+  @Override
+  public void write(byte[] buffer, int offset, int size) throws IOException {
+  }
+
+  @Override
+  public void write(byte[] buffer) throws IOException {
+  }
+
+  @Override
+  public int read() throws IOException {
+    return 0;
+  }
+
+  @Override
+  public int read(byte[] writeBuffer, int writeOffset, int writeSize, byte[] readBuffer, int readOffset,
+      int readSize) throws IOException {
+    return 0;
+  }
+
+  @Override
+  public void ioctl(long command, int value) throws IOException {
+  }
+
+  @Override
+  public void ioctl(long command, ByteBuffer data, IntBuffer offsets) throws IOException {
+  }
+}
@@ -0,0 +1,217 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830.Port;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830.Registers;
+
+import com.pi4j.io.spi.SpiDevice;
+
+/**
+ * The SPI interface of a MAX14830 quad UART. The first byte of every transfer
+ * selects the port, read or write and the register, the following bytes are
+ * clocked into or out of consecutive registers. The RHR and THR FIFO
+ * registers do not advance so bursts move whole strings.
+ *
+ * Bytes received by the simulated UARTs wait in a 128 byte RX FIFO, bytes
+ * that do not fit are dropped and flagged as an overrun. Transmitted bytes
+ * leave the TX FIFO immediately and are collected per port. The interrupt
+ * registers report a pending RX FIFO interrupt for every port with data.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SimulatedMAX14830 implements SpiDevice {
+
+  private static final int  FIFO_SIZE           = 128;
+  private static final int  REGISTER_COUNT      = 0x20;
+  private static final int  REGISTER_MASK       = 0x1F;
+  private static final int  UART_SELECT_LSB_IDX = 5;
+  private static final int  UART_SELECT_MASK    = 0b11;
+  private static final int  WRITE               = 0x80;
+  private static final int  ISR_LSR_ERR         = 1 << 0;
+  private static final int  ISR_RFIFO_TRIG      = 1 << 3;
+  private static final int  LSR_RX_OVERRUN      = 1 << 1;
+  private static final int  GLOBAL_IRQ_INACTIVE = 0xFF;
+
+  private final byte[][]        registers;
+  private final byte[][]        rxFifos;
+  private final int[]           rxHeads;
+  private final int[]           rxCounts;
+  private final boolean[]       overruns;
+  private final StringBuilder[] transmitted;
+
+  /**
+   * Create a new MAX14830 with empty FIFOs on every port
+   */
+  public SimulatedMAX14830() {
+    int ports = Port.values().length;
+    this.registers   = new byte[ports][REGISTER_COUNT];
+    this.rxFifos     = new byte[ports][FIFO_SIZE];
+    this.rxHeads     = new int[ports];
+    this.rxCounts    = new int[ports];
+    this.overruns    = new boolean[ports];
+    this.transmitted = new StringBuilder[ports];
+    for (int i = 0; i < ports; i++) {
+      this.transmitted[i] = new StringBuilder();
+    }
+  }
+
+  /**
+   * Receives data on the UART of the port as if sent by the device attached
+   * to it
+   *
+   * @param port the port receiving the data
+   * @param data the data, encoded as US-ASCII
+   * @return the number of bytes that fit in the RX FIFO
+   */
+  public synchronized int receive(Port port, String data) {
+    int    i     = port.ordinal();
+    byte[] bytes = data.getBytes(StandardCharsets.US_ASCII);
+    int    fit   = Math.min(bytes.length, FIFO_SIZE - this.rxCounts[i]);
+    for (int j = 0; j < fit; j++) {
+      this.rxFifos[i][(this.rxHeads[i] + this.rxCounts[i]) % FIFO_SIZE] = bytes[j];
+      this.rxCounts[i]++;
+    }
+    if (fit < bytes.length) {
+      this.overruns[i] = true;
+    }
+    return fit;
+  }
+
+  /**
+   * @param port the port to check
+   * @return the number of bytes waiting in the RX FIFO of the port
+   */
+  public synchronized int getRXFIFOLevel(Port port) {
+    return this.rxCounts[port.ordinal()];
+  }
+
+  /**
+   * Gets and clears everything the port has transmitted
+   *
+   * @param port the port to get the data of
+   * @return the transmitted data
+   */
+  public synchronized String takeTransmitted(Port port) {
+    StringBuilder builder = this.transmitted[port.ordinal()];
+    String        data    = builder.toString();
+    builder.setLength(0);
+    return data;
+  }
+
+  @Override
+  public synchronized byte[] write(byte... data) throws IOException {
+    byte[] response = new byte[data.length];
+    if (data.length == 0) {
+      return response;
+    }
+    int     command  = data[0] & 0xFF;
+    int     port     = (command >> UART_SELECT_LSB_IDX) & UART_SELECT_MASK;
+    int     register = command & REGISTER_MASK;
+    boolean write    = (command & WRITE) != 0;
+    for (int i = 1; i < data.length; i++) {
+      if (write) {
+        this.writeRegister(port, register, data[i]);
+      } else {
+        response[i] = (byte) this.readRegister(port, register);
+      }
+      if (register != Registers.RHR.address()) {
+        register = (register + 1) & REGISTER_MASK;
+      }
+    }
+    return response;
+  }
+
+  private void writeRegister(int port, int register, byte value) {
+    if (register == Registers.THR.address()) {
+      this.transmitted[port].append((char) (value & 0xFF));
+      return;
+    }
+    this.registers[port][register] = value;
+  }
+
+  private int readRegister(int port, int register) {
+    if (register == Registers.RHR.address()) {
+      if (this.rxCounts[port] == 0) {
+        return 0;
+      }
+      byte value = this.rxFifos[port][this.rxHeads[port]];
+      this.rxHeads[port] = (this.rxHeads[port] + 1) % FIFO_SIZE;
+      this.rxCounts[port]--;
+      return value & 0xFF;
+    } else if (register == Registers.ISR.address()) {
+      int isr = this.rxCounts[port] > 0 ? ISR_RFIFO_TRIG : 0;
+      return this.overruns[port] ? isr | ISR_LSR_ERR : isr;
+    } else if (register == Registers.LSR.address()) {
+      int lsr = this.overruns[port] ? LSR_RX_OVERRUN : 0;
+      this.overruns[port] = false;
+      return lsr;
+    } else if (register == Registers.TxFIFOLvl.address()) {
+      return 0;
+    } else if (register == Registers.RxFIFOLvl.address()) {
+      return this.rxCounts[port];
+    } else if (register == Registers.GlobalIRQ.address()) {
+      int globalIRQ = GLOBAL_IRQ_INACTIVE;
+      for (int i = 0; i < this.rxCounts.length; i++) {
+        if (this.rxCounts[i] > 0 || this.overruns[i]) {
+          globalIRQ &= ~(1 << i);
+        }
+      }
+      return globalIRQ;
+    }
+    return this.registers[port][register] & 0xFF;
+  }
+
+  @Override
+  public byte[] write(byte[] data, int start, int length) throws IOException {
+    return this.write(Arrays.copyOfRange(data, start, start + length));
+  }
+
+  @Override
+  public ByteBuffer write(ByteBuffer data) throws IOException {
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    return ByteBuffer.wrap(this.write(bytes));
+  }
+
+  /**
+   * Only byte transfers are made by {@link MAX14830}
+   */
+  @Override
+  public String write(String data, Charset charset) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String write(String data, String charset) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public byte[] write(InputStream input) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int write(InputStream input, OutputStream output) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public short[] write(short[] data, int start, int length) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public short[] write(short... data) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,38 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import org.rocketproplab.marginalstability.flightcomputer.hal.Solenoid;
+
+/**
+ * A solenoid that acts on the simulation when it is first activated, such as
+ * deploying a parachute.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SimulatedSolenoid implements Solenoid {
+
+  private final Runnable onActivation;
+  private boolean        active;
+
+  /**
+   * Create a new inactive solenoid
+   *
+   * @param onActivation what to run the first time the solenoid is activated
+   */
+  public SimulatedSolenoid(Runnable onActivation) {
+    this.onActivation = onActivation;
+  }
+
+  @Override
+  public boolean isActive() {
+    return this.active;
+  }
+
+  @Override
+  public void set(boolean active) {
+    if (active && !this.active) {
+      this.onActivation.run();
+    }
+    this.active = active;
+  }
+}
@@ -0,0 +1,175 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+/**
+ * What happened during a simulated flight, both the true trajectory and what
+ * the flight computer decided. Times are simulation times in s, altitudes are
+ * above sea level in m and events that did not happen are NaN.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class SimulationResult {
+
+  private final double                      apogee;
+  private final double                      apogeeTime;
+  private final double                      maxSpeed;
+  private final double                      burnoutTime;
+  private final double                      drogueTime;
+  private final double                      drogueAltitude;
+  private final double                      mainTime;
+  private final double                      mainAltitude;
+  private final double                      landingTime;
+  private final double                      landingSpeed;
+  private final double                      duration;
+  private final long                        ticks;
+  private final FlightMode                  finalMode;
+  private final EnumMap<FlightMode, Double> modeTimes;
+
+  /**
+   * Create a new result from the end state of a simulation
+   *
+   * @param dynamics  the simulated rocket
+   * @param modeTimes the time every flight mode was first entered
+   * @param finalMode the flight mode at the end
+   * @param ticks     the number of ticks of the flight computer
+   */
+  SimulationResult(RocketDynamics dynamics, Map<FlightMode, Double> modeTimes, FlightMode finalMode,
+      long ticks) {
+    this.apogee         = dynamics.getApogee();
+    this.apogeeTime     = dynamics.getApogeeTime();
+    this.maxSpeed       = dynamics.getMaxSpeed();
+    this.burnoutTime    = dynamics.getBurnoutTime();
+    this.drogueTime     = dynamics.getDrogueTime();
+    this.drogueAltitude = dynamics.getDrogueAltitude();
+    this.mainTime       = dynamics.getMainTime();
+    this.mainAltitude   = dynamics.getMainAltitude();
+    this.landingTime    = dynamics.getLandingTime();
+    this.landingSpeed   = dynamics.getLandingSpeed();
+    this.duration       = dynamics.getTime();
+    this.ticks          = ticks;
+    this.finalMode      = finalMode;
+    this.modeTimes      = new EnumMap<>(FlightMode.class);
+    this.modeTimes.putAll(modeTimes);
+  }
+
+  /**
+   * @return the highest altitude reached
+   */
+  public double getApogee() {
+    return apogee;
+  }
+
+  /**
+   * @return the time the highest altitude was reached
+   */
+  public double getApogeeTime() {
+    return apogeeTime;
+  }
+
+  /**
+   * @return the highest speed reached in m/s
+   */
+  public double getMaxSpeed() {
+    return maxSpeed;
+  }
+
+  /**
+   * @return the time the motor burnt out
+   */
+  public double getBurnoutTime() {
+    return burnoutTime;
+  }
+
+  /**
+   * @return the time the drogue was deployed
+   */
+  public double getDrogueTime() {
+    return drogueTime;
+  }
+
+  /**
+   * @return the true altitude the drogue was deployed at
+   */
+  public double getDrogueAltitude() {
+    return drogueAltitude;
+  }
+
+  /**
+   * @return the time the main chute was deployed
+   */
+  public double getMainTime() {
+    return mainTime;
+  }
+
+  /**
+   * @return the true altitude the main chute was deployed at
+   */
+  public double getMainAltitude() {
+    return mainAltitude;
+  }
+
+  /**
+   * @return the time the rocket landed
+   */
+  public double getLandingTime() {
+    return landingTime;
+  }
+
+  /**
+   * @return the speed the rocket hit the ground with in m/s
+   */
+  public double getLandingSpeed() {
+    return landingSpeed;
+  }
+
+  /**
+   * @return the simulated time
+   */
+  public double getDuration() {
+    return duration;
+  }
+
+  /**
+   * @return the number of ticks of the flight computer
+   */
+  public long getTicks() {
+    return ticks;
+  }
+
+  /**
+   * @return the flight mode of the flight computer at the end
+   */
+  public FlightMode getFinalMode() {
+    return finalMode;
+  }
+
+  /**
+   * Gets when the flight computer first entered the mode
+   *
+   * @param mode the mode to look up
+   * @return the time the mode was entered or NaN if it never was
+   */
+  public double getModeTime(FlightMode mode) {
+    return this.modeTimes.getOrDefault(mode, Double.NaN);
+  }
+
+  /**
+   * @return the time from the true apogee until the flight computer detected
+   *         it, negative if it was detected early
+   */
+  public double getApogeeDetectionDelay() {
+    return this.getModeTime(FlightMode.Apogee) - this.apogeeTime;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("apogee %.1f m at %.2f s, drogue at %.1f m, main at %.1f m, "
+        + "landed at %.2f s with %.1f m/s, %s", this.apogee, this.apogeeTime, this.drogueAltitude,
+        this.mainAltitude, this.landingTime, this.landingSpeed, this.finalMode);
+  }
+}
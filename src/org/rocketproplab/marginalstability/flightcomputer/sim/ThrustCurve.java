@@ -0,0 +1,118 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import java.util.Arrays;
+
+/**
+ * A motor thrust curve given as points which are linearly interpolated. The
+ * thrust is zero before the first and after the last point.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class ThrustCurve {
+
+  private final double[] times;
+  private final double[] thrusts;
+  private final double[] impulses;
+
+  /**
+   * Create a new thrust curve
+   *
+   * @param times   the time of every point since ignition in s, increasing
+   * @param thrusts the thrust at every point in N
+   */
+  public ThrustCurve(double[] times, double[] thrusts) {
+    if (times.length != thrusts.length || times.length < 2) {
+      throw new IllegalArgumentException("Need at least two points with a time and thrust each");
+    }
+    this.times    = Arrays.copyOf(times, times.length);
+    this.thrusts  = Arrays.copyOf(thrusts, thrusts.length);
+    this.impulses = new double[times.length];
+    for (int i = 1; i < times.length; i++) {
+      double span = times[i] - times[i - 1];
+      if (!(span > 0)) {
+        throw new IllegalArgumentException("Times must increase, got " + times[i] + " after " + times[i - 1]);
+      }
+      this.impulses[i] = this.impulses[i - 1] + span * (thrusts[i] + thrusts[i - 1]) / 2;
+    }
+  }
+
+  /**
+   * Gets the thrust at the time
+   *
+   * @param time the time since ignition in s
+   * @return the thrust in N
+   */
+  public double getThrust(double time) {
+    int segment = this.findSegment(time);
+    if (segment < 0) {
+      return 0;
+    }
+    double fraction = (time - this.times[segment]) / (this.times[segment + 1] - this.times[segment]);
+    return this.thrusts[segment] + fraction * (this.thrusts[segment + 1] - this.thrusts[segment]);
+  }
+
+  /**
+   * Gets the impulse delivered up to the time
+   *
+   * @param time the time since ignition in s
+   * @return the impulse in Ns
+   */
+  public double getImpulse(double time) {
+    if (!(time > this.times[0])) {
+      return 0;
+    }
+    int segment = this.findSegment(time);
+    if (segment < 0) {
+      return this.getTotalImpulse();
+    }
+    double thrust = this.getThrust(time);
+    return this.impulses[segment] + (time - this.times[segment]) * (thrust + this.thrusts[segment]) / 2;
+  }
+
+  /**
+   * @return the impulse of the whole burn in Ns
+   */
+  public double getTotalImpulse() {
+    return this.impulses[this.impulses.length - 1];
+  }
+
+  /**
+   * @return the time of the last point in s
+   */
+  public double getBurnTime() {
+    return this.times[this.times.length - 1];
+  }
+
+  /**
+   * Gets the same curve with every thrust multiplied by the factor, such as a
+   * motor that burns hotter or colder than nominal
+   *
+   * @param factor the factor to multiply the thrust by
+   * @return the scaled thrust curve
+   */
+  public ThrustCurve scale(double factor) {
+    double[] scaled = new double[this.thrusts.length];
+    for (int i = 0; i < scaled.length; i++) {
+      scaled[i] = this.thrusts[i] * factor;
+    }
+    return new ThrustCurve(this.times, scaled);
+  }
+
+  /**
+   * Finds the segment the time is in
+   *
+   * @param time the time since ignition
+   * @return the index of the point starting the segment or -1 if outside
+   */
+  private int findSegment(double time) {
+    if (!(time >= this.times[0]) || time >= this.times[this.times.length - 1]) {
+      return -1;
+    }
+    int index = Arrays.binarySearch(this.times, time);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,88 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import org.rocketproplab.marginalstability.flightcomputer.ErrorCounts;
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
+
+/**
+ * Periodically reports the errors which occurred again since they were last
+ * reported. {@link Telemetry#reportError(Errors)} only sends the first
+ * occurrence of an error, every {@link Settings#ERROR_REPORT_PERIOD} this
+ * subsystem sends the count of each error which went up in the meantime, so
+ * an error every tick costs one packet per period instead of one per tick.
+ * 
+ * A count only counts as reported once its packet is seen leaving for the
+ * command box, so the subsystem has to listen to packets sent to the command
+ * box. A count dropped on the way is sent again the next period.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class ErrorReportingSubsystem implements Subsystem, PacketListener<SCMPacket> {
+
+  private Telemetry telemetry;
+  private Time      time;
+  private double    lastReportTime;
+
+  /**
+   * Create a new error reporting subsystem
+   * 
+   * @param telemetry the telemetry whose errors are reported
+   * @param time      the time used to decide when to report
+   */
+  public ErrorReportingSubsystem(Telemetry telemetry, Time time) {
+    this.telemetry      = telemetry;
+    this.time           = time;
+    this.lastReportTime = time.getSystemTime();
+  }
+
+  @Override
+  public void update() {
+    double now = this.time.getSystemTime();
+    if (now - this.lastReportTime < Settings.ERROR_REPORT_PERIOD) {
+      return;
+    }
+    this.lastReportTime = now;
+    this.reportCounts();
+  }
+
+  /**
+   * Reports the count of every error whose current count has not been seen
+   * leaving for the command box yet
+   */
+  public void reportCounts() {
+    ErrorCounts counts = this.telemetry.getErrorCounts();
+    for (Errors error : Errors.values()) {
+      long count = counts.getCount(error);
+      if (count != counts.getReportedCount(error)) {
+        this.telemetry.reportErrorCount(error, count);
+      }
+    }
+  }
+
+  @Override
+  public void onPacket(PacketDirection direction, SCMPacket packet) {
+    SCMPacketType type = packet.getID();
+    if (direction != PacketDirection.SEND || (type != SCMPacketType.ER && type != SCMPacketType.WA)) {
+      return;
+    }
+    String data = packet.getData();
+    int    code = Integer.parseInt(data.substring(0, Telemetry.ERROR_CODE_CHARS), 16);
+    if (code >= Errors.values().length) {
+      return;
+    }
+    Errors      error  = Errors.values()[code];
+    ErrorCounts counts = this.telemetry.getErrorCounts();
+    long        count  = Long.parseLong(data.substring(Telemetry.ERROR_CODE_CHARS), 16);
+    if (count == Telemetry.MAX_ERROR_COUNT) {
+      // The command box can not tell larger counts apart
+      count = Math.max(count, counts.getCount(error));
+    }
+    counts.setReportedCount(error, count);
+  }
+}
@@ -9,7 +9,9 @@ import org.rocketproplab.marginalstability.flightcomputer.hal.SMSSender;
 import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
 
 /**
- * A subsystem that sends SMS messages once the rocket lands.
+ * A subsystem that sends SMS messages once the rocket lands. Every update
+ * polls the {@link SMSSender} so its timeouts and retries run, also before
+ * landing so the modem is ready by then.
  *
  * @author Chi Chow
  */
@@ -47,6 +49,7 @@ public class LandedSMSSubsystem
 
   @Override
   public void update() {
+    smsSender.poll();
     if (flightMode == FlightMode.Landed) {
       trySendSMSMessage();
     }
@@ -0,0 +1,142 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMDataEncoder;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics.Counter;
+
+/**
+ * Periodically downlinks the statistics of every registered serial link. Each
+ * counter is sent as an {@link SCMPacketType#LS} packet holding the link
+ * index, the counter code and the low three hex digits of the counter.
+ * 
+ * A counter only counts as downlinked once its packet is seen leaving for the
+ * command box, so the subsystem has to listen to packets sent to the command
+ * box. Every period each counter which differs from the value last seen
+ * leaving is sent again, a packet dropped on the way is therefore resent.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class LinkStatisticsSubsystem implements Subsystem, PacketListener<SCMPacket> {
+
+  private static final int  MAX_LINKS   = 10;
+  private static final int  VALUE_CHARS = 3;
+  private static final long VALUE_MASK  = 0xFFF;
+
+  private Telemetry            telemetry;
+  private Time                 time;
+  private SCMDataEncoder       encoder;
+  private List<LinkStatistics> links;
+  private List<long[]>         queued;
+  private List<long[]>         delivered;
+  private double               lastDownlinkTime;
+
+  /**
+   * Create a new link statistics subsystem
+   * 
+   * @param telemetry the telemetry to downlink with
+   * @param time      the time used to decide when to downlink
+   */
+  public LinkStatisticsSubsystem(Telemetry telemetry, Time time) {
+    this.telemetry        = telemetry;
+    this.time             = time;
+    this.encoder          = new SCMDataEncoder();
+    this.links            = new ArrayList<>();
+    this.queued           = new ArrayList<>();
+    this.delivered        = new ArrayList<>();
+    this.lastDownlinkTime = time.getSystemTime();
+  }
+
+  /**
+   * Adds a link to downlink, links are numbered in the order they are added
+   * 
+   * @param statistics the statistics of the link
+   * @return the index the link is reported with
+   */
+  public synchronized int addLink(LinkStatistics statistics) {
+    if (this.links.size() >= MAX_LINKS) {
+      throw new IllegalStateException("At most " + MAX_LINKS + " links can be reported");
+    }
+    this.links.add(statistics);
+    this.queued.add(new long[Counter.values().length]);
+    this.delivered.add(new long[Counter.values().length]);
+    return this.links.size() - 1;
+  }
+
+  @Override
+  public void update() {
+    double now = this.time.getSystemTime();
+    if (now - this.lastDownlinkTime < Settings.LINK_STATISTICS_PERIOD) {
+      return;
+    }
+    this.lastDownlinkTime = now;
+    for (int i = 0; i < this.links.size(); i++) {
+      LinkStatistics.Snapshot current = this.links.get(i).snapshot();
+      for (Counter counter : Counter.values()) {
+        long value = current.get(counter);
+        if (this.markQueued(i, counter, value)) {
+          this.telemetry.reportTelemetry(SCMPacketType.LS, this.formatCounter(i, counter, value));
+        }
+      }
+    }
+  }
+
+  /**
+   * Remembers the value about to be sent unless it was already delivered
+   * 
+   * @param link    the index of the link
+   * @param counter the counter to send
+   * @param value   the current value of the counter
+   * @return true if the value still has to be sent
+   */
+  private synchronized boolean markQueued(int link, Counter counter, long value) {
+    if (value == this.delivered.get(link)[counter.ordinal()]) {
+      return false;
+    }
+    this.queued.get(link)[counter.ordinal()] = value;
+    return true;
+  }
+
+  @Override
+  public synchronized void onPacket(PacketDirection direction, SCMPacket packet) {
+    if (direction != PacketDirection.SEND || packet.getID() != SCMPacketType.LS) {
+      return;
+    }
+    String data = packet.getData();
+    int    link = Character.digit(data.charAt(0), 16);
+    if (link < 0 || link >= this.links.size()) {
+      return;
+    }
+    for (Counter counter : Counter.values()) {
+      if (counter.getCode() != data.charAt(1)) {
+        continue;
+      }
+      long value = this.queued.get(link)[counter.ordinal()];
+      if ((value & VALUE_MASK) == Long.parseLong(data.substring(2), 16)) {
+        this.delivered.get(link)[counter.ordinal()] = value;
+      }
+    }
+  }
+
+  /**
+   * Formats a counter as the five data characters of a link statistics packet
+   * with the encoder of this subsystem, only call it from the update thread
+   * 
+   * @param link    the index of the link
+   * @param counter the counter being sent
+   * @param value   the value of the counter
+   * @return the data of the packet
+   */
+  public String formatCounter(int link, Counter counter, long value) {
+    return this.encoder.putHex(link, 0, 1).putChar(counter.getCode(), 1).putHex(value, 2, VALUE_CHARS).getData();
+  }
+}
@@ -0,0 +1,115 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMDataEncoder;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Metric;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecorder;
+
+/**
+ * Snapshots every metric of a registry every {@link Settings#METRICS_PERIOD}.
+ * The full snapshot goes to the flight recorder, which is also given the name
+ * of every metric before its first snapshot. The downlink only gets the
+ * summaries which changed as {@link SCMPacketType#MT} packets holding the
+ * metric index and the low three hex digits of the summary. At most
+ * {@link Settings#METRICS_DOWNLINK_LIMIT} summaries are sent per snapshot,
+ * the next snapshot continues after the last metric sent so every metric gets
+ * its turn.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class MetricsSubsystem implements Subsystem {
+
+  private static final int VALUE_CHARS = 3;
+  private static final int INDEX_CHARS = 2;
+
+  private MetricsRegistry registry;
+  private Telemetry       telemetry;
+  private Time            time;
+  private SCMDataEncoder  encoder;
+  private FlightRecorder  recorder;
+  private long[]          lastSent;
+  private int             next;
+  private int             named;
+  private double          lastSnapshotTime;
+
+  /**
+   * Create a new metrics subsystem
+   * 
+   * @param registry  the metrics to snapshot
+   * @param telemetry the telemetry to downlink the summaries with
+   * @param time      the time used to decide when to snapshot
+   */
+  public MetricsSubsystem(MetricsRegistry registry, Telemetry telemetry, Time time) {
+    this.registry         = registry;
+    this.telemetry        = telemetry;
+    this.time             = time;
+    this.encoder          = new SCMDataEncoder();
+    this.lastSent         = new long[MetricsRegistry.MAX_METRICS];
+    this.lastSnapshotTime = time.getSystemTime();
+  }
+
+  /**
+   * Sets the recorder snapshots are recorded to
+   * 
+   * @param recorder the recorder to use or null for none
+   */
+  public void setRecorder(FlightRecorder recorder) {
+    this.recorder = recorder;
+    this.named    = 0;
+  }
+
+  @Override
+  public void update() {
+    double now = this.time.getSystemTime();
+    if (now - this.lastSnapshotTime < Settings.METRICS_PERIOD) {
+      return;
+    }
+    this.lastSnapshotTime = now;
+    this.snapshot();
+  }
+
+  /**
+   * Records every metric and downlinks the summaries which changed
+   */
+  public void snapshot() {
+    int            size     = this.registry.size();
+    FlightRecorder recorder = this.recorder;
+    if (recorder != null) {
+      for (; this.named < size; this.named++) {
+        recorder.nameMetric(this.named, this.registry.getName(this.named));
+      }
+      for (int i = 0; i < size; i++) {
+        recorder.recordMetric(i, this.registry.get(i));
+      }
+    }
+
+    int sent = 0;
+    for (int checked = 0; checked < size && sent < Settings.METRICS_DOWNLINK_LIMIT; checked++) {
+      int    index   = (this.next + checked) % size;
+      Metric metric  = this.registry.get(index);
+      long   summary = metric.getSummary();
+      if (summary != this.lastSent[index]) {
+        this.telemetry.reportTelemetry(SCMPacketType.MT, this.formatSummary(index, summary));
+        this.lastSent[index] = summary;
+        this.next            = index + 1;
+        sent++;
+      }
+    }
+  }
+
+  /**
+   * Formats a summary as the five data characters of a metrics packet with
+   * the encoder of this subsystem, only call it from the update thread
+   * 
+   * @param index   the index of the metric
+   * @param summary the summary of the metric
+   * @return the data of the packet
+   */
+  public String formatSummary(int index, long summary) {
+    return this.encoder.putHex(index, 0, INDEX_CHARS).putHex(summary, INDEX_CHARS, VALUE_CHARS).getData();
+  }
+}
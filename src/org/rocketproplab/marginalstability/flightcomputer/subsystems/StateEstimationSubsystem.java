@@ -0,0 +1,285 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.events.PositionListener;
+import org.rocketproplab.marginalstability.flightcomputer.events.VelocityListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.Barometer;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMU;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.math.VectorHistory;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecorder;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.AltitudeKalmanFilter;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.AttitudeEstimator;
+
+/**
+ * A subsystem that estimates the vertical state of the rocket by fusing the
+ * IMU acceleration with the barometer and GPS altitudes. Every IMU sample
+ * first updates the {@link AttitudeEstimator}, which is used to rotate the
+ * acceleration into the world frame, and then drives a predict and
+ * acceleration update of the {@link AltitudeKalmanFilter}. The slower altitude
+ * sources are incorporated whenever a new reading is available.
+ *
+ * Every update the estimate is recorded in a position and a velocity
+ * {@link VectorHistory} and emitted to {@link VelocityListener}s. The position
+ * history is handed to {@link PositionListener}s so they can query it at any
+ * time, from any thread.
+ *
+ * @author Max Apodaca
+ */
+public class StateEstimationSubsystem
+        implements Subsystem, PacketListener<GPSPacket> {
+
+  private static final double BAROMETRIC_SCALE    = 44330.8; // m
+  private static final double BAROMETRIC_EXPONENT = 1 / 5.25588;
+
+  private AltitudeKalmanFilter filter;
+  private AttitudeEstimator    attitude;
+  private MutableVector3       acceleration;
+  private VectorHistory        positionHistory;
+  private VectorHistory        velocityHistory;
+  private IMU                  imu;
+  private Barometer            barometer;
+  private Time                 time;
+  private FlightRecorder       recorder;
+
+  private List<VelocityListener> velocityListeners;
+  private List<PositionListener> positionListeners;
+
+  private double  lastUpdateTime;
+  private double  lastBarometerTime  = Double.NaN;
+  private double  pendingGPSAltitude = Double.NaN;
+  private boolean hasUpdated         = false;
+  private boolean hasAltitude        = false;
+
+  /**
+   * Create a new state estimation subsystem
+   *
+   * @param imu       the IMU to read acceleration samples from
+   * @param barometer the barometer to read the pressure from, may be null
+   * @param time      the rocket time
+   */
+  public StateEstimationSubsystem(IMU imu, Barometer barometer, Time time) {
+    this.filter            = new AltitudeKalmanFilter(Settings.KALMAN_JERK_NOISE,
+            Settings.KALMAN_INITIAL_VARIANCE);
+    this.attitude          = new AttitudeEstimator(Settings.ATTITUDE_BETA);
+    this.acceleration      = new MutableVector3();
+    this.positionHistory   = new VectorHistory(Settings.STATE_HISTORY_LENGTH);
+    this.velocityHistory   = new VectorHistory(Settings.STATE_HISTORY_LENGTH);
+    this.imu               = imu;
+    this.barometer         = barometer;
+    this.time              = time;
+    this.velocityListeners = new ArrayList<>();
+    this.positionListeners = new ArrayList<>();
+  }
+
+  /**
+   * Sets the recorder every raw IMU and barometer sample is recorded to
+   *
+   * @param recorder the recorder to use or null for none
+   */
+  public void setRecorder(FlightRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Add a listener to be notified of every new velocity estimate
+   *
+   * @param listener the listener to notify
+   */
+  public void addVelocityListener(VelocityListener listener) {
+    this.velocityListeners.add(listener);
+  }
+
+  /**
+   * Add a listener to be notified of every new position estimate
+   *
+   * @param listener the listener to notify
+   */
+  public void addPositionListener(PositionListener listener) {
+    this.positionListeners.add(listener);
+  }
+
+  @Override
+  public void onPacket(PacketDirection direction, GPSPacket packet) {
+    if (direction == PacketDirection.RECIVE && packet.isValid()) {
+      this.pendingGPSAltitude = packet.getAltitude();
+    }
+  }
+
+  @Override
+  public void update() {
+    double now = this.time.getSystemTime();
+    if (!this.hasUpdated) {
+      this.lastUpdateTime = now;
+      this.hasUpdated     = true;
+    }
+
+    double filterTime = this.lastUpdateTime;
+    while (this.imu != null && this.imu.hasNext()) {
+      IMUReading reading    = this.imu.getNext();
+      double     sampleTime = Math.min(filterTime + Settings.IMU_SAMPLE_PERIOD, now);
+      if (this.recorder != null) {
+        this.recorder.recordIMU(sampleTime, reading);
+      }
+      this.updateAttitude(reading);
+      this.filter.predict(sampleTime - filterTime);
+      this.filter.updateAcceleration(this.getVerticalAcceleration(reading),
+              Settings.KALMAN_ACCELERATION_VARIANCE);
+      filterTime = sampleTime;
+    }
+    this.filter.predict(now - filterTime);
+    this.lastUpdateTime = now;
+
+    this.updateBarometer();
+    if (!Double.isNaN(this.pendingGPSAltitude)) {
+      this.updateAltitude(this.pendingGPSAltitude, Settings.KALMAN_GPS_VARIANCE);
+      this.pendingGPSAltitude = Double.NaN;
+    }
+
+    this.emitEstimate(now);
+  }
+
+  /**
+   * Incorporates the gyroscope and accelerometer of the reading into the
+   * attitude estimate. Samples are always a fixed ODR apart.
+   *
+   * @param reading the IMU reading to use
+   */
+  private void updateAttitude(IMUReading reading) {
+    Vector3 rotation     = reading.getXYZRotation();
+    Vector3 acceleration = reading.getXYZAcceleration();
+    this.attitude.update(rotation.getX() * Settings.IMU_GYRO_SCALE,
+            rotation.getY() * Settings.IMU_GYRO_SCALE,
+            rotation.getZ() * Settings.IMU_GYRO_SCALE,
+            acceleration.getX(), acceleration.getY(), acceleration.getZ(),
+            Settings.IMU_SAMPLE_PERIOD);
+  }
+
+  /**
+   * Gets the vertical acceleration from an IMU reading by rotating it into the
+   * world frame with the current attitude. Gravity is removed.
+   *
+   * @param reading the reading to convert
+   * @return the vertical acceleration in m/s^2
+   */
+  private double getVerticalAcceleration(IMUReading reading) {
+    this.acceleration.set(reading.getXYZAcceleration()).scale(Settings.IMU_ACCELERATION_SCALE);
+    this.attitude.toWorldFrame(this.acceleration);
+    return this.acceleration.getZ() - Settings.GRAVITY;
+  }
+
+  /**
+   * Incorporates the barometer reading if a new one in the usable range is
+   * present.
+   */
+  private void updateBarometer() {
+    if (this.barometer == null) {
+      return;
+    }
+    double measurementTime = this.barometer.getLastMeasurementTime();
+    if (measurementTime == this.lastBarometerTime) {
+      return;
+    }
+    this.lastBarometerTime = measurementTime;
+    double pressure = this.barometer.getPressure();
+    if (this.recorder != null) {
+      this.recorder.recordBarometer(measurementTime, pressure);
+    }
+    if (!this.barometer.inUsableRange()) {
+      return;
+    }
+    double altitude = getAltitudeFromPressure(pressure);
+    this.updateAltitude(altitude, Settings.KALMAN_BAROMETER_VARIANCE);
+  }
+
+  /**
+   * Incorporates an altitude measurement. The first measurement resets the
+   * filter to that altitude so we do not have to converge from zero.
+   *
+   * @param altitude the measured altitude in m
+   * @param variance the variance of the measurement
+   */
+  private void updateAltitude(double altitude, double variance) {
+    if (!this.hasAltitude) {
+      this.filter.reset(altitude, Settings.KALMAN_INITIAL_VARIANCE);
+      this.hasAltitude = true;
+      return;
+    }
+    this.filter.updatePosition(altitude, variance);
+  }
+
+  /**
+   * Emits the current estimate to all of the listeners
+   *
+   * @param now the time of the estimate
+   */
+  private void emitEstimate(double now) {
+    this.positionHistory.add(now, 0, 0, this.filter.getPosition());
+    this.velocityHistory.add(now, 0, 0, this.filter.getVelocity());
+    if (!this.velocityListeners.isEmpty()) {
+      Vector3 velocity = new Vector3(0, 0, this.filter.getVelocity());
+      for (VelocityListener listener : this.velocityListeners) {
+        listener.onVelocityUpdate(velocity, now);
+      }
+    }
+    for (PositionListener listener : this.positionListeners) {
+      listener.onPositionEstimate(this.positionHistory);
+    }
+  }
+
+  /**
+   * @return the history of position estimates
+   */
+  public VectorHistory getPositionHistory() {
+    return this.positionHistory;
+  }
+
+  /**
+   * @return the history of velocity estimates
+   */
+  public VectorHistory getVelocityHistory() {
+    return this.velocityHistory;
+  }
+
+  /**
+   * @return the filter used to estimate the state
+   */
+  public AltitudeKalmanFilter getFilter() {
+    return this.filter;
+  }
+
+  /**
+   * @return the estimator used to track the orientation
+   */
+  public AttitudeEstimator getAttitude() {
+    return this.attitude;
+  }
+
+  /**
+   * @return if the rocket is tilted further than the tumble angle
+   */
+  public boolean isTumbling() {
+    return this.attitude.isTumbling(Settings.TUMBLE_ANGLE);
+  }
+
+  /**
+   * Converts a pressure to an altitude using the international barometric
+   * formula.
+   *
+   * @param pressure the pressure in hPa
+   * @return the altitude above sea level in m
+   */
+  public static double getAltitudeFromPressure(double pressure) {
+    double ratio = pressure / Settings.SEA_LEVEL_PRESSURE;
+    return BAROMETRIC_SCALE * (1 - Math.pow(ratio, BAROMETRIC_EXPONENT));
+  }
+}
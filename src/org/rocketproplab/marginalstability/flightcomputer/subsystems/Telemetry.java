@@ -3,13 +3,16 @@ package org.rocketproplab.marginalstability.flightcomputer.subsystems;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.rocketproplab.marginalstability.flightcomputer.ErrorCounts;
 import org.rocketproplab.marginalstability.flightcomputer.Errors;
 import org.rocketproplab.marginalstability.flightcomputer.Info;
+import org.rocketproplab.marginalstability.flightcomputer.TickTime;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRelay;
-import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMDataEncoder;
 import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
 import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecorder;
 
 /**
  * A reporter for telemetry. It will sends the packet periodically to the
@@ -23,7 +26,8 @@ public class Telemetry {
 
   public static Telemetry getInstance() {
     if (instance == null) {
-      instance = new Telemetry(Logger.getLogger("Telemetry"), PacketRouter.getInstance());
+      instance = new Telemetry(Logger.getLogger("Telemetry"), TelemetryScheduler.getInstance());
+      instance.setDeadband(new TelemetryDeadband(TickTime.getInstance()));
     }
     return instance;
   }
@@ -36,14 +40,20 @@ public class Telemetry {
   public static final int MIN_PACKET_BASE_10 = (int) -Math.round(Math.pow(BASE_10, SCMPacket.DATA_LENGTH - 1)) + 1;
   public static final int MIN_PACKET_BASE_16 = (int) -Math.round(Math.pow(BASE_16, SCMPacket.DATA_LENGTH - 1)) + 1;
 
-  public static final String  INFINITY      = "INF  ";
-  public static final String  NEG_INFINITY  = "-INF ";
-  private static final String INT_FORMAT    = "%0" + SCMPacket.DATA_LENGTH + "d";
-  private static final String HEX_FORMAT    = "%0" + SCMPacket.DATA_LENGTH + "x";
-  private static final String DOUBLE_FORMAT = "%0" + SCMPacket.DATA_LENGTH + "f";
+  public static final String INFINITY     = "INF  ";
+  public static final String NEG_INFINITY = "-INF ";
 
-  private Logger      logger;
-  private PacketRelay relay;
+  public static final int MAX_ERROR_COUNT = 0xFFF;
+
+  static final int ERROR_CODE_CHARS  = 2;
+  static final int ERROR_COUNT_CHARS = 3;
+
+  private Logger            logger;
+  private PacketRelay       relay;
+  private SCMDataEncoder    encoder;
+  private TelemetryDeadband deadband;
+  private FlightRecorder    recorder;
+  private ErrorCounts       errorCounts;
 
   /**
    * Creates a new telemetry subsystem that logs to the given logger and uses the
@@ -53,8 +63,55 @@ public class Telemetry {
    * @param relay  the relay to use for sending packets
    */
   public Telemetry(Logger logger, PacketRelay relay) {
-    this.logger = logger;
-    this.relay  = relay;
+    this.logger      = logger;
+    this.relay       = relay;
+    this.encoder     = new SCMDataEncoder();
+    this.errorCounts = new ErrorCounts();
+  }
+
+  /**
+   * Sets the deadband filter used to suppress numeric values that have barely
+   * changed. Without one every value is sent.
+   * 
+   * @param deadband the deadband filter to use or null for none
+   */
+  public void setDeadband(TelemetryDeadband deadband) {
+    this.deadband = deadband;
+  }
+
+  /**
+   * @return the deadband filter in use or null if there is none
+   */
+  public TelemetryDeadband getDeadband() {
+    return this.deadband;
+  }
+
+  /**
+   * @return how often every error was reported
+   */
+  public ErrorCounts getErrorCounts() {
+    return this.errorCounts;
+  }
+
+  /**
+   * Sets the recorder errors are recorded to
+   * 
+   * @param recorder the recorder to use or null for none
+   */
+  public void setRecorder(FlightRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Returns if the value should be sent according to the deadband filter
+   * 
+   * @param type the channel of the value
+   * @param data the value to be sent
+   * @return true if the value should be sent
+   */
+  private boolean passesDeadband(SCMPacketType type, double data) {
+    TelemetryDeadband filter = this.deadband;
+    return filter == null || filter.shouldSend(type, data);
   }
 
   /**
@@ -64,22 +121,25 @@ public class Telemetry {
    * @param data the double to send
    */
   public void reportTelemetry(SCMPacketType type, double data) {
-    String dataString = String.format(DOUBLE_FORMAT, data).toUpperCase();
-    int    toPrint    = Math.min(dataString.length(), SCMPacket.DATA_LENGTH);
-    int    padLen     = (SCMPacket.DATA_LENGTH - toPrint);
-
-    dataString = dataString.substring(0, toPrint);
-    if (padLen > 0) {
-      dataString = String.format("%" + padLen + "s", dataString);
+    if (!this.passesDeadband(type, data)) {
+      return;
     }
-    if (data > MAX_PACKET_BASE_10) {
-      dataString = INFINITY;
-    } else if (data < MIN_PACKET_BASE_10) {
-      dataString = NEG_INFINITY;
+    String dataString;
+    synchronized (this.encoder) {
+      if (data > MAX_PACKET_BASE_10) {
+        this.encoder.put(INFINITY);
+      } else if (data < MIN_PACKET_BASE_10) {
+        this.encoder.put(NEG_INFINITY);
+      } else {
+        this.encoder.putFloat(data);
+      }
+      dataString = this.encoder.getData();
     }
     SCMPacket packet = new SCMPacket(type, dataString);
     this.relay.sendPacket(packet, PacketSources.CommandBox);
-    this.logger.log(Level.INFO, type.getName() + " is " + data);
+    if (this.logger.isLoggable(Level.INFO)) {
+      this.logger.log(Level.INFO, type.getName() + " is " + data);
+    }
   }
 
   /**
@@ -90,8 +150,10 @@ public class Telemetry {
    * @param data the data to send, must fit in 5 characters
    */
   public void reportTelemetryHex(SCMPacketType type, int data) {
-    this.reportTelemetry(type, data, HEX_FORMAT, MAX_PACKET_BASE_16, MIN_PACKET_BASE_16);
-    this.logger.log(Level.INFO, type.getName() + " is " + Integer.toString(data, 16));
+    boolean sent = this.reportTelemetry(type, data, true, MAX_PACKET_BASE_16, MIN_PACKET_BASE_16);
+    if (sent && this.logger.isLoggable(Level.INFO)) {
+      this.logger.log(Level.INFO, type.getName() + " is " + Integer.toString(data, 16));
+    }
   }
 
   /**
@@ -102,42 +164,123 @@ public class Telemetry {
    * @param data the data to be sent, must fit in 5 character
    */
   public void reportTelemetry(SCMPacketType type, int data) {
-    this.reportTelemetry(type, data, INT_FORMAT, MAX_PACKET_BASE_10, MIN_PACKET_BASE_10);
-    this.logger.log(Level.INFO, type.getName() + " is " + data);
+    boolean sent = this.reportTelemetry(type, data, false, MAX_PACKET_BASE_10, MIN_PACKET_BASE_10);
+    if (sent && this.logger.isLoggable(Level.INFO)) {
+      this.logger.log(Level.INFO, type.getName() + " is " + data);
+    }
   }
 
   /**
    * Internally report the integer value using the given constraints
    * 
-   * @param type   the type of packet to send
-   * @param data   the integer to be sent
-   * @param format the format string to print this integer
-   * @param max    the maximum value (if greater prints infinity)
-   * @param min    the minimum value (if less prints - infinity)
-   */
-  private void reportTelemetry(SCMPacketType type, int data, String format, int max, int min) {
-    String dataString = String.format(format, data).toUpperCase();
-    if (data > max) {
-      dataString = INFINITY;
-    } else if (data < min) {
-      dataString = NEG_INFINITY;
+   * @param type the type of packet to send
+   * @param data the integer to be sent
+   * @param hex  if the integer is sent in base 16 instead of base 10
+   * @param max  the maximum value (if greater prints infinity)
+   * @param min  the minimum value (if less prints - infinity)
+   * @return if the packet was sent, false if the deadband suppressed it
+   */
+  private boolean reportTelemetry(SCMPacketType type, int data, boolean hex, int max, int min) {
+    if (!this.passesDeadband(type, data)) {
+      return false;
+    }
+    String dataString;
+    synchronized (this.encoder) {
+      if (data > max) {
+        this.encoder.put(INFINITY);
+      } else if (data < min) {
+        this.encoder.put(NEG_INFINITY);
+      } else if (hex) {
+        this.encoder.putHex(data);
+      } else {
+        this.encoder.putDecimal(data);
+      }
+      dataString = this.encoder.getData();
     }
     SCMPacket packet = new SCMPacket(type, dataString);
     this.relay.sendPacket(packet, PacketSources.CommandBox);
+    return true;
+  }
+
+  /**
+   * Reports data which has already been formatted to the command box
+   * 
+   * @param type the packet type to send
+   * @param data the data to send, must be exactly 5 characters
+   */
+  public void reportTelemetry(SCMPacketType type, String data) {
+    SCMPacket packet = new SCMPacket(type, data);
+    this.relay.sendPacket(packet, PacketSources.CommandBox);
   }
 
   /**
-   * Send the error to the Command Box
+   * Counts the error and sends it to the Command Box the first time it
+   * occurs. Later occurrences are only counted so an error every tick does
+   * not flood the link, {@link ErrorReportingSubsystem} sends the counts
+   * periodically.
    * 
    * @param error the error to inform the command box of
    */
   public void reportError(Errors error) {
-    this.reportTelemetry(SCMPacketType.ER, error.ordinal());
-    this.logger.log(Level.INFO, "Reporting Error: " + error.toString());
+    if (this.errorCounts.increment(error) > 1) {
+      return;
+    }
+    this.reportErrorCount(error, 1);
+    if (this.logger.isLoggable(Level.INFO)) {
+      this.logger.log(Level.INFO, "Reporting " + (error.isWarning() ? "Warning: " : "Error: ") + error.toString());
+    }
+  }
+
+  /**
+   * Sends how often an error occurred to the Command Box and records it.
+   * Warnings are sent as {@link SCMPacketType#WA} and errors as
+   * {@link SCMPacketType#ER}. The count is only marked as reported by
+   * {@link ErrorReportingSubsystem} once the packet leaves for the Command
+   * Box.
+   * 
+   * @param error the error to report
+   * @param count the number of occurrences so far
+   */
+  public void reportErrorCount(Errors error, long count) {
+    FlightRecorder errorRecorder = this.recorder;
+    if (errorRecorder != null) {
+      errorRecorder.recordError(error, count);
+    }
+    this.reportTelemetry(error.isWarning() ? SCMPacketType.WA : SCMPacketType.ER, formatError(error, count));
+  }
+
+  /**
+   * Formats an error as the five data characters of an error or warning
+   * packet, two hex digits of the code followed by three of the count. Counts
+   * above {@value #MAX_ERROR_COUNT} are sent as {@value #MAX_ERROR_COUNT}.
+   * The shared encoder of this telemetry is reused.
+   * 
+   * @param error the error to format
+   * @param count the number of occurrences
+   * @return the data of the packet
+   */
+  public String formatError(Errors error, long count) {
+    synchronized (this.encoder) {
+      return this.encoder.putHex(error.ordinal(), 0, ERROR_CODE_CHARS)
+          .putHex(Math.min(count, MAX_ERROR_COUNT), ERROR_CODE_CHARS, ERROR_COUNT_CHARS).getData();
+    }
+  }
+
+  /**
+   * Logs the trace events leading up to an error
+   * 
+   * @param trace the summary of the most recent trace events
+   */
+  public void logTrace(String trace) {
+    if (this.logger.isLoggable(Level.WARNING)) {
+      this.logger.log(Level.WARNING, "Trace before error: " + trace);
+    }
   }
 
   public void logInfo(Info info) {
-    this.logger.log(Level.INFO, info.getDescription());
+    if (this.logger.isLoggable(Level.INFO)) {
+      this.logger.log(Level.INFO, info.getDescription());
+    }
   }
 
   /**
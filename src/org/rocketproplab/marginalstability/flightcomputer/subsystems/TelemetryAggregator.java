@@ -0,0 +1,102 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.math.WindowedAggregator;
+import org.rocketproplab.marginalstability.flightcomputer.math.WindowedAggregator.Statistic;
+
+/**
+ * Aggregates sensor readings which are sampled faster than they can be sent.
+ * Sensors call {@link #sample(SCMPacketType, double)} at their own rate and
+ * every {@link Settings#TELEMETRY_AGGREGATE_PERIOD} the window of every
+ * channel with samples is closed and one statistic of it is reported.
+ * 
+ * An SCM packet only carries one value so each channel picks the statistic it
+ * reports. The {@link SCMPacketType#PRESSURE_TRANSDUCERS} report the maximum
+ * so that spikes in the feed lines are not lost, everything else reports the
+ * mean.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class TelemetryAggregator implements Subsystem {
+
+  private static final SCMPacketType[] TYPES = SCMPacketType.values();
+
+  private Telemetry                   telemetry;
+  private Time                        time;
+  private WindowedAggregator[]        aggregators;
+  private Statistic[]                 statistics;
+  private WindowedAggregator.Window[] windows;
+  private double                      lastReportTime;
+
+  /**
+   * Create a new telemetry aggregator
+   * 
+   * @param telemetry the telemetry to report the aggregates with
+   * @param time      the time used to close the windows
+   */
+  public TelemetryAggregator(Telemetry telemetry, Time time) {
+    int types = TYPES.length;
+    this.telemetry      = telemetry;
+    this.time           = time;
+    this.aggregators    = new WindowedAggregator[types];
+    this.statistics     = new Statistic[types];
+    this.windows        = new WindowedAggregator.Window[types];
+    this.lastReportTime = time.getSystemTime();
+    for (SCMPacketType type : TYPES) {
+      this.aggregators[type.ordinal()] = new WindowedAggregator();
+      this.windows[type.ordinal()]     = new WindowedAggregator.Window();
+      this.statistics[type.ordinal()]  = SCMPacketType.PRESSURE_TRANSDUCERS.contains(type) ? Statistic.MAX : Statistic.MEAN;
+    }
+  }
+
+  /**
+   * Sets the statistic of the window reported for the channel
+   * 
+   * @param type      the channel
+   * @param statistic the statistic to report
+   */
+  public void setStatistic(SCMPacketType type, Statistic statistic) {
+    this.statistics[type.ordinal()] = statistic;
+  }
+
+  /**
+   * Adds a reading to the current window of the channel, this does not
+   * allocate and can be called from any thread.
+   * 
+   * @param type  the channel of the reading
+   * @param value the reading
+   */
+  public void sample(SCMPacketType type, double value) {
+    this.aggregators[type.ordinal()].add(value);
+  }
+
+  /**
+   * Gets the last closed window of the channel. The window is reused when the
+   * next window is closed.
+   * 
+   * @param type the channel
+   * @return the statistics of the last window
+   */
+  public WindowedAggregator.Window getLastWindow(SCMPacketType type) {
+    return this.windows[type.ordinal()];
+  }
+
+  @Override
+  public void update() {
+    double now = this.time.getSystemTime();
+    if (now - this.lastReportTime < Settings.TELEMETRY_AGGREGATE_PERIOD) {
+      return;
+    }
+    this.lastReportTime = now;
+    for (int i = 0; i < this.aggregators.length; i++) {
+      if (this.aggregators[i].getCount() == 0) {
+        continue;
+      }
+      WindowedAggregator.Window window = this.aggregators[i].closeWindow(this.windows[i]);
+      this.telemetry.reportTelemetry(TYPES[i], window.get(this.statistics[i]));
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import java.util.Arrays;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.events.FlightStateListener;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+/**
+ * Decides if a telemetry value is worth sending. A channel with a deadband is
+ * only sent once its value moves further than the deadband from the last sent
+ * value, or when it has not been sent for
+ * {@link Settings#TELEMETRY_REFRESH_PERIOD} so the command box knows it is
+ * still alive. The deadband of every channel can differ per
+ * {@link FlightMode}, the current mode is tracked as a
+ * {@link FlightStateListener}.
+ * 
+ * Channels without a deadband are always sent.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class TelemetryDeadband implements FlightStateListener {
+
+  private static final int MODES = FlightMode.values().length;
+
+  private Time                time;
+  private double[][]          deadbands;
+  private double[]            lastValues;
+  private double[]            lastTimes;
+  private volatile FlightMode mode;
+
+  /**
+   * Create a new deadband filter with the default thermocouple and pressure
+   * transducer deadbands
+   * 
+   * @param time the time used for the refresh period
+   */
+  public TelemetryDeadband(Time time) {
+    int types = SCMPacketType.values().length;
+    this.time       = time;
+    this.deadbands  = new double[types][];
+    this.lastValues = new double[types];
+    this.lastTimes  = new double[types];
+    this.mode       = FlightMode.Sitting;
+    Arrays.fill(this.lastTimes, Double.NEGATIVE_INFINITY);
+    this.configureDefaults();
+  }
+
+  private void configureDefaults() {
+    for (SCMPacketType type : SCMPacketType.THERMOCOUPLES) {
+      this.setDeadband(type, Settings.TELEMETRY_PAD_TEMPERATURE_DEADBAND);
+      this.setDeadband(type, FlightMode.Burn, Settings.TELEMETRY_BURN_TEMPERATURE_DEADBAND);
+    }
+    for (SCMPacketType type : SCMPacketType.PRESSURE_TRANSDUCERS) {
+      this.setDeadband(type, Settings.TELEMETRY_PAD_PRESSURE_DEADBAND);
+      this.setDeadband(type, FlightMode.Burn, Settings.TELEMETRY_BURN_PRESSURE_DEADBAND);
+    }
+  }
+
+  /**
+   * Sets the deadband of the channel in every flight mode
+   * 
+   * @param type     the channel to set the deadband of
+   * @param deadband the change needed before a value is sent
+   */
+  public synchronized void setDeadband(SCMPacketType type, double deadband) {
+    for (FlightMode flightMode : FlightMode.values()) {
+      this.setDeadband(type, flightMode, deadband);
+    }
+  }
+
+  /**
+   * Sets the deadband of the channel in a single flight mode
+   * 
+   * @param type       the channel to set the deadband of
+   * @param flightMode the flight mode the deadband applies to
+   * @param deadband   the change needed before a value is sent
+   */
+  public synchronized void setDeadband(SCMPacketType type, FlightMode flightMode, double deadband) {
+    double[] modeDeadbands = this.deadbands[type.ordinal()];
+    if (modeDeadbands == null) {
+      modeDeadbands                  = new double[MODES];
+      this.deadbands[type.ordinal()] = modeDeadbands;
+    }
+    modeDeadbands[flightMode.ordinal()] = deadband;
+  }
+
+  /**
+   * Removes the deadband of the channel so that every value is sent
+   * 
+   * @param type the channel to clear
+   */
+  public synchronized void clearDeadband(SCMPacketType type) {
+    this.deadbands[type.ordinal()] = null;
+  }
+
+  /**
+   * Returns if the value should be sent and if so records it as the last sent
+   * value of the channel.
+   * 
+   * @param type  the channel of the value
+   * @param value the value to be sent
+   * @return true if the value should be sent, false to suppress it
+   */
+  public synchronized boolean shouldSend(SCMPacketType type, double value) {
+    int      channel       = type.ordinal();
+    double[] modeDeadbands = this.deadbands[channel];
+    if (modeDeadbands == null) {
+      return true;
+    }
+    double  now       = this.time.getSystemTime();
+    double  deadband  = modeDeadbands[this.mode.ordinal()];
+    boolean changed   = !(Math.abs(value - this.lastValues[channel]) <= deadband);
+    boolean refreshed = now - this.lastTimes[channel] >= Settings.TELEMETRY_REFRESH_PERIOD;
+    if (!changed && !refreshed) {
+      return false;
+    }
+    this.lastValues[channel] = value;
+    this.lastTimes[channel]  = now;
+    return true;
+  }
+
+  /**
+   * Forces the next value of every channel to be sent. The last sent values
+   * are still compared against the new deadbands afterwards.
+   */
+  public synchronized void forceRefresh() {
+    Arrays.fill(this.lastTimes, Double.NEGATIVE_INFINITY);
+  }
+
+  /**
+   * Switches to the deadbands of the new mode and sends every channel again so
+   * the command box sees the state at the transition.
+   */
+  @Override
+  public void onFlightModeChange(FlightMode newMode) {
+    this.mode = newMode;
+    this.forceRefresh();
+  }
+
+  /**
+   * @return the flight mode whose deadbands are in use
+   */
+  public FlightMode getFlightMode() {
+    return this.mode;
+  }
+}
@@ -0,0 +1,304 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.TickTime;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRelay;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+
+/**
+ * Sits between {@link Telemetry} and the packet router and limits the packets
+ * sent to the command box to a byte budget. Every {@link SCMPacketType} has a
+ * slot holding its latest packet, a priority and a maximum rate. Sending a new
+ * value replaces an unsent one so only the freshest value of a channel is ever
+ * sent. Event channels such as errors instead queue every packet and never
+ * drop one. Keyed channels such as link statistics queue one packet per key,
+ * the leading characters of the data, and a new packet replaces the waiting
+ * one of its key.
+ * 
+ * Each update the budget is refilled at
+ * {@link Settings#TELEMETRY_BYTES_PER_SECOND} and spent on the waiting slots
+ * with the best priority, least recently sent first. Packets to anywhere but
+ * the command box are passed straight through.
+ * 
+ * @author Max Apodaca
+ *
+ */
+public class TelemetryScheduler implements PacketRelay, Subsystem {
+  private static TelemetryScheduler instance;
+
+  public static TelemetryScheduler getInstance() {
+    if (instance == null) {
+      instance = new TelemetryScheduler(PacketRouter.getInstance(), TickTime.getInstance());
+    }
+    return instance;
+  }
+
+  /**
+   * The most important priority, sent before anything else
+   */
+  public static final int PRIORITY_CRITICAL = 0;
+
+  /**
+   * Priority for vehicle state such as valves and the heartbeat
+   */
+  public static final int PRIORITY_STATE = 1;
+
+  /**
+   * Priority for navigation data
+   */
+  public static final int PRIORITY_NAVIGATION = 2;
+
+  /**
+   * Priority for sensor readings
+   */
+  public static final int PRIORITY_SENSOR = 3;
+
+  /**
+   * Priority for diagnostics
+   */
+  public static final int PRIORITY_DIAGNOSTIC = 4;
+
+  private static final int PACKET_BYTES               = SCMPacket.NUM_CHARS_PACKET;
+  private static final int LINK_STATISTICS_KEY_LENGTH = 2;
+  private static final int METRICS_KEY_LENGTH         = 2;
+
+  /**
+   * The configuration and state of a single packet type
+   */
+  private static class Slot {
+    private int                   priority;
+    private double                minInterval;
+    private ArrayDeque<SCMPacket>            events;
+    private LinkedHashMap<String, SCMPacket> keyed;
+    private int                              keyLength;
+    private SCMPacket                        latest;
+    private double                           lastSent = Double.NEGATIVE_INFINITY;
+    private long                             coalesced;
+
+    private boolean hasPacket() {
+      if (this.events != null) {
+        return !this.events.isEmpty();
+      }
+      if (this.keyed != null) {
+        return !this.keyed.isEmpty();
+      }
+      return this.latest != null;
+    }
+
+    private SCMPacket poll() {
+      if (this.events != null) {
+        return this.events.poll();
+      }
+      if (this.keyed != null) {
+        Iterator<SCMPacket> waiting = this.keyed.values().iterator();
+        SCMPacket           packet  = waiting.next();
+        waiting.remove();
+        return packet;
+      }
+      SCMPacket packet = this.latest;
+      this.latest = null;
+      return packet;
+    }
+  }
+
+  private PacketRelay output;
+  private Time        time;
+  private Slot[]      slots;
+  private double      tokens;
+  private double      lastUpdate;
+  private Counter     sent;
+  private Counter     coalesced;
+
+  /**
+   * Create a new scheduler with the default channel configuration
+   * 
+   * @param output where packets are sent once scheduled
+   * @param time   the time used for rates and the budget
+   */
+  public TelemetryScheduler(PacketRelay output, Time time) {
+    this.output     = output;
+    this.time       = time;
+    this.slots      = new Slot[SCMPacketType.values().length];
+    this.tokens     = Settings.TELEMETRY_BURST_BYTES;
+    this.lastUpdate = time.getSystemTime();
+    this.sent       = new Counter();
+    this.coalesced  = new Counter();
+    for (SCMPacketType type : SCMPacketType.values()) {
+      this.slots[type.ordinal()] = new Slot();
+    }
+    this.configureDefaults();
+  }
+
+  private void configureDefaults() {
+    for (SCMPacketType type : SCMPacketType.values()) {
+      this.setChannel(type, PRIORITY_SENSOR, 10);
+    }
+    this.setEventChannel(SCMPacketType.ER, PRIORITY_CRITICAL);
+    this.setEventChannel(SCMPacketType.WA, PRIORITY_CRITICAL);
+    this.setEventChannel(SCMPacketType.DD, PRIORITY_CRITICAL);
+    this.setEventChannel(SCMPacketType.MD, PRIORITY_CRITICAL);
+    this.setChannel(SCMPacketType.HB, PRIORITY_STATE, 1);
+    this.setChannel(SCMPacketType.V0, PRIORITY_STATE, 10);
+    this.setChannel(SCMPacketType.V1, PRIORITY_STATE, 10);
+    this.setChannel(SCMPacketType.VS, PRIORITY_STATE, 10);
+    this.setChannel(SCMPacketType.GX, PRIORITY_NAVIGATION, 2);
+    this.setChannel(SCMPacketType.GY, PRIORITY_NAVIGATION, 2);
+    this.setChannel(SCMPacketType.GZ, PRIORITY_NAVIGATION, 2);
+    this.setChannel(SCMPacketType.VX, PRIORITY_NAVIGATION, 2);
+    this.setChannel(SCMPacketType.VY, PRIORITY_NAVIGATION, 2);
+    this.setChannel(SCMPacketType.VZ, PRIORITY_NAVIGATION, 2);
+    this.setKeyedChannel(SCMPacketType.LS, PRIORITY_DIAGNOSTIC, LINK_STATISTICS_KEY_LENGTH);
+    this.setKeyedChannel(SCMPacketType.MT, PRIORITY_DIAGNOSTIC, METRICS_KEY_LENGTH);
+  }
+
+  /**
+   * Registers the number of packets sent to the command box and the number
+   * replaced before they could be sent
+   * 
+   * @param registry the registry to register with
+   */
+  public void registerMetrics(MetricsRegistry registry) {
+    registry.register("telemetry.sent", this.sent);
+    registry.register("telemetry.coalesced", this.coalesced);
+  }
+
+  /**
+   * Configures a channel where only the latest value is kept
+   * 
+   * @param type     the packet type of the channel
+   * @param priority the priority, lower is sent first
+   * @param rate     the maximum number of packets per second, 0 for no limit
+   */
+  public synchronized void setChannel(SCMPacketType type, int priority, double rate) {
+    Slot slot = this.slots[type.ordinal()];
+    slot.priority    = priority;
+    slot.minInterval = rate > 0 ? 1 / rate : 0;
+    slot.events      = null;
+    slot.keyed       = null;
+  }
+
+  /**
+   * Configures a channel where every packet is queued and sent in order
+   * without a rate limit. Packets are never dropped, so only use it for
+   * channels which must arrive such as errors.
+   * 
+   * @param type     the packet type of the channel
+   * @param priority the priority, lower is sent first
+   */
+  public synchronized void setEventChannel(SCMPacketType type, int priority) {
+    Slot slot = this.slots[type.ordinal()];
+    slot.priority    = priority;
+    slot.minInterval = 0;
+    slot.events      = new ArrayDeque<>();
+    slot.keyed       = null;
+    slot.latest      = null;
+  }
+
+  /**
+   * Configures a channel where one packet per key is queued and sent in order
+   * without a rate limit. The key is the first characters of the data, a new
+   * packet replaces the waiting packet of its key and keeps its place.
+   * 
+   * @param type      the packet type of the channel
+   * @param priority  the priority, lower is sent first
+   * @param keyLength the number of leading data characters forming the key
+   */
+  public synchronized void setKeyedChannel(SCMPacketType type, int priority, int keyLength) {
+    Slot slot = this.slots[type.ordinal()];
+    slot.priority    = priority;
+    slot.minInterval = 0;
+    slot.events      = null;
+    slot.keyed       = new LinkedHashMap<>();
+    slot.keyLength   = keyLength;
+    slot.latest      = null;
+  }
+
+  @Override
+  public synchronized void sendPacket(Object o, PacketSources source) {
+    if (source != PacketSources.CommandBox || !(o instanceof SCMPacket)) {
+      this.output.sendPacket(o, source);
+      return;
+    }
+    SCMPacket packet = (SCMPacket) o;
+    if (packet.getID() == null) {
+      return;
+    }
+    Slot slot = this.slots[packet.getID().ordinal()];
+    if (slot.events != null) {
+      slot.events.add(packet);
+      return;
+    }
+    if (slot.keyed != null) {
+      if (slot.keyed.put(packet.getData().substring(0, slot.keyLength), packet) != null) {
+        slot.coalesced++;
+        this.coalesced.increment();
+      }
+      return;
+    }
+    if (slot.latest != null) {
+      slot.coalesced++;
+      this.coalesced.increment();
+    }
+    slot.latest = packet;
+  }
+
+  @Override
+  public synchronized void update() {
+    double now = this.time.getSystemTime();
+    this.tokens     = Math.min(Settings.TELEMETRY_BURST_BYTES,
+        this.tokens + (now - this.lastUpdate) * Settings.TELEMETRY_BYTES_PER_SECOND);
+    this.lastUpdate = now;
+
+    while (this.tokens >= PACKET_BYTES) {
+      Slot next = this.selectNext(now);
+      if (next == null) {
+        return;
+      }
+      SCMPacket packet = next.poll();
+      next.lastSent = now;
+      this.tokens  -= PACKET_BYTES;
+      this.output.sendPacket(packet, PacketSources.CommandBox);
+      this.sent.increment();
+    }
+  }
+
+  /**
+   * Finds the waiting slot with the best priority whose rate allows it to be
+   * sent, breaking ties by sending the least recently sent first.
+   * 
+   * @param now the current time
+   * @return the slot to send or null if none can be sent
+   */
+  private Slot selectNext(double now) {
+    Slot best = null;
+    for (Slot slot : this.slots) {
+      if (!slot.hasPacket() || now - slot.lastSent < slot.minInterval) {
+        continue;
+      }
+      if (best == null || slot.priority < best.priority
+          || (slot.priority == best.priority && slot.lastSent < best.lastSent)) {
+        best = slot;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @param type the packet type of the channel
+   * @return the number of packets of the channel replaced before they could
+   *         be sent
+   */
+  public synchronized long getCoalescedCount(SCMPacketType type) {
+    return this.slots[type.ordinal()].coalesced;
+  }
+}
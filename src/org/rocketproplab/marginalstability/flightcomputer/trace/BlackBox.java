@@ -0,0 +1,421 @@
+package org.rocketproplab.marginalstability.flightcomputer.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.TickTime;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+
+/**
+ * Keeps the most recent events of every thread so the context of an error
+ * is not lost. Each thread traces into its own {@link TraceRing} of
+ * primitives, so tracing never locks or allocates once the ring of the
+ * thread exists.
+ *
+ * Events are stamped with {@link Time#getNanoTime()}. The flight computer
+ * passes the source of its {@link TickTime} rather than the latched time so
+ * events within a tick keep their own times and the dump period is measured
+ * against the running clock.
+ *
+ * When an error fires the rings are dumped to a new file in the dump
+ * directory, at most once every {@link Settings#BLACK_BOX_DUMP_PERIOD}. Files
+ * are named blackbox-N.bin after the first index not used yet so the dumps of
+ * earlier boots are kept. The dump is little endian: magic, version and the
+ * ring count, then for every ring the thread id and event count followed by
+ * the events oldest first as a time and a packed word, see {@link TraceRing}.
+ *
+ * {@link #dumpInBackground(Consumer)} only snapshots the rings on the calling
+ * thread and leaves writing and forcing the file to a low priority writer
+ * thread. Without {@link #start()} no thread is created and queued dumps can
+ * be written on the calling thread with {@link #writePending()}.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class BlackBox {
+
+  public static final int MAGIC   = 0x4242534D; // "MSBB"
+  public static final int VERSION = 1;
+
+  private static final int HEADER_SIZE      = 12;
+  private static final int RING_HEADER_SIZE = 12;
+  private static final int EVENT_SIZE       = 16;
+
+  private final int                    capacity;
+  private final Time                   time;
+  private final ThreadLocal<TraceRing> ring;
+  private final List<TraceRing>        rings;
+  private final Object                 writeLock;
+  private final ArrayDeque<Dump>       pending;
+  private Path                         directory;
+  private int                          nextIndex;
+  private double                       lastDumpTime;
+  private Thread                       writer;
+  private boolean                      running;
+
+  /**
+   * The rings of every thread as of one moment
+   */
+  private static class Snapshot {
+    private final long[]   threadIds;
+    private final long[][] events;
+
+    private Snapshot(int rings) {
+      this.threadIds = new long[rings];
+      this.events    = new long[rings][];
+    }
+  }
+
+  /**
+   * A snapshot waiting to be written by the writer thread
+   */
+  private static class Dump {
+    private final Path                  directory;
+    private final Snapshot              snapshot;
+    private final Consumer<IOException> onFailure;
+
+    private Dump(Path directory, Snapshot snapshot, Consumer<IOException> onFailure) {
+      this.directory = directory;
+      this.snapshot  = snapshot;
+      this.onFailure = onFailure;
+    }
+  }
+
+  /**
+   * Create a new black box which does not dump to disk until a directory is
+   * set
+   *
+   * @param capacity the number of events kept per thread
+   * @param time     the time events are stamped with and used to limit how
+   *                 often it is dumped
+   */
+  public BlackBox(int capacity, Time time) {
+    this.capacity  = capacity;
+    this.time      = time;
+    this.rings     = new CopyOnWriteArrayList<>();
+    this.ring      = ThreadLocal.withInitial(this::createRing);
+    this.writeLock = new Object();
+    this.pending   = new ArrayDeque<>();
+
+    this.lastDumpTime = Double.NEGATIVE_INFINITY;
+  }
+
+  private TraceRing createRing() {
+    TraceRing threadRing = new TraceRing(Thread.currentThread().getId(), this.capacity);
+    this.rings.add(threadRing);
+    return threadRing;
+  }
+
+  /**
+   * Traces an event on the calling thread
+   *
+   * @param type      the type of the event
+   * @param argumentA the first argument, only the low 24 bits are kept
+   * @param argumentB the second argument
+   */
+  public void trace(TraceType type, int argumentA, int argumentB) {
+    this.ring.get().trace(this.time.getNanoTime(), type.getCode(), argumentA, argumentB);
+  }
+
+  /**
+   * Sets where dumps are written
+   *
+   * @param directory the directory to dump to or null to never dump
+   */
+  public synchronized void setDumpDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the most recent events of the calling thread
+   *
+   * @param count the most events to return
+   * @return the events, oldest first
+   */
+  public List<TraceEvent> getRecentEvents(int count) {
+    TraceRing        threadRing = this.ring.get();
+    long[]           snapshot   = threadRing.snapshot();
+    int              kept       = snapshot.length / 2;
+    List<TraceEvent> events     = new ArrayList<>();
+    for (int i = Math.max(0, kept - count); i < kept; i++) {
+      events.add(new TraceEvent(threadRing.getThreadId(), snapshot[i * 2], snapshot[i * 2 + 1]));
+    }
+    return events;
+  }
+
+  /**
+   * Summarises the most recent events of the calling thread in one line
+   *
+   * @param count the most events to include
+   * @return the events oldest first, separated by spaces
+   */
+  public String summarize(int count) {
+    StringBuilder builder = new StringBuilder();
+    for (TraceEvent event : this.getRecentEvents(count)) {
+      if (builder.length() > 0) {
+        builder.append(' ');
+      }
+      builder.append(event);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Dumps every ring to a new file in the dump directory unless there is no
+   * directory or the last dump was less than
+   * {@link Settings#BLACK_BOX_DUMP_PERIOD} ago
+   *
+   * @return the file dumped to or null if nothing was dumped
+   * @throws IOException if the file could not be written
+   */
+  public Path dumpIfDue() throws IOException {
+    if (this.getDumpDirectory() == null || !this.claimDump()) {
+      return null;
+    }
+    return this.dumpToDirectory();
+  }
+
+  private synchronized Path getDumpDirectory() {
+    return this.directory;
+  }
+
+  /**
+   * Claims the next dump, this returns true at most once every
+   * {@link Settings#BLACK_BOX_DUMP_PERIOD} so everything done when an error
+   * fires can be limited together with the dump
+   *
+   * @return true if the caller should dump now
+   */
+  public synchronized boolean claimDump() {
+    double now = this.time.getSystemTime();
+    if (now - this.lastDumpTime < Settings.BLACK_BOX_DUMP_PERIOD) {
+      return false;
+    }
+    this.lastDumpTime = now;
+    return true;
+  }
+
+  /**
+   * Dumps every ring to a new file in the dump directory on the calling
+   * thread, named after the first index which is not used yet
+   *
+   * @return the file dumped to or null if there is no directory
+   * @throws IOException if the file could not be written
+   */
+  public Path dumpToDirectory() throws IOException {
+    Path dumpDirectory = this.getDumpDirectory();
+    if (dumpDirectory == null) {
+      return null;
+    }
+    return this.writeToDirectory(dumpDirectory, this.snapshot());
+  }
+
+  /**
+   * Snapshots every ring on the calling thread and queues the snapshot to be
+   * written to a new file in the dump directory, so the caller never waits
+   * for the disk
+   *
+   * @param onFailure called with the error on the writing thread if the dump
+   *                  could not be written
+   * @return false if there is no directory and nothing was queued
+   */
+  public boolean dumpInBackground(Consumer<IOException> onFailure) {
+    Path dumpDirectory = this.getDumpDirectory();
+    if (dumpDirectory == null) {
+      return false;
+    }
+    Dump dump = new Dump(dumpDirectory, this.snapshot(), onFailure);
+    synchronized (this.pending) {
+      this.pending.add(dump);
+      this.pending.notifyAll();
+    }
+    return true;
+  }
+
+  /**
+   * Starts the low priority thread writing the dumps queued by
+   * {@link #dumpInBackground(Consumer)}
+   */
+  public void start() {
+    synchronized (this.pending) {
+      if (this.writer != null) {
+        return;
+      }
+      this.running = true;
+      this.writer  = new Thread(this::writeLoop, "blackbox");
+      this.writer.setDaemon(true);
+      this.writer.setPriority(Thread.MIN_PRIORITY);
+      this.writer.start();
+    }
+  }
+
+  /**
+   * Stops the writer thread once the current dump is written and waits for it
+   * to exit. Queued dumps stay queued.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void stop() throws InterruptedException {
+    Thread toJoin;
+    synchronized (this.pending) {
+      this.running = false;
+      this.pending.notifyAll();
+      toJoin      = this.writer;
+      this.writer = null;
+    }
+    if (toJoin != null) {
+      toJoin.join();
+    }
+  }
+
+  /**
+   * Writes every queued dump on the calling thread, for use when there is no
+   * writer thread
+   *
+   * @return the number of dumps written or failed
+   */
+  public int writePending() {
+    int count = 0;
+    while (true) {
+      Dump dump;
+      synchronized (this.pending) {
+        dump = this.pending.poll();
+      }
+      if (dump == null) {
+        return count;
+      }
+      this.write(dump);
+      count++;
+    }
+  }
+
+  private void writeLoop() {
+    while (true) {
+      Dump dump;
+      synchronized (this.pending) {
+        while (this.running && this.pending.isEmpty()) {
+          try {
+            this.pending.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (!this.running) {
+          return;
+        }
+        dump = this.pending.poll();
+      }
+      this.write(dump);
+    }
+  }
+
+  private void write(Dump dump) {
+    try {
+      this.writeToDirectory(dump.directory, dump.snapshot);
+    } catch (IOException e) {
+      dump.onFailure.accept(e);
+    }
+  }
+
+  private Path writeToDirectory(Path dumpDirectory, Snapshot snapshot) throws IOException {
+    synchronized (this.writeLock) {
+      while (true) {
+        Path file = dumpDirectory.resolve("blackbox-" + this.nextIndex + ".bin");
+        this.nextIndex++;
+        try {
+          write(file, snapshot);
+          return file;
+        } catch (FileAlreadyExistsException e) {
+          // Dumped by an earlier boot, try the next index
+        }
+      }
+    }
+  }
+
+  /**
+   * Dumps every ring to a file which must not exist yet
+   *
+   * @param file the file to dump to
+   * @throws IOException if the file exists or could not be written
+   */
+  public void dump(Path file) throws IOException {
+    write(file, this.snapshot());
+  }
+
+  private Snapshot snapshot() {
+    List<TraceRing> dumped   = new ArrayList<>(this.rings);
+    Snapshot        snapshot = new Snapshot(dumped.size());
+    for (int i = 0; i < dumped.size(); i++) {
+      snapshot.threadIds[i] = dumped.get(i).getThreadId();
+      snapshot.events[i]    = dumped.get(i).snapshot();
+    }
+    return snapshot;
+  }
+
+  private static void write(Path file, Snapshot snapshot) throws IOException {
+    int size = HEADER_SIZE;
+    for (long[] events : snapshot.events) {
+      size += RING_HEADER_SIZE + events.length / 2 * EVENT_SIZE;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putInt(snapshot.events.length);
+    for (int i = 0; i < snapshot.events.length; i++) {
+      buffer.putLong(snapshot.threadIds[i]);
+      buffer.putInt(snapshot.events[i].length / 2);
+      for (long value : snapshot.events[i]) {
+        buffer.putLong(value);
+      }
+    }
+    buffer.flip();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Reads a dump back
+   *
+   * @param file the dump to read
+   * @return the events of every thread, each thread oldest first
+   * @throws IOException if the file is not a dump or could not be read
+   */
+  public static List<TraceEvent> read(Path file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+      throw new IOException(file + " is not a black box dump");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported black box version " + version);
+    }
+    List<TraceEvent> events = new ArrayList<>();
+    int              count  = buffer.getInt();
+    for (int ring = 0; ring < count; ring++) {
+      long threadId = buffer.getLong();
+      int  kept     = buffer.getInt();
+      for (int i = 0; i < kept; i++) {
+        events.add(new TraceEvent(threadId, buffer.getLong(), buffer.getLong()));
+      }
+    }
+    return events;
+  }
+}
@@ -0,0 +1,74 @@
+package org.rocketproplab.marginalstability.flightcomputer.trace;
+
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+
+/**
+ * A single decoded event of the {@link BlackBox}
+ *
+ * @author Max Apodaca
+ *
+ */
+public class TraceEvent {
+
+  private final long      threadId;
+  private final long      time;
+  private final TraceType type;
+  private final int       argumentA;
+  private final int       argumentB;
+
+  /**
+   * Decodes an event of a trace ring
+   *
+   * @param threadId the thread which traced the event
+   * @param time     the time of the event in ns
+   * @param word     the packed type and arguments
+   */
+  TraceEvent(long threadId, long time, long word) {
+    this.threadId  = threadId;
+    this.time      = time;
+    this.type      = TraceType.fromCode((int) (word >>> TraceRing.TYPE_SHIFT));
+    this.argumentA = (int) (word >>> TraceRing.A_SHIFT & TraceRing.A_MASK);
+    this.argumentB = (int) word;
+  }
+
+  /**
+   * @return the thread which traced the event
+   */
+  public long getThreadId() {
+    return threadId;
+  }
+
+  /**
+   * @return the {@link Time#getNanoTime()} of the black box when the event
+   *         was traced in ns
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return the type of the event or null if the code is unknown
+   */
+  public TraceType getType() {
+    return type;
+  }
+
+  /**
+   * @return the first argument, 24 bits unsigned
+   */
+  public int getArgumentA() {
+    return argumentA;
+  }
+
+  /**
+   * @return the second argument
+   */
+  public int getArgumentB() {
+    return argumentB;
+  }
+
+  @Override
+  public String toString() {
+    return this.type + "(" + this.argumentA + ", " + this.argumentB + ")";
+  }
+}
@@ -0,0 +1,85 @@
+package org.rocketproplab.marginalstability.flightcomputer.trace;
+
+/**
+ * A fixed size ring of trace events owned by a single thread. Every event is
+ * two longs, the time in ns it was traced at and a word packing the type code
+ * into the top 8 bits, argument A into the next 24 and argument B into the low
+ * 32. Once full the oldest events are overwritten.
+ *
+ * Only the owning thread may trace. Other threads may take a snapshot which
+ * can tear the event being written at that moment.
+ *
+ * @author Max Apodaca
+ *
+ */
+class TraceRing {
+
+  static final int  TYPE_SHIFT = 56;
+  static final int  A_SHIFT    = 32;
+  static final long A_MASK     = 0xFFFFFFL;
+  static final long B_MASK     = 0xFFFFFFFFL;
+
+  private final long   threadId;
+  private final long[] entries;
+  private final int    mask;
+  private long         position;
+
+  /**
+   * Create a new ring
+   *
+   * @param threadId the thread owning the ring
+   * @param capacity the number of events kept, rounded up to a power of two
+   */
+  TraceRing(long threadId, int capacity) {
+    int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.threadId = threadId;
+    this.entries  = new long[size * 2];
+    this.mask     = size - 1;
+  }
+
+  /**
+   * Traces an event, overwriting the oldest once full
+   *
+   * @param time the time of the event in ns
+   * @param code the code of the type
+   * @param a    argument A, only the low 24 bits are kept
+   * @param b    argument B
+   */
+  void trace(long time, int code, int a, int b) {
+    int slot = ((int) this.position & this.mask) << 1;
+    this.entries[slot]     = time;
+    this.entries[slot + 1] = (long) code << TYPE_SHIFT | (a & A_MASK) << A_SHIFT | (b & B_MASK);
+    this.position++;
+  }
+
+  /**
+   * @return the thread owning the ring
+   */
+  long getThreadId() {
+    return this.threadId;
+  }
+
+  /**
+   * @return the number of events the ring keeps
+   */
+  int getCapacity() {
+    return this.mask + 1;
+  }
+
+  /**
+   * Copies the kept events, oldest first, as pairs of time and word
+   *
+   * @return the events, two longs each
+   */
+  long[] snapshot() {
+    long   end    = this.position;
+    int    count  = (int) Math.min(end, this.mask + 1);
+    long[] events = new long[count * 2];
+    for (int i = 0; i < count; i++) {
+      int slot = ((int) (end - count + i) & this.mask) << 1;
+      events[i * 2]     = this.entries[slot];
+      events[i * 2 + 1] = this.entries[slot + 1];
+    }
+    return events;
+  }
+}
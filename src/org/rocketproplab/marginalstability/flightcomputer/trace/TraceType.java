@@ -0,0 +1,95 @@
+package org.rocketproplab.marginalstability.flightcomputer.trace;
+
+/**
+ * The kinds of events traced by the {@link BlackBox}. The code of each type
+ * is stored in the dump so types must never be renumbered.
+ *
+ * @author Max Apodaca
+ *
+ */
+public enum TraceType {
+
+  /**
+   * A subsystem is about to be updated, argument A is the index of the
+   * subsystem in the flight computer
+   */
+  SUBSYSTEM_ENTER(1),
+
+  /**
+   * A subsystem finished its update, argument A is the index of the subsystem
+   * and argument B is one if the update threw
+   */
+  SUBSYSTEM_EXIT(2),
+
+  /**
+   * A packet was routed, argument A is the source and direction packed by
+   * {@link #packRoute(int, int)}, argument B is the SCM packet type or -1 for
+   * other packets
+   */
+  PACKET_ROUTED(3),
+
+  /**
+   * A command was started, argument B is the identity hash of the command
+   */
+  COMMAND_START(4),
+
+  /**
+   * A command was executed, argument B is the identity hash of the command
+   */
+  COMMAND_EXECUTE(5),
+
+  /**
+   * A command ended, argument B is the identity hash of the command
+   */
+  COMMAND_END(6),
+
+  /**
+   * An error was reported, argument A is the index of the subsystem which
+   * caused it and argument B the error
+   */
+  ERROR(7);
+
+  private static final TraceType[] BY_CODE = new TraceType[8];
+  static {
+    for (TraceType type : values()) {
+      BY_CODE[type.code] = type;
+    }
+  }
+
+  private final int code;
+
+  TraceType(int code) {
+    this.code = code;
+  }
+
+  /**
+   * @return the code stored in the dump
+   */
+  public int getCode() {
+    return this.code;
+  }
+
+  /**
+   * Looks up a type by the code stored in the dump
+   *
+   * @param code the code of the type
+   * @return the type or null if the code is unknown
+   */
+  public static TraceType fromCode(int code) {
+    if (code < 0 || code >= BY_CODE.length) {
+      return null;
+    }
+    return BY_CODE[code];
+  }
+
+  /**
+   * Packs the source and direction of a routed packet into argument A
+   *
+   * @param source    the ordinal of the packet source
+   * @param direction the ordinal of the packet direction
+   * @return the packed argument
+   */
+  public static int packRoute(int source, int direction) {
+    return source << 4 | direction;
+  }
+}
@@ -0,0 +1,231 @@
+package org.rocketproplab.marginalstability.flightcomputer.tracking;
+
+/**
+ * A linear Kalman filter over the vertical position, velocity and acceleration
+ * of the rocket. The state is propagated with a constant acceleration model
+ * driven by white jerk noise. Measurements are scalar observations of either
+ * the altitude (barometer, GPS) or the acceleration (IMU) so no matrix
+ * inversion is ever needed.
+ *
+ * All of the state is held in fixed size primitive arrays which are allocated
+ * once at construction so that predicting and updating never allocates.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class AltitudeKalmanFilter {
+
+  /**
+   * Index of the altitude in the state vector
+   */
+  public static final int POSITION = 0;
+
+  /**
+   * Index of the vertical velocity in the state vector
+   */
+  public static final int VELOCITY = 1;
+
+  /**
+   * Index of the vertical acceleration in the state vector
+   */
+  public static final int ACCELERATION = 2;
+
+  private static final int STATE_SIZE = 3;
+
+  private final double[] state;
+  private final double[] covariance;
+  private final double[] transition;
+  private final double[] scratch;
+  private final double[] gain;
+  private final double   jerkNoise;
+
+  /**
+   * Create a new filter at rest at zero altitude.
+   *
+   * @param jerkNoise       the spectral density of the jerk driving the
+   *                        process noise in (m/s^3)^2/Hz
+   * @param initialVariance the variance to assign to every state at start
+   */
+  public AltitudeKalmanFilter(double jerkNoise, double initialVariance) {
+    this.state      = new double[STATE_SIZE];
+    this.covariance = new double[STATE_SIZE * STATE_SIZE];
+    this.transition = new double[STATE_SIZE * STATE_SIZE];
+    this.scratch    = new double[STATE_SIZE * STATE_SIZE];
+    this.gain       = new double[STATE_SIZE];
+    this.jerkNoise  = jerkNoise;
+    this.reset(0, initialVariance);
+  }
+
+  /**
+   * Resets the filter to be at rest at the given altitude
+   *
+   * @param altitude the altitude to start at in m
+   * @param variance the variance to assign to every state
+   */
+  public void reset(double altitude, double variance) {
+    for (int i = 0; i < STATE_SIZE * STATE_SIZE; i++) {
+      this.covariance[i] = 0;
+    }
+    for (int i = 0; i < STATE_SIZE; i++) {
+      this.state[i]                       = 0;
+      this.covariance[i * STATE_SIZE + i] = variance;
+    }
+    this.state[POSITION] = altitude;
+  }
+
+  /**
+   * Propagates the state forward by the given time step.
+   *
+   * @param dt the time step in seconds, non positive values are ignored
+   */
+  public void predict(double dt) {
+    if (!(dt > 0)) {
+      return;
+    }
+    double halfDtSquared = 0.5 * dt * dt;
+
+    double[] x = this.state;
+    x[POSITION] += dt * x[VELOCITY] + halfDtSquared * x[ACCELERATION];
+    x[VELOCITY] += dt * x[ACCELERATION];
+
+    double[] f = this.transition;
+    f[0] = 1;
+    f[1] = dt;
+    f[2] = halfDtSquared;
+    f[3] = 0;
+    f[4] = 1;
+    f[5] = dt;
+    f[6] = 0;
+    f[7] = 0;
+    f[8] = 1;
+
+    // scratch = F * P
+    double[] p = this.covariance;
+    double[] s = this.scratch;
+    for (int row = 0; row < STATE_SIZE; row++) {
+      for (int col = 0; col < STATE_SIZE; col++) {
+        double sum = 0;
+        for (int k = 0; k < STATE_SIZE; k++) {
+          sum += f[row * STATE_SIZE + k] * p[k * STATE_SIZE + col];
+        }
+        s[row * STATE_SIZE + col] = sum;
+      }
+    }
+
+    // P = scratch * F^T
+    for (int row = 0; row < STATE_SIZE; row++) {
+      for (int col = 0; col < STATE_SIZE; col++) {
+        double sum = 0;
+        for (int k = 0; k < STATE_SIZE; k++) {
+          sum += s[row * STATE_SIZE + k] * f[col * STATE_SIZE + k];
+        }
+        p[row * STATE_SIZE + col] = sum;
+      }
+    }
+
+    // P += Q for a white jerk model
+    double q   = this.jerkNoise;
+    double dt2 = dt * dt;
+    double dt3 = dt2 * dt;
+    double dt4 = dt3 * dt;
+    double dt5 = dt4 * dt;
+    double q01 = q * dt4 / 8;
+    double q02 = q * dt3 / 6;
+    double q12 = q * dt2 / 2;
+    p[0] += q * dt5 / 20;
+    p[1] += q01;
+    p[2] += q02;
+    p[3] += q01;
+    p[4] += q * dt3 / 3;
+    p[5] += q12;
+    p[6] += q02;
+    p[7] += q12;
+    p[8] += q * dt;
+  }
+
+  /**
+   * Incorporates a measurement of the altitude
+   *
+   * @param altitude the measured altitude in m
+   * @param variance the variance of the measurement in m^2
+   */
+  public void updatePosition(double altitude, double variance) {
+    this.update(POSITION, altitude, variance);
+  }
+
+  /**
+   * Incorporates a measurement of the vertical acceleration, gravity must
+   * already have been removed.
+   *
+   * @param acceleration the measured acceleration in m/s^2
+   * @param variance     the variance of the measurement in (m/s^2)^2
+   */
+  public void updateAcceleration(double acceleration, double variance) {
+    this.update(ACCELERATION, acceleration, variance);
+  }
+
+  /**
+   * Perform a scalar measurement update of the given state index.
+   *
+   * @param index       the index of the state which was measured
+   * @param measurement the measured value
+   * @param variance    the variance of the measurement
+   */
+  private void update(int index, double measurement, double variance) {
+    double[] p                  = this.covariance;
+    double[] k                  = this.gain;
+    double   innovation         = measurement - this.state[index];
+    double   innovationVariance = p[index * STATE_SIZE + index] + variance;
+    if (!(innovationVariance > 0)) {
+      return;
+    }
+
+    for (int i = 0; i < STATE_SIZE; i++) {
+      k[i]           = p[i * STATE_SIZE + index] / innovationVariance;
+      this.state[i] += k[i] * innovation;
+    }
+
+    // P = (I - K H) P, H selects the measured row of P
+    for (int row = 0; row < STATE_SIZE; row++) {
+      for (int col = 0; col < STATE_SIZE; col++) {
+        this.scratch[row * STATE_SIZE + col] = k[row] * p[index * STATE_SIZE + col];
+      }
+    }
+    for (int i = 0; i < STATE_SIZE * STATE_SIZE; i++) {
+      p[i] -= this.scratch[i];
+    }
+  }
+
+  /**
+   * @return the estimated altitude in m
+   */
+  public double getPosition() {
+    return this.state[POSITION];
+  }
+
+  /**
+   * @return the estimated vertical velocity in m/s
+   */
+  public double getVelocity() {
+    return this.state[VELOCITY];
+  }
+
+  /**
+   * @return the estimated vertical acceleration in m/s^2
+   */
+  public double getAcceleration() {
+    return this.state[ACCELERATION];
+  }
+
+  /**
+   * Gets an element of the state covariance
+   *
+   * @param row the row of the covariance matrix
+   * @param col the column of the covariance matrix
+   * @return the covariance between the two states
+   */
+  public double getCovariance(int row, int col) {
+    return this.covariance[row * STATE_SIZE + col];
+  }
+
+}
@@ -0,0 +1,171 @@
+package org.rocketproplab.marginalstability.flightcomputer.tracking;
+
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+import org.rocketproplab.marginalstability.flightcomputer.math.Quaternion;
+
+/**
+ * Estimates the orientation of the rocket from the IMU gyroscope and
+ * accelerometer using Madgwick's gradient descent AHRS filter. The gyroscope
+ * is integrated every sample and the accelerometer pulls the estimate towards
+ * the direction of gravity with a strength set by beta.
+ *
+ * The orientation rotates vectors from the IMU frame into the world frame
+ * where +z is up. Every update is done in place on a single
+ * {@link Quaternion}.
+ *
+ * @author Max Apodaca
+ *
+ */
+public class AttitudeEstimator {
+
+  private final Quaternion orientation;
+  private final double     beta;
+  private boolean          initialized;
+
+  /**
+   * Create a new attitude estimator
+   *
+   * @param beta the gain of the accelerometer correction, 0 integrates the
+   *             gyroscope only
+   */
+  public AttitudeEstimator(double beta) {
+    this.orientation = new Quaternion();
+    this.beta        = beta;
+    this.initialized = false;
+  }
+
+  /**
+   * Incorporates a single IMU sample. The first sample with a usable
+   * acceleration initializes the orientation so that it is aligned with
+   * gravity.
+   *
+   * @param gx rotation rate around x in rad/s
+   * @param gy rotation rate around y in rad/s
+   * @param gz rotation rate around z in rad/s
+   * @param ax acceleration along x in any unit
+   * @param ay acceleration along y in any unit
+   * @param az acceleration along z in any unit
+   * @param dt the time since the last sample in seconds
+   */
+  public void update(double gx, double gy, double gz, double ax, double ay, double az, double dt) {
+    double accelerationNorm = Math.sqrt(ax * ax + ay * ay + az * az);
+    if (!this.initialized && accelerationNorm > 0) {
+      this.initialize(ax / accelerationNorm, ay / accelerationNorm, az / accelerationNorm);
+      return;
+    }
+
+    double q0 = this.orientation.getW();
+    double q1 = this.orientation.getX();
+    double q2 = this.orientation.getY();
+    double q3 = this.orientation.getZ();
+
+    // Rate of change from the gyroscope
+    double qDot0 = 0.5 * (-q1 * gx - q2 * gy - q3 * gz);
+    double qDot1 = 0.5 * (q0 * gx + q2 * gz - q3 * gy);
+    double qDot2 = 0.5 * (q0 * gy - q1 * gz + q3 * gx);
+    double qDot3 = 0.5 * (q0 * gz + q1 * gy - q2 * gx);
+
+    if (accelerationNorm > 0) {
+      ax /= accelerationNorm;
+      ay /= accelerationNorm;
+      az /= accelerationNorm;
+
+      // Gradient of the error between measured and estimated gravity
+      double q0q0 = q0 * q0;
+      double q1q1 = q1 * q1;
+      double q2q2 = q2 * q2;
+      double q3q3 = q3 * q3;
+      double s0   = 4 * q0 * q2q2 + 2 * q2 * ax + 4 * q0 * q1q1 - 2 * q1 * ay;
+      double s1   = 4 * q1 * q3q3 - 2 * q3 * ax + 4 * q0q0 * q1 - 2 * q0 * ay - 4 * q1 + 8 * q1 * q1q1
+          + 8 * q1 * q2q2 + 4 * q1 * az;
+      double s2   = 4 * q0q0 * q2 + 2 * q0 * ax + 4 * q2 * q3q3 - 2 * q3 * ay - 4 * q2 + 8 * q2 * q1q1
+          + 8 * q2 * q2q2 + 4 * q2 * az;
+      double s3   = 4 * q1q1 * q3 - 2 * q1 * ax + 4 * q2q2 * q3 - 2 * q2 * ay;
+
+      double stepNorm = Math.sqrt(s0 * s0 + s1 * s1 + s2 * s2 + s3 * s3);
+      if (stepNorm > 0) {
+        double scale = this.beta / stepNorm;
+        qDot0 -= scale * s0;
+        qDot1 -= scale * s1;
+        qDot2 -= scale * s2;
+        qDot3 -= scale * s3;
+      }
+    }
+
+    this.orientation.set(q0 + qDot0 * dt, q1 + qDot1 * dt, q2 + qDot2 * dt, q3 + qDot3 * dt);
+    this.orientation.normalize();
+  }
+
+  /**
+   * Sets the orientation to the smallest rotation taking the unit acceleration
+   * onto +z.
+   *
+   * @param ax normalized acceleration along x
+   * @param ay normalized acceleration along y
+   * @param az normalized acceleration along z
+   */
+  private void initialize(double ax, double ay, double az) {
+    if (az < -1 + 1e-9) {
+      this.orientation.set(0, 1, 0, 0);
+    } else {
+      this.orientation.set(1 + az, ay, -ax, 0).normalize();
+    }
+    this.initialized = true;
+  }
+
+  /**
+   * Rotates a vector in the IMU frame stored as three consecutive doubles into
+   * the world frame in place.
+   *
+   * @param vector the array holding the vector
+   * @param offset the index of the x component in the array
+   */
+  public void toWorldFrame(double[] vector, int offset) {
+    this.orientation.rotate(vector, offset);
+  }
+
+  /**
+   * Rotates a vector in the IMU frame into the world frame in place.
+   *
+   * @param vector the vector to rotate
+   * @return the vector
+   */
+  public MutableVector3 toWorldFrame(MutableVector3 vector) {
+    return this.orientation.rotate(vector);
+  }
+
+  /**
+   * Gets the current orientation, this is updated in place so copy it if it
+   * must be kept.
+   *
+   * @return the orientation from the IMU frame to the world frame
+   */
+  public Quaternion getOrientation() {
+    return this.orientation;
+  }
+
+  /**
+   * @return the angle between the rocket's z axis and vertical in radians
+   */
+  public double getTiltAngle() {
+    return this.orientation.getTiltAngle();
+  }
+
+  /**
+   * Returns if the rocket is tilted further than the given angle from vertical
+   *
+   * @param maxTilt the largest allowable tilt in radians
+   * @return if the rocket is tilted more than maxTilt
+   */
+  public boolean isTumbling(double maxTilt) {
+    return this.getTiltAngle() > maxTilt;
+  }
+
+  /**
+   * @return if a sample has been used to initialize the orientation
+   */
+  public boolean isInitialized() {
+    return this.initialized;
+  }
+
+}
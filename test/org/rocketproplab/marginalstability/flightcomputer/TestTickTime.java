@@ -0,0 +1,88 @@
+package org.rocketproplab.marginalstability.flightcomputer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+
+public class TestTickTime {
+
+  private class ManualTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  @Test
+  public void timeOnlyChangesWhenLatched() {
+    ManualTime source = new ManualTime();
+    TickTime   time   = new TickTime(source);
+    source.time = 5;
+    assertEquals(0, time.getSystemTime(), 0);
+    time.latch();
+    assertEquals(5, time.getSystemTime(), 0);
+  }
+
+  @Test
+  public void sharedInstanceIsSingleClock() {
+    TickTime time = TickTime.getInstance();
+    assertSame(time, TickTime.getInstance());
+    assertFalse(time.getSource() instanceof TickTime);
+  }
+
+  @Test
+  public void sharedInstanceFollowsTheInjectedSource() {
+    TickTime   time     = TickTime.getInstance();
+    Time       previous = time.getSource();
+    ManualTime source   = new ManualTime();
+    source.time = 42;
+    try {
+      time.setSource(source);
+      assertSame(source, TickTime.getInstance().getSource());
+      assertEquals(42, time.getSystemTime(), 0);
+      source.time = 43;
+      time.latch();
+      assertEquals(43, time.getSystemTime(), 0);
+    } finally {
+      time.setSource(previous);
+    }
+  }
+
+  @Test
+  public void flightComputerLatchesEveryTick() {
+    ManualTime     source         = new ManualTime();
+    TickTime       time           = new TickTime(source);
+    FlightComputer flightComputer = new FlightComputer(new Telemetry(Logger.getLogger("Test"), null), time);
+    List<Double>   seen           = new ArrayList<>();
+    flightComputer.registerSubsystem(() -> seen.add(time.getSystemTime()));
+    flightComputer.registerSubsystem(() -> {
+      source.time += 1;
+      seen.add(time.getSystemTime());
+    });
+    source.time = 10;
+    flightComputer.tick();
+    assertEquals(10, seen.get(0), 0);
+    assertEquals(10, seen.get(1), 0);
+    flightComputer.tick();
+    assertEquals(11, seen.get(2), 0);
+  }
+
+  @Test
+  public void nanoTimeIsLatched() {
+    TickTime time  = new TickTime(new Time());
+    long     first = time.getNanoTime();
+    assertEquals(first, time.getNanoTime());
+    time.latch();
+    assertTrue(time.getNanoTime() >= first);
+  }
+}
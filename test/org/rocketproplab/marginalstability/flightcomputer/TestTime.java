@@ -0,0 +1,30 @@
+package org.rocketproplab.marginalstability.flightcomputer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestTime {
+
+  @Test
+  public void timeStartsAtWallClock() {
+    double wallClock = System.currentTimeMillis() / Settings.MS_PER_SECOND;
+    assertEquals(wallClock, new Time().getSystemTime(), 1);
+  }
+
+  @Test
+  public void timeNeverGoesBackwards() {
+    Time   time     = new Time();
+    double previous = time.getSystemTime();
+    long   nanos    = time.getNanoTime();
+    for (int i = 0; i < 10000; i++) {
+      double current = time.getSystemTime();
+      long   nano    = time.getNanoTime();
+      assertTrue(current >= previous);
+      assertTrue(nano >= nanos);
+      previous = current;
+      nanos    = nano;
+    }
+  }
+}
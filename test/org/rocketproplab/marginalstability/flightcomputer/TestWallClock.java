@@ -0,0 +1,79 @@
+package org.rocketproplab.marginalstability.flightcomputer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+
+public class TestWallClock {
+
+  private static final double EPSILON = 1e-6;
+
+  private class ManualTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private ManualTime time;
+  private WallClock  clock;
+
+  @Before
+  public void init() {
+    this.time  = new ManualTime();
+    this.clock = new WallClock(this.time);
+  }
+
+  @Test
+  public void nmeaTimeIsConvertedToSecondsOfDay() {
+    assertEquals(12 * 3600 + 35 * 60 + 19.5, WallClock.toSecondsOfDay(123519.5), EPSILON);
+    assertEquals(0, WallClock.toSecondsOfDay(0), EPSILON);
+  }
+
+  @Test
+  public void firstFixSetsWallTime() {
+    assertFalse(this.clock.isSynchronized());
+    this.time.time = 100;
+    this.clock.onPacket(PacketDirection.RECIVE, new GPSPacket(0, 0, 0, 123519, 8));
+    assertTrue(this.clock.isSynchronized());
+    this.time.time = 102;
+    assertEquals(WallClock.toSecondsOfDay(123521), this.clock.getWallTime(), EPSILON);
+  }
+
+  @Test
+  public void smallErrorsAreSlewed() {
+    this.clock.discipline(1000);
+    this.time.time = 10;
+    this.clock.discipline(1010.5);
+    assertEquals(1010 + 0.5 * Settings.WALL_CLOCK_GAIN, this.clock.getWallTime(), EPSILON);
+  }
+
+  @Test
+  public void largeErrorsAreStepped() {
+    this.clock.discipline(1000);
+    this.time.time = 10;
+    this.clock.discipline(1100);
+    assertEquals(1100, this.clock.getWallTime(), EPSILON);
+  }
+
+  @Test
+  public void midnightWrapIsNotAJump() {
+    this.clock.discipline(86399);
+    this.time.time = 2;
+    this.clock.discipline(1.2);
+    assertEquals(1 + 0.2 * Settings.WALL_CLOCK_GAIN, this.clock.getWallTime(), EPSILON);
+  }
+
+  @Test
+  public void invalidFixesAreIgnored() {
+    this.clock.onPacket(PacketDirection.RECIVE, new GPSPacket(null));
+    assertFalse(this.clock.isSynchronized());
+  }
+}
@@ -3,6 +3,7 @@ package org.rocketproplab.marginalstability.flightcomputer.comm;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics;
 
 public class TestGPSTransceiver {
 
@@ -36,4 +37,15 @@ public class TestGPSTransceiver {
     assertEquals(null, listener.lastPacket);
   }
 
+  @Test
+  public void testGPSTransceiverCountsFrames() {
+    LinkStatistics statistics = new LinkStatistics();
+    GPSTransceiver tx         = new GPSTransceiver(new PacketRouter(), statistics);
+    tx.onSerialData("$GPGGA,420,-32,N,7,W,2,12,1.2,100000,M,-25.669,M,2.0,0031*4F");
+    tx.onSerialData("$GPGGA,420");
+
+    assertEquals(1, statistics.get(LinkStatistics.Counter.FRAMES));
+    assertEquals(1, statistics.get(LinkStatistics.Counter.INVALID_FRAMES));
+  }
+
 }
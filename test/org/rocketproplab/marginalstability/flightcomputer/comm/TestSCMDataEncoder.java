@@ -0,0 +1,83 @@
+package org.rocketproplab.marginalstability.flightcomputer.comm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestSCMDataEncoder {
+
+  /**
+   * The formatting Telemetry used before the encoder, for values which fit
+   */
+  private static String formatFloat(double value) {
+    String formatted = String.format("%05f", value).toUpperCase();
+    int    toPrint   = Math.min(formatted.length(), SCMPacket.DATA_LENGTH);
+    int    padLen    = SCMPacket.DATA_LENGTH - toPrint;
+    formatted = formatted.substring(0, toPrint);
+    if (padLen > 0) {
+      formatted = String.format("%" + padLen + "s", formatted);
+    }
+    return formatted;
+  }
+
+  @Test
+  public void decimalMatchesFormat() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    int[]          values  = { 0, 7, 42, 12345, 99999, -1, -42, -9999 };
+    for (int value : values) {
+      assertEquals(String.format("%05d", value), encoder.putDecimal(value).getData());
+    }
+  }
+
+  @Test
+  public void hexIsUpperCaseAndPadded() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    assertEquals("000FF", encoder.putHex(255).getData());
+    assertEquals("FFFFF", encoder.putHex(0xFFFFF).getData());
+    assertEquals("00000", encoder.putHex(0).getData());
+  }
+
+  @Test
+  public void negativeHexHasSign() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    assertEquals("-00FF", encoder.putHex(-255).getData());
+    assertEquals("-FFFF", encoder.putHex(-0xFFFF).getData());
+  }
+
+  @Test
+  public void floatMatchesFormat() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    double[]       values  = { 0, -0.0, 35.3, -1.23456, 1.9999, 1.99999999, 99999.5, -9999.9, 0.000001,
+        123.456789, 7, Double.NaN };
+    for (double value : values) {
+      assertEquals(formatFloat(value), encoder.putFloat(value).getData());
+    }
+  }
+
+  @Test
+  public void randomFloatsMatchFormat() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    Random         random  = new Random(37);
+    for (int i = 0; i < 10000; i++) {
+      double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(6));
+      assertEquals("Formatting " + value, formatFloat(value), encoder.putFloat(value).getData());
+    }
+  }
+
+  @Test
+  public void putCopiesFiveCharacters() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    assertEquals("INF  ", encoder.put("INF  ").getData());
+  }
+
+  @Test
+  public void putHexWritesFixedWidthDigits() {
+    SCMDataEncoder encoder = new SCMDataEncoder();
+    assertEquals("0A0FF", encoder.putHex(10, 0, 2).putHex(255, 2, 3).getData());
+    assertEquals("0A234", encoder.putHex(0x1234, 2, 3).getData());
+    assertEquals("1X234", encoder.putHex(1, 0, 1).putChar('X', 1).getData());
+    assertEquals("1XFFF", encoder.putHex(-1, 2, 3).getData());
+  }
+}
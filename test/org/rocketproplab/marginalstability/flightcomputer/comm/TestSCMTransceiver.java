@@ -6,6 +6,7 @@ import java.util.ArrayList;
 
 import org.junit.Test;
 import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics;
 import org.rocketproplab.marginalstability.flightcomputer.hal.SerialPort;
 
 public class TestSCMTransceiver {
@@ -90,4 +91,20 @@ public class TestSCMTransceiver {
     assertEquals(0, port.lastWritten.size());
   }
 
+  @Test
+  public void testSCMTransceiverCountsFrames() {
+    PacketRouter   router     = new PacketRouter();
+    LinkStatistics statistics = new LinkStatistics();
+    SCMTransceiver tx         = new SCMTransceiver(new TestSerialPort(), router,
+        PacketSources.EngineControllerUnit, statistics);
+    String valid = new SCMPacket(SCMPacketType.VS, "10010").toString();
+    tx.onSerialData(valid);
+    tx.onSerialData(valid.substring(0, 9) + "00;");
+    tx.onSerialData("garbage");
+
+    assertEquals(1, statistics.get(LinkStatistics.Counter.FRAMES));
+    assertEquals(1, statistics.get(LinkStatistics.Counter.CHECKSUM_FAILURES));
+    assertEquals(1, statistics.get(LinkStatistics.Counter.INVALID_FRAMES));
+  }
+
 }
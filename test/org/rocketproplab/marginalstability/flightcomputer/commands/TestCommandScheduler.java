@@ -58,6 +58,22 @@ public class TestCommandScheduler {
     assertEquals(1, command1.getNumberOfTimesExecuted());
   }
 
+  @Test
+  public void finishedCommandIsEnded() {
+    CommandScheduler cs      = new CommandScheduler();
+    DummyCommand     command = new DummyCommand();
+    command.doneAfter = 2;
+
+    cs.scheduleCommand(command);
+    cs.tick();
+    assertTrue(command.started);
+    cs.tick();
+    assertTrue(command.isDone());
+    assertTrue(command.started);
+    cs.tick();
+    assertFalse(command.started);
+  }
+
   @Test
   public void testSchedulerGetCommandUsingSubsystem() {
     CommandScheduler cs = new CommandScheduler();
@@ -0,0 +1,184 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BusExecutorTest {
+
+  private class RecordingTransaction extends BusTransaction {
+    private final String       name;
+    private final List<String> order;
+    public Exception           toThrow;
+    public RuntimeException    toThrowOnComplete;
+    public Throwable           completedWith;
+    public Thread              thread;
+
+    public RecordingTransaction(String name, BusPriority priority, List<String> order) {
+      super(priority);
+      this.name  = name;
+      this.order = order;
+    }
+
+    @Override
+    protected void execute() throws IOException {
+      this.thread = Thread.currentThread();
+      this.order.add(this.name);
+      if (this.toThrow instanceof IOException) {
+        throw (IOException) this.toThrow;
+      } else if (this.toThrow != null) {
+        throw (RuntimeException) this.toThrow;
+      }
+    }
+
+    @Override
+    protected void onComplete(Throwable error) {
+      this.completedWith = error;
+      if (this.toThrowOnComplete != null) {
+        throw this.toThrowOnComplete;
+      }
+    }
+  }
+
+  @Test
+  public void transactionsRunByPriorityThenSubmissionOrder() {
+    BusExecutor  bus   = new BusExecutor("test", 8);
+    List<String> order = new ArrayList<>();
+    bus.submit(new RecordingTransaction("background", BusPriority.BACKGROUND, order));
+    bus.submit(new RecordingTransaction("baro1", BusPriority.BAROMETER, order));
+    bus.submit(new RecordingTransaction("imu", BusPriority.IMU, order));
+    bus.submit(new RecordingTransaction("baro2", BusPriority.BAROMETER, order));
+    bus.submit(new RecordingTransaction("serial", BusPriority.SERIAL, order));
+    assertEquals(5, bus.runPending());
+    assertEquals(List.of("imu", "baro1", "baro2", "serial", "background"), order);
+  }
+
+  @Test
+  public void pendingTransactionIsNotQueuedTwice() {
+    BusExecutor          bus         = new BusExecutor("test", 8);
+    List<String>         order       = new ArrayList<>();
+    RecordingTransaction transaction = new RecordingTransaction("a", BusPriority.IMU, order);
+    assertTrue(bus.submit(transaction));
+    assertTrue(transaction.isPending());
+    assertFalse(bus.submit(transaction));
+    bus.runPending();
+    assertFalse(transaction.isPending());
+    assertTrue(bus.submit(transaction));
+    bus.runPending();
+    assertEquals(2, order.size());
+  }
+
+  @Test
+  public void fullQueueRejectsSubmission() {
+    BusExecutor  bus   = new BusExecutor("test", 1);
+    List<String> order = new ArrayList<>();
+    assertTrue(bus.submit(new RecordingTransaction("a", BusPriority.IMU, order)));
+    RecordingTransaction rejected = new RecordingTransaction("b", BusPriority.IMU, order);
+    assertFalse(bus.submit(rejected));
+    assertFalse(rejected.isPending());
+  }
+
+  @Test
+  public void errorIsPassedToCompletion() {
+    BusExecutor          bus         = new BusExecutor("test", 1);
+    RecordingTransaction transaction = new RecordingTransaction("a", BusPriority.IMU, new ArrayList<>());
+    transaction.toThrow = new IOException("Bus fault");
+    bus.submit(transaction);
+    bus.runPending();
+    assertSame(transaction.toThrow, transaction.completedWith);
+    assertSame(transaction.toThrow, transaction.getError());
+  }
+
+  @Test
+  public void runtimeExceptionCompletesTransaction() throws InterruptedException {
+    BusExecutor          bus         = new BusExecutor("i2c", 1);
+    RecordingTransaction transaction = new RecordingTransaction("a", BusPriority.IMU, new ArrayList<>());
+    transaction.toThrow = new IllegalStateException("Driver bug");
+    bus.start();
+    try {
+      assertTrue(bus.submit(transaction));
+      assertSame(transaction.toThrow, transaction.awaitCompletion());
+      assertSame(transaction.toThrow, transaction.completedWith);
+
+      transaction.toThrow = null;
+      assertTrue(bus.submit(transaction));
+      assertNull(transaction.awaitCompletion());
+    } finally {
+      bus.stop();
+    }
+  }
+
+  @Test
+  public void completionExceptionBecomesTheError() {
+    BusExecutor          bus         = new BusExecutor("test", 1);
+    RecordingTransaction transaction = new RecordingTransaction("a", BusPriority.IMU, new ArrayList<>());
+    transaction.toThrowOnComplete = new IllegalStateException("Listener bug");
+    bus.submit(transaction);
+    bus.runPending();
+    assertFalse(transaction.isPending());
+    assertSame(transaction.toThrowOnComplete, transaction.getError());
+
+    transaction.toThrow = new IOException("Bus fault");
+    bus.submit(transaction);
+    bus.runPending();
+    assertSame(transaction.toThrow, transaction.getError());
+    assertSame(transaction.toThrowOnComplete, transaction.getError().getSuppressed()[0]);
+  }
+
+  @Test
+  public void completionRethrowingTheErrorKeepsTheBusRunning() throws InterruptedException {
+    BusExecutor           bus         = new BusExecutor("i2c", 1);
+    RecordingTransaction  transaction = new RecordingTransaction("a", BusPriority.IMU, new ArrayList<>());
+    IllegalStateException error       = new IllegalStateException("Driver bug");
+    transaction.toThrow           = error;
+    transaction.toThrowOnComplete = error;
+    bus.start();
+    try {
+      assertTrue(bus.submit(transaction));
+      assertSame(error, transaction.awaitCompletion());
+      assertEquals(0, error.getSuppressed().length);
+
+      transaction.toThrow           = null;
+      transaction.toThrowOnComplete = null;
+      assertTrue(bus.submit(transaction));
+      assertNull(transaction.awaitCompletion());
+    } finally {
+      bus.stop();
+    }
+  }
+
+  @Test
+  public void ownerThreadRunsTransactions() throws InterruptedException {
+    BusExecutor          bus         = new BusExecutor("i2c", 4);
+    List<String>         order       = new ArrayList<>();
+    RecordingTransaction transaction = new RecordingTransaction("a", BusPriority.IMU, order);
+    bus.start();
+    try {
+      for (int i = 0; i < 100; i++) {
+        assertTrue(bus.submit(transaction));
+        assertNull(transaction.awaitCompletion());
+      }
+    } finally {
+      bus.stop();
+    }
+    assertEquals(100, order.size());
+    assertEquals("i2c", transaction.thread.getName());
+  }
+
+  @Test
+  public void pollTransactionPollsSensor() {
+    BusExecutor bus    = new BusExecutor("test", 1);
+    int[]       polled = { 0 };
+    bus.submit(new PollTransaction(() -> polled[0]++, BusPriority.IMU));
+    bus.runPending();
+    assertEquals(1, polled[0]);
+  }
+}
@@ -0,0 +1,85 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ByteRingBufferTest {
+
+  @Test
+  public void readReturnsWrittenBytesInOrder() {
+    ByteRingBuffer buffer = new ByteRingBuffer(16);
+    assertEquals(5, buffer.write("Hello"));
+    byte[] out = new byte[8];
+    assertEquals(5, buffer.read(out, 1, 8));
+    assertEquals("Hello", new String(out, 1, 5));
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void writesWrapAroundTheEnd() {
+    ByteRingBuffer buffer = new ByteRingBuffer(8);
+    byte[]         out    = new byte[8];
+    buffer.write("abcdef");
+    buffer.read(out, 0, 4);
+    assertEquals(6, buffer.write("ghijkl"));
+    assertEquals(8, buffer.size());
+    assertEquals(8, buffer.read(out, 0, 8));
+    assertEquals("efghijkl", new String(out));
+  }
+
+  @Test
+  public void byteWritesWrapAroundTheEnd() {
+    ByteRingBuffer buffer = new ByteRingBuffer(4);
+    byte[]         out    = new byte[4];
+    buffer.write(new byte[] { 1, 2, 3 }, 0, 3);
+    buffer.read(out, 0, 2);
+    assertEquals(3, buffer.write(new byte[] { 9, 4, 5, 6 }, 1, 3));
+    assertEquals(4, buffer.read(out, 0, 4));
+    assertEquals(3, out[0]);
+    assertEquals(4, out[1]);
+    assertEquals(5, out[2]);
+    assertEquals(6, out[3]);
+  }
+
+  @Test
+  public void overflowIsDroppedWhole() {
+    ByteRingBuffer buffer = new ByteRingBuffer(4);
+    assertEquals(0, buffer.write("Hello"));
+    assertEquals(0, buffer.size());
+    assertEquals(3, buffer.write("Hel"));
+    assertEquals(0, buffer.write("lo"));
+    assertEquals(1, buffer.write("!"));
+    assertEquals(0, buffer.remaining());
+    byte[] out = new byte[4];
+    buffer.read(out, 0, 4);
+    assertEquals("Hel!", new String(out));
+  }
+
+  @Test
+  public void fullRingQueuesNoPartialFrame() {
+    ByteRingBuffer buffer = new ByteRingBuffer(8);
+    assertEquals(5, buffer.write("ABCD\n"));
+    assertEquals(0, buffer.write("EFGH\n"));
+    assertEquals(3, buffer.remaining());
+    assertEquals(0, buffer.write(new byte[] { 'E', 'F', 'G', 'H' }, 0, 4));
+    assertEquals(5, buffer.size());
+    byte[] out = new byte[8];
+    assertEquals(5, buffer.read(out, 0, 8));
+    assertEquals("ABCD\n", new String(out, 0, 5));
+  }
+
+  @Test
+  public void nonAsciiIsReplaced() {
+    ByteRingBuffer buffer = new ByteRingBuffer(4);
+    buffer.write("a\u00e9b");
+    byte[] out = new byte[3];
+    buffer.read(out, 0, 3);
+    assertEquals("a?b", new String(out));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroCapacityIsRejected() {
+    new ByteRingBuffer(0);
+  }
+}
@@ -182,6 +182,28 @@ public class LPS22HDTest {
 	  assertEquals(105, barometer.getLastMeasurementTime(), 0.000000001);
   }
   
+  public class SteppedTime extends Time {
+	  public double time = 105;
+	  
+	  public double getSystemTime() {
+		  return time;
+	  }
+  }
+  
+  @Test
+  public void getLastMeasurementTimeKeepsSubSecondSamples() {
+	  MockI2CDevice i2c = new MockI2CDevice();
+	  SteppedTime time = new SteppedTime();
+	  LPS22HD barometer = new LPS22HD(i2c, time);
+	  
+	  i2c.initValuesOne();
+	  for (int i = 0; i < 25; i++) {
+		  time.time = 105 + i * 0.04;
+		  barometer.poll();
+		  assertEquals(time.time, barometer.getLastMeasurementTime(), 0.000000001);
+	  }
+  }
+  
   @Test
   public void inUsableRangeTests () {
 	  MockI2CDevice i2c = new MockI2CDevice();
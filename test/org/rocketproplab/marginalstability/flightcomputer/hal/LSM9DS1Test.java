@@ -177,6 +177,18 @@ public class LSM9DS1Test {
     assertEquals(expectedGyro, gyro);
   }
 
+  @Test
+  public void buildReadingDoesNotSignExtendLowByte() {
+    byte[]     data         = new byte[] { -0x80, 0x01, -1, 0x7F, -0x56, -0x80, -0x01, 0, 0, 0, 0, 0 };
+    IMUReading reading      = imu.buildReading(data);
+    Vector3    gyro         = reading.getXYZRotation();
+    Vector3    expectedGyro = new Vector3(0x0180, 0x7FFF, -0x7F56);
+    assertEquals(expectedGyro, gyro);
+    Vector3 acc         = reading.getXYZAcceleration();
+    Vector3 expectedAcc = new Vector3(0xFF, 0, 0);
+    assertEquals(expectedAcc, acc);
+  }
+
   @Test
   public void pollReadsAccAndGyroDataCorrectly() {
     mockI2C.readMap.put(LSM9DS1.Registers.FIFO_SRC.getAddress(), (byte) 1);
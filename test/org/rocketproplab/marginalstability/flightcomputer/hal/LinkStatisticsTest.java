@@ -0,0 +1,66 @@
+package org.rocketproplab.marginalstability.flightcomputer.hal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics.Counter;
+
+public class LinkStatisticsTest {
+
+  @Test
+  public void countersStartAtZero() {
+    LinkStatistics statistics = new LinkStatistics();
+    for (Counter counter : Counter.values()) {
+      assertEquals(0, statistics.get(counter));
+    }
+  }
+
+  @Test
+  public void incrementAndAddAccumulate() {
+    LinkStatistics statistics = new LinkStatistics();
+    statistics.increment(Counter.FRAMES);
+    statistics.increment(Counter.FRAMES);
+    statistics.add(Counter.BYTES_IN, 12);
+    statistics.add(Counter.BYTES_IN, 3);
+    assertEquals(2, statistics.get(Counter.FRAMES));
+    assertEquals(15, statistics.get(Counter.BYTES_IN));
+    assertEquals(0, statistics.get(Counter.BYTES_OUT));
+  }
+
+  @Test
+  public void fifoDepthKeepsMaximum() {
+    LinkStatistics statistics = new LinkStatistics();
+    statistics.recordFifoDepth(10);
+    statistics.recordFifoDepth(64);
+    statistics.recordFifoDepth(5);
+    assertEquals(64, statistics.get(Counter.MAX_FIFO_DEPTH));
+  }
+
+  @Test
+  public void snapshotDoesNotChange() {
+    LinkStatistics statistics = new LinkStatistics();
+    statistics.increment(Counter.OVERRUNS);
+    LinkStatistics.Snapshot snapshot = statistics.snapshot();
+    statistics.increment(Counter.OVERRUNS);
+    assertEquals(1, snapshot.get(Counter.OVERRUNS));
+    assertEquals(2, statistics.get(Counter.OVERRUNS));
+  }
+
+  @Test
+  public void concurrentIncrementsAreNotLost() throws InterruptedException {
+    LinkStatistics statistics = new LinkStatistics();
+    Thread[]       threads    = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          statistics.increment(Counter.BYTES_OUT);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(40000, statistics.get(Counter.BYTES_OUT));
+  }
+}
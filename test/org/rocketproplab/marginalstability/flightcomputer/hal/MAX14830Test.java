@@ -2,17 +2,30 @@ package org.rocketproplab.marginalstability.flightcomputer.hal;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830.FlowControl;
 import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830.Port;
 
 public class MAX14830Test {
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
   private MockSPI spi;
   private MAX14830 max14830;
   
@@ -216,4 +229,226 @@ public class MAX14830Test {
     assertEquals(1, lastData[2]);
     assertEquals(0, lastData[3]);
   }
+  
+  @Test
+  public void enableInterruptsConfiguresEveryPort() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.enableInterrupts();
+    for (int uart = 0; uart < 4; uart++) {
+      int select = uart << 5;
+      byte[] irqEn = this.spi.lastWrittenMap.get((int) (byte) (0x80 | select | 0x01));
+      assertEquals(0b00101001, irqEn[1]);
+      byte[] lsrIntEn = this.spi.lastWrittenMap.get((int) (byte) (0x80 | select | 0x03));
+      assertEquals(0b00001011, lsrIntEn[1]);
+      assertTrue(this.spi.lastWrittenMap.containsKey((int) (byte) (0x80 | select | 0x0C)));
+    }
+  }
+  
+  @Test
+  public void idleInterruptPollReadsOnlyGlobalIRQ() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.enableInterrupts();
+    this.spi.toReturnMap.put(0x1F, new byte[] {0, 0x0F});
+    this.spi.lastWrittenMap.clear();
+    this.spi.writeCount = 0;
+    this.max14830.poll();
+    assertEquals(1, this.spi.writeCount);
+    assertTrue(this.spi.lastWrittenMap.containsKey(0x1F));
+  }
+  
+  @Test
+  public void interruptPollReadsOnlyPendingPort() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    final ArrayList<String> writeList = new ArrayList<>();
+    this.max14830.getPort(Port.UART1).registerListener(writeList::add);
+    this.max14830.enableInterrupts();
+    this.spi.toReturnMap.put(0x1F, new byte[] {0, 0b1101});
+    this.spi.toReturnMap.put(0x20 | 0x02, new byte[] {0, 0b00001000, 0, 0});
+    this.spi.toReturnMap.put(0x20 | 0x11, new byte[] {0, 3, 5});
+    this.spi.toReturnMap.put(0x20, "\0Hello".getBytes(Charset.forName("US-ASCII")));
+    this.spi.lastWrittenMap.clear();
+    this.spi.writeCount = 0;
+    this.max14830.poll();
+    assertEquals(4, this.spi.writeCount);
+    assertEquals(3, this.spi.lastWrittenMap.get(0x20 | 0x11).length);
+    assertEquals(6, this.spi.lastWrittenMap.get(0x20).length);
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x12));
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x60 | 0x12));
+    assertEquals(1, writeList.size());
+    assertEquals("Hello", writeList.get(0));
+  }
+  
+  @Test
+  public void interruptWithoutRxEventDoesNotReadFifo() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.enableInterrupts();
+    this.spi.toReturnMap.put(0x1F, new byte[] {0, 0b1110});
+    this.spi.toReturnMap.put(0x02, new byte[] {0, 0b00100000, 0, 0});
+    this.spi.lastWrittenMap.clear();
+    this.max14830.poll();
+    assertTrue(this.spi.lastWrittenMap.containsKey(0x02));
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x11));
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x00));
+  }
+  
+  @Test
+  public void portReportsBackpressureAboveWatermark() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    SerialPort port = this.max14830.getPort(Port.UART2);
+    port.write(repeat('a', Settings.MAX14830_TX_HIGH_WATERMARK));
+    assertFalse(port.isBackpressured());
+    port.write("b");
+    assertTrue(port.isBackpressured());
+    assertFalse(this.max14830.getPort(Port.UART0).isBackpressured());
+    
+    this.spi.toReturnMap.put(0x40 | 0x11, new byte[] {0, 0});
+    this.max14830.poll();
+    this.max14830.poll();
+    assertFalse(port.isBackpressured());
+  }
+  
+  @Test
+  public void frameWhichDoesNotFitIsDroppedWhole() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    SerialPort port = this.max14830.getPort(Port.UART0);
+    port.write(repeat('a', Settings.MAX14830_TX_RING_SIZE - 2));
+    port.write("Hello");
+    LinkStatistics statistics = this.max14830.getStatistics(Port.UART0);
+    assertEquals(1, statistics.get(LinkStatistics.Counter.TX_DROPPED));
+    assertEquals(0, this.max14830.writeToPort(Port.UART0, "Hi!"));
+    assertEquals(2, statistics.get(LinkStatistics.Counter.TX_DROPPED));
+    assertEquals(2, this.max14830.writeToPort(Port.UART0, "Hi"));
+    assertEquals(2, statistics.get(LinkStatistics.Counter.TX_DROPPED));
+  }
+  
+  @Test
+  public void emptyBufferWritesNothing() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    assertEquals(0, this.max14830.writeToTxFifo(Port.UART0, 10));
+    assertFalse(this.spi.lastWrittenMap.containsKey(-0x80));
+  }
+  
+  @Test
+  public void byteListenerGetsRawBytesWithoutCommand() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    final ArrayList<String> writeList = new ArrayList<>();
+    this.max14830.getPort(Port.UART0).registerByteListener(data -> {
+      assertTrue(data.isReadOnly());
+      byte[] bytes = new byte[data.remaining()];
+      data.get(bytes);
+      writeList.add(new String(bytes, Charset.forName("US-ASCII")));
+    });
+    this.spi.toReturnMap.put(0x12, new byte[] {0, 5});
+    this.spi.toReturnMap.put(0, "\0Hello".getBytes(Charset.forName("US-ASCII")));
+    this.max14830.poll();
+    assertEquals(1, writeList.size());
+    assertEquals("Hello", writeList.get(0));
+  }
+  
+  private String repeat(char c, int count) {
+    char[] data = new char[count];
+    Arrays.fill(data, c);
+    return new String(data);
+  }
+  
+  @Test
+  public void txFifoDrainIsPredictedFromBaudrate() throws IOException {
+    TestTime time = new TestTime();
+    this.max14830 = new MAX14830(this.spi, null, time);
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.setBaudrate(Port.UART0, 115200);
+    this.max14830.getPort(Port.UART0).write(repeat('a', 500));
+    
+    this.spi.toReturnMap.put(0x11, new byte[] {0, 0});
+    this.max14830.poll();
+    assertTrue(this.spi.lastWrittenMap.containsKey(0x11));
+    assertEquals(129, this.spi.lastWrittenMap.get(-0x80).length);
+    
+    // 115200 baud with 10 bits per character drains 11520 bytes per second
+    time.time = 0.005;
+    this.spi.lastWrittenMap.clear();
+    this.max14830.poll();
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x11));
+    assertEquals(58, this.spi.lastWrittenMap.get(-0x80).length);
+    
+    time.time = 0.0051;
+    this.spi.lastWrittenMap.clear();
+    this.max14830.poll();
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x11));
+    assertEquals(2, this.spi.lastWrittenMap.get(-0x80).length);
+  }
+  
+  @Test
+  public void staleTxFifoPredictionIsResynced() throws IOException {
+    TestTime time = new TestTime();
+    this.max14830 = new MAX14830(this.spi, null, time);
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.setBaudrate(Port.UART0, 115200);
+    this.max14830.getPort(Port.UART0).write(repeat('a', 500));
+    this.spi.toReturnMap.put(0x11, new byte[] {0, 0});
+    this.max14830.poll();
+    
+    time.time = Settings.MAX14830_TX_RESYNC_PERIOD + 0.0001;
+    this.spi.toReturnMap.put(0x11, new byte[] {0, 120});
+    this.spi.lastWrittenMap.clear();
+    this.max14830.getPort(Port.UART0).write(repeat('a', 500));
+    this.max14830.poll();
+    assertFalse(this.spi.lastWrittenMap.containsKey(0x11));
+    
+    time.time += 0.0001;
+    this.spi.lastWrittenMap.clear();
+    this.max14830.poll();
+    assertTrue(this.spi.lastWrittenMap.containsKey(0x11));
+    assertEquals(9, this.spi.lastWrittenMap.get(-0x80).length);
+  }
+  
+  @Test
+  public void flowControlAlwaysReadsTxFifoLevel() throws IOException {
+    TestTime time = new TestTime();
+    this.max14830 = new MAX14830(this.spi, null, time);
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.setBaudrate(Port.UART0, 115200);
+    this.max14830.setFlowControl(Port.UART0, FlowControl.HARDWARE);
+    assertEquals(0b00000011, this.spi.lastWrittenMap.get((int) (byte) (0x80 | 0x13))[1]);
+    this.max14830.getPort(Port.UART0).write(repeat('a', 500));
+    this.spi.toReturnMap.put(0x11, new byte[] {0, 0});
+    this.max14830.poll();
+    
+    time.time = 0.005;
+    this.spi.toReturnMap.put(0x11, new byte[] {0, (byte) 128});
+    this.spi.lastWrittenMap.clear();
+    this.max14830.poll();
+    assertTrue(this.spi.lastWrittenMap.containsKey(0x11));
+    assertFalse(this.spi.lastWrittenMap.containsKey(-0x80));
+  }
+  
+  @Test
+  public void xonXoffFlowControlSetsCharacters() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.setFlowControl(Port.UART1, FlowControl.XON_XOFF);
+    assertEquals(0x11, this.spi.lastWrittenMap.get((int) (byte) (0x80 | 0x20 | 0x14))[1]);
+    assertEquals(0x13, this.spi.lastWrittenMap.get((int) (byte) (0x80 | 0x20 | 0x16))[1]);
+    assertEquals((byte) 0b10101000, this.spi.lastWrittenMap.get((int) (byte) (0x80 | 0x20 | 0x13))[1]);
+    assertEquals((byte) 0x4C, this.spi.lastWrittenMap.get((int) (byte) (0x80 | 0x20 | 0x0F))[1]);
+  }
+  
+  @Test
+  public void statisticsCountBytesAndLineErrors() throws IOException {
+    this.spi.toReturn = new byte[] {0, 0};
+    this.max14830.enableInterrupts();
+    this.max14830.getPort(Port.UART0).write("Hello");
+    this.spi.toReturnMap.put(0x1F, new byte[] {0, 0b1110});
+    this.spi.toReturnMap.put(0x02, new byte[] {0, 0b00001001, 0, 0b00001010});
+    this.spi.toReturnMap.put(0x11, new byte[] {0, 0, 3});
+    this.spi.toReturnMap.put(0, "\0abc".getBytes(Charset.forName("US-ASCII")));
+    this.max14830.poll();
+    
+    LinkStatistics statistics = this.max14830.getStatistics(Port.UART0);
+    assertEquals(3, statistics.get(LinkStatistics.Counter.BYTES_IN));
+    assertEquals(5, statistics.get(LinkStatistics.Counter.BYTES_OUT));
+    assertEquals(3, statistics.get(LinkStatistics.Counter.MAX_FIFO_DEPTH));
+    assertEquals(1, statistics.get(LinkStatistics.Counter.OVERRUNS));
+    assertEquals(1, statistics.get(LinkStatistics.Counter.FRAMING_ERRORS));
+    assertEquals(0, this.max14830.getStatistics(Port.UART1).get(LinkStatistics.Counter.BYTES_OUT));
+  }
 }
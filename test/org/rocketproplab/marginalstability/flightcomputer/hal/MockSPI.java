@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import com.pi4j.io.spi.SpiDevice;
@@ -13,6 +14,7 @@ public class MockSPI implements SpiDevice {
   
   public byte[] lastWritten;
   public byte[] toReturn;
+  public int writeCount;
   
   public HashMap<Integer, byte[]> toReturnMap = new HashMap<>();
   public HashMap<Integer, byte[]> lastWrittenMap = new HashMap<>();
@@ -49,13 +51,13 @@ public class MockSPI implements SpiDevice {
 
   @Override
   public byte[] write(byte[] data, int start, int length) throws IOException {
-    // TODO Auto-generated method stub
-    return null;
+    return this.write(Arrays.copyOfRange(data, start, start + length));
   }
 
   @Override
   public byte[] write(byte... data) throws IOException {
     this.lastWritten = data;
+    this.writeCount++;
     this.lastWrittenMap.put((int) data[0], data);
     if(this.toReturnMap.containsKey((int)data[0])) {
       return this.toReturnMap.get((int)data[0]);
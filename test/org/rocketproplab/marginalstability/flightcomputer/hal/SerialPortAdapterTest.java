@@ -1,7 +1,9 @@
 package org.rocketproplab.marginalstability.flightcomputer.hal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import org.junit.Test;
@@ -27,4 +29,45 @@ public class SerialPortAdapterTest {
     assertEquals("Hello World", stringList.get(0));
   }
   
+  @Test
+  public void byteMessageIsDecodedForStringListeners() {
+    SerialPortAdapter adapter = new SerialPortAdapter(null);
+    ArrayList<String> stringList = new ArrayList<>();
+    adapter.registerListener(stringList::add);
+    adapter.newMessage(ByteBuffer.wrap("Test".getBytes()).asReadOnlyBuffer());
+    assertEquals(1, stringList.size());
+    assertEquals("Test", stringList.get(0));
+  }
+  
+  @Test
+  public void everyByteListenerSeesTheWholeMessage() {
+    SerialPortAdapter adapter = new SerialPortAdapter(null);
+    ArrayList<Integer> sizes = new ArrayList<>();
+    adapter.registerByteListener(data -> {
+      sizes.add(data.remaining());
+      data.position(data.limit());
+    });
+    adapter.registerByteListener(data -> {
+      sizes.add(data.remaining());
+      data.position(data.limit());
+    });
+    ByteBuffer buffer = ByteBuffer.wrap("Hello".getBytes()).asReadOnlyBuffer();
+    adapter.newMessage(buffer);
+    assertEquals(2, sizes.size());
+    assertEquals(5, (int) sizes.get(0));
+    assertEquals(5, (int) sizes.get(1));
+    assertEquals(0, buffer.position());
+  }
+  
+  @Test
+  public void stringMessageReachesByteListeners() {
+    SerialPortAdapter adapter = new SerialPortAdapter(null);
+    ArrayList<ByteBuffer> buffers = new ArrayList<>();
+    adapter.registerByteListener(buffers::add);
+    adapter.newMessage("Test");
+    assertEquals(1, buffers.size());
+    assertEquals(4, buffers.get(0).remaining());
+    assertTrue(buffers.get(0).isReadOnly());
+  }
+  
 }
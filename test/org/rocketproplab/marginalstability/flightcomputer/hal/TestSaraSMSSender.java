@@ -8,80 +8,178 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
 import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
 
 public class TestSaraSMSSender {
 	public class SerialPortSara implements SerialPort{
 		List<String> data = new ArrayList<String>();
-		
+		SerialListener listener;
+
 		@Override
 		public void registerListener(SerialListener listener) {
-			// TODO Auto-generated method stub
-			
+			this.listener = listener;
 		}
 
 		@Override
 		public void write(String data) {
 			this.data.add(data);
 		}
-		
+
 		public List<String> getData() {
 			return data;
 		}
+
+		public void respond(String response) {
+			this.listener.onSerialData(response);
+		}
+	}
+
+	private class TestTime extends Time {
+		public double time = 0;
+
+		@Override
+		public double getSystemTime() {
+			return this.time;
+		}
+	}
+
+	private SerialPortSara serialPort;
+	private TestTime time;
+	private SaraSMSSender SMSSera;
+	private List<SMSStatus> results;
+
+	@Before
+	public void init() {
+		this.serialPort = new SerialPortSara();
+		this.time = new TestTime();
+		this.SMSSera = new SaraSMSSender(serialPort, time);
+		this.results = new ArrayList<SMSStatus>();
+		this.SMSSera.addSMSListener((number, message, status) -> results.add(status));
+	}
+
+	private void initModem() {
+		serialPort.respond("AT\r\nOK\r\n");
+		serialPort.respond("AT+CMGF=1\r\nOK\r\n");
 	}
-	
+
 	@Test
 	public void sendMessageReceiveNothing() {
-		SerialPortSara serialPort = new SerialPortSara();
-		SaraSMSSender SMSSera = new SaraSMSSender(serialPort);
-		
 		SMSSera.sendMessage("13108665454", "Hello, World!");
-		
-		assertEquals(serialPort.getData().get(3), "Hello, World!\r\n");
+
+		assertEquals(1, serialPort.getData().size());
+		assertEquals(1, SMSSera.getOutboxSize());
 	}
-	
+
 	@Test
 	public void sendMessageReceiveMessage() {
-		SerialPortSara serialPort = new SerialPortSara();
-		SaraSMSSender SMSSera = new SaraSMSSender(serialPort);
-		
+		initModem();
 		SMSSera.sendMessage("12908665454", "Wow A Message");
 		assertEquals(serialPort.getData().get(2).substring(10, 21), "12908665454");
-		assertEquals(serialPort.getData().get(3), "Wow A Message\r\n");
+		serialPort.respond("> ");
+		assertEquals(serialPort.getData().get(3), "Wow A Message\u001A");
 	}
-	
+
 	@Test
 	public void sendMessageFull() {
-		SerialPortSara serialPort = new SerialPortSara();
-		SaraSMSSender SMSSera = new SaraSMSSender(serialPort);
-		
 		SMSSera.sendMessage("12908665454", "BLOOD FOR THE BLOOD GOD");
+		initModem();
+		serialPort.respond("\r\n> ");
+		serialPort.respond("\r\n+CMGS: 12\r\n\r\nOK\r\n");
 		assertEquals(serialPort.getData().get(0), "AT\n");
 		assertEquals(serialPort.getData().get(1), "AT+CMGF=1\n");
 		assertEquals(serialPort.getData().get(2), "AT+CMGS=\"+12908665454\"\n");
-		assertEquals(serialPort.getData().get(3), "BLOOD FOR THE BLOOD GOD\r\n");
+		assertEquals(serialPort.getData().get(3), "BLOOD FOR THE BLOOD GOD\u001A");
+		assertEquals(1, results.size());
+		assertEquals(SMSStatus.SENT, results.get(0));
+		assertEquals(0, SMSSera.getOutboxSize());
 	}
-	
+
+	@Test
+	public void responsesSplitAcrossReadsAreParsed() {
+		SMSSera.sendMessage("12908665454", "Split");
+		serialPort.respond("O");
+		serialPort.respond("K\r");
+		serialPort.respond("\n");
+		assertEquals(serialPort.getData().get(1), "AT+CMGF=1\n");
+	}
+
+	@Test
+	public void failedSendIsRetriedWithBackoff() {
+		initModem();
+		SMSSera.sendMessage("12908665454", "Retry");
+		serialPort.respond("> ");
+		serialPort.respond("+CMS ERROR: 500\r\n");
+		assertEquals(4, serialPort.getData().size());
+
+		time.time = Settings.SMS_RETRY_BACKOFF / 2;
+		SMSSera.poll();
+		assertEquals(4, serialPort.getData().size());
+
+		time.time = Settings.SMS_RETRY_BACKOFF;
+		SMSSera.poll();
+		assertEquals(5, serialPort.getData().size());
+		assertEquals("AT+CMGS=\"+12908665454\"\n", serialPort.getData().get(4));
+		serialPort.respond("> ");
+		serialPort.respond("OK\r\n");
+		assertEquals(1, results.size());
+		assertEquals(SMSStatus.SENT, results.get(0));
+	}
+
+	@Test
+	public void messageFailsAfterMaxAttempts() {
+		initModem();
+		SMSSera.sendMessage("12908665454", "Never");
+		SMSSera.sendMessage("12908665454", "Next");
+		for (int i = 0; i < Settings.SMS_MAX_ATTEMPTS; i++) {
+			time.time += Settings.SMS_COMMAND_TIMEOUT;
+			SMSSera.poll();
+			time.time += Settings.SMS_COMMAND_TIMEOUT * 10;
+			SMSSera.poll();
+		}
+		assertEquals(1, results.size());
+		assertEquals(SMSStatus.FAILED, results.get(0));
+		assertEquals(1, SMSSera.getOutboxSize());
+	}
+
+	@Test
+	public void fullOutboxDropsMessage() {
+		for (int i = 0; i < Settings.SMS_OUTBOX_SIZE; i++) {
+			SMSSera.sendMessage("12908665454", "Message " + i);
+		}
+		assertEquals(0, results.size());
+		SMSSera.sendMessage("12908665454", "Dropped");
+		assertEquals(1, results.size());
+		assertEquals(SMSStatus.DROPPED, results.get(0));
+	}
+
+	@Test
+	public void initIsRetriedAfterTimeout() {
+		time.time = Settings.SMS_COMMAND_TIMEOUT;
+		SMSSera.poll();
+		time.time += Settings.SMS_RETRY_BACKOFF;
+		SMSSera.poll();
+		assertEquals(2, serialPort.getData().size());
+		assertEquals("AT\n", serialPort.getData().get(1));
+	}
+
 	@Test
 	public void numberNotValid() {
-		SerialPortSara serialPort = new SerialPortSara();
-		SaraSMSSender SMSSera = new SaraSMSSender(serialPort);
-		
 		try {
 			SMSSera.sendMessage("4", "FOR NARNIAAAA");
 			fail("Expected IllegalArgumentException");
 		} catch (IllegalArgumentException e) {}
-		
+
 		String longMessage = "FOR NARNIAAAA AND NO ONE ELSE OR MAYBE FOR THE BLOOD"
 				+ "GOD OR SOMEONE ELSE. I HAVE NO IDEA, THIS IS ME YELLING TO TAKE"
 				+ "UP SPACE SO THAT I CAN TEST A THINGAMAJING MWAHAHAH MEWTWO I WIN";
-		
+
 		try {
 			SMSSera.sendMessage("12348192019", longMessage);
 			fail("Expected IllegalArgumentException");
 		} catch (IllegalArgumentException e) {}
 	}
-	
 
-}
 
+}
@@ -0,0 +1,50 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestMatrix3 {
+  private static final double EPSILON = 1e-12;
+
+  @Test
+  public void defaultIsIdentity() {
+    Matrix3 m = new Matrix3();
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        assertEquals(row == col ? 1 : 0, m.get(row, col), 0);
+      }
+    }
+    assertEquals(1, m.determinant(), 0);
+  }
+
+  @Test
+  public void multiplyAndTranspose() {
+    Matrix3 m = new Matrix3().set(1, 2, 3, 4, 5, 6, 7, 8, 10);
+    Matrix3 t = new Matrix3().set(m).transpose();
+    assertEquals(4, t.get(0, 1), 0);
+    m.multiply(new Matrix3());
+    assertEquals(10, m.get(2, 2), 0);
+    assertEquals(-3, m.determinant(), EPSILON);
+  }
+
+  @Test
+  public void rotationMatchesQuaternion() {
+    Quaternion     q      = new Quaternion(1, 2, 3, 4).normalize();
+    Matrix3        m      = new Matrix3().setRotation(q);
+    MutableVector3 byM    = m.transform(new MutableVector3(1, -2, 0.5));
+    MutableVector3 byQ    = q.rotate(new MutableVector3(1, -2, 0.5));
+    double[]       packed = { 1, -2, 0.5 };
+    m.transform(packed, 1);
+    assertEquals(byQ.getX(), byM.getX(), EPSILON);
+    assertEquals(byQ.getY(), byM.getY(), EPSILON);
+    assertEquals(byQ.getZ(), byM.getZ(), EPSILON);
+    assertEquals(byQ.getZ(), packed[2], EPSILON);
+    assertEquals(1, m.determinant(), EPSILON);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutsideMatrixThrows() {
+    new Matrix3().get(3, 0);
+  }
+}
@@ -0,0 +1,63 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TestMutableVector3 {
+  @Test
+  public void addAndScaleInPlace() {
+    MutableVector3 v      = new MutableVector3(1, 2, 3);
+    MutableVector3 result = v.add(new MutableVector3(1, 1, 1)).scale(2);
+    assertSame(v, result);
+    assertEquals(new MutableVector3(4, 6, 8), v);
+  }
+
+  @Test
+  public void addImmutableVector() {
+    MutableVector3 v = new MutableVector3().add(new Vector3(1, 2, 3));
+    assertEquals(new Vector3(1, 2, 3), v.toVector3());
+  }
+
+  @Test
+  public void subtractAndAddScaled() {
+    MutableVector3 v = new MutableVector3(5, 5, 5);
+    v.subtract(new MutableVector3(1, 2, 3)).addScaled(new MutableVector3(1, 0, 0), 3);
+    assertEquals(new MutableVector3(7, 3, 2), v);
+  }
+
+  @Test
+  public void dotProduct() {
+    assertEquals(32, new MutableVector3(1, 2, 3).dot(new MutableVector3(4, 5, 6)), 0);
+  }
+
+  @Test
+  public void crossProductOfXAndYIsZ() {
+    MutableVector3 v = new MutableVector3(1, 0, 0).cross(new MutableVector3(0, 1, 0));
+    assertEquals(new MutableVector3(0, 0, 1), v);
+  }
+
+  @Test
+  public void normAndNormalize() {
+    MutableVector3 v = new MutableVector3(3, 4, 0);
+    assertEquals(5, v.norm(), 0);
+    assertEquals(1, v.normalize().norm(), 1e-12);
+    assertEquals(new MutableVector3(), new MutableVector3().normalize());
+  }
+
+  @Test
+  public void setCopiesOtherVector() {
+    MutableVector3 v = new MutableVector3().set(new Vector3(1, 2, 3));
+    assertEquals(new MutableVector3(1, 2, 3), new MutableVector3().set(v));
+    assertFalse(v.equals(new Vector3(1, 2, 3)));
+  }
+
+  @Test
+  public void equalVectorsHaveEqualHashes() {
+    assertEquals(new MutableVector3(1, 2, 3).hashCode(), new MutableVector3(1, 2, 3).hashCode());
+    assertEquals(new MutableVector3(), new MutableVector3(-0.0, 0, -0.0));
+    assertEquals(new MutableVector3().hashCode(), new MutableVector3(-0.0, 0, -0.0).hashCode());
+  }
+}
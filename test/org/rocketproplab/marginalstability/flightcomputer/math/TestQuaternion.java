@@ -0,0 +1,79 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class TestQuaternion {
+  private static final double EPSILON = 1e-12;
+
+  @Test
+  public void defaultIsIdentity() {
+    assertEquals(new Quaternion(1, 0, 0, 0), new Quaternion());
+  }
+
+  @Test
+  public void normalizeMakesUnitLength() {
+    Quaternion q = new Quaternion(1, 2, 3, 4).normalize();
+    assertEquals(1, q.getNorm(), EPSILON);
+  }
+
+  @Test
+  public void normalizeZeroIsIdentity() {
+    assertEquals(new Quaternion(), new Quaternion(0, 0, 0, 0).normalize());
+  }
+
+  @Test
+  public void multiplyFollowsHamiltonRules() {
+    Quaternion i = new Quaternion(0, 1, 0, 0);
+    Quaternion j = new Quaternion(0, 0, 1, 0);
+    assertEquals(new Quaternion(0, 0, 0, 1), i.multiply(j));
+    assertEquals(new Quaternion(-1, 0, 0, 0), new Quaternion(0, 0, 0, 1).multiply(new Quaternion(0, 0, 0, 1)));
+  }
+
+  @Test
+  public void multiplyWithConjugateIsIdentity() {
+    Quaternion q = new Quaternion(1, 2, 3, 4).normalize();
+    Quaternion c = new Quaternion().set(q).conjugate();
+    q.multiply(c);
+    assertEquals(1, q.getW(), EPSILON);
+    assertEquals(0, q.getX(), EPSILON);
+    assertEquals(0, q.getY(), EPSILON);
+    assertEquals(0, q.getZ(), EPSILON);
+  }
+
+  @Test
+  public void rotateAroundZMovesXToY() {
+    double     half   = Math.PI / 4;
+    Quaternion q      = new Quaternion(Math.cos(half), 0, 0, Math.sin(half));
+    double[]   vector = { 9, 1, 0, 0 };
+    q.rotate(vector, 1);
+    assertEquals(9, vector[0], 0);
+    assertEquals(0, vector[1], EPSILON);
+    assertEquals(1, vector[2], EPSILON);
+    assertEquals(0, vector[3], EPSILON);
+  }
+
+  @Test
+  public void tiltAngleOfRotationAroundX() {
+    double     angle = 0.3;
+    Quaternion q     = new Quaternion(Math.cos(angle / 2), Math.sin(angle / 2), 0, 0);
+    assertEquals(angle, q.getTiltAngle(), EPSILON);
+    assertEquals(0, new Quaternion(Math.cos(angle / 2), 0, 0, Math.sin(angle / 2)).getTiltAngle(), 1e-7);
+  }
+
+  @Test
+  public void differentQuaternionsNotEqual() {
+    assertNotEquals(new Quaternion(1, 0, 0, 0), new Quaternion(0, 1, 0, 0));
+    assertFalse(new Quaternion().equals(null));
+  }
+
+  @Test
+  public void equalQuaternionsHaveEqualHashes() {
+    assertEquals(new Quaternion(1, 2, 3, 4).hashCode(), new Quaternion(1, 2, 3, 4).hashCode());
+    assertEquals(new Quaternion(0, 0, 0, 0), new Quaternion(-0.0, 0, 0, -0.0));
+    assertEquals(new Quaternion(0, 0, 0, 0).hashCode(), new Quaternion(-0.0, 0, 0, -0.0).hashCode());
+  }
+}
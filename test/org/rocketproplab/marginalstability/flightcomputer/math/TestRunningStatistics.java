@@ -0,0 +1,71 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestRunningStatistics {
+
+  private static final double EPSILON = 1e-9;
+
+  @Test
+  public void statisticsOfSamples() {
+    RunningStatistics statistics = new RunningStatistics();
+    for (double sample : new double[] { 2, 4, 4, 4, 5, 5, 7, 9 }) {
+      statistics.add(sample);
+    }
+    assertEquals(8, statistics.getCount());
+    assertEquals(5, statistics.getMean(), EPSILON);
+    assertEquals(Math.sqrt(32 / 7.0), statistics.getStandardDeviation(), EPSILON);
+    assertEquals(2, statistics.getMin(), EPSILON);
+    assertEquals(9, statistics.getMax(), EPSILON);
+  }
+
+  @Test
+  public void emptyStatisticsAreNaN() {
+    RunningStatistics statistics = new RunningStatistics();
+    statistics.add(Double.NaN);
+    assertEquals(0, statistics.getCount());
+    assertTrue(Double.isNaN(statistics.getMean()));
+    assertTrue(Double.isNaN(statistics.getMin()));
+    assertTrue(Double.isNaN(statistics.getMax()));
+    statistics.add(1);
+    assertTrue(Double.isNaN(statistics.getStandardDeviation()));
+  }
+
+  @Test
+  public void mergeMatchesAddingEverySample() {
+    RunningStatistics all    = new RunningStatistics();
+    RunningStatistics first  = new RunningStatistics();
+    RunningStatistics second = new RunningStatistics();
+    for (int i = 0; i < 100; i++) {
+      double sample = Math.sin(i) * i;
+      all.add(sample);
+      if (i < 30) {
+        first.add(sample);
+      } else {
+        second.add(sample);
+      }
+    }
+    first.merge(second);
+    assertEquals(all.getCount(), first.getCount());
+    assertEquals(all.getMean(), first.getMean(), EPSILON);
+    assertEquals(all.getStandardDeviation(), first.getStandardDeviation(), EPSILON);
+    assertEquals(all.getMin(), first.getMin(), EPSILON);
+    assertEquals(all.getMax(), first.getMax(), EPSILON);
+  }
+
+  @Test
+  public void mergeIntoEmpty() {
+    RunningStatistics empty = new RunningStatistics();
+    RunningStatistics full  = new RunningStatistics();
+    full.add(1);
+    full.add(3);
+    empty.merge(full);
+    empty.merge(new RunningStatistics());
+    assertEquals(2, empty.getCount());
+    assertEquals(2, empty.getMean(), EPSILON);
+    assertEquals(1, empty.getMin(), EPSILON);
+  }
+}
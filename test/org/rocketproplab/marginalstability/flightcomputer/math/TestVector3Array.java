@@ -0,0 +1,52 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestVector3Array {
+  private static final double[] A = { 1, 2, 3, 4, 5, 6 };
+  private static final double[] B = { 1, 0, 0, 0, 1, 0 };
+
+  @Test
+  public void addAndSubtractVectors() {
+    double[] out = Vector3Array.create(2);
+    Vector3Array.add(A, B, out, 2);
+    assertArrayEquals(new double[] { 2, 2, 3, 4, 6, 6 }, out, 0);
+    Vector3Array.subtract(out, B, out, 2);
+    assertArrayEquals(A, out, 0);
+  }
+
+  @Test
+  public void scaleOnlyCountVectors() {
+    double[] out = Vector3Array.create(2);
+    Vector3Array.scale(A, 2, out, 1);
+    assertArrayEquals(new double[] { 2, 4, 6, 0, 0, 0 }, out, 0);
+  }
+
+  @Test
+  public void dotAndNormPerVector() {
+    double[] out = new double[2];
+    Vector3Array.dot(A, B, out, 2);
+    assertArrayEquals(new double[] { 1, 5 }, out, 0);
+    Vector3Array.norm(new double[] { 3, 4, 0, 0, 0, 2 }, out, 2);
+    assertArrayEquals(new double[] { 5, 2 }, out, 0);
+  }
+
+  @Test
+  public void crossPerVector() {
+    double[] out = Vector3Array.create(2);
+    Vector3Array.cross(B, new double[] { 0, 1, 0, 0, 0, 1 }, out, 2);
+    assertArrayEquals(new double[] { 0, 0, 1, 1, 0, 0 }, out, 0);
+  }
+
+  @Test
+  public void getSetAndSum() {
+    double[]       array = Vector3Array.create(2);
+    MutableVector3 v     = new MutableVector3(7, 8, 9);
+    Vector3Array.set(array, 1, v);
+    assertEquals(v, Vector3Array.get(array, 1, new MutableVector3()));
+    assertEquals(new MutableVector3(5, 7, 9), Vector3Array.sum(A, 2, new MutableVector3()));
+  }
+}
@@ -0,0 +1,106 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestVectorHistory {
+  private static final double EPSILON = 1e-9;
+
+  private VectorHistory history;
+
+  @Before
+  public void before() {
+    this.history = new VectorHistory(4);
+  }
+
+  @Test
+  public void emptyHistoryIsNaN() {
+    assertTrue(Double.isNaN(this.history.getAt(0).getZ()));
+    assertEquals(0, this.history.size());
+  }
+
+  @Test
+  public void singleSampleIsConstant() {
+    this.history.add(1, 1, 2, 3);
+    assertEquals(new Vector3(1, 2, 3), this.history.getAt(0));
+    assertEquals(new Vector3(1, 2, 3), this.history.getAt(5));
+  }
+
+  @Test
+  public void interpolatesBetweenSamples() {
+    this.history.add(0, 0, 0, 0);
+    this.history.add(1, 10, 0, 0);
+    this.history.add(2, 10, 20, 0);
+    assertEquals(5, this.history.getAt(0.5).getX(), EPSILON);
+    assertEquals(10, this.history.getAt(1.5).getY(), EPSILON);
+    assertEquals(10, this.history.getAt(1).getX(), EPSILON);
+  }
+
+  @Test
+  public void extrapolatesPastNewestSample() {
+    this.history.add(0, 0, 0, 100);
+    this.history.add(1, 0, 0, 90);
+    assertEquals(70, this.history.getAt(3).getZ(), EPSILON);
+  }
+
+  @Test
+  public void clampsBeforeOldestSample() {
+    this.history.add(1, 0, 0, 100);
+    this.history.add(2, 0, 0, 90);
+    assertEquals(100, this.history.getAt(-10).getZ(), EPSILON);
+  }
+
+  @Test
+  public void oldestSamplesAreOverwritten() {
+    for (int i = 0; i < 10; i++) {
+      this.history.add(i, i, 0, 0);
+    }
+    assertEquals(4, this.history.size());
+    assertEquals(6, this.history.getAt(0).getX(), EPSILON);
+    assertEquals(7.5, this.history.getAt(7.5).getX(), EPSILON);
+    assertEquals(11, this.history.getAt(11).getX(), EPSILON);
+  }
+
+  @Test
+  public void queryWritesIntoGivenVector() {
+    this.history.add(0, 0, 0, 0);
+    this.history.add(1, 2, 4, 6);
+    MutableVector3 out = new MutableVector3();
+    assertEquals(new MutableVector3(1, 2, 3), this.history.getAt(0.5, out));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroCapacityThrows() {
+    new VectorHistory(0);
+  }
+
+  @Test
+  public void concurrentReadersSeeConsistentSamples() throws InterruptedException {
+    final VectorHistory history = new VectorHistory(16);
+    final AtomicBoolean torn    = new AtomicBoolean(false);
+    final AtomicBoolean done    = new AtomicBoolean(false);
+    history.add(0, 0, 0, 0);
+    Thread reader = new Thread(() -> {
+      MutableVector3 out = new MutableVector3();
+      while (!done.get()) {
+        history.getAt(100, out);
+        if (out.getX() != out.getY() || out.getY() != out.getZ()) {
+          torn.set(true);
+        }
+      }
+    });
+    reader.start();
+    for (int i = 1; i < 200000; i++) {
+      history.add(i, i, i, i);
+    }
+    done.set(true);
+    reader.join();
+    assertFalse(torn.get());
+  }
+}
@@ -0,0 +1,60 @@
+package org.rocketproplab.marginalstability.flightcomputer.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.math.WindowedAggregator.Statistic;
+import org.rocketproplab.marginalstability.flightcomputer.math.WindowedAggregator.Window;
+
+public class TestWindowedAggregator {
+
+  private static final double EPSILON = 1e-9;
+
+  @Test
+  public void windowHoldsMinMaxMeanAndCount() {
+    WindowedAggregator aggregator = new WindowedAggregator();
+    aggregator.add(3);
+    aggregator.add(-1);
+    aggregator.add(10);
+    aggregator.add(4);
+    Window window = aggregator.closeWindow(new Window());
+    assertEquals(-1, window.getMin(), EPSILON);
+    assertEquals(10, window.getMax(), EPSILON);
+    assertEquals(4, window.getMean(), EPSILON);
+    assertEquals(4, window.getCount());
+    assertEquals(10, window.get(Statistic.MAX), EPSILON);
+    assertEquals(4, window.get(Statistic.COUNT), EPSILON);
+  }
+
+  @Test
+  public void closingStartsNewWindow() {
+    WindowedAggregator aggregator = new WindowedAggregator();
+    Window             window     = new Window();
+    aggregator.add(100);
+    aggregator.closeWindow(window);
+    aggregator.add(1);
+    assertSame(window, aggregator.closeWindow(window));
+    assertEquals(1, window.getMax(), EPSILON);
+    assertEquals(1, window.getCount());
+  }
+
+  @Test
+  public void emptyWindowIsNaN() {
+    Window window = new WindowedAggregator().closeWindow(new Window());
+    assertEquals(0, window.getCount());
+    assertTrue(Double.isNaN(window.getMean()));
+    assertTrue(Double.isNaN(window.getMin()));
+  }
+
+  @Test
+  public void nanSamplesAreIgnored() {
+    WindowedAggregator aggregator = new WindowedAggregator();
+    aggregator.add(2);
+    aggregator.add(Double.NaN);
+    Window window = aggregator.closeWindow(new Window());
+    assertEquals(1, window.getCount());
+    assertEquals(2, window.getMean(), EPSILON);
+  }
+}
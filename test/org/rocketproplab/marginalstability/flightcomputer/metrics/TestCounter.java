@@ -0,0 +1,47 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestCounter {
+
+  @Test
+  public void counterAddsUp() {
+    Counter counter = new Counter();
+    counter.increment();
+    counter.add(41);
+    assertEquals(42, counter.get());
+    assertEquals(42, counter.getSummary());
+    assertEquals(1, counter.getValueCount());
+    assertEquals(42, counter.getValue(0), 0);
+  }
+
+  @Test
+  public void concurrentIncrementsAreNotLost() throws InterruptedException {
+    Counter  counter = new Counter();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 100000; j++) {
+          counter.increment();
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(800000, counter.get());
+  }
+
+  @Test
+  public void gaugeKeepsLastValue() {
+    Gauge gauge = new Gauge();
+    assertEquals(0, gauge.get(), 0);
+    gauge.set(3.4);
+    gauge.set(7.6);
+    assertEquals(7.6, gauge.getValue(0), 0);
+    assertEquals(8, gauge.getSummary());
+  }
+}
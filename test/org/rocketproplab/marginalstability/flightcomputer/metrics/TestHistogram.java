@@ -0,0 +1,53 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestHistogram {
+
+  @Test
+  public void samplesAreCountedIntoBuckets() {
+    Histogram histogram = new Histogram(1, 10, 100);
+    histogram.record(0.5);
+    histogram.record(1);
+    histogram.record(5);
+    histogram.record(1000);
+    histogram.record(Double.NaN);
+    assertEquals(4, histogram.getBucketCount());
+    assertEquals(2, histogram.getCount(0));
+    assertEquals(1, histogram.getCount(1));
+    assertEquals(0, histogram.getCount(2));
+    assertEquals(1, histogram.getCount(3));
+    assertEquals(4, histogram.getTotalCount());
+    assertEquals(Double.POSITIVE_INFINITY, histogram.getUpperBound(3), 0);
+  }
+
+  @Test
+  public void percentileIsBoundOfItsBucket() {
+    Histogram histogram = new Histogram(1, 10, 100);
+    assertTrue(Double.isNaN(histogram.getPercentile(0.5)));
+    assertEquals(0, histogram.getSummary());
+    for (int i = 0; i < 98; i++) {
+      histogram.record(2);
+    }
+    histogram.record(50);
+    histogram.record(500);
+    assertEquals(10, histogram.getPercentile(0.5), 0);
+    assertEquals(100, histogram.getPercentile(0.99), 0);
+    assertEquals(Double.POSITIVE_INFINITY, histogram.getPercentile(1), 0);
+    assertEquals(100, histogram.getSummary());
+  }
+
+  @Test
+  public void exponentialBoundsGrowByFactor() {
+    assertArrayEquals(new double[] { 10, 20, 40, 80 }, Histogram.exponentialBounds(10, 2, 4), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void boundsMustIncrease() {
+    new Histogram(1, 1);
+  }
+}
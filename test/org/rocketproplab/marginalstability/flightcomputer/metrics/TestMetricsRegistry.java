@@ -0,0 +1,32 @@
+package org.rocketproplab.marginalstability.flightcomputer.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TestMetricsRegistry {
+
+  @Test
+  public void registryNumbersMetricsInOrder() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Counter         counter  = registry.counter("a.count");
+    Gauge           gauge    = registry.gauge("a.gauge");
+    Histogram       latency  = registry.histogram("a.latency", 1, 2);
+    assertEquals(3, registry.size());
+    assertEquals(0, registry.indexOf("a.count"));
+    assertEquals(2, registry.indexOf("a.latency"));
+    assertEquals(-1, registry.indexOf("b"));
+    assertEquals("a.gauge", registry.getName(1));
+    assertSame(counter, registry.get(0));
+    assertSame(gauge, registry.get(1));
+    assertSame(latency, registry.get(2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void registryRejectsDuplicateNames() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("a");
+    registry.gauge("a");
+  }
+}
@@ -0,0 +1,120 @@
+package org.rocketproplab.marginalstability.flightcomputer.profiling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.FlightComputer;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TestProfilingEvents {
+
+  private Recording recording;
+  private Path      file;
+
+  @Before
+  public void init() throws IOException {
+    this.recording = new Recording();
+    this.file      = Files.createTempFile("profiling", ".jfr");
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    this.recording.close();
+    Files.deleteIfExists(this.file);
+  }
+
+  private List<RecordedEvent> stop() throws IOException {
+    this.recording.stop();
+    this.recording.dump(this.file);
+    return RecordingFile.readAllEvents(this.file);
+  }
+
+  private static List<RecordedEvent> filter(List<RecordedEvent> recorded, String name) {
+    List<RecordedEvent> events = new ArrayList<>();
+    for (RecordedEvent event : recorded) {
+      if (event.getEventType().getName().equals(name)) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  @Test
+  public void eventsAreDisabledByDefault() {
+    assertFalse(EventType.getEventType(TickEvent.class).isEnabled());
+    assertFalse(EventType.getEventType(SubsystemUpdateEvent.class).isEnabled());
+    assertFalse(EventType.getEventType(CommandEvent.class).isEnabled());
+    assertFalse(EventType.getEventType(PacketDispatchEvent.class).isEnabled());
+    assertFalse(EventType.getEventType(BusTransactionEvent.class).isEnabled());
+  }
+
+  @Test
+  public void tickRecordsFailedSubsystems() throws IOException {
+    this.recording.enable(TickEvent.NAME);
+    this.recording.enable(SubsystemUpdateEvent.NAME);
+    this.recording.start();
+
+    PacketRouter                  router         = new PacketRouter();
+    TestPacketListener<SCMPacket> listener       = new TestPacketListener<>();
+    FlightComputer                flightComputer = new FlightComputer(new Telemetry(Logger.getLogger("Test"), router));
+    router.addListener(listener, SCMPacket.class, PacketSources.CommandBox);
+    flightComputer.registerSubsystem(() -> {
+    });
+    flightComputer.registerSubsystem(() -> {
+      throw new IllegalStateException();
+    });
+    flightComputer.tick();
+
+    List<RecordedEvent> recorded = this.stop();
+    List<RecordedEvent> ticks    = filter(recorded, TickEvent.NAME);
+    assertEquals(1, ticks.size());
+    assertEquals(2, ticks.get(0).getInt("subsystems"));
+    assertEquals(1, ticks.get(0).getInt("failures"));
+
+    List<RecordedEvent> updates = filter(recorded, SubsystemUpdateEvent.NAME);
+    assertEquals(2, updates.size());
+    assertFalse(updates.get(0).getBoolean("failed"));
+    assertTrue(updates.get(1).getBoolean("failed"));
+    assertEquals(SCMPacketType.ER, listener.lastPacket.getID());
+  }
+
+  @Test
+  public void dispatchRecordsPacketType() throws IOException {
+    this.recording.enable(PacketDispatchEvent.NAME);
+    this.recording.start();
+
+    PacketRouter router = new PacketRouter();
+    router.addListener((direction, packet) -> {
+    }, SCMPacket.class, PacketSources.EngineControllerUnit);
+    router.recivePacket(new SCMPacket(SCMPacketType.V0, "00000"), PacketSources.EngineControllerUnit);
+
+    List<RecordedEvent> events = filter(this.stop(), PacketDispatchEvent.NAME);
+    assertEquals(1, events.size());
+    assertEquals(SCMPacketType.V0.toString(), events.get(0).getString("packetType"));
+    assertEquals(PacketSources.EngineControllerUnit.toString(), events.get(0).getString("source"));
+    assertEquals(PacketDirection.RECIVE.toString(), events.get(0).getString("direction"));
+    assertEquals(1, events.get(0).getInt("listeners"));
+  }
+}
@@ -0,0 +1,275 @@
+package org.rocketproplab.marginalstability.flightcomputer.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+public class TestFlightLogReader {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private Path     directory;
+  private Path     file;
+  private TestTime time;
+
+  @Before
+  public void init() throws IOException {
+    this.directory = Files.createTempDirectory("reader");
+    this.file      = this.directory.resolve("flight.rec");
+    this.time      = new TestTime();
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(this.file);
+    Files.deleteIfExists(this.directory);
+  }
+
+  /**
+   * Records a barometer sample every 0.1s and a P0 packet every second for
+   * ten seconds
+   */
+  private void recordFlight(boolean force) throws IOException {
+    FlightRecorder recorder = new FlightRecorder(this.file, 1000, this.time);
+    for (int i = 0; i < 100; i++) {
+      this.time.time = i / 10.0;
+      recorder.recordBarometer(this.time.time, 1000 - i);
+      if (i % 10 == 0) {
+        recorder.onRoutedPacket(new SCMPacket(SCMPacketType.P0, "000" + i / 10 + "0"), PacketSources.CommandBox,
+            PacketDirection.SEND);
+        recorder.onRoutedPacket(new SCMPacket(SCMPacketType.T0, "00001"), PacketSources.CommandBox,
+            PacketDirection.SEND);
+      }
+    }
+    if (force) {
+      recorder.close();
+    }
+  }
+
+  private List<Double> times(FlightLogReader reader, double start, double end, RecordType type)
+      throws IOException {
+    List<Double> times = new ArrayList<>();
+    reader.query(start, end, EnumSet.of(type), record -> times.add(record.getTime()));
+    return times;
+  }
+
+  @Test
+  public void indexCountsRecordsByType() throws IOException {
+    this.recordFlight(true);
+    try (FlightLogReader reader = new FlightLogReader(this.file, 16, 64)) {
+      assertEquals(120, reader.getRecordCount());
+      assertEquals(100, reader.getRecordCount(RecordType.BAROMETER));
+      assertEquals(20, reader.getRecordCount(RecordType.PACKET));
+      assertEquals(0, reader.getStartTime(), 0);
+      assertEquals(9.9, reader.getEndTime(), 1e-9);
+    }
+  }
+
+  @Test
+  public void timeRangeQueryReturnsOnlyRecordsInRange() throws IOException {
+    this.recordFlight(true);
+    try (FlightLogReader reader = new FlightLogReader(this.file, 16, 64)) {
+      List<Double> times = this.times(reader, 2.0, 2.45, RecordType.BAROMETER);
+      assertEquals(5, times.size());
+      assertEquals(2.0, times.get(0), 1e-9);
+      assertEquals(2.4, times.get(4), 1e-9);
+    }
+  }
+
+  @Test
+  public void channelQueryReturnsOnlyThatChannel() throws IOException {
+    this.recordFlight(true);
+    try (FlightLogReader reader = new FlightLogReader(this.file, 16, 64)) {
+      List<SCMPacket> packets = new ArrayList<>();
+      reader.queryChannel(0, 100, SCMPacketType.P0, record -> packets.add(record.toSCMPacket()));
+      assertEquals(10, packets.size());
+      assertEquals(new SCMPacket(SCMPacketType.P0, "00030"), packets.get(3));
+    }
+  }
+
+  @Test
+  public void unforcedTailIsRecoveredFromMarkers() throws IOException {
+    this.recordFlight(false);
+    try (FlightLogReader reader = new FlightLogReader(this.file)) {
+      assertEquals(120, reader.getRecordCount());
+    }
+  }
+
+  @Test
+  public void tornRecordEndsTheLog() throws IOException {
+    this.recordFlight(true);
+    try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      header.putLong(0, 50).rewind();
+      channel.write(header, FlightRecorder.HEADER_COMMITTED);
+      ByteBuffer marker = ByteBuffer.allocate(Integer.BYTES);
+      channel.write(marker, FlightRecorder.recordOffset(60));
+    }
+    try (FlightLogReader reader = new FlightLogReader(this.file)) {
+      assertEquals(60, reader.getRecordCount());
+    }
+  }
+
+  @Test
+  public void recordsDecodeWithExistingTypes() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(this.file, 10, this.time);
+    recorder.recordIMU(0, new IMUReading(new Vector3(1, 2, 3), new Vector3(4, 5, 6)));
+    recorder.onRoutedPacket(new GPSPacket(34.5, -118.2, 1200, 5, 9), PacketSources.GPS, PacketDirection.RECIVE);
+    recorder.onRoutedPacket(new GPSPacket(null), PacketSources.GPS, PacketDirection.RECIVE);
+    recorder.recordFlightMode(FlightMode.Apogee);
+    recorder.recordError(Errors.TOP_LEVEL_EXCEPTION, 7);
+    recorder.close();
+
+    List<Object> decoded = new ArrayList<>();
+    try (FlightLogReader reader = new FlightLogReader(this.file)) {
+      reader.query(0, 0, EnumSet.allOf(RecordType.class), record -> {
+        switch (record.getType()) {
+          case IMU:
+            decoded.add(record.toIMUReading());
+            break;
+          case GPS:
+            decoded.add(record.toGPSPacket());
+            assertEquals(PacketSources.GPS, record.getSource());
+            break;
+          case FLIGHT_MODE:
+            decoded.add(record.getFlightMode());
+            break;
+          default:
+            decoded.add(record.getError());
+            assertEquals(7, record.getErrorCount());
+            break;
+        }
+      });
+    }
+    assertEquals(5, decoded.size());
+    assertEquals(new Vector3(4, 5, 6), ((IMUReading) decoded.get(0)).getXYZRotation());
+    assertEquals(new GPSPacket(34.5, -118.2, 1200, 5, 9), decoded.get(1));
+    assertFalse(((GPSPacket) decoded.get(2)).isValid());
+    assertEquals(FlightMode.Apogee, decoded.get(3));
+    assertEquals(Errors.TOP_LEVEL_EXCEPTION, decoded.get(4));
+  }
+
+  @Test
+  public void exportWritesCSV() throws IOException {
+    this.recordFlight(true);
+    StringBuilder out = new StringBuilder();
+    try (FlightLogReader reader = new FlightLogReader(this.file)) {
+      reader.exportCSV(0, 0, EnumSet.of(RecordType.BAROMETER, RecordType.PACKET), out);
+    }
+    String[] lines = out.toString().split("\n");
+    assertEquals(4, lines.length);
+    assertTrue(lines[0].startsWith("index,time,type"));
+    assertEquals("0,0.0,BAROMETER,,,,1000.0,,,,,", lines[1]);
+    assertEquals("1,0.0,PACKET,CommandBox,SEND,P0,00000,,,,,", lines[2]);
+  }
+
+  @Test
+  public void ringIsReadOldestFirstBeforeTheFlight() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(this.file, 4, 16, this.time);
+    for (int i = 0; i < 10; i++) {
+      recorder.recordBarometer(i, 1000 + i);
+    }
+    recorder.launch();
+    for (int i = 10; i < 13; i++) {
+      recorder.recordBarometer(i, 1000 + i);
+    }
+    recorder.close();
+    try (FlightLogReader reader = new FlightLogReader(this.file, 2, 4)) {
+      assertEquals(7, reader.getRecordCount());
+      assertEquals(List.of(6.0, 7.0, 8.0, 9.0, 10.0, 11.0, 12.0),
+          this.times(reader, 0, 100, RecordType.BAROMETER));
+    }
+  }
+
+  @Test
+  public void ringWithoutLaunchIsRecoveredFromMarkers() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(this.file, 4, 16, this.time);
+    for (int i = 0; i < 6; i++) {
+      recorder.recordBarometer(i, 1000 + i);
+    }
+    try (FlightLogReader reader = new FlightLogReader(this.file)) {
+      assertEquals(List.of(2.0, 3.0, 4.0, 5.0), this.times(reader, 0, 100, RecordType.BAROMETER));
+    }
+    recorder.close();
+  }
+
+  @Test
+  public void metricRecordsAreExportedWithTheirName() throws IOException {
+    Counter ticks = new Counter();
+    ticks.add(4);
+    FlightRecorder recorder = new FlightRecorder(this.file, 10, this.time);
+    recorder.nameMetric(1, "flight_computer.ticks");
+    recorder.recordMetric(1, ticks);
+    recorder.recordMetric(2, ticks);
+    recorder.close();
+    StringBuilder out = new StringBuilder();
+    try (FlightLogReader reader = new FlightLogReader(this.file)) {
+      assertEquals("flight_computer.ticks", reader.getMetricName(1));
+      reader.exportCSV(0, 0, EnumSet.of(RecordType.METRIC), out);
+    }
+    String[] lines = out.toString().split("\n");
+    assertEquals("0,0.0,METRIC,,,flight_computer.ticks:0,4.0,NaN,NaN,NaN,NaN,NaN", lines[1]);
+    assertEquals("1,0.0,METRIC,,,2:0,4.0,NaN,NaN,NaN,NaN,NaN", lines[2]);
+  }
+
+  @Test
+  public void exportTakesTypesRightAfterTheLog() throws IOException {
+    this.recordFlight(true);
+    StringBuilder out = new StringBuilder();
+    assertTrue(FlightLogReader.export(new String[] { this.file.toString(), "BAROMETER", "PACKET" }, out));
+    assertEquals(1 + 120, out.toString().split("\n").length);
+  }
+
+  @Test
+  public void exportTakesTimesWhenBothAreNumbers() throws IOException {
+    this.recordFlight(true);
+    StringBuilder out = new StringBuilder();
+    assertTrue(FlightLogReader.export(new String[] { this.file.toString(), "2", "2.45", "BAROMETER" }, out));
+    assertEquals(1 + 5, out.toString().split("\n").length);
+  }
+
+  @Test
+  public void exportRejectsUnknownTypes() throws IOException {
+    this.recordFlight(true);
+    assertFalse(FlightLogReader.export(new String[] { this.file.toString(), "IMU", "ALTITUDE" }, new StringBuilder()));
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    Files.write(this.file, new byte[128]);
+    new FlightLogReader(this.file).close();
+  }
+}
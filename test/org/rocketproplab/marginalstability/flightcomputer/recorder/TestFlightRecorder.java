@@ -0,0 +1,265 @@
+package org.rocketproplab.marginalstability.flightcomputer.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Histogram;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+public class TestFlightRecorder {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private Path           directory;
+  private Path           file;
+  private TestTime       time;
+  private FlightRecorder recorder;
+
+  @Before
+  public void init() throws IOException {
+    this.directory = Files.createTempDirectory("recorder");
+    this.file      = this.directory.resolve("flight.rec");
+    this.time      = new TestTime();
+    this.recorder  = new FlightRecorder(this.file, 16, this.time);
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    this.recorder.close();
+    Files.deleteIfExists(this.file);
+    Files.deleteIfExists(this.directory);
+  }
+
+  private ByteBuffer readFile() throws IOException {
+    return ByteBuffer.wrap(Files.readAllBytes(this.file)).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Test
+  public void fileIsPreallocatedWithHeader() throws IOException {
+    ByteBuffer data = this.readFile();
+    assertEquals(FlightRecorder.HEADER_SIZE + 16 * FlightRecorder.RECORD_SIZE, data.capacity());
+    assertEquals(FlightRecorder.MAGIC, data.getInt(FlightRecorder.HEADER_MAGIC));
+    assertEquals(16, data.getInt(FlightRecorder.HEADER_CAPACITY));
+    assertEquals(0, data.getInt(FlightRecorder.HEADER_PAD_CAPACITY));
+    assertEquals(0, data.getLong(FlightRecorder.HEADER_COMMITTED));
+  }
+
+  @Test(expected = FileAlreadyExistsException.class)
+  public void existingRecordingIsNotOverwritten() throws IOException {
+    new FlightRecorder(this.file, 16, this.time);
+  }
+
+  @Test
+  public void imuSampleIsRecorded() throws IOException {
+    this.recorder.recordIMU(1.5, new IMUReading(new Vector3(1, 2, 3), new Vector3(4, 5, 6)));
+    this.recorder.force();
+    ByteBuffer data   = this.readFile();
+    int        offset = FlightRecorder.recordOffset(0);
+    assertEquals(1, data.getInt(offset + FlightRecorder.RECORD_MARKER));
+    assertEquals(RecordType.IMU.getCode(), data.get(offset + FlightRecorder.RECORD_TYPE));
+    assertEquals(1.5, data.getDouble(offset + FlightRecorder.RECORD_TIME), 0);
+    assertEquals(3, data.getDouble(offset + FlightRecorder.RECORD_VALUES + 2 * Double.BYTES), 0);
+    assertEquals(6, data.getDouble(offset + FlightRecorder.RECORD_VALUES + 5 * Double.BYTES), 0);
+  }
+
+  @Test
+  public void metricIsSplitOverRecords() throws IOException {
+    Histogram histogram = new Histogram(1, 2, 3, 4, 5, 6, 7);
+    histogram.record(7);
+    histogram.record(100);
+    this.time.time = 2;
+    this.recorder.recordMetric(9, histogram);
+    this.recorder.force();
+    assertEquals(2, this.recorder.getRecordCount());
+    ByteBuffer data   = this.readFile();
+    int        first  = FlightRecorder.recordOffset(0);
+    int        second = FlightRecorder.recordOffset(1);
+    assertEquals(RecordType.METRIC.getCode(), data.get(first + FlightRecorder.RECORD_TYPE));
+    assertEquals(9, data.get(first + FlightRecorder.RECORD_ARG_A));
+    assertEquals(0, data.get(first + FlightRecorder.RECORD_ARG_B));
+    assertEquals(2, data.getDouble(first + FlightRecorder.RECORD_TIME), 0);
+    assertEquals(6, data.get(second + FlightRecorder.RECORD_ARG_B));
+    assertEquals(1, data.getDouble(second + FlightRecorder.RECORD_VALUES), 0);
+    assertEquals(1, data.getDouble(second + FlightRecorder.RECORD_VALUES + Double.BYTES), 0);
+    assertEquals(Double.NaN, data.getDouble(second + FlightRecorder.RECORD_VALUES + 2 * Double.BYTES), 0);
+  }
+
+  @Test
+  public void routedPacketsAreRecordedWithDirectionAndSource() throws IOException {
+    PacketRouter router = new PacketRouter();
+    router.addRoutedPacketListener(this.recorder);
+    router.recivePacket(new SCMPacket(SCMPacketType.P3, "00123"), PacketSources.EngineControllerUnit);
+    this.recorder.force();
+    ByteBuffer data   = this.readFile();
+    int        offset = FlightRecorder.recordOffset(0);
+    assertEquals(RecordType.PACKET.getCode(), data.get(offset + FlightRecorder.RECORD_TYPE));
+    assertEquals(PacketDirection.RECIVE.ordinal(), data.get(offset + FlightRecorder.RECORD_ARG_A));
+    assertEquals(PacketSources.EngineControllerUnit.ordinal(), data.get(offset + FlightRecorder.RECORD_ARG_B));
+    assertEquals(SCMPacketType.P3.ordinal(), data.getShort(offset + FlightRecorder.RECORD_VALUES));
+    assertEquals('1', data.get(offset + FlightRecorder.RECORD_VALUES + 4));
+  }
+
+  @Test
+  public void forceAdvancesCommittedCount() throws IOException {
+    this.recorder.recordFlightMode(FlightMode.Burn);
+    this.recorder.recordError(Errors.UNKNOWN_ERROR);
+    assertEquals(2, this.recorder.getRecordCount());
+    assertEquals(0, this.recorder.getCommittedCount());
+    this.recorder.force();
+    assertEquals(2, this.recorder.getCommittedCount());
+    assertEquals(2, this.readFile().getLong(FlightRecorder.HEADER_COMMITTED));
+  }
+
+  @Test
+  public void updateForcesPeriodicallyOnTheForceThread() throws InterruptedException {
+    this.recorder.start();
+    this.recorder.recordBarometer(0, 1013);
+    this.recorder.update();
+    Thread.sleep(50);
+    assertEquals(0, this.recorder.getCommittedCount());
+    this.time.time = 10;
+    this.recorder.update();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (this.recorder.getCommittedCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(1, this.recorder.getCommittedCount());
+  }
+
+  @Test
+  public void updateNeverForcesOnTheCallingThread() {
+    this.recorder.recordBarometer(0, 1013);
+    this.time.time = 10;
+    this.recorder.update();
+    assertEquals(0, this.recorder.getCommittedCount());
+  }
+
+  @Test
+  public void updateDoesNotWaitForAForceInProgress() throws Exception {
+    this.recorder.start();
+    this.time.time = 10;
+    Thread ticker = new Thread(this.recorder::update);
+    synchronized (this.recorder) {
+      ticker.start();
+      ticker.join(5000);
+    }
+    assertFalse(ticker.isAlive());
+  }
+
+  @Test
+  public void recordsPastCapacityAreDropped() {
+    for (int i = 0; i < 20; i++) {
+      this.recorder.recordBarometer(i, 1000 + i);
+    }
+    assertEquals(16, this.recorder.getRecordCount());
+    assertEquals(4, this.recorder.getDroppedCount());
+  }
+
+  @Test
+  public void concurrentWritersDoNotLoseRecords() throws Exception {
+    this.recorder.close();
+    Files.delete(this.file);
+    this.recorder = new FlightRecorder(this.file, 4000, this.time);
+    Thread[] writers = new Thread[4];
+    for (int i = 0; i < writers.length; i++) {
+      writers[i] = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          this.recorder.recordBarometer(j, j);
+        }
+      });
+      writers[i].start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    this.recorder.force();
+    assertEquals(4000, this.recorder.getCommittedCount());
+  }
+
+  @Test
+  public void createKeepsEarlierRecordings() throws IOException {
+    FlightRecorder first  = FlightRecorder.create(this.directory, 0, 4, this.time);
+    FlightRecorder second = FlightRecorder.create(this.directory, 0, 4, this.time);
+    first.close();
+    second.close();
+    Path firstFile  = this.directory.resolve("flight-0.rec");
+    Path secondFile = this.directory.resolve("flight-1.rec");
+    assertTrue(Files.exists(firstFile));
+    assertTrue(Files.exists(secondFile));
+    Files.delete(firstFile);
+    Files.delete(secondFile);
+  }
+
+  private FlightRecorder padRecorder() throws IOException {
+    this.recorder.close();
+    Files.delete(this.file);
+    this.recorder = new FlightRecorder(this.file, 4, 16, this.time);
+    return this.recorder;
+  }
+
+  @Test
+  public void recordsBeforeLaunchOverwriteTheRing() throws IOException {
+    FlightRecorder padRecorder = this.padRecorder();
+    for (int i = 0; i < 10; i++) {
+      padRecorder.recordBarometer(i, 1000 + i);
+    }
+    assertEquals(4, padRecorder.getRecordCount());
+    assertEquals(0, padRecorder.getDroppedCount());
+    padRecorder.force();
+    ByteBuffer data = this.readFile();
+    assertEquals(4, data.getInt(FlightRecorder.HEADER_PAD_CAPACITY));
+    assertEquals(-9, data.getInt(FlightRecorder.recordOffset(0) + FlightRecorder.RECORD_MARKER));
+    assertEquals(1008, data.getDouble(FlightRecorder.recordOffset(0) + FlightRecorder.RECORD_VALUES), 0);
+    assertEquals(0, data.getInt(FlightRecorder.recordOffset(4) + FlightRecorder.RECORD_MARKER));
+  }
+
+  @Test
+  public void flightModeOffThePadAppendsAfterTheRing() throws IOException {
+    FlightRecorder padRecorder = this.padRecorder();
+    padRecorder.recordBarometer(0, 1013);
+    padRecorder.onFlightModeChange(FlightMode.Sitting);
+    assertFalse(padRecorder.isLaunched());
+    padRecorder.onFlightModeChange(FlightMode.Burn);
+    assertTrue(padRecorder.isLaunched());
+    for (int i = 0; i < 20; i++) {
+      padRecorder.recordBarometer(i, 1000 + i);
+    }
+    assertEquals(2 + 12, padRecorder.getRecordCount());
+    assertEquals(9, padRecorder.getDroppedCount());
+    padRecorder.force();
+    assertEquals(12, padRecorder.getCommittedCount());
+    ByteBuffer data   = this.readFile();
+    int        offset = FlightRecorder.recordOffset(4);
+    assertEquals(5, data.getInt(offset + FlightRecorder.RECORD_MARKER));
+    assertEquals(RecordType.FLIGHT_MODE.getCode(), data.get(offset + FlightRecorder.RECORD_TYPE));
+    assertEquals(FlightMode.Burn.ordinal(), data.get(offset + FlightRecorder.RECORD_ARG_A));
+    assertEquals(12, data.getLong(FlightRecorder.HEADER_COMMITTED));
+  }
+}
@@ -0,0 +1,254 @@
+package org.rocketproplab.marginalstability.flightcomputer.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.FlightComputer;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.TickTime;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMTransceiver;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.hal.SerialPortAdapter;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightLogReader;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecorder;
+import org.rocketproplab.marginalstability.flightcomputer.sim.FlightSimulator;
+import org.rocketproplab.marginalstability.flightcomputer.sim.RocketDynamics;
+import org.rocketproplab.marginalstability.flightcomputer.sim.RocketParameters;
+import org.rocketproplab.marginalstability.flightcomputer.sim.SimulatedSolenoid;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.ParachuteSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.StateEstimationSubsystem;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightState;
+
+public class TestReplayEngine {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private Path directory;
+  private Path file;
+
+  @Before
+  public void init() throws IOException {
+    this.directory = Files.createTempDirectory("replay");
+    this.file      = this.directory.resolve("flight.rec");
+    this.recordFlight();
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    Files.deleteIfExists(this.file);
+    Files.deleteIfExists(this.directory);
+  }
+
+  /**
+   * Records one second of a rocket accelerating upwards
+   */
+  private void recordFlight() throws IOException {
+    TestTime       time     = new TestTime();
+    FlightRecorder recorder = new FlightRecorder(this.file, 10000, time);
+    Vector3        rotation = new Vector3(0, 0, 0);
+    for (int i = 0; i < 1000; i++) {
+      time.time = 100 + i * 0.001;
+      double accelerationZ = (Settings.GRAVITY + 20) / Settings.IMU_ACCELERATION_SCALE;
+      recorder.recordIMU(time.time, new IMUReading(new Vector3(0.01 * (i % 7), 0, accelerationZ), rotation));
+      if (i % 40 == 0) {
+        recorder.recordBarometer(time.time, 1000 - i * 0.01);
+      }
+      if (i % 100 == 0) {
+        recorder.onRoutedPacket(new SCMPacket(SCMPacketType.V0, "10101"),
+            PacketSources.EngineControllerUnit, PacketDirection.RECIVE);
+        recorder.onRoutedPacket(new SCMPacket(SCMPacketType.HB, "00000"), PacketSources.CommandBox,
+            PacketDirection.SEND);
+      }
+      if (i == 500) {
+        recorder.onRoutedPacket(new GPSPacket(34, -118, 120, 5, 8), PacketSources.GPS, PacketDirection.RECIVE);
+      }
+    }
+    recorder.close();
+  }
+
+  /**
+   * Replays the flight through the state estimation and returns every
+   * position estimate
+   */
+  private List<Double> replay(List<SCMPacket> received, double speed) throws IOException {
+    ReplayTime               time       = new ReplayTime(0);
+    ReplayIMU                imu        = new ReplayIMU();
+    ReplayBarometer          barometer  = new ReplayBarometer();
+    PacketRouter             router     = new PacketRouter();
+    SerialPortAdapter        serialPort = new SerialPortAdapter(data -> {});
+    StateEstimationSubsystem estimation = new StateEstimationSubsystem(imu, barometer, time);
+    List<Double>             positions  = new ArrayList<>();
+
+    serialPort.registerListener(new SCMTransceiver(serialPort, router, PacketSources.EngineControllerUnit));
+    router.addListener(estimation, GPSPacket.class, PacketSources.GPS);
+    router.addListener(new TestPacketListener<SCMPacket>() {
+      @Override
+      public void onPacket(PacketDirection direction, SCMPacket packet) {
+        received.add(packet);
+      }
+    }, SCMPacket.class, PacketSources.EngineControllerUnit);
+
+    try (FlightLogReader log = new FlightLogReader(this.file)) {
+      ReplayEngine engine = new ReplayEngine(log, time, () -> {
+        estimation.update();
+        positions.add(estimation.getFilter().getPosition());
+      });
+      engine.setIMU(imu);
+      engine.setBarometer(barometer);
+      engine.setRouter(router);
+      engine.addSerialPort(PacketSources.EngineControllerUnit, serialPort);
+      engine.run(speed);
+    }
+    return positions;
+  }
+
+  @Test
+  public void replayTicksAtFixedPeriod() throws IOException {
+    List<Double> positions = this.replay(new ArrayList<>(), 0);
+    assertEquals(Math.round(1 / Settings.REPLAY_TICK_PERIOD) + 1, positions.size());
+  }
+
+  @Test
+  public void receivedPacketsGoThroughSerialPort() throws IOException {
+    List<SCMPacket> received = new ArrayList<>();
+    this.replay(received, 0);
+    assertEquals(10, received.size());
+    assertEquals(new SCMPacket(SCMPacketType.V0, "10101"), received.get(0));
+  }
+
+  @Test
+  public void replayIsDeterministic() throws IOException {
+    List<Double> first  = this.replay(new ArrayList<>(), 0);
+    List<Double> second = this.replay(new ArrayList<>(), 0);
+    assertEquals(first.size(), second.size());
+    for (int i = 0; i < first.size(); i++) {
+      assertEquals(Double.doubleToRawLongBits(first.get(i)), Double.doubleToRawLongBits(second.get(i)));
+    }
+  }
+
+  @Test
+  public void pacedReplayTakesRealTime() throws IOException {
+    long start = System.nanoTime();
+    this.replay(new ArrayList<>(), 10);
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    assertTrue(elapsed >= 0.099);
+  }
+
+  /**
+   * Records a simulated flight through the recorder of its state estimation
+   * and router, the way the flight computer records a real flight
+   * 
+   * @return the simulator after the flight
+   */
+  private FlightSimulator recordSimulatedFlight(Path log) throws IOException {
+    FlightSimulator simulator = new FlightSimulator(new RocketParameters(), 1);
+    Time            time      = new Time() {
+      @Override
+      public double getSystemTime() {
+        return simulator.getDynamics().getTime();
+      }
+    };
+    FlightRecorder recorder = new FlightRecorder(log, 1 << 19, time);
+    simulator.getStateEstimation().setRecorder(recorder);
+    simulator.getRouter().addRoutedPacketListener(recorder);
+    simulator.run();
+    recorder.close();
+    return simulator;
+  }
+
+  /**
+   * Replays a log through a flight computer with the state estimation, flight
+   * state and parachutes of the flight software and returns the drogue and
+   * main deploy times, NaN if not deployed. Ignition and burnout are told to the flight state at
+   * the recorded times in place of the engine controller.
+   */
+  private double[] replayFlight(Path log, RocketDynamics recorded) throws IOException {
+    ReplayTime               time       = new ReplayTime(0);
+    TickTime                 tickTime   = new TickTime(time);
+    ReplayIMU                imu        = new ReplayIMU();
+    ReplayBarometer          barometer  = new ReplayBarometer();
+    PacketRouter             router     = new PacketRouter();
+    double[]                 deploys    = { Double.NaN, Double.NaN };
+    StateEstimationSubsystem estimation = new StateEstimationSubsystem(imu, barometer, tickTime);
+    FlightState              state      = new FlightState();
+    ParachuteSubsystem       parachutes = new ParachuteSubsystem(
+        new SimulatedSolenoid(() -> deploys[1] = tickTime.getSystemTime()),
+        new SimulatedSolenoid(() -> deploys[0] = tickTime.getSystemTime()), tickTime, barometer);
+    FlightComputer           computer   = new FlightComputer(new Telemetry(Logger.getLogger("Replay"), router),
+        tickTime);
+    FlightMode[]             lastMode   = { state.getFlightMode() };
+
+    router.addListener(estimation, GPSPacket.class, PacketSources.GPS);
+    estimation.addVelocityListener(state);
+    estimation.addPositionListener(parachutes);
+    parachutes.addParachuteListener(state);
+    computer.registerSubsystem(() -> {
+      double now = tickTime.getSystemTime();
+      if (now >= recorded.getIgnitionTime() && state.getFlightMode() == FlightMode.Sitting) {
+        state.onEngineActivation();
+      } else if (now >= recorded.getBurnoutTime() && state.getFlightMode() == FlightMode.Burn) {
+        state.onEngineShutdown();
+      }
+    });
+    computer.registerSubsystem(estimation);
+    computer.registerSubsystem(() -> {
+      if (state.getFlightMode() != lastMode[0]) {
+        lastMode[0] = state.getFlightMode();
+        parachutes.onFlightModeChange(lastMode[0]);
+      }
+    });
+    computer.registerSubsystem(parachutes);
+
+    try (FlightLogReader reader = new FlightLogReader(log)) {
+      ReplayEngine engine = new ReplayEngine(reader, time, computer::tick);
+      engine.setIMU(imu);
+      engine.setBarometer(barometer);
+      engine.setRouter(router);
+      engine.run();
+    }
+    return deploys;
+  }
+
+  @Test
+  public void flightComputerReplayDeploysAtIdenticalTimes() throws IOException {
+    Path log = this.directory.resolve("simulated.rec");
+    try {
+      RocketDynamics recorded = this.recordSimulatedFlight(log).getDynamics();
+      double[]       first    = this.replayFlight(log, recorded);
+      double[]       second   = this.replayFlight(log, recorded);
+      assertEquals(recorded.getDrogueTime(), first[0], 2 * Settings.REPLAY_TICK_PERIOD);
+      assertEquals(Double.doubleToRawLongBits(first[0]), Double.doubleToRawLongBits(second[0]));
+      assertEquals(Double.doubleToRawLongBits(first[1]), Double.doubleToRawLongBits(second[1]));
+    } finally {
+      Files.deleteIfExists(log);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.StateEstimationSubsystem;
+
+public class TestAtmosphere {
+
+  @Test
+  public void seaLevelMatchesTheStandardAtmosphere() {
+    assertEquals(Settings.SEA_LEVEL_PRESSURE, Atmosphere.getPressure(0), 1e-9);
+    assertEquals(288.15, Atmosphere.getTemperature(0), 1e-9);
+    assertEquals(1.225, Atmosphere.getDensity(0), 1e-3);
+  }
+
+  @Test
+  public void pressureInvertsTheBarometricFormula() {
+    for (double altitude = 0; altitude < 10000; altitude += 1234) {
+      double pressure = Atmosphere.getPressure(altitude);
+      assertEquals(altitude, StateEstimationSubsystem.getAltitudeFromPressure(pressure), 0.5);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.events.PacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.BusPriority;
+import org.rocketproplab.marginalstability.flightcomputer.hal.BusTransaction;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+public class TestFlightSimulator {
+
+  private double mainChuteHeight;
+  private double mainChutePressure;
+
+  @Before
+  public void init() {
+    this.mainChuteHeight   = Settings.MAIN_CHUTE_HEIGHT;
+    this.mainChutePressure = Settings.MAIN_CHUTE_PRESSURE;
+    Settings.MAIN_CHUTE_HEIGHT   = 500;
+    // Only deploy on the estimated height
+    Settings.MAIN_CHUTE_PRESSURE = Double.POSITIVE_INFINITY;
+  }
+
+  @After
+  public void restore() {
+    Settings.MAIN_CHUTE_HEIGHT   = this.mainChuteHeight;
+    Settings.MAIN_CHUTE_PRESSURE = this.mainChutePressure;
+  }
+
+  @Test
+  public void flightComputerFliesTheRocketInAClosedLoop() {
+    long             start  = System.nanoTime();
+    SimulationResult result = new FlightSimulator(new RocketParameters(), 1).run();
+    double           wall   = (System.nanoTime() - start) / 1e9;
+
+    assertTrue(result.getApogee() > 1000);
+    assertEquals(Settings.SIM_IGNITION_TIME, result.getModeTime(FlightMode.Burn), 2 * Settings.SIM_TICK_PERIOD);
+    assertEquals(result.getBurnoutTime(), result.getModeTime(FlightMode.Coasting), 2 * Settings.SIM_TICK_PERIOD);
+    // Apogee is detected once the vertical speed drops below the apogee speed
+    assertEquals(0, result.getApogeeDetectionDelay(), 2);
+    assertEquals(result.getApogee(), result.getDrogueAltitude(), 20);
+    assertEquals(result.getModeTime(FlightMode.Apogee), result.getDrogueTime(), 2 * Settings.SIM_TICK_PERIOD);
+    assertEquals(Settings.MAIN_CHUTE_HEIGHT, result.getMainAltitude(), 50);
+    assertTrue(result.getLandingSpeed() < 10);
+    assertEquals(FlightMode.Landed, result.getFinalMode());
+    assertTrue(result.getTicks() > 0);
+    assertTrue("Simulated " + result.getDuration() + " s in " + wall + " s", result.getDuration() / wall > 10);
+  }
+
+  @Test
+  public void sameSeedFliesTheSameFlight() {
+    SimulationResult first  = new FlightSimulator(new RocketParameters(), 7).run();
+    SimulationResult second = new FlightSimulator(new RocketParameters(), 7).run();
+    assertEquals(first.getMainTime(), second.getMainTime(), 0);
+    assertEquals(first.getModeTime(FlightMode.Apogee), second.getModeTime(FlightMode.Apogee), 0);
+    assertEquals(first.getModeTime(FlightMode.Landed), second.getModeTime(FlightMode.Landed), 0);
+    assertEquals(first.getLandingTime(), second.getLandingTime(), 0);
+  }
+
+  @Test
+  public void mainChuteIsNotDeployedWithoutThePressureCondition() {
+    Settings.MAIN_CHUTE_PRESSURE = 0;
+    SimulationResult result = new FlightSimulator(new RocketParameters(), 1).run();
+    assertTrue(Double.isNaN(result.getMainTime()));
+    assertTrue(result.getLandingSpeed() > 20);
+  }
+
+  @Test
+  public void heartbeatIsSentThroughTheOwnRouter() {
+    FlightSimulator               simulator = new FlightSimulator(new RocketParameters(), 1);
+    TestPacketListener<SCMPacket> listener  = new TestPacketListener<>();
+    simulator.getRouter().addListener(listener, SCMPacket.class, PacketSources.CommandBox);
+    while (simulator.getDynamics().getTime() < 2 * Settings.HEARTBEAT_THRESHOLD) {
+      simulator.step();
+    }
+    assertNotNull(listener.lastPacket);
+    assertEquals(SCMPacketType.HB, listener.lastPacket.getID());
+  }
+
+  @Test
+  public void tickJitterChangesTheTickCount() {
+    FlightSimulator steady   = new FlightSimulator(new RocketParameters(), 1);
+    FlightSimulator jittered = new FlightSimulator(new RocketParameters(), 1);
+    jittered.setTickJitter(Settings.SIM_TICK_PERIOD);
+    while (steady.getDynamics().getTime() < 1) {
+      steady.step();
+      jittered.step();
+    }
+    assertEquals(1 / Settings.SIM_TICK_PERIOD, steady.getResult().getTicks(), 1);
+    assertTrue(steady.getResult().getTicks() != jittered.getResult().getTicks());
+  }
+
+  @Test
+  public void metricsCountTheFlight() {
+    FlightSimulator simulator = new FlightSimulator(new RocketParameters(), 1);
+    while (simulator.getDynamics().getTime() < 1) {
+      simulator.step();
+    }
+    MetricsRegistry metrics = simulator.getMetrics();
+    Counter         ticks   = (Counter) metrics.get(metrics.indexOf("flight_computer.ticks"));
+    Counter         samples = (Counter) metrics.get(metrics.indexOf("lsm9ds1.samples"));
+    assertEquals(simulator.getResult().getTicks(), ticks.get());
+    assertEquals(1 / Settings.IMU_SAMPLE_PERIOD, samples.get(), 1 / Settings.SIM_TICK_PERIOD);
+  }
+
+  @Test
+  public void sensorsArePolledOnTheirBusByPriority() {
+    FlightSimulator simulator = new FlightSimulator(new RocketParameters(), 1);
+    MetricsRegistry metrics   = simulator.getMetrics();
+    Counter         samples   = (Counter) metrics.get(metrics.indexOf("lsm9ds1.samples"));
+    long[]          seen      = { -1 };
+    BusTransaction  probe     = new BusTransaction(BusPriority.BACKGROUND) {
+      @Override
+      protected void execute() {
+        seen[0] = samples.get();
+      }
+    };
+    while (simulator.getDynamics().getTime() < 0.5) {
+      simulator.step();
+    }
+    long before = samples.get();
+    assertTrue(simulator.getI2CBus().submit(probe));
+    while (probe.isPending()) {
+      simulator.step();
+    }
+    assertNull(probe.getError());
+    assertTrue(seen[0] > before);
+    assertEquals(seen[0], samples.get());
+    assertEquals(0, simulator.getI2CBus().getQueueLength());
+  }
+
+  @Test
+  public void gpsLinkStatisticsAreDownlinked() {
+    FlightSimulator           simulator = new FlightSimulator(new RocketParameters(), 1);
+    List<String>              data      = new ArrayList<>();
+    PacketListener<SCMPacket> listener  = (direction, packet) -> {
+      if (packet.getID() == SCMPacketType.LS) {
+        data.add(packet.getData());
+      }
+    };
+    simulator.getRouter().addListener(listener, SCMPacket.class, PacketSources.CommandBox);
+    while (simulator.getDynamics().getTime() < 1.5 * Settings.LINK_STATISTICS_PERIOD) {
+      simulator.step();
+    }
+    assertTrue(data.toString(), data.stream().anyMatch(value -> value.startsWith("0I")));
+    assertTrue(data.toString(), data.stream().anyMatch(value -> value.startsWith("0F")));
+  }
+
+  @Test
+  public void wallClockIsDisciplinedByTheGPS() {
+    FlightSimulator simulator = new FlightSimulator(new RocketParameters(), 1);
+    assertFalse(simulator.getWallClock().isSynchronized());
+    this.stepFor(simulator, 2 * Settings.SIM_GPS_PERIOD);
+    assertTrue(simulator.getWallClock().isSynchronized());
+    assertEquals(simulator.getDynamics().getTime(), simulator.getWallClock().getWallTime(), 0.1);
+  }
+
+  @Test
+  public void telemetryDeadbandSwitchesToBurnAtIgnition() {
+    FlightSimulator           simulator = new FlightSimulator(new RocketParameters(), 1);
+    Telemetry                 telemetry = simulator.getTelemetry();
+    List<String>              sent      = new ArrayList<>();
+    PacketListener<SCMPacket> listener  = (direction, packet) -> {
+      if (packet.getID() == SCMPacketType.P0) {
+        sent.add(packet.getData());
+      }
+    };
+    simulator.getRouter().addListener(listener, SCMPacket.class, PacketSources.CommandBox);
+
+    // Within the pad deadband the second value is suppressed
+    telemetry.reportTelemetry(SCMPacketType.P0, 100.0);
+    this.stepFor(simulator, 0.5);
+    telemetry.reportTelemetry(SCMPacketType.P0, 101.0);
+    this.stepFor(simulator, 0.5);
+    assertEquals(1, sent.size());
+
+    while (simulator.getFlightState().getFlightMode() != FlightMode.Burn) {
+      simulator.step();
+    }
+    this.stepFor(simulator, 0.5);
+    assertEquals(FlightMode.Burn, telemetry.getDeadband().getFlightMode());
+
+    // The same change is outside of the burn deadband
+    telemetry.reportTelemetry(SCMPacketType.P0, 101.0);
+    this.stepFor(simulator, 0.5);
+    telemetry.reportTelemetry(SCMPacketType.P0, 102.0);
+    this.stepFor(simulator, 0.5);
+    assertEquals(3, sent.size());
+  }
+
+  private void stepFor(FlightSimulator simulator, double duration) {
+    double end = simulator.getDynamics().getTime() + duration;
+    while (simulator.getDynamics().getTime() < end) {
+      simulator.step();
+    }
+  }
+}
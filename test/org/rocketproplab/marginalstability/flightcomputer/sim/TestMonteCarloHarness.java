@@ -0,0 +1,113 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+
+public class TestMonteCarloHarness {
+
+  private static final int SCENARIOS = 6;
+
+  private double mainChuteHeight;
+  private double mainChutePressure;
+
+  @Before
+  public void init() {
+    this.mainChuteHeight   = Settings.MAIN_CHUTE_HEIGHT;
+    this.mainChutePressure = Settings.MAIN_CHUTE_PRESSURE;
+    Settings.MAIN_CHUTE_HEIGHT   = 150;
+    Settings.MAIN_CHUTE_PRESSURE = Double.POSITIVE_INFINITY;
+  }
+
+  @After
+  public void restore() {
+    Settings.MAIN_CHUTE_HEIGHT   = this.mainChuteHeight;
+    Settings.MAIN_CHUTE_PRESSURE = this.mainChutePressure;
+  }
+
+  /**
+   * A short flight to around 400 m to keep the tests fast
+   */
+  private static RocketParameters smallRocket() {
+    RocketParameters parameters = new RocketParameters();
+    parameters.setThrustCurve(new ThrustCurve(new double[] { 0, 0.1, 3, 3.1 }, new double[] { 0, 400, 400, 0 }));
+    parameters.setPropellantMass(0.6);
+    parameters.setDryMass(12);
+    return parameters;
+  }
+
+  @Test
+  public void statisticsOfEveryScenario() {
+    MonteCarloHarness harness = new MonteCarloHarness(smallRocket(), new ScenarioDispersion(), 3);
+    MonteCarloResult  result  = harness.run(SCENARIOS);
+    assertEquals(SCENARIOS, result.getScenarios());
+    assertEquals(SCENARIOS, result.getApogee().getCount());
+    assertEquals(0, result.getMissedApogees());
+    assertEquals(0, result.getMissedDrogues());
+    assertEquals(0, result.getMissedMains());
+    assertEquals(0, result.getApogeeDetectionDelay().getMean(), 2);
+    assertEquals(0, result.getDrogueAltitudeError().getMean(), 20);
+    assertEquals(0, result.getMainAltitudeError().getMean(), 50);
+    assertTrue(result.getApogee().getStandardDeviation() > 0);
+  }
+
+  @Test
+  public void resultDoesNotDependOnTheNumberOfThreads() {
+    ForkJoinPool single   = new ForkJoinPool(1);
+    ForkJoinPool parallel = new ForkJoinPool(4);
+    try {
+      MonteCarloResult sequential = new MonteCarloHarness(smallRocket(), new ScenarioDispersion(), 5, single)
+          .run(SCENARIOS);
+      MonteCarloResult concurrent = new MonteCarloHarness(smallRocket(), new ScenarioDispersion(), 5, parallel)
+          .run(SCENARIOS);
+      assertEquals(sequential.getApogee().getMean(), concurrent.getApogee().getMean(), 0);
+      assertEquals(sequential.getApogeeDetectionDelay().getMean(),
+          concurrent.getApogeeDetectionDelay().getMean(), 0);
+      assertEquals(sequential.getMainAltitudeError().getStandardDeviation(),
+          concurrent.getMainAltitudeError().getStandardDeviation(), 0);
+      assertEquals(sequential.getLandingSpeed().getMax(), concurrent.getLandingSpeed().getMax(), 0);
+    } finally {
+      single.shutdown();
+      parallel.shutdown();
+    }
+  }
+
+  @Test
+  public void sameIndexCreatesSameScenario() {
+    MonteCarloHarness harness = new MonteCarloHarness(smallRocket(), new ScenarioDispersion(), 11);
+    RocketParameters  first   = harness.createScenario(2).getParameters();
+    RocketParameters  second  = harness.createScenario(2).getParameters();
+    RocketParameters  other   = harness.createScenario(3).getParameters();
+    assertEquals(first.getWindEast(), second.getWindEast(), 0);
+    assertEquals(first.getDryMass(), second.getDryMass(), 0);
+    assertTrue(first.getWindEast() != other.getWindEast());
+  }
+
+  @Test
+  public void noDispersionFliesTheNominalRocket() {
+    RocketParameters  nominal  = smallRocket();
+    MonteCarloHarness harness  = new MonteCarloHarness(nominal, ScenarioDispersion.none(), 1);
+    RocketParameters  scenario = harness.createScenario(4).getParameters();
+    assertEquals(nominal.getWindEast(), scenario.getWindEast(), 0);
+    assertEquals(nominal.getLaunchAngle(), scenario.getLaunchAngle(), 0);
+    assertEquals(nominal.getDryMass(), scenario.getDryMass(), 0);
+    assertEquals(nominal.getThrustCurve().getTotalImpulse(), scenario.getThrustCurve().getTotalImpulse(), 1e-9);
+  }
+
+  @Test
+  public void sweepFliesEveryValue() {
+    MonteCarloHarness             harness = new MonteCarloHarness(smallRocket(), new ScenarioDispersion(), 9);
+    Map<Double, MonteCarloResult> results = harness.sweep(2, h -> Settings.MAIN_CHUTE_HEIGHT = h, 100, 200);
+    assertEquals(2, results.size());
+    assertEquals(200, Settings.MAIN_CHUTE_HEIGHT, 0);
+    assertEquals(0, results.get(100.0).getMainAltitudeError().getMean(), 50);
+    assertEquals(0, results.get(200.0).getMainAltitudeError().getMean(), 50);
+  }
+}
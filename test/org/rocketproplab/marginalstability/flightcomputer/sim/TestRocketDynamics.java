@@ -0,0 +1,101 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+
+public class TestRocketDynamics {
+
+  private static final double DT = 0.001;
+
+  private RocketParameters parameters;
+
+  @Before
+  public void init() {
+    this.parameters = new RocketParameters();
+    this.parameters.setLaunchAngle(0);
+  }
+
+  private void stepFor(RocketDynamics dynamics, double duration) {
+    for (int i = 0; i < Math.round(duration / DT); i++) {
+      dynamics.step(DT);
+    }
+  }
+
+  @Test
+  public void rocketRestsOnThePadUntilIgnition() {
+    this.parameters.setLaunchAngle(Math.toRadians(10));
+    RocketDynamics dynamics = new RocketDynamics(this.parameters);
+    this.stepFor(dynamics, 1);
+    assertEquals(RocketDynamics.Phase.PAD, dynamics.getPhase());
+    assertEquals(0, dynamics.getVelocity().norm(), 0);
+    // The accelerometer feels gravity along the tilted rail
+    assertEquals(0, dynamics.getSpecificForce().getX(), 1e-9);
+    assertEquals(-Settings.GRAVITY * Math.sin(Math.toRadians(10)), dynamics.getSpecificForce().getY(), 1e-9);
+    assertEquals(Settings.GRAVITY * Math.cos(Math.toRadians(10)), dynamics.getSpecificForce().getZ(), 1e-9);
+  }
+
+  @Test
+  public void railGuidesTheRocketAlongItsDirection() {
+    this.parameters.setLaunchAngle(Math.toRadians(10));
+    this.parameters.setLaunchAzimuth(Math.toRadians(90));
+    RocketDynamics dynamics = new RocketDynamics(this.parameters);
+    dynamics.ignite();
+    this.stepFor(dynamics, 0.5);
+    assertEquals(RocketDynamics.Phase.RAIL, dynamics.getPhase());
+    double east = dynamics.getPosition().getX();
+    double up   = dynamics.getPosition().getZ();
+    assertTrue(east > 0);
+    assertEquals(Math.tan(Math.toRadians(10)), east / up, 1e-9);
+    assertEquals(0, dynamics.getPosition().getY(), 1e-9);
+    assertEquals(0, dynamics.getAngularRate().norm(), 0);
+  }
+
+  @Test
+  public void verticalFlightWithoutWindStaysVertical() {
+    RocketDynamics dynamics = new RocketDynamics(this.parameters);
+    dynamics.ignite();
+    this.stepFor(dynamics, 40);
+    assertTrue(dynamics.getApogee() > 1000);
+    assertEquals(0, dynamics.getPosition().getX(), 1e-6);
+    assertEquals(0, dynamics.getPosition().getY(), 1e-6);
+    assertEquals(0, dynamics.getOrientation().getTiltAngle(), 1e-9);
+    assertEquals(this.parameters.getDryMass(), dynamics.getMass(), 1e-9);
+  }
+
+  @Test
+  public void parachutesSlowTheDescentUntilLanding() {
+    RocketDynamics dynamics = new RocketDynamics(this.parameters);
+    dynamics.ignite();
+    this.stepFor(dynamics, 30);
+    dynamics.deployDrogue();
+    dynamics.deployMain();
+    assertEquals(dynamics.getAltitude(), dynamics.getMainAltitude(), 0);
+    this.stepFor(dynamics, 300);
+    assertEquals(RocketDynamics.Phase.LANDED, dynamics.getPhase());
+    assertEquals(this.parameters.getLaunchAltitude(), dynamics.getAltitude(), 0);
+    double mass          = this.parameters.getDryMass();
+    double dragArea      = this.parameters.getDragArea() + this.parameters.getDrogueDragArea()
+        + this.parameters.getMainDragArea();
+    double terminalSpeed = Math.sqrt(2 * mass * Settings.GRAVITY / (Atmosphere.getDensity(0) * dragArea));
+    assertEquals(terminalSpeed, dynamics.getLandingSpeed(), 0.1);
+  }
+
+  @Test
+  public void rocketTurnsIntoTheWind() {
+    // Wind blowing towards the west comes from the east
+    this.parameters.setWind(-10, 0);
+    RocketDynamics dynamics = new RocketDynamics(this.parameters);
+    dynamics.ignite();
+    this.stepFor(dynamics, 10);
+    assertTrue(dynamics.getOrientation().getTiltAngle() > 0);
+    double[] nose = { 0, 0, 1 };
+    dynamics.getOrientation().rotate(nose, 0);
+    assertTrue(nose[0] > 0);
+    assertEquals(0, nose[1], 1e-9);
+    assertTrue(dynamics.getPosition().getX() > 0);
+  }
+}
@@ -0,0 +1,41 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.replay.ReplayTime;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LPS22HD;
+
+public class TestSimulatedLPS22HD {
+
+  private SimulatedLPS22HD device;
+  private LPS22HD          barometer;
+
+  @Before
+  public void init() {
+    this.device    = new SimulatedLPS22HD();
+    this.barometer = new LPS22HD(this.device, new ReplayTime(0));
+  }
+
+  @Test
+  public void pressureIsReadBackByTheDriver() {
+    this.barometer.init();
+    assertTrue(this.device.isRunning());
+    this.device.setPressure(1001.5);
+    this.barometer.poll();
+    assertEquals(1001.5, this.barometer.getPressure(), 1 / 4096.0);
+    assertTrue(this.barometer.inUsableRange());
+  }
+
+  @Test
+  public void noConversionsBeforeInit() {
+    this.device.setPressure(1001.5);
+    this.barometer.poll();
+    assertFalse(this.device.isRunning());
+    assertEquals(0, this.device.getConversionCount());
+    assertEquals(0, this.barometer.getPressure(), 0);
+  }
+}
@@ -0,0 +1,81 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LSM9DS1;
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+
+public class TestSimulatedLSM9DS1 {
+
+  private SimulatedLSM9DS1 device;
+  private LSM9DS1          imu;
+
+  @Before
+  public void init() throws IOException {
+    this.device = new SimulatedLSM9DS1();
+    this.imu    = new LSM9DS1(this.device);
+    this.imu.setFIFOEnabled(true);
+    this.imu.setFIFOMode(LSM9DS1.FIFOMode.CONTINUOUS);
+  }
+
+  @Test
+  public void samplesAreReadBackByTheDriver() {
+    MutableVector3 force = new MutableVector3(1, -2, Settings.GRAVITY);
+    MutableVector3 rate  = new MutableVector3(0.1, -0.5, 0.25);
+    this.device.addSample(force, rate);
+    this.device.addSample(force, rate);
+    this.imu.poll();
+
+    for (int i = 0; i < 2; i++) {
+      assertTrue(this.imu.hasNext());
+      IMUReading reading = this.imu.getNext();
+      double     scale   = Settings.IMU_ACCELERATION_SCALE;
+      assertEquals(1, reading.getXYZAcceleration().getX() * scale, scale);
+      assertEquals(-2, reading.getXYZAcceleration().getY() * scale, scale);
+      assertEquals(Settings.GRAVITY, reading.getXYZAcceleration().getZ() * scale, scale);
+      scale = Settings.IMU_GYRO_SCALE;
+      assertEquals(0.1, reading.getXYZRotation().getX() * scale, scale);
+      assertEquals(-0.5, reading.getXYZRotation().getY() * scale, scale);
+      assertEquals(0.25, reading.getXYZRotation().getZ() * scale, scale);
+    }
+    assertFalse(this.imu.hasNext());
+    assertEquals(0, this.device.getFIFOCount());
+  }
+
+  @Test
+  public void valuesOutsideTheScaleSaturate() {
+    MutableVector3 force = new MutableVector3(0, 0, 100 * Settings.GRAVITY);
+    this.device.addSample(force, new MutableVector3());
+    this.imu.poll();
+    assertEquals(Short.MAX_VALUE, this.imu.getNext().getXYZAcceleration().getZ(), 0);
+  }
+
+  @Test
+  public void fullFIFOOverwritesTheOldestSample() throws IOException {
+    MutableVector3 rate = new MutableVector3();
+    for (int i = 0; i < 40; i++) {
+      this.device.addSample(new MutableVector3(0, 0, i * 100 * Settings.IMU_ACCELERATION_SCALE), rate);
+    }
+    assertEquals(32, this.imu.getSamplesInFIFO());
+    assertTrue(this.imu.hasFIFOOverrun());
+    this.imu.poll();
+    assertFalse(this.imu.hasFIFOOverrun());
+    assertEquals(800, this.imu.getNext().getXYZAcceleration().getZ(), 0);
+  }
+
+  @Test
+  public void samplesAreLostUntilTheFIFOIsEnabled() throws IOException {
+    this.imu.setFIFOEnabled(false);
+    this.device.addSample(new MutableVector3(), new MutableVector3());
+    assertEquals(0, this.imu.getSamplesInFIFO());
+    assertEquals(0, this.device.getSampleCount());
+  }
+}
@@ -0,0 +1,89 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSTransceiver;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830;
+import org.rocketproplab.marginalstability.flightcomputer.hal.MAX14830.Port;
+import org.rocketproplab.marginalstability.flightcomputer.math.MutableVector3;
+import org.rocketproplab.marginalstability.flightcomputer.replay.ReplayTime;
+
+public class TestSimulatedMAX14830 {
+
+  private SimulatedMAX14830             device;
+  private MAX14830                      uart;
+  private PacketRouter                  router;
+  private TestPacketListener<GPSPacket> listener;
+
+  @Before
+  public void init() {
+    this.device   = new SimulatedMAX14830();
+    this.uart     = new MAX14830(this.device, null, new ReplayTime(0));
+    this.router   = new PacketRouter();
+    this.listener = new TestPacketListener<>();
+    this.router.addListener(this.listener, GPSPacket.class, PacketSources.GPS);
+    this.uart.getPort(Port.UART2).registerListener(new GPSTransceiver(this.router));
+  }
+
+  @Test
+  public void ggaSentenceIsFormattedWithChecksum() {
+    String sentence = SimulatedGPS.formatGGA(12 * 3600 + 35 * 60 + 19, 48.1173, 11.516666667, 545.4, 8);
+    assertEquals("$GPGGA,123519.00,4807.0380,N,01131.0000,E,1,08,0.9,545.4,M,0.0,M,,*52\r\n", sentence);
+    sentence = SimulatedGPS.formatGGA(-1, -35.5, -117.25, 10, 8);
+    assertTrue(sentence.startsWith("$GPGGA,235959.00,3530.0000,S,11715.0000,W,"));
+  }
+
+  @Test
+  public void gpsSentenceIsRoutedThroughTheDriver() {
+    SimulatedGPS   gps      = new SimulatedGPS(35, -117, 3600);
+    MutableVector3 position = new MutableVector3(0, 1852, 1234.5);
+    this.device.receive(Port.UART2, gps.getSentence(1.5, position));
+    this.uart.poll();
+
+    GPSPacket packet = this.listener.lastPacket;
+    assertTrue(packet.isValid());
+    assertEquals(10001.5, packet.getTime(), 1e-9);
+    assertEquals(3501.0, packet.getLatitude(), 1e-3);
+    assertEquals(11700.0, packet.getLongitude(), 1e-9);
+    assertEquals(1234.5, packet.getAltitude(), 1e-9);
+    assertEquals(0, this.device.getRXFIFOLevel(Port.UART2));
+  }
+
+  @Test
+  public void interruptsReportPortsWithData() throws IOException {
+    this.uart.enableInterrupts();
+    SimulatedGPS gps = new SimulatedGPS(35, -117, 0);
+    this.device.receive(Port.UART2, gps.getSentence(0, new MutableVector3()));
+    this.uart.poll();
+    assertTrue(this.listener.lastPacket.isValid());
+    assertEquals(0, this.device.getRXFIFOLevel(Port.UART2));
+  }
+
+  @Test
+  public void transmittedDataIsCollectedPerPort() {
+    this.uart.getPort(Port.UART1).write("hello");
+    this.uart.poll();
+    assertEquals("hello", this.device.takeTransmitted(Port.UART1));
+    assertEquals("", this.device.takeTransmitted(Port.UART1));
+    assertEquals("", this.device.takeTransmitted(Port.UART0));
+  }
+
+  @Test
+  public void dataBeyondTheFIFOIsDropped() {
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      data.append('a');
+    }
+    assertEquals(128, this.device.receive(Port.UART0, data.toString()));
+    assertEquals(128, this.device.getRXFIFOLevel(Port.UART0));
+  }
+}
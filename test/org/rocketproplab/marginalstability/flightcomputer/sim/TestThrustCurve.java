@@ -0,0 +1,33 @@
+package org.rocketproplab.marginalstability.flightcomputer.sim;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestThrustCurve {
+
+  private final ThrustCurve curve = new ThrustCurve(new double[] { 0, 1, 3 }, new double[] { 0, 100, 100 });
+
+  @Test
+  public void thrustIsInterpolatedAndZeroOutsideTheBurn() {
+    assertEquals(0, curve.getThrust(-1), 0);
+    assertEquals(50, curve.getThrust(0.5), 1e-9);
+    assertEquals(100, curve.getThrust(2), 1e-9);
+    assertEquals(0, curve.getThrust(3), 0);
+    assertEquals(3, curve.getBurnTime(), 0);
+  }
+
+  @Test
+  public void impulseIsTheAreaUnderTheCurve() {
+    assertEquals(0, curve.getImpulse(0), 0);
+    assertEquals(12.5, curve.getImpulse(0.5), 1e-9);
+    assertEquals(150, curve.getImpulse(2), 1e-9);
+    assertEquals(250, curve.getTotalImpulse(), 1e-9);
+    assertEquals(250, curve.getImpulse(10), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void timesMustIncrease() {
+    new ThrustCurve(new double[] { 0, 1, 1 }, new double[] { 0, 1, 0 });
+  }
+}
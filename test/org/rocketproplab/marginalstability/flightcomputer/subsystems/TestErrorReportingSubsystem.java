@@ -0,0 +1,117 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+
+public class TestErrorReportingSubsystem {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private class RecordingListener extends TestPacketListener<SCMPacket> {
+    public List<SCMPacket> packets = new ArrayList<>();
+
+    @Override
+    public void onPacket(PacketDirection direction, SCMPacket packet) {
+      super.onPacket(direction, packet);
+      this.packets.add(packet);
+    }
+  }
+
+  private TestTime                time;
+  private RecordingListener       listener;
+  private Telemetry               telemetry;
+  private ErrorReportingSubsystem subsystem;
+
+  @Before
+  public void init() {
+    PacketRouter router = new PacketRouter();
+    this.time      = new TestTime();
+    this.listener  = new RecordingListener();
+    this.telemetry = new Telemetry(Logger.getLogger("Test"), router);
+    this.subsystem = new ErrorReportingSubsystem(this.telemetry, this.time);
+    router.addListener(this.listener, SCMPacket.class, PacketSources.CommandBox);
+    router.addListener(this.subsystem, SCMPacket.class, PacketSources.CommandBox);
+  }
+
+  @Test
+  public void errorEveryTickIsSentOncePerPeriod() {
+    for (int i = 0; i < 1000; i++) {
+      this.time.time = i * Settings.ERROR_REPORT_PERIOD / 100;
+      this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
+      this.subsystem.update();
+    }
+    assertEquals(10, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.ER, "01001"), this.listener.packets.get(0));
+    assertEquals(new SCMPacket(SCMPacketType.ER, "01065"), this.listener.packets.get(1));
+    assertEquals(1000, this.telemetry.getErrorCounts().getCount(Errors.TOP_LEVEL_EXCEPTION));
+  }
+
+  @Test
+  public void onlyErrorsWhichOccurredAgainAreSent() {
+    this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
+    this.telemetry.reportError(Errors.UART_BUS_ERROR);
+    this.telemetry.reportError(Errors.UART_BUS_ERROR);
+    this.listener.packets.clear();
+
+    this.time.time = Settings.ERROR_REPORT_PERIOD;
+    this.subsystem.update();
+    assertEquals(1, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.WA, "05002"), this.listener.packets.get(0));
+
+    this.time.time = 2 * Settings.ERROR_REPORT_PERIOD;
+    this.subsystem.update();
+    assertEquals(1, this.listener.packets.size());
+  }
+
+  @Test
+  public void countDroppedOnTheWayIsResent() {
+    List<SCMPacket>         sent      = new ArrayList<>();
+    Telemetry               lossy     = new Telemetry(Logger.getLogger("Test"),
+        (packet, source) -> sent.add((SCMPacket) packet));
+    ErrorReportingSubsystem reporting = new ErrorReportingSubsystem(lossy, this.time);
+    lossy.reportError(Errors.TOP_LEVEL_EXCEPTION);
+    assertEquals(0, lossy.getErrorCounts().getReportedCount(Errors.TOP_LEVEL_EXCEPTION));
+
+    this.time.time = Settings.ERROR_REPORT_PERIOD;
+    reporting.update();
+    assertEquals(2, sent.size());
+    reporting.onPacket(PacketDirection.SEND, sent.get(1));
+    assertEquals(1, lossy.getErrorCounts().getReportedCount(Errors.TOP_LEVEL_EXCEPTION));
+
+    this.time.time = 2 * Settings.ERROR_REPORT_PERIOD;
+    reporting.update();
+    assertEquals(2, sent.size());
+  }
+
+  @Test
+  public void countsAreAMetric() {
+    this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
+    this.telemetry.reportError(Errors.IMU_BUS_ERROR);
+    this.telemetry.reportError(Errors.IMU_BUS_ERROR);
+    assertEquals(Errors.values().length, this.telemetry.getErrorCounts().getValueCount());
+    assertEquals(2, this.telemetry.getErrorCounts().getValue(Errors.IMU_BUS_ERROR.ordinal()), 0);
+    assertEquals(3, this.telemetry.getErrorCounts().getSummary());
+  }
+}
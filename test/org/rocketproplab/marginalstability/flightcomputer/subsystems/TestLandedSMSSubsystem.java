@@ -1,10 +1,18 @@
 package org.rocketproplab.marginalstability.flightcomputer.subsystems;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
 import org.rocketproplab.marginalstability.flightcomputer.Time;
 import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.events.SerialListener;
 import org.rocketproplab.marginalstability.flightcomputer.hal.SMSSender;
+import org.rocketproplab.marginalstability.flightcomputer.hal.SMSStatus;
+import org.rocketproplab.marginalstability.flightcomputer.hal.SaraSMSSender;
+import org.rocketproplab.marginalstability.flightcomputer.hal.SerialPort;
 import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
 
 import static junit.framework.Assert.assertEquals;
@@ -13,6 +21,12 @@ import static junit.framework.Assert.fail;
 public class TestLandedSMSSubsystem {
   private static class TestSMSSender implements SMSSender {
     private boolean smsSent = false;
+    private int     polls   = 0;
+
+    @Override
+    public void poll() {
+      polls++;
+    }
 
     @Override
     public void sendMessage(String number, String message) {
@@ -40,6 +54,21 @@ public class TestLandedSMSSubsystem {
     }
   }
 
+  private static class TestSerialPort implements SerialPort {
+    private List<String>   written = new ArrayList<>();
+    private SerialListener listener;
+
+    @Override
+    public void registerListener(SerialListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void write(String data) {
+      written.add(data);
+    }
+  }
+
   private static class TestGPSPacket extends GPSPacket {
     public static final double LAT = 11, LON = 12;
 
@@ -108,4 +137,41 @@ public class TestLandedSMSSubsystem {
     landedSMSSubsystem.update();
     if (smsSender.smsSent) fail();
   }
+
+  @Test
+  public void senderIsPolledEveryUpdate() {
+    landedSMSSubsystem.update();
+    landedSMSSubsystem.onFlightModeChange(FlightMode.Coasting);
+    landedSMSSubsystem.update();
+    assertEquals(2, smsSender.polls);
+  }
+
+  @Test
+  public void unansweredATIsRetriedThroughTheSubsystem() {
+    TestSerialPort     port      = new TestSerialPort();
+    SaraSMSSender      sara      = new SaraSMSSender(port, smsTime);
+    List<SMSStatus>    results   = new ArrayList<>();
+    LandedSMSSubsystem subsystem = new LandedSMSSubsystem("13108665454", sara, smsTime);
+    sara.addSMSListener((number, message, status) -> results.add(status));
+    subsystem.onPacket(null, new TestGPSPacket());
+    assertEquals(1, port.written.size());
+
+    // The modem was not powered when AT was sent, the reply never comes
+    smsTime.addTime(Settings.SMS_COMMAND_TIMEOUT);
+    subsystem.update();
+    smsTime.addTime(Settings.SMS_RETRY_BACKOFF);
+    subsystem.update();
+    assertEquals(2, port.written.size());
+    assertEquals("AT\n", port.written.get(1));
+
+    port.listener.onSerialData("OK\r\n");
+    port.listener.onSerialData("OK\r\n");
+    subsystem.onFlightModeChange(FlightMode.Landed);
+    smsTime.addTime(LandedSMSSubsystem.SMS_INTERVAL + 1);
+    subsystem.update();
+    port.listener.onSerialData("> ");
+    port.listener.onSerialData("OK\r\n");
+    assertEquals(1, results.size());
+    assertEquals(SMSStatus.SENT, results.get(0));
+  }
 }
@@ -0,0 +1,122 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics;
+import org.rocketproplab.marginalstability.flightcomputer.hal.LinkStatistics.Counter;
+
+public class TestLinkStatisticsSubsystem {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private class RecordingListener extends TestPacketListener<SCMPacket> {
+    public List<SCMPacket> packets = new ArrayList<>();
+
+    @Override
+    public void onPacket(PacketDirection direction, SCMPacket packet) {
+      super.onPacket(direction, packet);
+      this.packets.add(packet);
+    }
+  }
+
+  private TestTime                time;
+  private RecordingListener       listener;
+  private LinkStatisticsSubsystem subsystem;
+
+  @Before
+  public void init() {
+    PacketRouter router = new PacketRouter();
+    this.time      = new TestTime();
+    this.listener  = new RecordingListener();
+    this.subsystem = new LinkStatisticsSubsystem(new Telemetry(Logger.getLogger("Test"), router), this.time);
+    router.addListener(this.listener, SCMPacket.class, PacketSources.CommandBox);
+    router.addListener(this.subsystem, SCMPacket.class, PacketSources.CommandBox);
+  }
+
+  @Test
+  public void counterIsFormattedAsLinkCodeAndHex() {
+    assertEquals("2C0FF", this.subsystem.formatCounter(2, Counter.CHECKSUM_FAILURES, 255));
+    assertEquals("0I001", this.subsystem.formatCounter(0, Counter.BYTES_IN, 0x1001));
+  }
+
+  @Test
+  public void counterDroppedOnTheWayIsResent() {
+    List<SCMPacket>         sent       = new ArrayList<>();
+    Telemetry               lossy      = new Telemetry(Logger.getLogger("Test"),
+        (packet, source) -> sent.add((SCMPacket) packet));
+    LinkStatisticsSubsystem subsystem  = new LinkStatisticsSubsystem(lossy, this.time);
+    LinkStatistics          statistics = new LinkStatistics();
+    subsystem.addLink(statistics);
+    statistics.increment(Counter.OVERRUNS);
+
+    this.time.time = Settings.LINK_STATISTICS_PERIOD;
+    subsystem.update();
+    this.time.time = 2 * Settings.LINK_STATISTICS_PERIOD;
+    subsystem.update();
+    assertEquals(2, sent.size());
+    assertEquals(new SCMPacket(SCMPacketType.LS, "0V001"), sent.get(1));
+
+    subsystem.onPacket(PacketDirection.SEND, sent.get(1));
+    this.time.time = 3 * Settings.LINK_STATISTICS_PERIOD;
+    subsystem.update();
+    assertEquals(2, sent.size());
+  }
+
+  @Test
+  public void nothingIsSentBeforePeriod() {
+    LinkStatistics statistics = new LinkStatistics();
+    this.subsystem.addLink(statistics);
+    statistics.increment(Counter.FRAMES);
+    this.time.time = Settings.LINK_STATISTICS_PERIOD / 2;
+    this.subsystem.update();
+    assertNull(this.listener.lastPacket);
+  }
+
+  @Test
+  public void onlyChangedCountersAreSent() {
+    LinkStatistics first  = new LinkStatistics();
+    LinkStatistics second = new LinkStatistics();
+    this.subsystem.addLink(first);
+    this.subsystem.addLink(second);
+    first.increment(Counter.FRAMES);
+    second.add(Counter.BYTES_OUT, 20);
+    this.time.time = Settings.LINK_STATISTICS_PERIOD;
+    this.subsystem.update();
+    assertEquals(2, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.LS, "0F001"), this.listener.packets.get(0));
+    assertEquals(new SCMPacket(SCMPacketType.LS, "1O014"), this.listener.packets.get(1));
+
+    this.listener.packets.clear();
+    this.time.time = 2 * Settings.LINK_STATISTICS_PERIOD;
+    this.subsystem.update();
+    assertEquals(0, this.listener.packets.size());
+
+    second.increment(Counter.OVERRUNS);
+    this.time.time = 3 * Settings.LINK_STATISTICS_PERIOD;
+    this.subsystem.update();
+    assertEquals(1, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.LS, "1V001"), this.listener.packets.get(0));
+  }
+}
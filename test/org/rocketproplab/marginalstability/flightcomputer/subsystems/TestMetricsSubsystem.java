@@ -0,0 +1,138 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Counter;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.Gauge;
+import org.rocketproplab.marginalstability.flightcomputer.metrics.MetricsRegistry;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightLogReader;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.FlightRecorder;
+import org.rocketproplab.marginalstability.flightcomputer.recorder.RecordType;
+
+public class TestMetricsSubsystem {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private class RecordingListener extends TestPacketListener<SCMPacket> {
+    public List<SCMPacket> packets = new ArrayList<>();
+
+    @Override
+    public void onPacket(PacketDirection direction, SCMPacket packet) {
+      super.onPacket(direction, packet);
+      this.packets.add(packet);
+    }
+  }
+
+  private TestTime          time;
+  private RecordingListener listener;
+  private MetricsRegistry   registry;
+  private MetricsSubsystem  subsystem;
+  private int               downlinkLimit;
+
+  @Before
+  public void init() {
+    PacketRouter router = new PacketRouter();
+    this.time          = new TestTime();
+    this.listener      = new RecordingListener();
+    this.registry      = new MetricsRegistry();
+    this.subsystem     = new MetricsSubsystem(this.registry, new Telemetry(Logger.getLogger("Test"), router),
+        this.time);
+    this.downlinkLimit = Settings.METRICS_DOWNLINK_LIMIT;
+    router.addListener(this.listener, SCMPacket.class, PacketSources.CommandBox);
+  }
+
+  @After
+  public void restore() {
+    Settings.METRICS_DOWNLINK_LIMIT = this.downlinkLimit;
+  }
+
+  @Test
+  public void summaryIsFormattedAsIndexAndHex() {
+    assertEquals("0A0FF", this.subsystem.formatSummary(10, 255));
+    assertEquals("FF001", this.subsystem.formatSummary(255, 0x1001));
+  }
+
+  @Test
+  public void onlyChangedMetricsAreSentEveryPeriod() {
+    Counter ticks = this.registry.counter("ticks");
+    Gauge   depth = this.registry.gauge("depth");
+    ticks.add(3);
+    this.time.time = Settings.METRICS_PERIOD / 2;
+    this.subsystem.update();
+    assertEquals(0, this.listener.packets.size());
+
+    this.time.time = Settings.METRICS_PERIOD;
+    this.subsystem.update();
+    assertEquals(1, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.MT, "00003"), this.listener.packets.get(0));
+
+    depth.set(12);
+    this.time.time = 2 * Settings.METRICS_PERIOD;
+    this.subsystem.update();
+    assertEquals(2, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.MT, "0100C"), this.listener.packets.get(1));
+  }
+
+  @Test
+  public void downlinkLimitTakesTurns() {
+    Settings.METRICS_DOWNLINK_LIMIT = 1;
+    Counter first  = this.registry.counter("first");
+    Counter second = this.registry.counter("second");
+    first.increment();
+    second.increment();
+    this.subsystem.snapshot();
+    first.increment();
+    this.subsystem.snapshot();
+    assertEquals(2, this.listener.packets.size());
+    assertEquals(new SCMPacket(SCMPacketType.MT, "00001"), this.listener.packets.get(0));
+    assertEquals(new SCMPacket(SCMPacketType.MT, "01001"), this.listener.packets.get(1));
+    this.subsystem.snapshot();
+    assertEquals(new SCMPacket(SCMPacketType.MT, "00002"), this.listener.packets.get(2));
+  }
+
+  @Test
+  public void recorderIsGivenTheNameOfEveryMetric() throws IOException {
+    Path           directory = Files.createTempDirectory("metrics");
+    Path           file      = directory.resolve("flight.rec");
+    FlightRecorder recorder  = new FlightRecorder(file, 16, this.time);
+    this.registry.counter("ticks");
+    this.subsystem.setRecorder(recorder);
+    this.subsystem.snapshot();
+    this.registry.gauge("depth");
+    this.subsystem.snapshot();
+    recorder.close();
+    try (FlightLogReader reader = new FlightLogReader(file)) {
+      assertEquals("ticks", reader.getMetricName(0));
+      assertEquals("depth", reader.getMetricName(1));
+      assertEquals(3, reader.getRecordCount(RecordType.METRIC));
+    } finally {
+      Files.delete(file);
+      Files.delete(directory);
+    }
+  }
+}
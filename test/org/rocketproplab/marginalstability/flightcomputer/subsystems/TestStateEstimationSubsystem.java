@@ -0,0 +1,144 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.GPSPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
+import org.rocketproplab.marginalstability.flightcomputer.hal.Barometer;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMU;
+import org.rocketproplab.marginalstability.flightcomputer.hal.IMUReading;
+import org.rocketproplab.marginalstability.flightcomputer.math.InterpolatingVector3;
+import org.rocketproplab.marginalstability.flightcomputer.math.Vector3;
+
+public class TestStateEstimationSubsystem {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    public double getSystemTime() {
+      return time;
+    }
+  }
+
+  private class TestIMU implements IMU {
+    public ArrayDeque<IMUReading> readings = new ArrayDeque<>();
+
+    @Override
+    public IMUReading getNext() {
+      return readings.pollFirst();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !readings.isEmpty();
+    }
+  }
+
+  private class TestBarometer implements Barometer {
+    public double pressure = Settings.SEA_LEVEL_PRESSURE;
+    public double time     = 0;
+
+    @Override
+    public double getPressure() {
+      return pressure;
+    }
+
+    @Override
+    public boolean inUsableRange() {
+      return true;
+    }
+
+    @Override
+    public double getLastMeasurementTime() {
+      return time;
+    }
+  }
+
+  private TestTime                 time;
+  private TestIMU                  imu;
+  private TestBarometer            barometer;
+  private StateEstimationSubsystem estimator;
+
+  @Before
+  public void before() {
+    this.time      = new TestTime();
+    this.imu       = new TestIMU();
+    this.barometer = new TestBarometer();
+    this.estimator = new StateEstimationSubsystem(imu, barometer, time);
+  }
+
+  @Test
+  public void seaLevelPressureIsZeroAltitude() {
+    assertEquals(0, StateEstimationSubsystem.getAltitudeFromPressure(Settings.SEA_LEVEL_PRESSURE), 1e-9);
+    assertEquals(5574, StateEstimationSubsystem.getAltitudeFromPressure(500), 1);
+  }
+
+  @Test
+  public void restingIMUOnItsSideHasNoVerticalAcceleration() {
+    double counts = Settings.GRAVITY / Settings.IMU_ACCELERATION_SCALE;
+    this.estimator.update();
+    for (int i = 1; i <= 100; i++) {
+      this.imu.readings.add(new IMUReading(new Vector3(counts, 0, 0), new Vector3()));
+      this.time.time = i * Settings.IMU_SAMPLE_PERIOD;
+      this.estimator.update();
+    }
+    assertEquals(0, this.estimator.getFilter().getAcceleration(), 1e-6);
+    assertEquals(0, this.estimator.getFilter().getVelocity(), 1e-6);
+    assertTrue(this.estimator.isTumbling());
+  }
+
+  @Test
+  public void firstBarometerReadingSetsAltitude() {
+    this.barometer.pressure = 500;
+    this.barometer.time     = 1;
+    this.estimator.update();
+    assertEquals(5574, this.estimator.getFilter().getPosition(), 1);
+  }
+
+  @Test
+  public void gpsAltitudeIsUsedOnNextUpdate() {
+    String    nmea   = "$GPGGA,1,2,N,3,W,1,5,0.9,1234.0,M,46.9,M,,*47";
+    GPSPacket packet = new GPSPacket(nmea);
+    this.estimator = new StateEstimationSubsystem(imu, null, time);
+    this.estimator.onPacket(PacketDirection.RECIVE, packet);
+    this.estimator.update();
+    assertEquals(1234, this.estimator.getFilter().getPosition(), 1e-9);
+  }
+
+  @Test
+  public void imuSamplesDriveVelocityEstimate() {
+    double counts = (Settings.GRAVITY + 10) / Settings.IMU_ACCELERATION_SCALE;
+    this.estimator.update();
+    for (int i = 1; i <= 100; i++) {
+      this.imu.readings.add(new IMUReading(new Vector3(0, 0, counts), new Vector3()));
+      this.time.time = i * Settings.IMU_SAMPLE_PERIOD;
+      this.estimator.update();
+    }
+    assertFalse(this.imu.hasNext());
+    assertFalse(this.estimator.isTumbling());
+    assertEquals(10, this.estimator.getFilter().getAcceleration(), 0.5);
+    assertEquals(10 * this.time.time, this.estimator.getFilter().getVelocity(), 0.2);
+  }
+
+  @Test
+  public void listenersReceiveEstimates() {
+    final double[]               velocity = { Double.NaN };
+    final InterpolatingVector3[] position = { null };
+    this.estimator.addVelocityListener((vel, t) -> velocity[0] = vel.getZ());
+    this.estimator.addPositionListener(estimate -> position[0] = estimate);
+    this.estimator.update();
+    assertEquals(0, velocity[0], 1e-9);
+    assertSame(this.estimator.getPositionHistory(), position[0]);
+    assertEquals(0, position[0].getAt(0).getZ(), 1e-9);
+    assertEquals(1, this.estimator.getVelocityHistory().size());
+  }
+}
@@ -1,6 +1,7 @@
 package org.rocketproplab.marginalstability.flightcomputer.subsystems;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -9,6 +10,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.rocketproplab.marginalstability.flightcomputer.Errors;
 import org.rocketproplab.marginalstability.flightcomputer.Info;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketDirection;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
 import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
@@ -131,11 +133,35 @@ public class TestTelemetry {
   @Test
   public void telemetryGeneratesErrorPacket() {
     this.telemetry.reportError(Errors.UNKNOWN_ERROR);
-    SCMPacket testPacket = new SCMPacket(SCMPacketType.ER, "00000");
+    SCMPacket testPacket = new SCMPacket(SCMPacketType.ER, "00001");
     assertEquals(testPacket, this.testListener.lastPacket);
     assertEquals(PacketDirection.SEND, this.testListener.lastDirection);
   }
 
+  @Test
+  public void repeatedErrorIsOnlyCounted() {
+    this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
+    this.testListener.lastPacket = null;
+    this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
+    this.telemetry.reportError(Errors.TOP_LEVEL_EXCEPTION);
+    assertNull(this.testListener.lastPacket);
+    assertEquals(3, this.telemetry.getErrorCounts().getCount(Errors.TOP_LEVEL_EXCEPTION));
+    assertEquals(0, this.telemetry.getErrorCounts().getReportedCount(Errors.TOP_LEVEL_EXCEPTION));
+  }
+
+  @Test
+  public void warningIsSentOnWarningChannel() {
+    this.telemetry.reportError(Errors.IMU_BUS_ERROR);
+    SCMPacket testPacket = new SCMPacket(SCMPacketType.WA, "03001");
+    assertEquals(testPacket, this.testListener.lastPacket);
+  }
+
+  @Test
+  public void errorCountIsFormattedAsCodeAndHex() {
+    assertEquals("010FF", this.telemetry.formatError(Errors.TOP_LEVEL_EXCEPTION, 255));
+    assertEquals("00FFF", this.telemetry.formatError(Errors.UNKNOWN_ERROR, 0x1001));
+  }
+
   @Test
   public void telemetrySendsHeartbeat() {
     this.telemetry.sendHeartbeat();
@@ -151,4 +177,15 @@ public class TestTelemetry {
     assertEquals(Info.FINISH_SUBSYSTEM_START.getDescription(), this.logger.lastMessage);
   }
 
+  @Test
+  public void telemetrySuppressesValuesInsideDeadband() {
+    this.telemetry.setDeadband(new TelemetryDeadband(new Time()));
+    this.telemetry.reportTelemetry(SCMPacketType.P0, 100);
+    this.testListener.lastPacket = null;
+    this.telemetry.reportTelemetry(SCMPacketType.P0, 101);
+    assertNull(this.testListener.lastPacket);
+    this.telemetry.reportTelemetry(SCMPacketType.P0, 200);
+    assertEquals(new SCMPacket(SCMPacketType.P0, "00200"), this.testListener.lastPacket);
+  }
+
 }
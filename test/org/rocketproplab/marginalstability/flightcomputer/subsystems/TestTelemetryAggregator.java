@@ -0,0 +1,87 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.math.WindowedAggregator.Statistic;
+
+public class TestTelemetryAggregator {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private TestTime                      time;
+  private TestPacketListener<SCMPacket> listener;
+  private TelemetryAggregator           aggregator;
+
+  @Before
+  public void init() {
+    PacketRouter router = new PacketRouter();
+    this.time       = new TestTime();
+    this.listener   = new TestPacketListener<>();
+    this.aggregator = new TelemetryAggregator(new Telemetry(Logger.getLogger("Test"), router), this.time);
+    router.addListener(this.listener, SCMPacket.class, PacketSources.CommandBox);
+  }
+
+  @Test
+  public void nothingIsReportedBeforePeriod() {
+    this.aggregator.sample(SCMPacketType.T0, 20);
+    this.time.time = Settings.TELEMETRY_AGGREGATE_PERIOD / 2;
+    this.aggregator.update();
+    assertNull(this.listener.lastPacket);
+  }
+
+  @Test
+  public void pressureReportsPeakOfWindow() {
+    this.aggregator.sample(SCMPacketType.P0, 100);
+    this.aggregator.sample(SCMPacketType.P0, 350);
+    this.aggregator.sample(SCMPacketType.P0, 110);
+    this.time.time = Settings.TELEMETRY_AGGREGATE_PERIOD;
+    this.aggregator.update();
+    assertEquals(new SCMPacket(SCMPacketType.P0, "350.0"), this.listener.lastPacket);
+    assertEquals(3, this.aggregator.getLastWindow(SCMPacketType.P0).getCount());
+  }
+
+  @Test
+  public void temperatureReportsMeanOfWindow() {
+    this.aggregator.sample(SCMPacketType.T1, 20);
+    this.aggregator.sample(SCMPacketType.T1, 30);
+    this.time.time = Settings.TELEMETRY_AGGREGATE_PERIOD;
+    this.aggregator.update();
+    assertEquals(new SCMPacket(SCMPacketType.T1, "25.00"), this.listener.lastPacket);
+  }
+
+  @Test
+  public void statisticCanBeChanged() {
+    this.aggregator.setStatistic(SCMPacketType.T1, Statistic.MIN);
+    this.aggregator.sample(SCMPacketType.T1, 20);
+    this.aggregator.sample(SCMPacketType.T1, 30);
+    this.time.time = Settings.TELEMETRY_AGGREGATE_PERIOD;
+    this.aggregator.update();
+    assertEquals(new SCMPacket(SCMPacketType.T1, "20.00"), this.listener.lastPacket);
+  }
+
+  @Test
+  public void emptyChannelsAreNotReported() {
+    this.time.time = Settings.TELEMETRY_AGGREGATE_PERIOD;
+    this.aggregator.update();
+    assertNull(this.listener.lastPacket);
+  }
+}
@@ -0,0 +1,111 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.tracking.FlightMode;
+
+public class TestTelemetryDeadband {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private TestTime          time;
+  private TelemetryDeadband deadband;
+
+  @Before
+  public void init() {
+    this.time     = new TestTime();
+    this.deadband = new TelemetryDeadband(this.time);
+  }
+
+  @Test
+  public void firstValueIsAlwaysSent() {
+    assertTrue(this.deadband.shouldSend(SCMPacketType.P0, 100));
+  }
+
+  @Test
+  public void onlyListedSensorChannelsHaveDeadbands() {
+    for (SCMPacketType type : SCMPacketType.values()) {
+      boolean sensor = SCMPacketType.THERMOCOUPLES.contains(type) || SCMPacketType.PRESSURE_TRANSDUCERS.contains(type);
+      this.deadband.shouldSend(type, 100);
+      assertEquals(type.name(), !sensor, this.deadband.shouldSend(type, 100));
+    }
+    assertEquals(5, SCMPacketType.THERMOCOUPLES.size());
+    assertEquals(16, SCMPacketType.PRESSURE_TRANSDUCERS.size());
+  }
+
+  @Test
+  public void smallChangesAreSuppressed() {
+    this.deadband.shouldSend(SCMPacketType.P0, 100);
+    assertFalse(this.deadband.shouldSend(SCMPacketType.P0, 100 + Settings.TELEMETRY_PAD_PRESSURE_DEADBAND / 2));
+    assertTrue(this.deadband.shouldSend(SCMPacketType.P0, 100 + Settings.TELEMETRY_PAD_PRESSURE_DEADBAND * 2));
+  }
+
+  @Test
+  public void slowDriftIsComparedToLastSentValue() {
+    double step = Settings.TELEMETRY_PAD_PRESSURE_DEADBAND * 0.4;
+    int    sent = 0;
+    for (int i = 0; i < 10; i++) {
+      if (this.deadband.shouldSend(SCMPacketType.P0, i * step)) {
+        sent++;
+      }
+    }
+    assertEquals(4, sent);
+  }
+
+  @Test
+  public void unchangedValueIsRefreshed() {
+    this.deadband.shouldSend(SCMPacketType.T0, 20);
+    this.time.time = Settings.TELEMETRY_REFRESH_PERIOD / 2;
+    assertFalse(this.deadband.shouldSend(SCMPacketType.T0, 20));
+    this.time.time = Settings.TELEMETRY_REFRESH_PERIOD;
+    assertTrue(this.deadband.shouldSend(SCMPacketType.T0, 20));
+  }
+
+  @Test
+  public void burnUsesTighterDeadband() {
+    double change = (Settings.TELEMETRY_BURN_PRESSURE_DEADBAND + Settings.TELEMETRY_PAD_PRESSURE_DEADBAND) / 2;
+    this.deadband.shouldSend(SCMPacketType.P1, 0);
+    assertFalse(this.deadband.shouldSend(SCMPacketType.P1, change));
+
+    this.deadband.onFlightModeChange(FlightMode.Burn);
+    assertTrue(this.deadband.shouldSend(SCMPacketType.P1, change));
+    assertTrue(this.deadband.shouldSend(SCMPacketType.P1, change * 2));
+  }
+
+  @Test
+  public void modeChangeForcesRefresh() {
+    this.deadband.shouldSend(SCMPacketType.T2, 20);
+    this.deadband.onFlightModeChange(FlightMode.Coasting);
+    assertTrue(this.deadband.shouldSend(SCMPacketType.T2, 20));
+    assertFalse(this.deadband.shouldSend(SCMPacketType.T2, 20));
+  }
+
+  @Test
+  public void channelsWithoutDeadbandAreAlwaysSent() {
+    assertTrue(this.deadband.shouldSend(SCMPacketType.ER, 1));
+    assertTrue(this.deadband.shouldSend(SCMPacketType.ER, 1));
+    this.deadband.clearDeadband(SCMPacketType.P0);
+    assertTrue(this.deadband.shouldSend(SCMPacketType.P0, 1));
+    assertTrue(this.deadband.shouldSend(SCMPacketType.P0, 1));
+  }
+
+  @Test
+  public void nanIsAlwaysSent() {
+    this.deadband.shouldSend(SCMPacketType.T1, 20);
+    assertTrue(this.deadband.shouldSend(SCMPacketType.T1, Double.NaN));
+  }
+}
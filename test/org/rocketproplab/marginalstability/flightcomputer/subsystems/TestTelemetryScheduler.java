@@ -0,0 +1,184 @@
+package org.rocketproplab.marginalstability.flightcomputer.subsystems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+
+public class TestTelemetryScheduler {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private TestTime           time;
+  private List<Object>       sent;
+  private TelemetryScheduler scheduler;
+
+  @Before
+  public void init() {
+    this.time      = new TestTime();
+    this.sent      = new ArrayList<>();
+    this.scheduler = new TelemetryScheduler((o, source) -> this.sent.add(o), this.time);
+  }
+
+  private SCMPacket packet(SCMPacketType type, String data) {
+    return new SCMPacket(type, data);
+  }
+
+  @Test
+  public void packetsAreHeldUntilUpdate() {
+    this.scheduler.sendPacket(this.packet(SCMPacketType.P0, "00001"), PacketSources.CommandBox);
+    assertEquals(0, this.sent.size());
+    this.scheduler.update();
+    assertEquals(1, this.sent.size());
+  }
+
+  @Test
+  public void otherDestinationsPassStraightThrough() {
+    SCMPacket packet = this.packet(SCMPacketType.V0, "00001");
+    this.scheduler.sendPacket(packet, PacketSources.EngineControllerUnit);
+    assertEquals(1, this.sent.size());
+    assertSame(packet, this.sent.get(0));
+  }
+
+  @Test
+  public void newestValueReplacesUnsentValue() {
+    SCMPacket newest = this.packet(SCMPacketType.P0, "00002");
+    this.scheduler.sendPacket(this.packet(SCMPacketType.P0, "00001"), PacketSources.CommandBox);
+    this.scheduler.sendPacket(newest, PacketSources.CommandBox);
+    this.scheduler.update();
+    assertEquals(1, this.sent.size());
+    assertSame(newest, this.sent.get(0));
+    assertEquals(1, this.scheduler.getCoalescedCount(SCMPacketType.P0));
+  }
+
+  @Test
+  public void eventsAreQueuedNotCoalesced() {
+    this.scheduler.sendPacket(this.packet(SCMPacketType.ER, "00001"), PacketSources.CommandBox);
+    this.scheduler.sendPacket(this.packet(SCMPacketType.ER, "00002"), PacketSources.CommandBox);
+    this.scheduler.update();
+    assertEquals(2, this.sent.size());
+    assertEquals("00001", ((SCMPacket) this.sent.get(0)).getData());
+    assertEquals("00002", ((SCMPacket) this.sent.get(1)).getData());
+  }
+
+  @Test
+  public void criticalEventsAreNeverDropped() {
+    for (int i = 0; i < 20; i++) {
+      this.scheduler.sendPacket(this.packet(SCMPacketType.ER, String.format("%02X001", i)), PacketSources.CommandBox);
+    }
+    for (int i = 0; i < 20; i++) {
+      this.time.time += 1;
+      this.scheduler.update();
+    }
+    assertEquals(20, this.sent.size());
+    assertEquals(this.packet(SCMPacketType.ER, "13001"), this.sent.get(19));
+    assertEquals(0, this.scheduler.getCoalescedCount(SCMPacketType.ER));
+  }
+
+  @Test
+  public void keyedChannelReplacesWaitingPacketOfKey() {
+    this.scheduler.sendPacket(this.packet(SCMPacketType.LS, "0F001"), PacketSources.CommandBox);
+    this.scheduler.sendPacket(this.packet(SCMPacketType.LS, "1F001"), PacketSources.CommandBox);
+    this.scheduler.sendPacket(this.packet(SCMPacketType.LS, "0F002"), PacketSources.CommandBox);
+    this.scheduler.update();
+    assertEquals(2, this.sent.size());
+    assertEquals(this.packet(SCMPacketType.LS, "0F002"), this.sent.get(0));
+    assertEquals(this.packet(SCMPacketType.LS, "1F001"), this.sent.get(1));
+    assertEquals(1, this.scheduler.getCoalescedCount(SCMPacketType.LS));
+  }
+
+  @Test
+  public void everyCounterOfEveryLinkIsKept() {
+    String codes = "IOFCMEVDX";
+    for (int link = 0; link < 2; link++) {
+      for (int i = 0; i < codes.length(); i++) {
+        this.scheduler.sendPacket(this.packet(SCMPacketType.LS, link + "" + codes.charAt(i) + "001"),
+            PacketSources.CommandBox);
+      }
+    }
+    for (int i = 0; i < 20; i++) {
+      this.time.time += 1;
+      this.scheduler.update();
+    }
+    assertEquals(2 * codes.length(), this.sent.size());
+    assertEquals(0, this.scheduler.getCoalescedCount(SCMPacketType.LS));
+  }
+
+  @Test
+  public void higherPriorityIsSentFirst() {
+    this.scheduler.sendPacket(this.packet(SCMPacketType.P0, "00001"), PacketSources.CommandBox);
+    this.scheduler.sendPacket(this.packet(SCMPacketType.ER, "00001"), PacketSources.CommandBox);
+    this.scheduler.sendPacket(this.packet(SCMPacketType.V0, "00001"), PacketSources.CommandBox);
+    this.scheduler.update();
+    assertEquals(SCMPacketType.ER, ((SCMPacket) this.sent.get(0)).getID());
+    assertEquals(SCMPacketType.V0, ((SCMPacket) this.sent.get(1)).getID());
+    assertEquals(SCMPacketType.P0, ((SCMPacket) this.sent.get(2)).getID());
+  }
+
+  @Test
+  public void channelRateIsRespected() {
+    this.scheduler.setChannel(SCMPacketType.P0, TelemetryScheduler.PRIORITY_SENSOR, 2);
+    this.scheduler.sendPacket(this.packet(SCMPacketType.P0, "00001"), PacketSources.CommandBox);
+    this.scheduler.update();
+    this.scheduler.sendPacket(this.packet(SCMPacketType.P0, "00002"), PacketSources.CommandBox);
+    this.time.time = 0.25;
+    this.scheduler.update();
+    assertEquals(1, this.sent.size());
+    this.time.time = 0.5;
+    this.scheduler.update();
+    assertEquals(2, this.sent.size());
+  }
+
+  @Test
+  public void byteBudgetLimitsPacketsPerUpdate() {
+    int burstPackets = (int) (Settings.TELEMETRY_BURST_BYTES / SCMPacket.NUM_CHARS_PACKET);
+    for (int i = 0; i < 8; i++) {
+      this.scheduler.sendPacket(this.packet(SCMPacketType.ER, "00001"), PacketSources.CommandBox);
+      this.scheduler.sendPacket(this.packet(SCMPacketType.WA, "00001"), PacketSources.CommandBox);
+    }
+    this.scheduler.update();
+    assertEquals(burstPackets, this.sent.size());
+
+    this.time.time = SCMPacket.NUM_CHARS_PACKET / Settings.TELEMETRY_BYTES_PER_SECOND;
+    this.scheduler.update();
+    assertEquals(burstPackets + 1, this.sent.size());
+  }
+
+  @Test
+  public void equalPrioritiesTakeTurns() {
+    this.scheduler.setChannel(SCMPacketType.P0, TelemetryScheduler.PRIORITY_SENSOR, 0);
+    this.scheduler.setChannel(SCMPacketType.P1, TelemetryScheduler.PRIORITY_SENSOR, 0);
+    double packetTime = SCMPacket.NUM_CHARS_PACKET / Settings.TELEMETRY_BYTES_PER_SECOND;
+    this.scheduler.update();
+    this.time.time = 1;
+    for (int i = 0; i < 4; i++) {
+      this.scheduler.sendPacket(this.packet(SCMPacketType.P0, "00001"), PacketSources.CommandBox);
+      this.scheduler.sendPacket(this.packet(SCMPacketType.P1, "00001"), PacketSources.CommandBox);
+      this.time.time += packetTime;
+      this.scheduler.update();
+    }
+    int p0 = 0;
+    for (Object packet : this.sent) {
+      if (((SCMPacket) packet).getID() == SCMPacketType.P0) {
+        p0++;
+      }
+    }
+    assertEquals(this.sent.size() - p0, p0);
+  }
+}
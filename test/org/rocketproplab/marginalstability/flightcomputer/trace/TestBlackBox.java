@@ -0,0 +1,255 @@
+package org.rocketproplab.marginalstability.flightcomputer.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rocketproplab.marginalstability.flightcomputer.Errors;
+import org.rocketproplab.marginalstability.flightcomputer.FlightComputer;
+import org.rocketproplab.marginalstability.flightcomputer.Settings;
+import org.rocketproplab.marginalstability.flightcomputer.Time;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketRouter;
+import org.rocketproplab.marginalstability.flightcomputer.comm.PacketSources;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacket;
+import org.rocketproplab.marginalstability.flightcomputer.comm.SCMPacketType;
+import org.rocketproplab.marginalstability.flightcomputer.comm.TestPacketListener;
+import org.rocketproplab.marginalstability.flightcomputer.subsystems.Telemetry;
+
+public class TestBlackBox {
+
+  private class TestTime extends Time {
+    public double time = 0;
+
+    @Override
+    public double getSystemTime() {
+      return this.time;
+    }
+  }
+
+  private Path     directory;
+  private TestTime time;
+  private BlackBox blackBox;
+
+  @Before
+  public void init() throws IOException {
+    this.directory = Files.createTempDirectory("blackbox");
+    this.time      = new TestTime();
+    this.blackBox  = new BlackBox(4, this.time);
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    try (Stream<Path> files = Files.list(this.directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(this.directory);
+  }
+
+  @Test
+  public void ringKeepsMostRecentEvents() {
+    for (int i = 0; i < 6; i++) {
+      this.blackBox.trace(TraceType.SUBSYSTEM_ENTER, i, 0);
+    }
+    List<TraceEvent> events = this.blackBox.getRecentEvents(10);
+    assertEquals(4, events.size());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(i + 2, events.get(i).getArgumentA());
+    }
+    assertEquals(2, this.blackBox.getRecentEvents(2).size());
+    assertEquals(5, this.blackBox.getRecentEvents(2).get(1).getArgumentA());
+  }
+
+  @Test
+  public void eventsArePackedIntoPrimitives() {
+    this.blackBox.trace(TraceType.COMMAND_EXECUTE, 0x1234567, -5);
+    TraceEvent event = this.blackBox.getRecentEvents(1).get(0);
+    assertEquals(TraceType.COMMAND_EXECUTE, event.getType());
+    assertEquals(0x234567, event.getArgumentA());
+    assertEquals(-5, event.getArgumentB());
+    assertEquals(Thread.currentThread().getId(), event.getThreadId());
+    assertEquals("COMMAND_EXECUTE(2311527, -5)", event.toString());
+  }
+
+  @Test
+  public void dumpContainsEveryThread() throws IOException, InterruptedException {
+    this.blackBox.trace(TraceType.SUBSYSTEM_ENTER, 1, 0);
+    Thread other = new Thread(() -> {
+      this.blackBox.trace(TraceType.PACKET_ROUTED, 2, 3);
+      this.blackBox.trace(TraceType.SUBSYSTEM_EXIT, 4, 1);
+    });
+    other.start();
+    other.join();
+
+    Path file = this.directory.resolve("dump.bin");
+    this.blackBox.dump(file);
+    List<TraceEvent> events = BlackBox.read(file);
+    assertEquals(3, events.size());
+    assertEquals(TraceType.SUBSYSTEM_ENTER, events.get(0).getType());
+    assertEquals(TraceType.PACKET_ROUTED, events.get(1).getType());
+    assertEquals(3, events.get(1).getArgumentB());
+    assertEquals(TraceType.SUBSYSTEM_EXIT, events.get(2).getType());
+    assertNotEquals(events.get(0).getThreadId(), events.get(1).getThreadId());
+    assertTrue(events.get(1).getTime() <= events.get(2).getTime());
+  }
+
+  @Test
+  public void dumpIsRateLimited() throws IOException {
+    assertNull(this.blackBox.dumpIfDue());
+    this.blackBox.setDumpDirectory(this.directory);
+    this.blackBox.trace(TraceType.ERROR, 0, 1);
+
+    Path first = this.blackBox.dumpIfDue();
+    assertTrue(Files.exists(first));
+    this.time.time = Settings.BLACK_BOX_DUMP_PERIOD / 2;
+    assertNull(this.blackBox.dumpIfDue());
+    this.time.time = Settings.BLACK_BOX_DUMP_PERIOD;
+    Path second = this.blackBox.dumpIfDue();
+    assertTrue(Files.exists(second));
+    assertNotEquals(first, second);
+  }
+
+  @Test
+  public void dumpsOfEarlierBootsAreKept() throws IOException {
+    this.blackBox.setDumpDirectory(this.directory);
+    this.blackBox.trace(TraceType.ERROR, 0, 1);
+    Path first = this.blackBox.dumpIfDue();
+
+    BlackBox nextBoot = new BlackBox(4, this.time);
+    nextBoot.setDumpDirectory(this.directory);
+    nextBoot.trace(TraceType.ERROR, 0, 2);
+    Path second = nextBoot.dumpIfDue();
+
+    assertNotEquals(first, second);
+    assertEquals(1, BlackBox.read(first).get(0).getArgumentB());
+    assertEquals(2, BlackBox.read(second).get(0).getArgumentB());
+  }
+
+  @Test
+  public void repeatedFailuresAreLoggedOncePerPeriod() {
+    List<LogRecord> records = new ArrayList<>();
+    Logger          logger  = Logger.getAnonymousLogger();
+    logger.setUseParentHandlers(false);
+    logger.addHandler(new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    FlightComputer flightComputer = new FlightComputer(new Telemetry(logger, new PacketRouter()));
+    flightComputer.setBlackBox(this.blackBox);
+    flightComputer.registerSubsystem(() -> {
+      throw new IllegalStateException();
+    });
+
+    flightComputer.tick();
+    flightComputer.tick();
+    assertEquals(1, countTraces(records));
+    this.time.time = Settings.BLACK_BOX_DUMP_PERIOD;
+    flightComputer.tick();
+    assertEquals(2, countTraces(records));
+  }
+
+  private static long countTraces(List<LogRecord> records) {
+    return records.stream().filter(record -> record.getMessage().startsWith("Trace before error")).count();
+  }
+
+  @Test
+  public void summaryListsEventsOldestFirst() {
+    this.blackBox.trace(TraceType.SUBSYSTEM_ENTER, 1, 0);
+    this.blackBox.trace(TraceType.SUBSYSTEM_EXIT, 1, 1);
+    assertEquals("SUBSYSTEM_ENTER(1, 0) SUBSYSTEM_EXIT(1, 1)", this.blackBox.summarize(2));
+  }
+
+  @Test
+  public void failingSubsystemDumpsTheBlackBox() throws IOException {
+    PacketRouter                  router         = new PacketRouter();
+    TestPacketListener<SCMPacket> listener       = new TestPacketListener<>();
+    FlightComputer                flightComputer = new FlightComputer(new Telemetry(Logger.getLogger("Test"), router));
+    router.addListener(listener, SCMPacket.class, PacketSources.CommandBox);
+    flightComputer.setBlackBox(this.blackBox);
+    this.blackBox.setDumpDirectory(this.directory);
+    flightComputer.registerSubsystem(() -> {
+      throw new IllegalStateException();
+    });
+    flightComputer.tick();
+    assertEquals(0, this.dumpCount());
+    assertEquals(1, this.blackBox.writePending());
+
+    List<TraceEvent> events = this.blackBox.getRecentEvents(3);
+    assertEquals(TraceType.SUBSYSTEM_ENTER, events.get(0).getType());
+    assertEquals(TraceType.SUBSYSTEM_EXIT, events.get(1).getType());
+    assertEquals(1, events.get(1).getArgumentB());
+    assertEquals(TraceType.ERROR, events.get(2).getType());
+    assertEquals(Errors.TOP_LEVEL_EXCEPTION.ordinal(), events.get(2).getArgumentB());
+    assertEquals(3, BlackBox.read(this.directory.resolve("blackbox-0.bin")).size());
+    assertEquals(SCMPacketType.ER, listener.lastPacket.getID());
+  }
+
+  private long dumpCount() throws IOException {
+    try (Stream<Path> files = Files.list(this.directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void writerThreadWritesQueuedDumps() throws IOException, InterruptedException {
+    this.blackBox.setDumpDirectory(this.directory);
+    this.blackBox.trace(TraceType.ERROR, 0, 1);
+    assertTrue(this.blackBox.dumpInBackground(e -> {
+      throw new AssertionError(e);
+    }));
+    this.blackBox.trace(TraceType.ERROR, 0, 2);
+    this.blackBox.start();
+    Path file     = this.directory.resolve("blackbox-0.bin");
+    long deadline = System.currentTimeMillis() + 5000;
+    while (this.dumpCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    this.blackBox.stop();
+    List<TraceEvent> events = BlackBox.read(file);
+    assertEquals(1, events.size());
+    assertEquals(1, events.get(0).getArgumentB());
+  }
+
+  @Test
+  public void failedBackgroundDumpIsReported() {
+    List<IOException> failures = new ArrayList<>();
+    this.blackBox.setDumpDirectory(this.directory.resolve("missing"));
+    this.blackBox.trace(TraceType.ERROR, 0, 1);
+    assertTrue(this.blackBox.dumpInBackground(failures::add));
+    assertEquals(1, this.blackBox.writePending());
+    assertEquals(1, failures.size());
+  }
+
+  @Test
+  public void nothingIsQueuedWithoutDirectory() {
+    assertFalse(this.blackBox.dumpInBackground(e -> {
+    }));
+    assertEquals(0, this.blackBox.writePending());
+  }
+}
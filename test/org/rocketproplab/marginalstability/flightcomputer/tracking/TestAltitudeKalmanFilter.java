@@ -0,0 +1,84 @@
+package org.rocketproplab.marginalstability.flightcomputer.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAltitudeKalmanFilter {
+  private static final double DT = 0.01;
+
+  private AltitudeKalmanFilter filter;
+
+  @Before
+  public void before() {
+    this.filter = new AltitudeKalmanFilter(1, 100);
+  }
+
+  @Test
+  public void filterStartsAtRestAtZero() {
+    assertEquals(0, this.filter.getPosition(), 0);
+    assertEquals(0, this.filter.getVelocity(), 0);
+    assertEquals(0, this.filter.getAcceleration(), 0);
+  }
+
+  @Test
+  public void predictIntegratesVelocityAndAcceleration() {
+    this.filter.reset(10, 1);
+    this.filter.updateAcceleration(2, 0);
+    this.filter.predict(1);
+    assertEquals(11, this.filter.getPosition(), 1e-9);
+    assertEquals(2, this.filter.getVelocity(), 1e-9);
+  }
+
+  @Test
+  public void nonPositiveTimeStepIsIgnored() {
+    this.filter.predict(0);
+    this.filter.predict(-1);
+    assertEquals(100, this.filter.getCovariance(0, 0), 0);
+  }
+
+  @Test
+  public void positionConvergesToConstantAltitude() {
+    for (int i = 0; i < 1000; i++) {
+      this.filter.predict(DT);
+      this.filter.updatePosition(500, 4);
+    }
+    assertEquals(500, this.filter.getPosition(), 0.1);
+    assertEquals(0, this.filter.getVelocity(), 0.1);
+  }
+
+  @Test
+  public void velocityEstimatedFromClimbingAltitude() {
+    for (int i = 0; i < 2000; i++) {
+      this.filter.predict(DT);
+      this.filter.updatePosition(30 * i * DT, 1);
+    }
+    assertEquals(30, this.filter.getVelocity(), 0.5);
+  }
+
+  @Test
+  public void accelerationUpdatesDriveVelocity() {
+    this.filter.reset(0, 1);
+    for (int i = 0; i < 100; i++) {
+      this.filter.predict(DT);
+      this.filter.updateAcceleration(10, 0.01);
+    }
+    assertEquals(10, this.filter.getVelocity(), 0.5);
+    assertEquals(10, this.filter.getAcceleration(), 0.1);
+  }
+
+  @Test
+  public void updateReducesVarianceAndKeepsSymmetry() {
+    this.filter.predict(DT);
+    double before = this.filter.getCovariance(0, 0);
+    this.filter.updatePosition(3, 4);
+    assertTrue(this.filter.getCovariance(0, 0) < before);
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        assertEquals(this.filter.getCovariance(row, col), this.filter.getCovariance(col, row), 1e-9);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package org.rocketproplab.marginalstability.flightcomputer.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAttitudeEstimator {
+  private static final double DT = 1 / 952.0;
+
+  private AttitudeEstimator estimator;
+
+  @Before
+  public void before() {
+    this.estimator = new AttitudeEstimator(0.05);
+  }
+
+  @Test
+  public void firstSampleAlignsWithGravity() {
+    assertFalse(this.estimator.isInitialized());
+    this.estimator.update(0, 0, 0, 1, 0, 0, DT);
+    assertTrue(this.estimator.isInitialized());
+    double[] gravity = { 1, 0, 0 };
+    this.estimator.toWorldFrame(gravity, 0);
+    assertEquals(0, gravity[0], 1e-9);
+    assertEquals(0, gravity[1], 1e-9);
+    assertEquals(1, gravity[2], 1e-9);
+    assertEquals(Math.PI / 2, this.estimator.getTiltAngle(), 1e-9);
+  }
+
+  @Test
+  public void upsideDownSampleAlignsWithGravity() {
+    this.estimator.update(0, 0, 0, 0, 0, -1, DT);
+    double[] gravity = { 0, 0, -1 };
+    this.estimator.toWorldFrame(gravity, 0);
+    assertEquals(1, gravity[2], 1e-9);
+  }
+
+  @Test
+  public void gyroIntegratesRotation() {
+    AttitudeEstimator gyroOnly = new AttitudeEstimator(0);
+    gyroOnly.update(0, 0, 0, 0, 0, 1, DT);
+    for (int i = 0; i < 952; i++) {
+      gyroOnly.update(0.5, 0, 0, 0, 0, 1, DT);
+    }
+    assertEquals(0.5, gyroOnly.getTiltAngle(), 1e-3);
+    assertTrue(gyroOnly.isTumbling(0.4));
+    assertFalse(gyroOnly.isTumbling(0.6));
+  }
+
+  @Test
+  public void accelerometerCorrectsGyroDrift() {
+    this.estimator.update(0, 0, 0, 0, 0, 1, DT);
+    for (int i = 0; i < 952 * 10; i++) {
+      this.estimator.update(0.01, 0, 0, 0, 0, 1, DT);
+    }
+    assertEquals(0, this.estimator.getTiltAngle(), 0.05);
+  }
+
+  @Test
+  public void orientationStaysNormalized() {
+    this.estimator.update(0, 0, 0, 0, 0, 1, DT);
+    for (int i = 0; i < 1000; i++) {
+      this.estimator.update(3, -2, 1, 0.1, 0.2, 1, DT);
+    }
+    assertEquals(1, this.estimator.getOrientation().getNorm(), 1e-9);
+  }
+}